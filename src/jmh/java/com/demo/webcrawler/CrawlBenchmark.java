@@ -0,0 +1,93 @@
+package com.demo.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full crawl of a generated site served by an in-process HTTP server, time to crawl all the pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CrawlBenchmark {
+
+    @Param({"500"})
+    private int pages;
+
+    @Param({"serial", "concurrent", "pipeline"})
+    private String engine;
+
+    @Param({"jsoup", "streaming"})
+    private String extractor;
+
+    private GeneratedSite site;
+    private String baseUrl;
+    private CrawlerConfig config;
+
+    @Setup
+    public void setUp() throws IOException {
+        site = new GeneratedSite(pages, 50);
+        baseUrl = site.start();
+        config = new CrawlerConfig()
+                .withMaxSearchDepth(site.depth())
+                .withWorkers(CrawlerConfig.DEFAULT_WORKERS)
+                .withPageFetcher(new PooledHttpPageFetcher(5000, 5000))
+                .withLinkExtractor("jsoup".equals(extractor) ? new JsoupLinkExtractor() : new StreamingLinkExtractor());
+    }
+
+    @TearDown
+    public void tearDown() {
+        site.stop();
+    }
+
+    @Benchmark
+    public long crawl() {
+        Crawler crawler = createCrawler();
+        CountingSink sink = new CountingSink();
+        crawler.createSiteMap(baseUrl, sink);
+        return sink.entries;
+    }
+
+    private Crawler createCrawler() {
+        switch (engine) {
+            case "serial":
+                return new WebCrawler(config);
+            case "concurrent":
+                return new ConcurrentWebCrawler(config);
+            default:
+                return new PipelinedWebCrawler(config);
+        }
+    }
+
+    /**
+     * Keeps the site-map out of the measurement.
+     */
+    private static class CountingSink implements SiteMapSink {
+        private long entries;
+
+        @Override
+        public synchronized void add(SiteMapEntry entry) {
+            entries++;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
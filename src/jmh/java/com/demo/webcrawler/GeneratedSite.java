@@ -0,0 +1,121 @@
+package com.demo.webcrawler;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Synthetic site for benchmarks, pages look like a typical CMS page (head with css/js, navigation, content, footer).
+ *
+ * Page i links to pages 2i+1 and 2i+2 (so the whole site is reachable in log2(N) levels), back to the home page,
+ * to a few static resources shared by all pages and to external sites.
+ */
+class GeneratedSite {
+    private final int pages;
+    private final int linksPerPage;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    GeneratedSite(int pages, int linksPerPage) {
+        this.pages = pages;
+        this.linksPerPage = linksPerPage;
+    }
+
+    static String pagePath(int page) {
+        return page == 0 ? "/" : "/page" + page;
+    }
+
+    /**
+     * Max search depth reaching every page of the site.
+     */
+    int depth() {
+        return 32 - Integer.numberOfLeadingZeros(pages);
+    }
+
+    String page(int page) {
+        StringBuilder html = new StringBuilder(linksPerPage * 200);
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n")
+                .append("<meta charset=\"utf-8\">\n<title>Page ").append(page).append("</title>\n")
+                .append("<link rel=\"stylesheet\" type=\"text/css\" href=\"/static/main.css\">\n")
+                .append("<link rel=\"stylesheet\" type=\"text/css\" href=\"/static/page").append(page % 10).append(".css\">\n")
+                .append("<link rel=\"icon\" href=\"/favicon.ico\">\n")
+                .append("<script type=\"text/javascript\" src=\"/static/main.js\"></script>\n")
+                .append("<script>var config = {page: ").append(page).append(", markup: '<a href=\"/not-a-link\">'};</script>\n")
+                .append("<style>body { font-family: sans-serif; } nav > a { padding: 4px; }</style>\n")
+                .append("</head>\n<body>\n<!-- navigation -->\n<nav>\n")
+                .append("<a href=\"/\">Home</a>\n");
+        for (int child = 2 * page + 1; child <= 2 * page + 2 && child < pages; child++) {
+            html.append("<a href=\"").append(pagePath(child)).append("\">Page ").append(child).append("</a>\n");
+        }
+        html.append("</nav>\n<div class=\"content\">\n");
+        for (int i = 0; i < linksPerPage; i++) {
+            html.append("<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor &amp; incididunt ut labore.</p>\n");
+            switch (i % 5) {
+                case 0:
+                    html.append("<a href=\"#section").append(i).append("\">Section ").append(i).append("</a>\n");
+                    break;
+                case 1:
+                    html.append("<img src=\"/static/images/image").append(i).append(".png\" alt=\"Image ").append(i).append("\">\n");
+                    break;
+                case 2:
+                    html.append("<a href=\"https://external").append(i).append(".example.com/article?id=").append(i).append("&amp;ref=crawler\">External</a>\n");
+                    break;
+                case 3:
+                    html.append("<a href=\"//cdn.example.com/files/file").append(i).append(".pdf\">Download</a>\n");
+                    break;
+                default:
+                    html.append("<a href=\"").append(pagePath(i % pages)).append("\">Related</a>\n");
+            }
+        }
+        html.append("</div>\n<footer><a href=\"https://twitter.com/example\">Twitter</a></footer>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    /**
+     * Serves the site on a random local port.
+     *
+     * @return base url of the site
+     */
+    String start() throws IOException {
+        byte[][] content = new byte[pages][];
+        for (int page = 0; page < pages; page++) {
+            content[page] = page(page).getBytes(StandardCharsets.UTF_8);
+        }
+
+        // JDK server writes headers and body separately, without TCP_NODELAY every keep-alive request waits for a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        executor = Executors.newFixedThreadPool(16);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 128);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int page = "/".equals(path) ? 0 : path.startsWith("/page") ? parsePage(path.substring(5)) : -1;
+            byte[] body = page >= 0 && page < pages ? content[page] : new byte[0];
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(body.length > 0 ? 200 : 404, body.length > 0 ? body.length : -1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static int parsePage(String page) {
+        try {
+            return Integer.parseInt(page);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.demo.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding links in a page, Jsoup page model + selectors vs single pass streaming tokenizer.
+ * Run with -prof gc to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkExtractionBenchmark {
+
+    @Param({"jsoup", "streaming"})
+    private String extractor;
+
+    // ~25KB and ~500KB pages
+    @Param({"100", "2000"})
+    private int linksPerPage;
+
+    private LinkExtractor linkExtractor;
+    private FetchedPage fetchedPage;
+
+    @Setup
+    public void setUp() {
+        linkExtractor = "jsoup".equals(extractor) ? new JsoupLinkExtractor() : new StreamingLinkExtractor();
+        byte[] body = new GeneratedSite(linksPerPage, linksPerPage).page(1).getBytes(StandardCharsets.UTF_8);
+        fetchedPage = new FetchedPage("http://localhost/page1", 200, "text/html; charset=utf-8", body);
+    }
+
+    @Benchmark
+    public PageLinks extractLinks() throws IOException {
+        return linkExtractor.extract(fetchedPage);
+    }
+}
@@ -0,0 +1,64 @@
+package com.demo.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving raw href values of a page into site-map urls (createChildPageUrl / getBaseUrl, filtering and sorting).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlResolutionBenchmark {
+    private static final String PAGE_URL = "http://some.domain/parent/page";
+    private static final int LINKS = 200;
+
+    private List<String> hrefs;
+
+    @Setup
+    public void setUp() {
+        hrefs = new ArrayList<>(LINKS);
+        for (int i = 0; i < LINKS; i++) {
+            switch (i % 6) {
+                case 0:
+                    hrefs.add("/section/page" + i);// relative to the root
+                    break;
+                case 1:
+                    hrefs.add("child" + i);// relative to the page
+                    break;
+                case 2:
+                    hrefs.add("http://some.domain/absolute/page" + i);
+                    break;
+                case 3:
+                    hrefs.add("https://external" + i + ".com/article?id=" + i);
+                    break;
+                case 4:
+                    hrefs.add("//cdn.domain/file" + i + ".js");// without protocol
+                    break;
+                default:
+                    hrefs.add("#anchor" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public PageLinks resolveLinks() {
+        return PageLinks.of(PAGE_URL, hrefs, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+    }
+}
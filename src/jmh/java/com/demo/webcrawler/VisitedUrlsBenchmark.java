@@ -0,0 +1,86 @@
+package com.demo.webcrawler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Visited urls set operations at crawl scale, a set holding 1M urls is probed with known and new urls.
+ * Run with -prof gc to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class VisitedUrlsBenchmark {
+    private static final int URLS = 1000000;
+
+    @Param({"strings", "fingerprints", "off-heap", "bloom-filter"})
+    private String visited;
+
+    private VisitedUrls visitedUrls;
+    private String[] knownUrls;
+    private String[] newUrls;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        visitedUrls = createVisitedUrls();
+        knownUrls = new String[URLS];
+        newUrls = new String[URLS];
+        for (int i = 0; i < URLS; i++) {
+            knownUrls[i] = "http://some.domain/section" + (i % 100) + "/page" + i;
+            newUrls[i] = "http://some.domain/section" + (i % 100) + "/other" + i;
+            visitedUrls.add(knownUrls[i]);
+        }
+    }
+
+    private VisitedUrls createVisitedUrls() {
+        switch (visited) {
+            case "strings":
+                return new HashSetVisitedUrls();
+            case "fingerprints":
+                return new FingerprintVisitedUrls(URLS, false);
+            case "off-heap":
+                return new FingerprintVisitedUrls(URLS, true);
+            default:
+                return new BloomFilteredVisitedUrls(new FingerprintVisitedUrls(URLS, false), URLS);
+        }
+    }
+
+    private int nextIndex() {
+        next = next + 1 == URLS ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public boolean containsKnownUrl() {
+        return visitedUrls.contains(knownUrls[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean containsNewUrl() {
+        return visitedUrls.contains(newUrls[nextIndex()]);
+    }
+
+    /**
+     * Claiming a url already in the set, the common case when crawling (most links point to visited pages).
+     */
+    @Benchmark
+    public boolean addKnownUrl() {
+        return visitedUrls.add(knownUrls[nextIndex()]);
+    }
+}
@@ -0,0 +1,199 @@
+package com.demo.webcrawler;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a site-map written by BinarySiteMapSink, the file is memory mapped so a huge crawl loads at disk speed.
+ *
+ * Entries are decoded as they are read, only the string table is kept in memory.
+ * Copying to another sink converts the file, e.g. to the text format (FileSiteMapSink),
+ * sitemaps.org xml (SitemapXmlSiteMapSink) or JSON Lines (JsonLinesSiteMapSink).
+ */
+public class BinarySiteMapFile implements Closeable {
+    private static final int REGION_SHIFT = 30;// files are mapped in 1GB regions
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+    private static final SiteMapEntry.Type[] TYPES = SiteMapEntry.Type.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final long size;
+
+    private BinarySiteMapFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.regions = new MappedByteBuffer[(int) ((size + REGION_MASK) >>> REGION_SHIFT)];
+        for (int i = 0; i < regions.length; i++) {
+            long start = (long) i << REGION_SHIFT;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_MASK + 1, size - start));
+        }
+    }
+
+    public static BinarySiteMapFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            BinarySiteMapFile siteMapFile = new BinarySiteMapFile(channel);
+            siteMapFile.checkHeader();
+            return siteMapFile;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Converts a binary site-map, e.g. convert(crawlFile, new JsonLinesSiteMapSink(writer)). The sink is not closed.
+     *
+     * @return number of entries
+     */
+    public static long convert(Path binaryFile, SiteMapSink siteMapSink) throws IOException {
+        try (BinarySiteMapFile siteMapFile = open(binaryFile)) {
+            return siteMapFile.copyTo(siteMapSink);
+        }
+    }
+
+    /**
+     * @return number of entries
+     */
+    public long copyTo(SiteMapSink siteMapSink) throws IOException {
+        WebCrawler.assertNotNull(siteMapSink, "Site-map sink should not be null.");
+        return forEach(siteMapSink::add);
+    }
+
+    /**
+     * Reads the entries in the order they were written, a record cut by a crawl that died is ignored.
+     *
+     * @return number of entries
+     */
+    public long forEach(Consumer<SiteMapEntry> consumer) throws IOException {
+        Reader reader = new Reader(BinarySiteMapSink.MAGIC.length + 1);
+        List<String> strings = new ArrayList<>();
+        long entries = 0;
+        while (reader.position < size) {
+            try {
+                int tag = reader.readByte();
+                if (tag == BinarySiteMapSink.STRING) {
+                    strings.add(reader.readString((int) reader.readVarLong()));
+                } else if (tag >= BinarySiteMapSink.ENTRY && tag < BinarySiteMapSink.ENTRY + TYPES.length) {
+                    consumer.accept(readEntry(TYPES[tag - BinarySiteMapSink.ENTRY], reader, strings));
+                    entries++;
+                } else {
+                    throw new IOException("Corrupted site-map file, unknown record " + tag + " at " + (reader.position - 1));
+                }
+            } catch (EOFException e) {
+                break;// last record was not written completely
+            }
+        }
+        return entries;
+    }
+
+    private static SiteMapEntry readEntry(SiteMapEntry.Type type, Reader reader, List<String> strings) throws IOException {
+        String url = strings.get((int) reader.readVarLong());
+        String parentUrl = string(strings, reader.readVarLong() - 1);
+        int depth = (int) reader.readVarLong() - 1;
+        int statusCode = (int) reader.readVarLong() - 1;
+        long fetchMillis = reader.readVarLong() - 1;
+        long references = reader.readVarLong();
+        String message = null;
+        String contentType = null;
+        long fileSize = SiteMapEntry.UNKNOWN;
+        if (type == SiteMapEntry.Type.ERROR) {
+            message = string(strings, reader.readVarLong() - 1);
+        } else if (type == SiteMapEntry.Type.FILE) {
+            contentType = string(strings, reader.readVarLong() - 1);
+            fileSize = reader.readVarLong() - 1;
+        }
+        return SiteMapEntry.restore(type, url, message, references, contentType, fileSize, depth, parentUrl, statusCode, fetchMillis);
+    }
+
+    private static String string(List<String> strings, long id) {
+        return id < 0 ? null : strings.get((int) id);
+    }
+
+    private void checkHeader() throws IOException {
+        Reader reader = new Reader(0);
+        byte[] magic = new byte[BinarySiteMapSink.MAGIC.length];
+        try {
+            for (int i = 0; i < magic.length; i++) {
+                magic[i] = (byte) reader.readByte();
+            }
+            if (!Arrays.equals(magic, BinarySiteMapSink.MAGIC)) {
+                throw new IOException("Not a binary site-map file.");
+            }
+            int version = reader.readByte();
+            if (version != BinarySiteMapSink.VERSION) {
+                throw new IOException("Unsupported binary site-map version: " + version);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Not a binary site-map file.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();// mapped regions are released by the garbage collector
+    }
+
+    /**
+     * Position in the mapped file, records may span regions.
+     */
+    private class Reader {
+        private long position;
+
+        Reader(long position) {
+            this.position = position;
+        }
+
+        int readByte() throws EOFException {
+            if (position >= size) {
+                throw new EOFException();
+            }
+            int value = regions[(int) (position >>> REGION_SHIFT)].get((int) (position & REGION_MASK)) & 0xFF;
+            position++;
+            return value;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupted site-map file, malformed number at " + position);
+        }
+
+        String readString(int length) throws EOFException {
+            if (position + length > size) {
+                throw new EOFException();
+            }
+            byte[] bytes = new byte[length];
+            MappedByteBuffer region = regions[(int) (position >>> REGION_SHIFT)];
+            int offset = (int) (position & REGION_MASK);
+            if (offset + length <= region.limit()) {
+                ByteBuffer view = region.duplicate();
+                view.position(offset);
+                view.get(bytes);
+                position += length;
+            } else {
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = (byte) readByte();// string crossing two regions
+                }
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
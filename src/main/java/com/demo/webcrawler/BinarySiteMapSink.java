@@ -0,0 +1,109 @@
+package com.demo.webcrawler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact append-only site-map file, with all the fields of the entries (depth, parent, status code, fetch time),
+ * read back with BinarySiteMapFile and converted to the other formats from there.
+ *
+ * Layout: "WCSM" magic and a version byte, then records, each starting with a tag byte:
+ * - 0x01 string: varint length and UTF-8 bytes, defines the next string id (0, 1, 2...) right before the first record using it,
+ * - 0x10 + type ordinal entry: varint url id, parent id + 1 (0 = none), depth + 1, status code + 1, fetch millis + 1, references,
+ *   then the message id + 1 of an ERROR, or the content type id + 1 and size + 1 of a FILE.
+ * Urls, parents, messages and content types share the string table, so every string is stored once, however many entries use it.
+ * Numbers are unsigned LEB128 varints, unknown values (-1) take a single byte.
+ * Records are only ever appended, a crawl that dies leaves a readable file (a cut last record is ignored when reading).
+ */
+public class BinarySiteMapSink implements SiteMapSink {
+    static final byte[] MAGIC = {'W', 'C', 'S', 'M'};
+    static final int VERSION = 1;
+    static final int STRING = 0x01;
+    static final int ENTRY = 0x10;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream output;
+    // string ids, grows with the number of distinct urls like the visited urls of the crawl
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    public BinarySiteMapSink(Path outputFile) throws IOException {
+        this(Files.newOutputStream(outputFile));
+    }
+
+    public BinarySiteMapSink(OutputStream output) throws IOException {
+        WebCrawler.assertNotNull(output, "Output stream should not be null.");
+        this.output = new BufferedOutputStream(output, BUFFER_SIZE);
+        this.output.write(MAGIC);
+        this.output.write(VERSION);
+    }
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        try {
+            int urlId = stringId(entry.getUrl());
+            int parentId = entry.getParentUrl() != null ? stringId(entry.getParentUrl()) : -1;
+            int messageId = entry.getMessage() != null ? stringId(entry.getMessage()) : -1;
+            int contentTypeId = entry.getContentType() != null ? stringId(entry.getContentType()) : -1;
+
+            output.write(ENTRY + entry.getType().ordinal());
+            writeVarLong(urlId);
+            writeVarLong(parentId + 1);
+            writeVarLong(entry.getDepth() + 1);
+            writeVarLong(entry.getStatusCode() + 1);
+            writeVarLong(entry.getFetchMillis() + 1);
+            writeVarLong(entry.getReferences());
+            if (entry.getType() == SiteMapEntry.Type.ERROR) {
+                writeVarLong(messageId + 1);
+            } else if (entry.getType() == SiteMapEntry.Type.FILE) {
+                writeVarLong(contentTypeId + 1);
+                writeVarLong(entry.getSize() + 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes buffered records to the file, so readers see every entry added so far.
+     */
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    /**
+     * Id of the string, defined in the file when it is seen for the first time.
+     */
+    private int stringId(String value) throws IOException {
+        Integer id = strings.get(value);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.write(STRING);
+        writeVarLong(bytes.length);
+        output.write(bytes);
+        id = strings.size();
+        strings.put(value, id);
+        return id;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+}
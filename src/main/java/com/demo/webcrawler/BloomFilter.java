@@ -0,0 +1,64 @@
+package com.demo.webcrawler;
+
+/**
+ * Bloom filter over 64-bit fingerprints, k bit positions derived with double hashing. Not thread safe.
+ */
+class BloomFilter {
+    private static final int MAX_WORDS = Integer.MAX_VALUE - 8;// largest array most JVMs can allocate
+
+    private final long[] bits;
+    private final long numberOfBits;
+    private final int numberOfHashes;
+    private long insertions;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) throw new IllegalArgumentException("Expected insertions should be at least 1.");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) throw new IllegalArgumentException("False positive rate should be between 0 and 1.");
+        double optimalBits = Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        if (optimalBits > MAX_WORDS * 64.0) throw new IllegalArgumentException("Too many expected insertions for a Bloom filter: " + expectedInsertions + ".");
+        this.bits = new long[(int) Math.max(1, ((long) optimalBits + 63) / 64)];
+        this.numberOfBits = bits.length * 64L;
+        this.numberOfHashes = Math.max(1, (int) Math.round((double) numberOfBits / expectedInsertions * Math.log(2)));
+    }
+
+    void put(long fingerprint) {
+        int hash1 = (int) fingerprint;
+        int hash2 = (int) (fingerprint >>> 32);
+        for (int i = 1; i <= numberOfHashes; i++) {
+            long bit = bitIndex(hash1 + (long) i * hash2);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        insertions++;
+    }
+
+    boolean mightContain(long fingerprint) {
+        int hash1 = (int) fingerprint;
+        int hash2 = (int) (fingerprint >>> 32);
+        for (int i = 1; i <= numberOfHashes; i++) {
+            long bit = bitIndex(hash1 + (long) i * hash2);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Theoretical false positive rate for the number of insertions so far.
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) numberOfHashes * insertions / numberOfBits), numberOfHashes);
+    }
+
+    long memoryInBytes() {
+        return bits.length * (long) Long.BYTES;
+    }
+
+    int numberOfHashes() {
+        return numberOfHashes;
+    }
+
+    private long bitIndex(long combinedHash) {
+        return (combinedHash & Long.MAX_VALUE) % numberOfBits;
+    }
+}
@@ -0,0 +1,130 @@
+package com.demo.webcrawler;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Puts a Bloom filter in front of another VisitedUrls.
+ *
+ * Only contains() benefits: urls the filter has never seen are answered without touching the (larger, slower) visited set,
+ * "maybe seen" answers go to the visited set and the ones it rejects are counted as false positives.
+ * add(), the only operation the crawl engines use, always has to add the url to the visited set, there the filter
+ * only costs memory and a second hash. Worth it for callers checking many urls before claiming them.
+ */
+public class BloomFilteredVisitedUrls implements VisitedUrls {
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final VisitedUrls visitedUrls;
+    private final BloomFilter bloomFilter;
+    private long lookups;
+    private long filteredLookups;// answered by the Bloom filter alone
+    private long falsePositives;
+
+    public BloomFilteredVisitedUrls(VisitedUrls visitedUrls, long expectedUrls) {
+        this(visitedUrls, expectedUrls, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    public BloomFilteredVisitedUrls(VisitedUrls visitedUrls, long expectedUrls, double falsePositiveRate) {
+        WebCrawler.assertNotNull(visitedUrls, "Visited urls should not be null.");
+        this.visitedUrls = visitedUrls;
+        this.bloomFilter = new BloomFilter(expectedUrls, falsePositiveRate);
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        lock.lock();
+        try {
+            lookups++;
+            if (!bloomFilter.mightContain(fingerprint)) {
+                filteredLookups++;
+                bloomFilter.put(fingerprint);
+                return visitedUrls.add(url);
+            }
+            boolean added = visitedUrls.add(url);
+            if (added) {
+                falsePositives++;
+            }
+            return added;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        lock.lock();
+        try {
+            lookups++;
+            if (!bloomFilter.mightContain(fingerprint)) {
+                filteredLookups++;
+                return false;
+            }
+            boolean contains = visitedUrls.contains(url);
+            if (!contains) {
+                falsePositives++;
+            }
+            return contains;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        return visitedUrls.size();
+    }
+
+    public long lookups() {
+        lock.lock();
+        try {
+            return lookups;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long falsePositives() {
+        lock.lock();
+        try {
+            return falsePositives;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Measured false positive rate: filter said "maybe" for an url that was never visited.
+     */
+    public double falsePositiveRate() {
+        lock.lock();
+        try {
+            long negatives = filteredLookups + falsePositives;
+            return negatives == 0 ? 0 : (double) falsePositives / negatives;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double expectedFalsePositiveRate() {
+        lock.lock();
+        try {
+            return bloomFilter.expectedFalsePositiveRate();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("BloomFilteredVisitedUrls(lookups=%d, answeredByFilter=%d, falsePositives=%d, falsePositiveRate=%.4f, expected=%.4f, filter=%dKB/%d hashes, %s)",
+                    lookups, filteredLookups, falsePositives, falsePositiveRate(), bloomFilter.expectedFalsePositiveRate(),
+                    bloomFilter.memoryInBytes() / 1024, bloomFilter.numberOfHashes(), visitedUrls);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CrawlBudget spent by a single crawl, shared by all its workers.
+ *
+ * Every page asks for budget right before it is fetched (admit), frontier based engines ask when the page
+ * is taken from the frontier, so pages in progress always finish and nothing is cancelled half way.
+ * The clock starts when the tracker is created, i.e. when the crawl starts.
+ */
+class BudgetTracker {
+    static final String MAX_PAGES = "max pages";
+    static final String MAX_BYTES = "max bytes";
+    static final String MAX_TIME = "max time";
+    static final String MAX_PAGES_PER_HOST = "max pages per host";
+
+    private final Logger logger = LoggerFactory.getLogger(BudgetTracker.class);
+    private final CrawlBudget budget;
+    private final CrawlMetrics metrics;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Map<String, AtomicLong> hostPages = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> skippedPages = new ConcurrentHashMap<>();
+    private final AtomicReference<String> exhaustedBy = new AtomicReference<>();// null while there is budget left
+
+    BudgetTracker(CrawlBudget budget, CrawlMetrics metrics) {
+        this.budget = budget;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Spends the budget of one page, a page over the budget is counted as skipped.
+     * A page turned down by any limit is not counted by the others.
+     *
+     * @return false when the page should not be fetched
+     */
+    boolean admit(CrawlTask task) {
+        if (isExhausted()) {
+            skip(task);
+            return false;
+        }
+        AtomicLong fromHost = null;
+        if (budget.getMaxPagesPerHost() > 0) {
+            fromHost = hostPages.computeIfAbsent(HostScheduler.hostOf(task.getPage().getUrl()), host -> new AtomicLong());
+            if (!incrementBelow(fromHost, budget.getMaxPagesPerHost())) {
+                skipped(MAX_PAGES_PER_HOST);
+                return false;
+            }
+        }
+        if (!incrementBelow(pages, budget.getMaxPages())) {
+            if (fromHost != null) {
+                fromHost.decrementAndGet();// page of the host was not fetched after all
+            }
+            exhausted(MAX_PAGES);
+            skipped(MAX_PAGES);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param limit 0 = no limit
+     * @return false when the counter already reached the limit, it is left as it is then
+     */
+    private static boolean incrementBelow(AtomicLong counter, long limit) {
+        while (true) {
+            long current = counter.get();
+            if (limit > 0 && current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Body of an admitted page was downloaded.
+     */
+    void fetched(long bodyBytes) {
+        if (bytes.addAndGet(bodyBytes) >= budget.getMaxBytes() && budget.getMaxBytes() > 0) {
+            exhausted(MAX_BYTES);
+        }
+    }
+
+    /**
+     * True once a crawl wide limit ran out, new pages should not be scheduled any more.
+     */
+    boolean isExhausted() {
+        if (exhaustedBy.get() != null) {
+            return true;
+        }
+        if (budget.getMaxMillis() > 0 && elapsedMillis() >= budget.getMaxMillis()) {
+            exhausted(MAX_TIME);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Page dropped without asking for budget, e.g. found by a page in progress after the budget ran out.
+     */
+    void skip(CrawlTask task) {
+        logger.debug(task.getPage().getUrl() + " - skipped, " + exhaustedBy.get());
+        skipped(exhaustedBy.get());
+    }
+
+    private void exhausted(String limit) {
+        if (exhaustedBy.compareAndSet(null, limit)) {
+            logger.warn("Crawl budget exhausted (" + limit + "), pages in progress are finished, no new pages are fetched");
+        }
+    }
+
+    private void skipped(String limit) {
+        skippedPages.computeIfAbsent(limit, key -> new LongAdder()).increment();
+        metrics.skipped(limit);
+    }
+
+    /**
+     * Limit which stopped the crawl, null when the crawl finished within its budget.
+     */
+    String getExhaustedBy() {
+        return exhaustedBy.get();
+    }
+
+    /**
+     * Pages of the host of the url admitted so far, counted only when there is a max pages per host.
+     */
+    long getHostPages(String url) {
+        AtomicLong fromHost = hostPages.get(HostScheduler.hostOf(url));
+        return fromHost == null ? 0 : fromHost.get();
+    }
+
+    long getSkippedPages() {
+        return skippedPages.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Logs what was spent and skipped, called by the engines at the end of the crawl.
+     */
+    void logSummary() {
+        if (budget.isLimited()) {
+            logger.info(toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        Map<String, Long> skipped = new TreeMap<>();
+        skippedPages.forEach((limit, count) -> skipped.put(limit, count.sum()));
+        return "Budget - pages: " + pages.get() + "/" + CrawlBudget.limit(budget.getMaxPages())
+                + ", bytes: " + bytes.get() + "/" + CrawlBudget.limit(budget.getMaxBytes())
+                + ", time: " + elapsedMillis() + "/" + CrawlBudget.limit(budget.getMaxMillis()) + "ms"
+                + (exhaustedBy.get() != null ? ", exhausted by " + exhaustedBy.get() : ", not exhausted")
+                + ", skipped pages: " + (skipped.isEmpty() ? "none" : skipped);
+    }
+}
@@ -0,0 +1,421 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static com.demo.webcrawler.WebCrawler.assertNotNull;
+
+/**
+ * Crawler that fetches pages in parallel.
+ *
+ * Workers share a single frontier and a thread safe set of visited urls, a page is claimed (added to visited urls)
+ * when it is pushed to the frontier so no two workers ever fetch the same url.
+ * The frontier hands out pages breadth first, so pages are claimed at their shortest-path depth.
+ * Produces the same site-map entries as WebCrawler, but page blocks appear in the order pages finish loading,
+ * and external links are written together with the page that links to them.
+ * Requests to a single host are throttled with PolitenessPolicy, so workers make progress on other hosts (or wait)
+ * instead of hammering one site.
+ * Being frontier based, the crawl can be checkpointed and resumed after a crash, see CrawlCheckpoint.
+ * Many sites can be crawled at once by the same workers, see createSiteMaps.
+ */
+public class ConcurrentWebCrawler implements Crawler {
+
+    private final Logger logger = LoggerFactory.getLogger(ConcurrentWebCrawler.class);
+    private final int maxSearchDepth;
+    private final int workers;
+    private final PageFetcher pageFetcher;
+    private final HostScheduler hostScheduler;
+    private final Supplier<VisitedUrls> visitedUrlsFactory;
+    private final LinkExtractor linkExtractor;
+    private final PageCache pageCache;
+    private final Supplier<ResourceRegistry> resourceRegistryFactory;
+    private final CrawlMetrics metrics;
+    private final PageScorer pageScorer;
+    private final DnsCache dnsCache;
+    private final CrawlBudget budget;
+    private final int nearDuplicateDistance;
+    private final UrlFilter urlFilter;
+    private final boolean obeyRobotsTxt;
+    private final int maxSitemapPages;
+    private final SiteFairness siteFairness;
+
+    public ConcurrentWebCrawler(int pageTimeoutInMillis) {
+        this(pageTimeoutInMillis, CrawlerConfig.DEFAULT_MAX_SEARCH_DEPTH, CrawlerConfig.DEFAULT_WORKERS);
+    }
+
+    public ConcurrentWebCrawler(int pageTimeoutInMillis, int maxSearchDepth, int workers) {
+        this(pageTimeoutInMillis, maxSearchDepth, workers, PolitenessPolicy.unlimited());
+    }
+
+    public ConcurrentWebCrawler(int pageTimeoutInMillis, int maxSearchDepth, int workers, PolitenessPolicy politenessPolicy) {
+        this(maxSearchDepth, workers, new PooledHttpPageFetcher(pageTimeoutInMillis, pageTimeoutInMillis), politenessPolicy);
+    }
+
+    public ConcurrentWebCrawler(int maxSearchDepth, int workers, PageFetcher pageFetcher, PolitenessPolicy politenessPolicy) {
+        this(new CrawlerConfig()
+                .withMaxSearchDepth(maxSearchDepth)
+                .withWorkers(workers)
+                .withPageFetcher(pageFetcher)
+                .withPolitenessPolicy(politenessPolicy));
+    }
+
+    public ConcurrentWebCrawler(CrawlerConfig config) {
+        assertNotNull(config, "Crawler config should not be null.");
+        this.maxSearchDepth = config.getMaxSearchDepth();
+        this.workers = config.getWorkers();
+        this.pageFetcher = config.getPageFetcher();
+        this.hostScheduler = new HostScheduler(config.getPolitenessPolicy());
+        this.visitedUrlsFactory = config.getVisitedUrlsFactory();
+        this.linkExtractor = config.getLinkExtractor();
+        this.pageCache = config.getPageCache();
+        this.resourceRegistryFactory = config.getResourceRegistryFactory();
+        this.metrics = config.getMetrics();
+        this.pageScorer = config.getPageScorer();
+        this.dnsCache = config.getDnsCache();
+        this.budget = config.getBudget();
+        this.nearDuplicateDistance = config.getNearDuplicateDistance();
+        this.urlFilter = config.getUrlFilter();
+        this.obeyRobotsTxt = config.isObeyRobotsTxt();
+        this.maxSitemapPages = config.getMaxSitemapPages();
+        this.siteFairness = config.getSiteFairness();
+    }
+
+    @Override
+    public void createSiteMap(String baseUrl, SiteMapSink siteMapSink) {
+        assertNotNull(baseUrl, "Base URL should not be null.");
+        assertNotNull(siteMapSink, "Site-map sink should not be null.");
+
+        WebUrl webUrl = WebUrl.crawlable(WebCrawler.addProtocolToUrl(baseUrl));
+        CrawlBootstrap bootstrap = WebCrawler.loadBootstrap(webUrl.getUrl(), siteMapSink, pageFetcher, hostScheduler, obeyRobotsTxt, maxSitemapPages);
+        if (bootstrap == null) {
+            return;
+        }
+        BudgetTracker budgetTracker = new BudgetTracker(budget, metrics);
+        Crawl crawl = new Crawl(siteMapSink, new ReentrantLock(), resourceRegistryFactory.get(), null, visitedUrlsFactory.get(),
+                new Frontier(pageScorer, dnsCache, budgetTracker), bootstrap, budgetTracker, NearDuplicateIndex.forCrawl(nearDuplicateDistance),
+                new FrontierFilter(urlFilter, metrics));
+        crawl.start(new CrawlTask(webUrl, 0), maxSearchDepth);
+
+        runWorkers(crawl);
+        crawl.output.flush();
+        logger.info("Visited urls: " + crawl.visitedUrls);
+        budgetTracker.logSummary();
+    }
+
+    /**
+     * Crawls the site writing the site-map to the output file, progress is periodically saved with the checkpoint.
+     * If the checkpoint holds progress of an interrupted crawl of the same site, the crawl carries on from there
+     * (the output file is truncated to the last checkpoint and appended to).
+     * Resource registries which hold state (e.g. write every resource once) are refused, their state is not checkpointed.
+     */
+    public void createSiteMap(String baseUrl, Path outputFile, CrawlCheckpoint checkpoint) throws IOException {
+        assertNotNull(baseUrl, "Base URL should not be null.");
+        assertNotNull(outputFile, "Output file should not be null.");
+        assertNotNull(checkpoint, "Checkpoint should not be null.");
+        ResourceRegistry resourceRegistry = resourceRegistryFactory.get();
+        if (resourceRegistry.isStateful()) throw new IllegalArgumentException("Checkpoints are supported with every resource reference written only.");
+
+        WebUrl webUrl = WebUrl.crawlable(WebCrawler.addProtocolToUrl(baseUrl));
+        VisitedUrls visitedUrls = visitedUrlsFactory.get();
+        BudgetTracker budgetTracker = new BudgetTracker(budget, metrics);// every run has the whole budget, resumed or not
+        Frontier frontier = new Frontier(pageScorer, dnsCache, budgetTracker);
+        long committedOutputSize = checkpoint.restore(webUrl.getUrl(), visitedUrls, frontier);
+
+        try (FileSiteMapSink siteMapSink = committedOutputSize < 0
+                ? new FileSiteMapSink(outputFile)
+                : FileSiteMapSink.append(outputFile, committedOutputSize)) {
+            // sitemap pages were claimed (and journaled) by the interrupted crawl
+            CrawlBootstrap bootstrap = WebCrawler.loadBootstrap(webUrl.getUrl(), siteMapSink, pageFetcher, hostScheduler, obeyRobotsTxt,
+                    committedOutputSize < 0 ? maxSitemapPages : 0);
+            if (bootstrap == null) {
+                return;
+            }
+            // fingerprints and parameter values are not checkpointed, the resumed crawl starts counting again
+            Crawl crawl = new Crawl(siteMapSink, new ReentrantLock(), resourceRegistry, checkpoint, visitedUrls, frontier, bootstrap, budgetTracker,
+                    NearDuplicateIndex.forCrawl(nearDuplicateDistance), new FrontierFilter(urlFilter, metrics));
+            if (committedOutputSize < 0) {
+                checkpoint.started(webUrl.getUrl(), new CrawlTask(webUrl, 0));
+                crawl.start(new CrawlTask(webUrl, 0), maxSearchDepth);
+            } else {
+                WebCrawler.addNormalizedAlias(visitedUrls, webUrl.getUrl());// not journaled
+            }
+
+            runWorkers(crawl);
+            crawl.output.flush();
+            checkpoint.checkpoint(siteMapSink);// final one, nothing left to resume
+            logger.info("Visited urls: " + visitedUrls);
+            budgetTracker.logSummary();
+        }
+    }
+
+    /**
+     * Crawls many sites at once in this process, e.g. a nightly list of seeds, so the JVM, its JIT and the connections
+     * are warmed up once. The workers, the page fetcher (with its connection pool), the DNS cache, politeness and the metrics
+     * are shared, every site has its own frontier, visited urls, budget, filters and site-map entries (as if crawled alone).
+     * Workers are shared between the sites as given by CrawlerConfig.withSiteFairness. Hosts of all the base pages are
+     * prefetched with a DNS cache, robots.txt and sitemaps of a site are loaded by the worker taking its base page.
+     * Sites given the same sink write to it one page at a time, so a single sink gives a combined site-map.
+     *
+     * @param siteMapSinks sink of every base url, in seed order
+     */
+    public void createSiteMaps(Map<String, SiteMapSink> siteMapSinks) {
+        assertNotNull(siteMapSinks, "Site-map sinks should not be null.");
+
+        List<Crawl> crawls = new ArrayList<>(siteMapSinks.size());
+        List<Frontier> frontiers = new ArrayList<>(siteMapSinks.size());
+        double[] weights = new double[siteMapSinks.size()];
+        Map<SiteMapSink, ReentrantLock> outputLocks = new IdentityHashMap<>();
+        for (Map.Entry<String, SiteMapSink> site : siteMapSinks.entrySet()) {
+            assertNotNull(site.getKey(), "Base URL should not be null.");
+            assertNotNull(site.getValue(), "Site-map sink should not be null.");
+            WebUrl webUrl = WebUrl.crawlable(WebCrawler.addProtocolToUrl(site.getKey()));
+            BudgetTracker budgetTracker = new BudgetTracker(budget, metrics);// every site has the whole budget
+            Frontier frontier = new Frontier(pageScorer, dnsCache, budgetTracker);
+            // the bootstrap is loaded when the base page is taken
+            Crawl crawl = new Crawl(site.getValue(), outputLocks.computeIfAbsent(site.getValue(), sink -> new ReentrantLock()),
+                    resourceRegistryFactory.get(), null, visitedUrlsFactory.get(), frontier, null, budgetTracker,
+                    NearDuplicateIndex.forCrawl(nearDuplicateDistance), new FrontierFilter(urlFilter, metrics));
+            crawl.claimRoot(new CrawlTask(webUrl, 0));
+            weights[crawls.size()] = siteFairness.getWeight(site.getKey());
+            crawls.add(crawl);
+            frontiers.add(frontier);
+        }
+        SiteScheduler siteScheduler = new SiteScheduler(frontiers, weights, siteFairness);
+
+        metrics.crawlStarted(() -> crawls.stream().mapToLong(crawl -> crawl.frontier.size()).sum(),
+                () -> crawls.stream().mapToLong(crawl -> crawl.visitedUrls.size()).sum());
+        runWorkers(() -> crawlSites(crawls, siteScheduler));
+        for (Crawl crawl : crawls) {
+            crawl.output.flush();
+            crawl.budgetTracker.logSummary();
+        }
+        logger.info("Crawled sites: " + crawls.size());
+    }
+
+    private void runWorkers(Crawl crawl) {
+        metrics.crawlStarted(crawl.frontier::size, crawl.visitedUrls);
+        runWorkers(() -> crawlFrontier(crawl));
+    }
+
+    private void runWorkers(Runnable worker) {
+        ThreadFactory threadFactory = WorkerThreads.factory("crawler-worker-");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            Thread thread = threadFactory.newThread(() -> {
+                try {
+                    worker.run();
+                } catch (RuntimeException | Error e) {
+                    // e.g. site-map can not be written, no point to carry on
+                    failure.compareAndSet(null, e);
+                    threads.forEach(Thread::interrupt);
+                }
+            });
+            threads.add(thread);
+        }
+        threads.forEach(Thread::start);
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable workerFailure = failure.get();
+        if (workerFailure instanceof RuntimeException) {
+            throw (RuntimeException) workerFailure;
+        } else if (workerFailure != null) {
+            throw (Error) workerFailure;
+        }
+    }
+
+    private void crawlFrontier(Crawl crawl) {
+        try {
+            CrawlTask task;
+            while ((task = crawl.frontier.take()) != null) {
+                try {
+                    crawlPage(task, crawl);
+                } finally {
+                    crawl.frontier.complete(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void crawlSites(List<Crawl> crawls, SiteScheduler siteScheduler) {
+        try {
+            SiteScheduler.SiteTask siteTask;
+            while ((siteTask = siteScheduler.take()) != null) {
+                Crawl crawl = crawls.get(siteTask.getSite());
+                try {
+                    if (crawl.bootstrap != null || startSite(siteTask.getTask(), crawl)) {
+                        crawlPage(siteTask.getTask(), crawl);
+                    }
+                } finally {
+                    siteScheduler.complete(siteTask);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loads robots.txt and sitemaps of a batch site and claims the pages of its sitemaps, called with the base page taken,
+     * so nothing else of the site is in progress.
+     *
+     * @return false when the base page should not be crawled
+     */
+    private boolean startSite(CrawlTask root, Crawl crawl) {
+        InMemoryEntries rootSiteMap = new InMemoryEntries();
+        CrawlBootstrap bootstrap = WebCrawler.loadBootstrap(root.getPage().getUrl(), rootSiteMap, pageFetcher, hostScheduler, obeyRobotsTxt, maxSitemapPages);
+        if (bootstrap == null) {
+            crawl.complete(root, rootSiteMap.getEntries(), Collections.emptyList(), 1);// disallowed or cancelled
+            return false;
+        }
+        crawl.bootstrap = bootstrap;
+        crawl.claimSeeds(maxSearchDepth).forEach(crawl.frontier::push);
+        return true;
+    }
+
+    private void crawlPage(CrawlTask task, Crawl crawl) {
+        String pageUrl = task.getPage().getUrl();
+        InMemoryEntries pageSiteMap = new InMemoryEntries();
+        PageLinks pageLinks = null;
+
+        try {
+            logger.info("[" + task.getDepth() + "] " + pageUrl);
+
+            // load the page and extract all the possible links (or take them from the cache when the page did not change)
+            pageLinks = WebCrawler.loadPageLinks(task, pageSiteMap, pageFetcher, hostScheduler, linkExtractor, pageCache, metrics, crawl.budgetTracker,
+                    crawl.nearDuplicates);
+
+            WebCrawler.addLinksToSiteMap(pageSiteMap, pageUrl, pageLinks);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
+            return;
+        } catch (Exception e) {
+            pageSiteMap.add(WebCrawler.failedPageEntry(task, e, metrics));
+        }
+
+        int childDepth = task.getDepth() + 1;
+        List<WebUrl> childPages = pageLinks != null && childDepth <= maxSearchDepth
+                ? crawl.frontierFilter.allowedPages(crawl.bootstrap.allowedPages(pageLinks.getCrawlableChildPages()))
+                : Collections.emptyList();
+        List<CrawlTask> claimedChildren = crawl.complete(task, pageSiteMap.getEntries(), childPages, childDepth);
+
+        // scheduled after the page is written, so parent always comes before its children
+        claimedChildren.forEach(crawl.frontier::push);
+    }
+
+    /**
+     * State of a single crawl (a single site of a batch crawl) shared by the workers.
+     */
+    private static class Crawl {
+        private final ReentrantLock outputLock;// shared by the sites of a batch crawl writing to the same sink
+        private final SiteMapSink siteMapSink;
+        private final DeduplicatingSiteMapSink output;// resources go through the registry
+        private final CrawlCheckpoint checkpoint;// null when progress is not saved
+        private final VisitedUrls visitedUrls;
+        private final Frontier frontier;
+        private CrawlBootstrap bootstrap;// set by the worker taking the base page of a batch site, before its children are pushed
+        private final BudgetTracker budgetTracker;
+        private final NearDuplicateIndex nearDuplicates;
+        private final FrontierFilter frontierFilter;
+
+        Crawl(SiteMapSink siteMapSink, ReentrantLock outputLock, ResourceRegistry resourceRegistry, CrawlCheckpoint checkpoint, VisitedUrls visitedUrls, Frontier frontier,
+              CrawlBootstrap bootstrap, BudgetTracker budgetTracker, NearDuplicateIndex nearDuplicates, FrontierFilter frontierFilter) {
+            this.siteMapSink = siteMapSink;
+            this.outputLock = outputLock;
+            this.output = new DeduplicatingSiteMapSink(siteMapSink, resourceRegistry);
+            this.checkpoint = checkpoint;
+            this.visitedUrls = visitedUrls;
+            this.frontier = frontier;
+            this.bootstrap = bootstrap;
+            this.budgetTracker = budgetTracker;
+            this.nearDuplicates = nearDuplicates;
+            this.frontierFilter = frontierFilter;
+        }
+
+        /**
+         * Claims the base page and the pages of the sitemaps, before the workers start.
+         */
+        void start(CrawlTask root, int maxSearchDepth) {
+            claimRoot(root);
+            claimSeeds(maxSearchDepth).forEach(frontier::push);
+        }
+
+        void claimRoot(CrawlTask root) {
+            visitedUrls.add(root.getPage().getUrl());
+            WebCrawler.addNormalizedAlias(visitedUrls, root.getPage().getUrl());
+            frontier.push(root);
+        }
+
+        /**
+         * @return pages of the sitemaps not visited before, to be pushed to the frontier
+         */
+        List<CrawlTask> claimSeeds(int maxSearchDepth) {
+            List<CrawlTask> seeds = WebCrawler.claimSeeds(bootstrap, frontierFilter, visitedUrls, maxSearchDepth);
+            if (checkpoint != null) {
+                seeds.forEach(checkpoint::claimed);
+            }
+            return seeds;
+        }
+
+        /**
+         * Writes entries of the page and claims its children (adds them to visited urls) in one step,
+         * so a checkpoint never sees a page written without its children claimed or the other way round.
+         * Entries of a page are written together, sinks do not have to be thread safe.
+         *
+         * @return children that were not visited before and should be crawled
+         */
+        List<CrawlTask> complete(CrawlTask task, List<SiteMapEntry> entries, List<WebUrl> childPages, int childDepth) {
+            outputLock.lock();
+            try {
+                entries.forEach(output::add);
+
+                List<CrawlTask> claimedChildren = new ArrayList<>();
+                for (WebUrl childPage : childPages) {
+                    if (visitedUrls.add(childPage.getUrl())) {
+                        claimedChildren.add(new CrawlTask(childPage, childDepth, task.getPage().getUrl()));
+                    } else {
+                        frontier.linked(childPage);
+                    }
+                }
+
+                if (checkpoint != null) {
+                    claimedChildren.forEach(checkpoint::claimed);
+                    checkpoint.completed(task);
+                    if (checkpoint.isDue()) {
+                        checkpoint.checkpoint((FileSiteMapSink) siteMapSink);
+                    }
+                }
+                return claimedChildren;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                outputLock.unlock();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.demo.webcrawler;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.GzipSource;
+import okio.InflaterSource;
+import okio.Okio;
+import okio.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.util.Locale;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes compressed response bodies (Content-Encoding) as they are read, nothing is inflated up front.
+ *
+ * gzip and deflate are always accepted, brotli when a decoder (org.brotli:dec) is on the classpath.
+ * Brotli is an optional dependency, hence reflection.
+ * Bytes read from the network are counted before decoding, see CountingSource.
+ */
+final class ContentDecoder {
+    private static final Logger logger = LoggerFactory.getLogger(ContentDecoder.class);
+    private static final Constructor<?> BROTLI_INPUT_STREAM = brotliInputStream();
+    static final String ACCEPT_ENCODING = BROTLI_INPUT_STREAM != null ? "gzip, deflate, br" : "gzip, deflate";
+
+    private ContentDecoder() {
+    }
+
+    static boolean brotliAvailable() {
+        return BROTLI_INPUT_STREAM != null;
+    }
+
+    /**
+     * @param contentEncoding value of the Content-Encoding header, null when the body is not encoded
+     * @throws IOException when the body is encoded in a way that was not asked for
+     */
+    static BufferedSource decode(String contentEncoding, BufferedSource source) throws IOException {
+        if (contentEncoding == null) {
+            return source;
+        }
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "":
+            case "identity":
+                return source;
+            case "gzip":
+            case "x-gzip":
+                return Okio.buffer(new GzipSource(source));
+            case "deflate":
+                return Okio.buffer(new InflaterSource(source, new Inflater(!isZlibWrapped(source))));
+            case "br":
+                if (BROTLI_INPUT_STREAM == null) {
+                    throw new IOException("Unsupported content encoding: " + contentEncoding);// a server sending it unasked
+                }
+                return Okio.buffer(Okio.source(brotli(source.inputStream())));
+            default:
+                throw new IOException("Unsupported content encoding: " + contentEncoding);
+        }
+    }
+
+    /**
+     * "deflate" should be zlib wrapped (RFC 7230), some servers send raw deflate data though.
+     * A zlib header is deflate method (8) in the low bits of the first byte, both bytes together a multiple of 31.
+     */
+    private static boolean isZlibWrapped(BufferedSource source) throws IOException {
+        if (!source.request(2)) {
+            return true;// too short to tell, the inflater reports it
+        }
+        int cmf = source.getBuffer().getByte(0) & 0xff;
+        int flg = source.getBuffer().getByte(1) & 0xff;
+        return (cmf & 0x0f) == 8 && (cmf * 256 + flg) % 31 == 0;
+    }
+
+    private static InputStream brotli(InputStream compressed) throws IOException {
+        try {
+            return (InputStream) BROTLI_INPUT_STREAM.newInstance(compressed);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Brotli decoder failed", e);
+        }
+    }
+
+    private static Constructor<?> brotliInputStream() {
+        try {
+            return Class.forName("org.brotli.dec.BrotliInputStream").getConstructor(InputStream.class);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            logger.debug("Brotli decoder not available, br content encoding is not accepted.");
+            return null;
+        }
+    }
+
+    /**
+     * Counts bytes of the body as they come off the network, before decoding.
+     */
+    static class CountingSource extends ForwardingSource {
+        private long bytesRead;
+
+        CountingSource(Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        long getBytesRead() {
+            return bytesRead;
+        }
+    }
+}
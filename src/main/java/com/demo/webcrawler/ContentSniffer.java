@@ -0,0 +1,95 @@
+package com.demo.webcrawler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Guesses the content type from the first bytes of a body, for responses without a Content-Type header
+ * or with a generic one (application/octet-stream). A simplified version of the WHATWG mime sniffing rules.
+ */
+final class ContentSniffer {
+    static final int SNIFF_BYTES = 512;
+    static final String BINARY = "application/octet-stream";
+
+    private static final String[] HTML_TAGS = {"<!doctype html", "<html", "<head", "<body", "<script", "<title", "<div", "<p", "<a ", "<!--"};
+
+    private ContentSniffer() {
+    }
+
+    /**
+     * True when the header tells nothing about the content.
+     */
+    static boolean isUnspecified(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        String mimeType = contentType.toLowerCase(Locale.ROOT);
+        return mimeType.startsWith(BINARY) || mimeType.startsWith("binary/octet-stream") || mimeType.startsWith("unknown/");
+    }
+
+    /**
+     * @return sniffed content type, BINARY when it is not recognized but is not text either
+     */
+    static String sniff(byte[] prefix) {
+        if (startsWith(prefix, 0, "%PDF-")) {
+            return "application/pdf";
+        } else if (startsWith(prefix, 0, "\u0089PNG")) {
+            return "image/png";
+        } else if (startsWith(prefix, 0, "GIF8")) {
+            return "image/gif";
+        } else if (startsWith(prefix, 0, "\u00FF\u00D8\u00FF")) {
+            return "image/jpeg";
+        } else if (startsWith(prefix, 0, "RIFF") && startsWith(prefix, 8, "WEBP")) {
+            return "image/webp";
+        } else if (startsWith(prefix, 0, "PK\u0003\u0004")) {
+            return "application/zip";
+        } else if (startsWith(prefix, 0, "\u001f\u008b")) {
+            return "application/gzip";
+        }
+
+        int start = textStart(prefix);
+        String text = new String(prefix, start, prefix.length - start, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+        for (String tag : HTML_TAGS) {
+            if (text.startsWith(tag)) {
+                return "text/html";
+            }
+        }
+        if (text.startsWith("<?xml")) {
+            return "application/xml";
+        }
+        return isText(prefix, start) ? "text/plain" : BINARY;
+    }
+
+    /**
+     * Skips byte order mark and leading white space.
+     */
+    private static int textStart(byte[] prefix) {
+        int start = startsWith(prefix, 0, "\u00EF\u00BB\u00BF") ? 3 : 0;
+        while (start < prefix.length && Character.isWhitespace(prefix[start] & 0xff)) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isText(byte[] prefix, int start) {
+        for (int i = start; i < prefix.length; i++) {
+            int b = prefix[i] & 0xff;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1b) {
+                return false;// binary data control character
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, String magic) {
+        if (bytes.length < offset + magic.length()) {
+            return false;
+        }
+        for (int i = 0; i < magic.length(); i++) {
+            if ((bytes[offset + i] & 0xff) != magic.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package com.demo.webcrawler;
+
+import org.jsoup.HttpStatusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads robots.txt and sitemaps of the crawled site before the crawl starts.
+ *
+ * - robots.txt rules are applied to every page before it is fetched, its Crawl-delay slows down the host (see HostScheduler),
+ * - pages listed in sitemaps (robots.txt Sitemap lines, /sitemap.xml when there are none) seed the crawl at depth 1,
+ *   highest sitemap priority first, sitemap index files are followed, gzipped sitemaps are streamed.
+ * Only pages of the same origin as the base url are taken from sitemaps, as only those would be crawled.
+ * robots.txt answered with 4xx allows everything, 5xx disallows everything (RFC 9309), a site which cannot be reached
+ * at all (unknown host, connection refused) is not crawled either, its base page gets the error of the failure.
+ */
+class CrawlBootstrap {
+    static final int DEFAULT_MAX_SITEMAP_PAGES = 50000;
+    static final String DISALLOWED = "disallowed by robots.txt.";
+    private static final int MAX_SITEMAP_FILES = 100;// sitemap indexes may point at each other, or at thousands of sitemaps
+    private static final double DEFAULT_PRIORITY = 0.5;// as defined by sitemaps.org
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlBootstrap.class);
+    private static final CrawlBootstrap NONE = new CrawlBootstrap(RobotsTxt.allowAll(), Collections.emptyList(), null);
+
+    private final RobotsTxt robotsTxt;
+    private final List<WebUrl> seeds;
+    private final IOException unreachable;
+
+    private CrawlBootstrap(RobotsTxt robotsTxt, List<WebUrl> seeds, IOException unreachable) {
+        this.robotsTxt = robotsTxt;
+        this.seeds = seeds;
+        this.unreachable = unreachable;
+    }
+
+    /**
+     * @param obeyRobotsTxt false when robots.txt is only read for its Sitemap lines
+     * @param maxSitemapPages max number of pages taken from sitemaps, 0 when sitemaps should not be read
+     */
+    static CrawlBootstrap load(String baseUrl, PageFetcher pageFetcher, HostScheduler hostScheduler,
+                               boolean obeyRobotsTxt, int maxSitemapPages) throws InterruptedException {
+        UrlResolver baseResolver = UrlResolver.of(baseUrl);
+        if (baseResolver == null || !obeyRobotsTxt && maxSitemapPages <= 0) {
+            return NONE;// invalid base url is reported by the crawl
+        }
+
+        String robotsUrl = baseResolver.getOrigin() + "/robots.txt";
+        RobotsTxt robotsTxt;
+        try {
+            robotsTxt = loadRobotsTxt(robotsUrl, pageFetcher, hostScheduler);
+        } catch (IOException e) {
+            logger.warn(robotsUrl + " - " + e + ", site not reachable");
+            if (obeyRobotsTxt) {
+                return new CrawlBootstrap(RobotsTxt.disallowAll(), Collections.emptyList(), e);
+            }
+            robotsTxt = RobotsTxt.allowAll();// only read for its Sitemap lines, the crawl reports the failure
+        }
+        logger.info(baseResolver.getOrigin() + " - " + robotsTxt);
+        RobotsTxt rules = obeyRobotsTxt ? robotsTxt : RobotsTxt.allowAll();
+        if (obeyRobotsTxt) {
+            hostScheduler.setCrawlDelay(baseUrl, robotsTxt.getCrawlDelaySeconds());
+        }
+        if (maxSitemapPages <= 0) {
+            return new CrawlBootstrap(rules, Collections.emptyList(), null);
+        }
+
+        List<String> sitemaps = robotsTxt.getSitemaps().isEmpty()
+                ? Collections.singletonList(baseResolver.getOrigin() + "/sitemap.xml")
+                : robotsTxt.getSitemaps();
+        return new CrawlBootstrap(rules, loadSitemapPages(baseResolver, sitemaps, rules, pageFetcher, hostScheduler, maxSitemapPages), null);
+    }
+
+    /**
+     * Pages are crawled as before, no robots.txt and no sitemaps.
+     */
+    static CrawlBootstrap none() {
+        return NONE;
+    }
+
+    boolean isAllowed(String pageUrl) {
+        return robotsTxt.isAllowed(pageUrl);
+    }
+
+    /**
+     * Pages which may be fetched, disallowed ones are dropped.
+     */
+    List<WebUrl> allowedPages(List<WebUrl> pages) {
+        if (robotsTxt == RobotsTxt.allowAll()) {
+            return pages;
+        }
+        return pages.stream()
+                .filter(page -> robotsTxt.isAllowed(page.getUrl()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Pages found in sitemaps, highest priority first, all of them allowed by robots.txt.
+     */
+    List<WebUrl> getSeeds() {
+        return seeds;
+    }
+
+    /**
+     * Network failure reading robots.txt, null when the site answered.
+     */
+    IOException getUnreachable() {
+        return unreachable;
+    }
+
+    /**
+     * @throws IOException when the site did not answer at all
+     */
+    private static RobotsTxt loadRobotsTxt(String robotsUrl, PageFetcher pageFetcher, HostScheduler hostScheduler)
+            throws IOException, InterruptedException {
+        try {
+            FetchedPage robots = fetch(robotsUrl, pageFetcher, hostScheduler);
+            return RobotsTxt.parse(new String(robots.getBody(), StandardCharsets.UTF_8), WebCrawler.USER_AGENT);
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() >= 400 && e.getStatusCode() < 500) {
+                return RobotsTxt.allowAll();// no robots.txt
+            }
+            logger.warn(robotsUrl + " - " + e.getStatusCode() + ", site treated as disallowed");
+            return RobotsTxt.disallowAll();
+        } catch (RuntimeException e) {
+            logger.warn(robotsUrl + " - " + e + ", site treated as disallowed");
+            return RobotsTxt.disallowAll();
+        }
+    }
+
+    private static List<WebUrl> loadSitemapPages(UrlResolver baseResolver, List<String> sitemaps, RobotsTxt robotsTxt,
+                                                 PageFetcher pageFetcher, HostScheduler hostScheduler, int maxSitemapPages) throws InterruptedException {
+        SitemapReader sitemapReader = new SitemapReader();
+        Set<String> seenPages = new HashSet<>();
+        List<Seed> seeds = new ArrayList<>();
+        Queue<String> pendingSitemaps = new ArrayDeque<>(sitemaps);
+        Set<String> seenSitemaps = new HashSet<>(sitemaps);
+        int readSitemaps = 0;
+
+        while (!pendingSitemaps.isEmpty() && readSitemaps < MAX_SITEMAP_FILES && seeds.size() < maxSitemapPages) {
+            String sitemapUrl = pendingSitemaps.poll();
+            readSitemaps++;
+            try {
+                FetchedPage sitemap = fetch(sitemapUrl, pageFetcher, hostScheduler);
+                sitemapReader.read(new ByteArrayInputStream(sitemap.getBody()), new SitemapReader.Listener() {
+                    @Override
+                    public void page(String url, double priority) {
+                        String pageUrl = baseResolver.resolve(url);
+                        if (seeds.size() < maxSitemapPages && pageUrl != null && baseResolver.isSameOrigin(pageUrl)
+                                && robotsTxt.isAllowed(pageUrl) && seenPages.add(pageUrl)) {
+                            seeds.add(new Seed(WebUrl.crawlable(pageUrl), Double.isNaN(priority) ? DEFAULT_PRIORITY : priority));
+                        }
+                    }
+
+                    @Override
+                    public void sitemap(String url) {
+                        if (seenSitemaps.add(url)) {
+                            pendingSitemaps.add(url);
+                        }
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                logger.warn(sitemapUrl + " - " + e.getMessage());// crawl carries on with the pages found so far
+            }
+        }
+        logger.info(baseResolver.getOrigin() + " - " + seeds.size() + " pages found in " + readSitemaps + " sitemaps");
+
+        seeds.sort(Comparator.comparingDouble((Seed seed) -> seed.priority).reversed());// stable, sitemap order within a priority
+        return seeds.stream().map(seed -> seed.page).collect(Collectors.toList());
+    }
+
+    private static FetchedPage fetch(String url, PageFetcher pageFetcher, HostScheduler hostScheduler) throws IOException, InterruptedException {
+        HostScheduler.Permit permit = hostScheduler.acquire(url);
+        int statusCode = -1;
+        try {
+            FetchedPage fetchedPage = pageFetcher.fetchFile(url);
+            statusCode = fetchedPage.getStatusCode();
+            return fetchedPage;
+        } catch (HttpStatusException e) {
+            statusCode = e.getStatusCode();
+            throw e;
+        } finally {
+            permit.release(statusCode);
+        }
+    }
+
+    private static class Seed {
+        private final WebUrl page;
+        private final double priority;
+
+        Seed(WebUrl page, double priority) {
+            this.page = page;
+            this.priority = priority;
+        }
+    }
+}
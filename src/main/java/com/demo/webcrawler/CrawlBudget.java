@@ -0,0 +1,65 @@
+package com.demo.webcrawler;
+
+/**
+ * Limits of a single crawl, so its cost is known up front whatever the size of the site.
+ *
+ * - maxPages: pages fetched, 0 = no limit
+ * - maxBytes: bytes of page bodies downloaded, 0 = no limit, checked as pages finish so pages in progress may go over it
+ * - maxMillis: wall-clock time from the start of the crawl, 0 = no limit
+ * - maxPagesPerHost: pages fetched from a single host, 0 = no limit, pages of a host over it are skipped but the crawl carries on
+ * Once any of the first three runs out no new page is fetched, pages in progress are finished and written,
+ * so the site-map holds whatever was crawled so far. Pages not fetched are counted in CrawlMetrics.getSkippedPages.
+ */
+public class CrawlBudget {
+    private final long maxPages;
+    private final long maxBytes;
+    private final long maxMillis;
+    private final long maxPagesPerHost;
+
+    public CrawlBudget(long maxPages, long maxBytes, long maxMillis, long maxPagesPerHost) {
+        if (maxPages < 0 || maxBytes < 0 || maxMillis < 0 || maxPagesPerHost < 0) throw new IllegalArgumentException("Budget limits should not be negative.");
+        this.maxPages = maxPages;
+        this.maxBytes = maxBytes;
+        this.maxMillis = maxMillis;
+        this.maxPagesPerHost = maxPagesPerHost;
+    }
+
+    /**
+     * No limits, the crawl ends when there is nothing left within max search depth.
+     */
+    public static CrawlBudget unlimited() {
+        return new CrawlBudget(0, 0, 0, 0);
+    }
+
+    public long getMaxPages() {
+        return maxPages;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getMaxPagesPerHost() {
+        return maxPagesPerHost;
+    }
+
+    boolean isLimited() {
+        return maxPages > 0 || maxBytes > 0 || maxMillis > 0 || maxPagesPerHost > 0;
+    }
+
+    static String limit(long value) {
+        return value > 0 ? String.valueOf(value) : "unlimited";
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlBudget(maxPages=" + limit(maxPages)
+                + ", maxBytes=" + limit(maxBytes)
+                + ", maxMillis=" + limit(maxMillis)
+                + ", maxPagesPerHost=" + limit(maxPagesPerHost) + ")";
+    }
+}
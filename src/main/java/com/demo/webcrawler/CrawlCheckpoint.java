@@ -0,0 +1,225 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists crawl progress to an append-only journal in a working directory, so a crawl killed half way can be resumed.
+ *
+ * Journal records:
+ * - START(baseUrl) - first record of the journal
+ * - CLAIM(depth, url) - url was added to visited urls and pushed to the frontier
+ * - DONE(fingerprint) - entries of the page were written to the site-map
+ * - CHECKPOINT(outputSize) - everything above is committed, site-map file was synced at the given size
+ * Records are buffered in memory and appended in batches, each batch followed by a CHECKPOINT and fsync.
+ * On resume, records after the last CHECKPOINT are dropped, site-map file is truncated to the committed size,
+ * claimed urls become visited urls again and claimed but not done pages are pushed back to the frontier.
+ *
+ * Not thread safe, ConcurrentWebCrawler calls it while holding its output lock.
+ */
+public class CrawlCheckpoint implements Closeable {
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+    static final String JOURNAL_FILE = "crawl.journal";
+
+    private static final byte START = 'S';
+    private static final byte CLAIM = 'C';
+    private static final byte DONE = 'D';
+    private static final byte CHECKPOINT = 'K';
+
+    private final Logger logger = LoggerFactory.getLogger(CrawlCheckpoint.class);
+    private final Path journalFile;
+    private final long intervalNanos;
+    private final ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pendingRecords = new DataOutputStream(pendingBytes);
+    private FileChannel journal;
+    private long lastCheckpointNanos = System.nanoTime();
+
+    private CrawlCheckpoint(Path workingDirectory, long intervalMillis) throws IOException {
+        Files.createDirectories(workingDirectory);
+        this.journalFile = workingDirectory.resolve(JOURNAL_FILE);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * @param resume true to continue the crawl journaled in the working directory, false to discard it and start from scratch
+     */
+    public static CrawlCheckpoint open(Path workingDirectory, boolean resume) throws IOException {
+        return open(workingDirectory, resume, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    public static CrawlCheckpoint open(Path workingDirectory, boolean resume, long intervalMillis) throws IOException {
+        WebCrawler.assertNotNull(workingDirectory, "Working directory should not be null.");
+        CrawlCheckpoint checkpoint = new CrawlCheckpoint(workingDirectory, intervalMillis);
+        if (!resume) {
+            Files.deleteIfExists(checkpoint.journalFile);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Loads progress of a previous crawl of the same site.
+     *
+     * @return committed size of the site-map file, or -1 when there is nothing to resume (crawl should start from the base url)
+     */
+    long restore(String baseUrl, VisitedUrls visitedUrls, Frontier frontier) throws IOException {
+        if (!Files.exists(journalFile)) {
+            openJournal(0);
+            return -1;
+        }
+
+        long committedJournalSize = 0;
+        long committedOutputSize = -1;
+        Map<Long, CrawlTask> pendingTasks = new LinkedHashMap<>();
+        List<Runnable> batch = new ArrayList<>();// applied only once the CHECKPOINT record closing the batch is read
+        long position = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            while (true) {
+                byte type = in.readByte();
+                if (type == START) {
+                    String journaledBaseUrl = readString(in);
+                    if (!journaledBaseUrl.equals(baseUrl)) {
+                        throw new IllegalStateException("Checkpoint " + journalFile + " belongs to crawl of " + journaledBaseUrl + ", not " + baseUrl);
+                    }
+                    position += 1 + stringLength(journaledBaseUrl);
+                } else if (type == CLAIM) {
+                    int depth = in.readInt();
+                    String url = readString(in);
+                    CrawlTask task = new CrawlTask(WebUrl.crawlable(url), depth);
+                    batch.add(() -> {
+                        visitedUrls.add(url);
+                        pendingTasks.put(UrlFingerprint.of(url), task);
+                    });
+                    position += 1 + 4 + stringLength(url);
+                } else if (type == DONE) {
+                    long fingerprint = in.readLong();
+                    batch.add(() -> pendingTasks.remove(fingerprint));
+                    position += 1 + 8;
+                } else if (type == CHECKPOINT) {
+                    long outputSize = in.readLong();
+                    position += 1 + 8;
+                    batch.forEach(Runnable::run);
+                    batch.clear();
+                    committedOutputSize = outputSize;
+                    committedJournalSize = position;
+                } else {
+                    throw new IOException("Corrupted checkpoint journal " + journalFile + " at byte " + position);
+                }
+            }
+        } catch (EOFException e) {
+            // end of the journal, possibly with a batch cut in half by a crash
+        }
+
+        if (committedOutputSize < 0) {
+            Files.delete(journalFile);// crashed before the first checkpoint
+            openJournal(0);
+            return -1;
+        }
+
+        pendingTasks.values().forEach(frontier::push);
+        openJournal(committedJournalSize);
+        logger.info("Resuming crawl of " + baseUrl + " from " + journalFile + ", " + visitedUrls.size() + " visited urls, " + pendingTasks.size() + " pages to crawl");
+        return committedOutputSize;
+    }
+
+    void started(String baseUrl, CrawlTask root) {
+        write(() -> {
+            pendingRecords.writeByte(START);
+            writeString(baseUrl);
+        });
+        claimed(root);
+    }
+
+    void claimed(CrawlTask task) {
+        write(() -> {
+            pendingRecords.writeByte(CLAIM);
+            pendingRecords.writeInt(task.getDepth());
+            writeString(task.getPage().getUrl());
+        });
+    }
+
+    void completed(CrawlTask task) {
+        write(() -> {
+            pendingRecords.writeByte(DONE);
+            pendingRecords.writeLong(UrlFingerprint.of(task.getPage().getUrl()));
+        });
+    }
+
+    boolean isDue() {
+        return System.nanoTime() - lastCheckpointNanos >= intervalNanos;
+    }
+
+    /**
+     * Syncs the site-map file and commits everything recorded since the previous checkpoint.
+     */
+    void checkpoint(FileSiteMapSink siteMapSink) throws IOException {
+        long outputSize = siteMapSink.sync();
+        pendingRecords.writeByte(CHECKPOINT);
+        pendingRecords.writeLong(outputSize);
+        journal.write(ByteBuffer.wrap(pendingBytes.toByteArray()));
+        journal.force(false);
+        pendingBytes.reset();
+        lastCheckpointNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void openJournal(long committedSize) throws IOException {
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journal.truncate(committedSize);
+        journal.position(committedSize);
+    }
+
+    private void write(JournalWrite journalWrite) {
+        try {
+            journalWrite.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);// in-memory stream, never happens
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        pendingRecords.writeInt(bytes.length);
+        pendingRecords.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(String value) {
+        return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private interface JournalWrite {
+        void write() throws IOException;
+    }
+}
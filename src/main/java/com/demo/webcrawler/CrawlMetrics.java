@@ -0,0 +1,378 @@
+package com.demo.webcrawler;
+
+import org.jsoup.HttpStatusException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Where crawl time goes: latency histograms of every stage of loading a page, throughput, queue sizes and errors by type.
+ *
+ * Recorded by both engines from all the workers without locking (LongAdder counters), so it is always on.
+ * Read it with snapshot() (e.g. to export), progressLine() for periodic reports, or over JMX (registerMBean).
+ * Counts add up over all the crawls of a crawler, throughput is measured from the start of the first crawl.
+ */
+public class CrawlMetrics implements CrawlMetricsMXBean {
+    static final String OBJECT_NAME = "com.demo.webcrawler:type=CrawlMetrics";
+
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final LatencyHistogram firstByteLatency = new LatencyHistogram();
+    private final LatencyHistogram downloadLatency = new LatencyHistogram();
+    private final LatencyHistogram extractLatency = new LatencyHistogram();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder notModifiedPages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder transferBytes = new LongAdder();
+    private final LongAdder truncatedPages = new LongAdder();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder nearDuplicatePages = new LongAdder();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> skippedPages = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> filteredLinks = new ConcurrentHashMap<>();
+    private volatile long startNanos;
+    private volatile LongSupplier frontierSize = () -> 0;
+    private volatile LongSupplier visitedUrls = () -> 0;
+
+    /**
+     * Called by the engines when a crawl starts, the sizes are read whenever metrics are reported.
+     *
+     * @param frontierSize pages waiting to be crawled
+     */
+    void crawlStarted(LongSupplier frontierSize, VisitedUrls visitedUrls) {
+        crawlStarted(frontierSize, (LongSupplier) visitedUrls::size);
+    }
+
+    /**
+     * @param visitedUrls urls claimed so far, e.g. by all the sites of a batch crawl
+     */
+    void crawlStarted(LongSupplier frontierSize, LongSupplier visitedUrls) {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+        this.frontierSize = frontierSize;
+        this.visitedUrls = visitedUrls;
+    }
+
+    void fetched(FetchedPage fetchedPage, long fetchNanos) {
+        fetchLatency.record(fetchNanos);
+        FetchTimings timings = fetchedPage.getTimings();
+        if (timings.getConnectNanos() != FetchTimings.UNKNOWN) {
+            connectLatency.record(timings.getConnectNanos());
+        }
+        if (timings.getFirstByteNanos() != FetchTimings.UNKNOWN) {
+            firstByteLatency.record(timings.getFirstByteNanos());
+            downloadLatency.record(fetchNanos - timings.getFirstByteNanos());
+        }
+        bytes.add(fetchedPage.getBody().length);
+        // page fetchers not counting them (Jsoup) are taken as sending pages uncompressed
+        transferBytes.add(fetchedPage.getTransferBytes() != FetchedPage.UNKNOWN ? fetchedPage.getTransferBytes() : fetchedPage.getBody().length);
+        if (fetchedPage.isNotModified()) {
+            notModifiedPages.increment();
+        }
+        if (fetchedPage.isTruncated()) {
+            truncatedPages.increment();
+        }
+    }
+
+    /**
+     * Non-HTML url recorded in the site-map without being downloaded.
+     */
+    void file() {
+        files.increment();
+    }
+
+    /**
+     * Time spent finding links in a page, including parsing it.
+     */
+    void extracted(long extractNanos) {
+        extractLatency.record(extractNanos);
+    }
+
+    void pageCompleted() {
+        pages.increment();
+    }
+
+    void error(Exception e) {
+        errors.computeIfAbsent(errorType(e), type -> new LongAdder()).increment();
+    }
+
+    /**
+     * Page not fetched because a CrawlBudget limit ran out.
+     */
+    void skipped(String limit) {
+        skippedPages.computeIfAbsent(limit, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Link not queued because of a UrlFilter.
+     */
+    void filtered(String reason) {
+        filteredLinks.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Page with (nearly) the same text as a page crawled before, its links are not followed.
+     */
+    void nearDuplicate() {
+        nearDuplicatePages.increment();
+    }
+
+    static String errorType(Exception e) {
+        if (e instanceof UnknownHostException) {
+            return "unknown host";
+        } else if (e instanceof SocketTimeoutException) {
+            return "timeout";
+        } else if (e instanceof HttpStatusException) {
+            return "http " + ((HttpStatusException) e).getStatusCode();
+        } else if (e.getCause() instanceof MalformedURLException) {
+            return "malformed url";
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    public LatencyHistogram getFetchLatency() {
+        return fetchLatency;
+    }
+
+    public LatencyHistogram getConnectLatency() {
+        return connectLatency;
+    }
+
+    public LatencyHistogram getFirstByteLatency() {
+        return firstByteLatency;
+    }
+
+    public LatencyHistogram getDownloadLatency() {
+        return downloadLatency;
+    }
+
+    public LatencyHistogram getExtractLatency() {
+        return extractLatency;
+    }
+
+    @Override
+    public long getPages() {
+        return pages.sum();
+    }
+
+    @Override
+    public long getNotModifiedPages() {
+        return notModifiedPages.sum();
+    }
+
+    @Override
+    public long getTruncatedPages() {
+        return truncatedPages.sum();
+    }
+
+    @Override
+    public long getFiles() {
+        return files.sum();
+    }
+
+    /**
+     * Bytes of the pages, after decoding.
+     */
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Bytes of the pages as sent by the servers, compressed ones included as compressed.
+     */
+    @Override
+    public long getTransferBytes() {
+        return transferBytes.sum();
+    }
+
+    @Override
+    public double getPagesPerSecond() {
+        return perSecond(getPages());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(getBytes());
+    }
+
+    @Override
+    public long getFrontierSize() {
+        return frontierSize.getAsLong();
+    }
+
+    @Override
+    public long getVisitedUrls() {
+        return visitedUrls.getAsLong();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Pages not fetched because a CrawlBudget limit ran out.
+     */
+    @Override
+    public long getSkippedPages() {
+        return skippedPages.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Skipped pages by the limit which ran out, e.g. "max pages".
+     */
+    @Override
+    public Map<String, Long> getSkippedPagesByLimit() {
+        Map<String, Long> skippedCounts = new TreeMap<>();
+        skippedPages.forEach((limit, count) -> skippedCounts.put(limit, count.sum()));
+        return skippedCounts;
+    }
+
+    /**
+     * Links not queued because of a UrlFilter, a link is counted every time it is found.
+     */
+    @Override
+    public long getFilteredLinks() {
+        return filteredLinks.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Filtered links by the reason, e.g. "excluded" or "repeated segments".
+     */
+    @Override
+    public Map<String, Long> getFilteredLinksByReason() {
+        Map<String, Long> filteredCounts = new TreeMap<>();
+        filteredLinks.forEach((reason, count) -> filteredCounts.put(reason, count.sum()));
+        return filteredCounts;
+    }
+
+    /**
+     * Pages found to be near-duplicates of pages crawled before (see CrawlerConfig.withNearDuplicateDetection).
+     */
+    @Override
+    public long getNearDuplicatePages() {
+        return nearDuplicatePages.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((type, count) -> errorCounts.put(type, count.sum()));
+        return errorCounts;
+    }
+
+    private double perSecond(long count) {
+        long elapsedNanos = startNanos == 0 ? 0 : System.nanoTime() - startNanos;
+        return elapsedNanos <= 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Current values under stable names, e.g. "pages", "fetch.p99Millis", "errors.timeout", ready to be exported.
+     */
+    @Override
+    public Map<String, Double> getSnapshot() {
+        return snapshot();
+    }
+
+    public Map<String, Double> snapshot() {
+        Map<String, Double> snapshot = new LinkedHashMap<>();
+        snapshot.put("pages", (double) getPages());
+        snapshot.put("notModifiedPages", (double) getNotModifiedPages());
+        snapshot.put("truncatedPages", (double) getTruncatedPages());
+        snapshot.put("files", (double) getFiles());
+        snapshot.put("bytes", (double) getBytes());
+        snapshot.put("transferBytes", (double) getTransferBytes());
+        snapshot.put("pagesPerSecond", getPagesPerSecond());
+        snapshot.put("bytesPerSecond", getBytesPerSecond());
+        snapshot.put("frontierSize", (double) getFrontierSize());
+        snapshot.put("visitedUrls", (double) getVisitedUrls());
+        putLatency(snapshot, "fetch", fetchLatency);
+        putLatency(snapshot, "connect", connectLatency);
+        putLatency(snapshot, "firstByte", firstByteLatency);
+        putLatency(snapshot, "download", downloadLatency);
+        putLatency(snapshot, "extract", extractLatency);
+        snapshot.put("errors", (double) getErrorCount());
+        getErrors().forEach((type, count) -> snapshot.put("errors." + type, (double) count));
+        snapshot.put("skippedPages", (double) getSkippedPages());
+        getSkippedPagesByLimit().forEach((limit, count) -> snapshot.put("skippedPages." + limit, (double) count));
+        snapshot.put("nearDuplicatePages", (double) getNearDuplicatePages());
+        snapshot.put("filteredLinks", (double) getFilteredLinks());
+        getFilteredLinksByReason().forEach((reason, count) -> snapshot.put("filteredLinks." + reason, (double) count));
+        return snapshot;
+    }
+
+    private static void putLatency(Map<String, Double> snapshot, String name, LatencyHistogram histogram) {
+        snapshot.put(name + ".count", (double) histogram.count());
+        snapshot.put(name + ".meanMillis", histogram.meanMillis());
+        snapshot.put(name + ".p50Millis", histogram.percentileMillis(50));
+        snapshot.put(name + ".p90Millis", histogram.percentileMillis(90));
+        snapshot.put(name + ".p99Millis", histogram.percentileMillis(99));
+        snapshot.put(name + ".maxMillis", histogram.maxMillis());
+    }
+
+    /**
+     * One line summary for periodic progress reports.
+     */
+    public String progressLine() {
+        return String.format("pages: %d (%.1f/s), %.1f kB/s, frontier: %d, visited: %d, errors: %d, fetch p50/p99: %.1f/%.1fms",
+                getPages(), getPagesPerSecond(), getBytesPerSecond() / 1024, getFrontierSize(), getVisitedUrls(), getErrorCount(),
+                fetchLatency.percentileMillis(50), fetchLatency.percentileMillis(99));
+    }
+
+    /**
+     * Multi line report with all the latency histograms, e.g. printed at the end of the crawl.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(progressLine()).append(WebCrawler.NEW_LINE);
+        report.append(" fetch:      ").append(fetchLatency).append(WebCrawler.NEW_LINE);
+        report.append(" connect:    ").append(connectLatency).append(WebCrawler.NEW_LINE);
+        report.append(" first byte: ").append(firstByteLatency).append(WebCrawler.NEW_LINE);
+        report.append(" download:   ").append(downloadLatency).append(WebCrawler.NEW_LINE);
+        report.append(" extract:    ").append(extractLatency).append(WebCrawler.NEW_LINE);
+        report.append(String.format(" transfer:   %.1f kB for %.1f kB of pages (%.0f%%)", getTransferBytes() / 1024.0, getBytes() / 1024.0,
+                getBytes() > 0 ? 100.0 * getTransferBytes() / getBytes() : 100.0)).append(WebCrawler.NEW_LINE);
+        if (!errors.isEmpty()) {
+            report.append(" errors:     ").append(getErrors()).append(WebCrawler.NEW_LINE);
+        }
+        if (!skippedPages.isEmpty()) {
+            report.append(" skipped:    ").append(getSkippedPagesByLimit()).append(WebCrawler.NEW_LINE);
+        }
+        if (!filteredLinks.isEmpty()) {
+            report.append(" filtered:   ").append(getFilteredLinksByReason()).append(WebCrawler.NEW_LINE);
+        }
+        if (getNearDuplicatePages() > 0) {
+            report.append(" duplicates: ").append(getNearDuplicatePages()).append(" near-duplicate pages, links not followed").append(WebCrawler.NEW_LINE);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Makes the metrics visible in JMX clients (jconsole, VisualVM), replacing metrics registered before.
+     */
+    public void registerMBean() throws JMException {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(OBJECT_NAME);
+        if (mBeanServer.isRegistered(objectName)) {
+            mBeanServer.unregisterMBean(objectName);
+        }
+        mBeanServer.registerMBean(this, objectName);
+    }
+
+    @Override
+    public String toString() {
+        return progressLine();
+    }
+}
@@ -0,0 +1,48 @@
+package com.demo.webcrawler;
+
+import java.util.Map;
+
+/**
+ * JMX view of CrawlMetrics, registered with CrawlMetrics.registerMBean under com.demo.webcrawler:type=CrawlMetrics.
+ */
+public interface CrawlMetricsMXBean {
+
+    long getPages();
+
+    long getNotModifiedPages();
+
+    long getTruncatedPages();
+
+    long getFiles();
+
+    long getBytes();
+
+    long getTransferBytes();
+
+    double getPagesPerSecond();
+
+    double getBytesPerSecond();
+
+    long getFrontierSize();
+
+    long getVisitedUrls();
+
+    long getErrorCount();
+
+    Map<String, Long> getErrors();
+
+    long getSkippedPages();
+
+    Map<String, Long> getSkippedPagesByLimit();
+
+    long getNearDuplicatePages();
+
+    long getFilteredLinks();
+
+    Map<String, Long> getFilteredLinksByReason();
+
+    /**
+     * All the values of CrawlMetrics.snapshot, including latency percentiles.
+     */
+    Map<String, Double> getSnapshot();
+}
@@ -0,0 +1,40 @@
+package com.demo.webcrawler;
+
+/**
+ * A page waiting in the frontier together with the depth it was discovered at and the page linking to it.
+ */
+class CrawlTask {
+    private final WebUrl page;
+    private final int depth;
+    private final String parentUrl;
+
+    CrawlTask(WebUrl page, int depth) {
+        this(page, depth, null);
+    }
+
+    /**
+     * @param parentUrl page the link was found on, null when not known (base url, sitemap seeds, restored tasks)
+     */
+    CrawlTask(WebUrl page, int depth, String parentUrl) {
+        this.page = page;
+        this.depth = depth;
+        this.parentUrl = parentUrl;
+    }
+
+    WebUrl getPage() {
+        return page;
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    String getParentUrl() {
+        return parentUrl;
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlTask(" + page.getUrl() + ", depth=" + depth + ")";
+    }
+}
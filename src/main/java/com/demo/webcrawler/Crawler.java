@@ -4,5 +4,18 @@ package com.demo.webcrawler;
  * Created by andrzej on 2016-08-18.
  */
 public interface Crawler {
-    String createSiteMap(String baseUrl);
+
+    /**
+     * Crawls the site pushing entries to the given sink as soon as they are found.
+     */
+    void createSiteMap(String baseUrl, SiteMapSink siteMapSink);
+
+    /**
+     * Crawls the site and returns the whole site-map as a String, fine for small sites only.
+     */
+    default String createSiteMap(String baseUrl) {
+        InMemorySiteMapSink siteMapSink = new InMemorySiteMapSink();
+        createSiteMap(baseUrl, siteMapSink);
+        return siteMapSink.toString();
+    }
 }
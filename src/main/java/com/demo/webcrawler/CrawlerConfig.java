@@ -0,0 +1,321 @@
+package com.demo.webcrawler;
+
+import java.util.function.Supplier;
+
+/**
+ * Settings shared by the crawler engines, every setting has a default matching the original crawler behaviour.
+ *
+ * e.g. new WebCrawler(new CrawlerConfig().withMaxSearchDepth(3).withPolitenessPolicy(new PolitenessPolicy(2, 1, 1)))
+ */
+public class CrawlerConfig {
+    public static final int DEFAULT_PAGE_TIMEOUT_IN_MILLIS = 1000;
+    public static final int DEFAULT_MAX_SEARCH_DEPTH = 1;
+    public static final int DEFAULT_WORKERS = 8;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    /**
+     * Order in which WebCrawler visits pages, frontier based engines always crawl breadth first.
+     */
+    public enum CrawlOrder {
+        DEPTH_FIRST, // original order, children are crawled right after their parent
+        BREADTH_FIRST // level by level, pages are crawled at their shortest-path depth
+    }
+
+    private int maxSearchDepth = DEFAULT_MAX_SEARCH_DEPTH;
+    private int workers = DEFAULT_WORKERS;
+    private int parsers = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private PageFetcher pageFetcher;
+    private PolitenessPolicy politenessPolicy = PolitenessPolicy.unlimited();
+    private Supplier<VisitedUrls> visitedUrlsFactory = HashSetVisitedUrls::new;
+    private LinkExtractor linkExtractor = new JsoupLinkExtractor();
+    private PageCache pageCache;
+    private Supplier<ResourceRegistry> resourceRegistryFactory = ResourceRegistry::allReferences;
+    private CrawlMetrics metrics = new CrawlMetrics();
+    private CrawlOrder crawlOrder = CrawlOrder.DEPTH_FIRST;
+    private PageScorer pageScorer;
+    private boolean obeyRobotsTxt;
+    private int maxSitemapPages;
+    private DnsCache dnsCache;
+    private CrawlBudget budget = CrawlBudget.unlimited();
+    private int nearDuplicateDistance = -1;// near-duplicates are not looked for
+    private UrlFilter urlFilter = UrlFilter.acceptAll();
+    private SiteFairness siteFairness = SiteFairness.equalShares();
+
+    public CrawlerConfig withMaxSearchDepth(int maxSearchDepth) {
+        this.maxSearchDepth = maxSearchDepth;
+        return this;
+    }
+
+    /**
+     * Number of parallel workers, used by ConcurrentWebCrawler (and as fetchers by PipelinedWebCrawler).
+     */
+    public CrawlerConfig withWorkers(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("Number of workers should be at least 1.");
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * Number of threads extracting links, used by PipelinedWebCrawler only, default = number of cores.
+     */
+    public CrawlerConfig withParsers(int parsers) {
+        if (parsers < 1) throw new IllegalArgumentException("Number of parsers should be at least 1.");
+        this.parsers = parsers;
+        return this;
+    }
+
+    /**
+     * Capacity of the queues between the stages of PipelinedWebCrawler (fetched pages, page blocks to write).
+     */
+    public CrawlerConfig withQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity should be at least 1.");
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public CrawlerConfig withPageFetcher(PageFetcher pageFetcher) {
+        WebCrawler.assertNotNull(pageFetcher, "Page fetcher should not be null.");
+        this.pageFetcher = pageFetcher;
+        return this;
+    }
+
+    public CrawlerConfig withPolitenessPolicy(PolitenessPolicy politenessPolicy) {
+        WebCrawler.assertNotNull(politenessPolicy, "Politeness policy should not be null.");
+        this.politenessPolicy = politenessPolicy;
+        return this;
+    }
+
+    /**
+     * Creates the visited urls set, called once per crawl.
+     */
+    public CrawlerConfig withVisitedUrls(Supplier<VisitedUrls> visitedUrlsFactory) {
+        WebCrawler.assertNotNull(visitedUrlsFactory, "Visited urls factory should not be null.");
+        this.visitedUrlsFactory = visitedUrlsFactory;
+        return this;
+    }
+
+    /**
+     * How links are found in pages, JsoupLinkExtractor by default, StreamingLinkExtractor skips building the page model.
+     */
+    public CrawlerConfig withLinkExtractor(LinkExtractor linkExtractor) {
+        WebCrawler.assertNotNull(linkExtractor, "Link extractor should not be null.");
+        this.linkExtractor = linkExtractor;
+        return this;
+    }
+
+    /**
+     * Makes re-crawls incremental, pages that did not change since the cached crawl are not downloaded again.
+     * The cache is updated in place, save it after the crawl (PageCache.save).
+     */
+    public CrawlerConfig withPageCache(PageCache pageCache) {
+        WebCrawler.assertNotNull(pageCache, "Page cache should not be null.");
+        this.pageCache = pageCache;
+        return this;
+    }
+
+    /**
+     * Creates the registry deciding which css, js, images and external links are written, called once per crawl.
+     * By default every reference is written, FirstReferenceRegistry writes each resource once per site,
+     * ReferenceCountingRegistry writes each resource once with its reference count at the end of the crawl.
+     */
+    public CrawlerConfig withResourceRegistry(Supplier<ResourceRegistry> resourceRegistryFactory) {
+        WebCrawler.assertNotNull(resourceRegistryFactory, "Resource registry factory should not be null.");
+        this.resourceRegistryFactory = resourceRegistryFactory;
+        return this;
+    }
+
+    /**
+     * Metrics recorded by the crawler, share one instance to read them while the crawl is running (e.g. in progress reports).
+     */
+    public CrawlerConfig withMetrics(CrawlMetrics metrics) {
+        WebCrawler.assertNotNull(metrics, "Metrics should not be null.");
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Used by WebCrawler only, depth first by default, frontier based engines always crawl breadth first.
+     */
+    public CrawlerConfig withCrawlOrder(CrawlOrder crawlOrder) {
+        WebCrawler.assertNotNull(crawlOrder, "Crawl order should not be null.");
+        this.crawlOrder = crawlOrder;
+        return this;
+    }
+
+    /**
+     * Of the pages at the same depth the ones with higher scores are crawled first, so a crawl cut short
+     * covers the most important pages. Used by breadth first crawls.
+     */
+    public CrawlerConfig withPageScorer(PageScorer pageScorer) {
+        WebCrawler.assertNotNull(pageScorer, "Page scorer should not be null.");
+        this.pageScorer = pageScorer;
+        return this;
+    }
+
+    /**
+     * Reads robots.txt of the site before the crawl, disallowed pages are never fetched and its Crawl-delay is respected.
+     * Not supported by the distributed crawl.
+     */
+    public CrawlerConfig withRobotsTxt(boolean obeyRobotsTxt) {
+        this.obeyRobotsTxt = obeyRobotsTxt;
+        return this;
+    }
+
+    /**
+     * Seeds the crawl with up to maxSitemapPages pages listed in the sitemaps of the site (robots.txt Sitemap lines,
+     * /sitemap.xml otherwise), 0 = sitemaps are not read. Not supported by the distributed crawl.
+     */
+    public CrawlerConfig withSitemaps(int maxSitemapPages) {
+        if (maxSitemapPages < 0) throw new IllegalArgumentException("Max sitemap pages should not be negative.");
+        this.maxSitemapPages = maxSitemapPages;
+        return this;
+    }
+
+    /**
+     * Resolves hosts through the cache, hosts of pages entering the frontier are resolved in the background.
+     * The default page fetcher uses it, a fetcher given with withPageFetcher has to be created with the same cache.
+     */
+    public CrawlerConfig withDnsCache(DnsCache dnsCache) {
+        WebCrawler.assertNotNull(dnsCache, "DNS cache should not be null.");
+        this.dnsCache = dnsCache;
+        return this;
+    }
+
+    /**
+     * Limits every crawl by pages, bytes, time and pages per host, the site-map crawled so far is kept when one runs out.
+     * The distributed crawl applies it to every worker separately.
+     */
+    public CrawlerConfig withBudget(CrawlBudget budget) {
+        WebCrawler.assertNotNull(budget, "Crawl budget should not be null.");
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Links of a page are not followed when its text is a near-duplicate of a page crawled before (e.g. the same page under
+     * session ids, sort orders or print views), that is when their SimHash fingerprints differ in at most maxDistance bits (0 - 7).
+     * The page itself is still written. The distributed crawl compares the pages of every worker separately.
+     */
+    public CrawlerConfig withNearDuplicateDetection(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > NearDuplicateIndex.MAX_DISTANCE) throw new IllegalArgumentException("Near-duplicate distance should be between 0 and " + NearDuplicateIndex.MAX_DISTANCE + ".");
+        this.nearDuplicateDistance = maxDistance;
+        return this;
+    }
+
+    /**
+     * Links are checked against include/exclude patterns and url trap heuristics before they are queued,
+     * see UrlFilter.trapDetection for the default heuristics. The distributed crawl applies it on every worker separately.
+     */
+    public CrawlerConfig withUrlFilter(UrlFilter urlFilter) {
+        WebCrawler.assertNotNull(urlFilter, "Url filter should not be null.");
+        this.urlFilter = urlFilter;
+        return this;
+    }
+
+    /**
+     * How the workers are shared between the sites of a batch crawl (ConcurrentWebCrawler.createSiteMaps), default = equal shares.
+     */
+    public CrawlerConfig withSiteFairness(SiteFairness siteFairness) {
+        WebCrawler.assertNotNull(siteFairness, "Site fairness should not be null.");
+        this.siteFairness = siteFairness;
+        return this;
+    }
+
+    public int getMaxSearchDepth() {
+        return maxSearchDepth;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getParsers() {
+        return parsers;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public PageFetcher getPageFetcher() {
+        if (pageFetcher == null) {
+            pageFetcher = dnsCache != null
+                    ? new PooledHttpPageFetcher(DEFAULT_PAGE_TIMEOUT_IN_MILLIS, DEFAULT_PAGE_TIMEOUT_IN_MILLIS, FetchPolicy.unlimited(), dnsCache)
+                    : new PooledHttpPageFetcher(DEFAULT_PAGE_TIMEOUT_IN_MILLIS, DEFAULT_PAGE_TIMEOUT_IN_MILLIS);
+        }
+        return pageFetcher;
+    }
+
+    public PolitenessPolicy getPolitenessPolicy() {
+        return politenessPolicy;
+    }
+
+    public Supplier<VisitedUrls> getVisitedUrlsFactory() {
+        return visitedUrlsFactory;
+    }
+
+    public LinkExtractor getLinkExtractor() {
+        return linkExtractor;
+    }
+
+    /**
+     * Null when every page is downloaded.
+     */
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    public Supplier<ResourceRegistry> getResourceRegistryFactory() {
+        return resourceRegistryFactory;
+    }
+
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CrawlOrder getCrawlOrder() {
+        return crawlOrder;
+    }
+
+    /**
+     * Null when pages of the same depth are crawled in discovery order.
+     */
+    public PageScorer getPageScorer() {
+        return pageScorer;
+    }
+
+    public boolean isObeyRobotsTxt() {
+        return obeyRobotsTxt;
+    }
+
+    public int getMaxSitemapPages() {
+        return maxSitemapPages;
+    }
+
+    /**
+     * Null when hosts are resolved by the page fetcher on its own.
+     */
+    public DnsCache getDnsCache() {
+        return dnsCache;
+    }
+
+    public CrawlBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Negative when near-duplicates are not looked for.
+     */
+    public int getNearDuplicateDistance() {
+        return nearDuplicateDistance;
+    }
+
+    public UrlFilter getUrlFilter() {
+        return urlFilter;
+    }
+
+    public SiteFairness getSiteFairness() {
+        return siteFairness;
+    }
+}
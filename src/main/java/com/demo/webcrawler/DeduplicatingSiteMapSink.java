@@ -0,0 +1,35 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+
+/**
+ * Passes resource entries through the ResourceRegistry of the crawl, all the other entries go straight to the sink.
+ * Does not close the underlying sink, that is still the responsibility of the caller.
+ */
+class DeduplicatingSiteMapSink implements SiteMapSink {
+    private final SiteMapSink siteMapSink;
+    private final ResourceRegistry resourceRegistry;
+
+    DeduplicatingSiteMapSink(SiteMapSink siteMapSink, ResourceRegistry resourceRegistry) {
+        this.siteMapSink = siteMapSink;
+        this.resourceRegistry = resourceRegistry;
+    }
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        if (!ResourceRegistry.isResource(entry.getType()) || resourceRegistry.register(entry)) {
+            siteMapSink.add(entry);
+        }
+    }
+
+    /**
+     * Writes the entries held back by the registry, once the crawl is finished.
+     */
+    void flush() {
+        resourceRegistry.flush(siteMapSink);
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
@@ -0,0 +1,288 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static com.demo.webcrawler.WebCrawler.assertNotNull;
+
+/**
+ * Coordinator of a distributed crawl, pages are crawled by worker processes (DistributedCrawlWorker, Main --worker=host:port)
+ * each owning a shard of the urls (see ShardPartitioner) with its own frontier and visited urls.
+ *
+ * The coordinator waits for all the workers to connect, sends the base url to its shard, then routes links found
+ * by one worker to the worker owning them and merges site-map blocks sent by the workers into the sink.
+ * It does no fetching itself, so a single coordinator can serve many workers on one or more machines.
+ * Protocol and the way the end of the crawl is detected are described in ShardProtocol.
+ */
+public class DistributedCrawlCoordinator implements Crawler {
+    public static final int DEFAULT_ACCEPT_TIMEOUT_MILLIS = 60000;
+
+    private final Logger logger = LoggerFactory.getLogger(DistributedCrawlCoordinator.class);
+    private final ServerSocket serverSocket;
+    private final ShardPartitioner partitioner;
+    private final int maxSearchDepth;
+    private final Supplier<ResourceRegistry> resourceRegistryFactory;
+    private final int acceptTimeoutMillis;
+
+    public DistributedCrawlCoordinator(CrawlerConfig config, ServerSocket serverSocket, ShardPartitioner partitioner) {
+        this(config, serverSocket, partitioner, DEFAULT_ACCEPT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param serverSocket workers connect to it, one crawl uses exactly partitioner.getShards() connections
+     * @param acceptTimeoutMillis how long to wait for each worker to connect
+     */
+    public DistributedCrawlCoordinator(CrawlerConfig config, ServerSocket serverSocket, ShardPartitioner partitioner, int acceptTimeoutMillis) {
+        assertNotNull(config, "Crawler config should not be null.");
+        assertNotNull(serverSocket, "Server socket should not be null.");
+        assertNotNull(partitioner, "Shard partitioner should not be null.");
+        this.serverSocket = serverSocket;
+        this.partitioner = partitioner;
+        this.maxSearchDepth = config.getMaxSearchDepth();
+        this.resourceRegistryFactory = config.getResourceRegistryFactory();
+        this.acceptTimeoutMillis = acceptTimeoutMillis;
+    }
+
+    /**
+     * Port workers should connect to.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void createSiteMap(String baseUrl, SiteMapSink siteMapSink) {
+        assertNotNull(baseUrl, "Base URL should not be null.");
+        assertNotNull(siteMapSink, "Site-map sink should not be null.");
+
+        WebUrl webUrl = WebUrl.crawlable(WebCrawler.addProtocolToUrl(baseUrl));
+        Crawl crawl = new Crawl(partitioner.getShards(), new DeduplicatingSiteMapSink(siteMapSink, resourceRegistryFactory.get()));
+        try {
+            serverSocket.setSoTimeout(acceptTimeoutMillis);
+            for (int shard = 0; shard < partitioner.getShards(); shard++) {
+                logger.info("Waiting for worker " + (shard + 1) + " of " + partitioner.getShards() + " on port " + getPort());
+                crawl.workers.add(new WorkerConnection(shard, serverSocket.accept()));
+            }
+            for (WorkerConnection worker : crawl.workers) {
+                worker.send(ShardProtocol.WELCOME + " " + worker.shard + " " + partitioner.getShards() + " " + maxSearchDepth
+                        + " " + partitioner.getPartitioning());
+            }
+
+            ThreadFactory threadFactory = WorkerThreads.platformFactory("coordinator-reader-");
+            crawl.workers.forEach(worker -> threadFactory.newThread(() -> readWorker(worker, crawl)).start());
+            crawl.route(0, webUrl.getUrl());
+
+            crawl.awaitFinished();
+            for (WorkerConnection worker : crawl.workers) {
+                worker.send(ShardProtocol.STOP);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
+        } finally {
+            crawl.workers.forEach(WorkerConnection::close);
+        }
+
+        crawl.output.flush();
+        logger.info("Routed links: " + crawl.routedLinks());
+    }
+
+    private void readWorker(WorkerConnection worker, Crawl crawl) {
+        try {
+            String message;
+            while ((message = worker.reader.readLine()) != null) {
+                switch (ShardProtocol.command(message)) {
+                    case ShardProtocol.LINK:
+                        crawl.route(Integer.parseInt(ShardProtocol.argument(message, 1)),
+                                ShardProtocol.unescape(ShardProtocol.argument(message, 2)));
+                        break;
+                    case ShardProtocol.BLOCK:
+                        crawl.write(ShardProtocol.readBlock(message, worker.reader));
+                        break;
+                    case ShardProtocol.IDLE:
+                        crawl.idle(worker.shard, Long.parseLong(ShardProtocol.argument(message, 1)));
+                        break;
+                    default:
+                        throw new IOException("Unknown message from worker " + worker.shard + ": " + message);
+                }
+            }
+            if (!crawl.isFinished()) {
+                throw new IOException("Worker " + worker.shard + " disconnected before the crawl was finished.");
+            }
+        } catch (IOException e) {
+            crawl.fail(crawl.isFinished() ? null : new UncheckedIOException(e));
+        } catch (RuntimeException | Error e) {
+            crawl.fail(e);
+        }
+    }
+
+    /**
+     * State of a single crawl shared by the reader threads.
+     */
+    private class Crawl {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final ReentrantLock outputLock = new ReentrantLock();
+        private final List<WorkerConnection> workers = new ArrayList<>();
+        private final DeduplicatingSiteMapSink output;
+        private final long[] routedLinks;// links sent to each worker
+        private final long[] processedLinks;// as reported by each worker when it became idle, -1 before the first report
+        private boolean finished;
+        private Throwable failure;
+
+        Crawl(int shards, DeduplicatingSiteMapSink output) {
+            this.output = output;
+            this.routedLinks = new long[shards];
+            this.processedLinks = new long[shards];
+            Arrays.fill(processedLinks, -1);
+        }
+
+        void route(int depth, String url) throws IOException {
+            int shard = partitioner.shardOf(url);
+            lock.lock();
+            try {
+                routedLinks[shard]++;// before sending, so the worker can never look idle with the link in flight
+            } finally {
+                lock.unlock();
+            }
+            workers.get(shard).send(ShardProtocol.link(depth, url));
+        }
+
+        void write(List<SiteMapEntry> pageBlock) {
+            outputLock.lock();
+            try {
+                pageBlock.forEach(output::add);
+            } finally {
+                outputLock.unlock();
+            }
+        }
+
+        void idle(int shard, long processed) {
+            lock.lock();
+            try {
+                processedLinks[shard] = processed;
+                boolean allIdle = true;
+                for (int i = 0; i < routedLinks.length; i++) {
+                    allIdle &= processedLinks[i] == routedLinks[i];
+                }
+                if (allIdle) {
+                    finished = true;
+                    changed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isFinished() {
+            lock.lock();
+            try {
+                return finished;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param e null when the connection closed after the crawl was finished
+         */
+        void fail(Throwable e) {
+            if (e == null) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (failure == null) {
+                    failure = e;
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void awaitFinished() throws InterruptedException {
+            lock.lock();
+            try {
+                while (!finished && failure == null) {
+                    changed.await();
+                }
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                } else if (failure != null) {
+                    throw (Error) failure;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long routedLinks() {
+            lock.lock();
+            try {
+                long routed = 0;
+                for (long links : routedLinks) {
+                    routed += links;
+                }
+                return routed;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class WorkerConnection implements Closeable {
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final int shard;
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final Writer writer;
+
+        WorkerConnection(int shard, Socket socket) throws IOException {
+            this.shard = shard;
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        void send(String message) throws IOException {
+            writeLock.lock();
+            try {
+                writer.write(message + "\n");
+                writer.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing left to do with it
+            }
+        }
+    }
+}
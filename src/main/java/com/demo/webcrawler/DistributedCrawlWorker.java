@@ -0,0 +1,271 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static com.demo.webcrawler.WebCrawler.assertNotNull;
+
+/**
+ * Worker process of a distributed crawl, crawls the pages of its shard with config.getWorkers() parallel workers.
+ *
+ * Links to pages of its own shard go straight to the local frontier, links to other shards are sent to the coordinator.
+ * Both are recorded in the local visited urls, so every link leaves the worker at most once.
+ * Site-map entries are not written locally, whole page blocks are sent to the coordinator.
+ * The local frontier is breadth first, but links from other shards may arrive after their level was crawled,
+ * so shortest-path depth is only guaranteed within a shard.
+ */
+public class DistributedCrawlWorker {
+    // markers passed through the inbox together with links routed by the coordinator
+    private static final CrawlTask IDLE_CHECK = new CrawlTask(null, -1);
+    private static final CrawlTask STOP = new CrawlTask(null, -1);
+
+    private final Logger logger = LoggerFactory.getLogger(DistributedCrawlWorker.class);
+    private final int workers;
+    private final PageFetcher pageFetcher;
+    private final HostScheduler hostScheduler;
+    private final Supplier<VisitedUrls> visitedUrlsFactory;
+    private final LinkExtractor linkExtractor;
+    private final PageCache pageCache;
+    private final CrawlMetrics metrics;
+    private final PageScorer pageScorer;
+    private final DnsCache dnsCache;
+    private final CrawlBudget budget;
+    private final int nearDuplicateDistance;
+    private final UrlFilter urlFilter;
+
+    public DistributedCrawlWorker(CrawlerConfig config) {
+        assertNotNull(config, "Crawler config should not be null.");
+        this.workers = config.getWorkers();
+        this.pageFetcher = config.getPageFetcher();
+        this.hostScheduler = new HostScheduler(config.getPolitenessPolicy());
+        this.visitedUrlsFactory = config.getVisitedUrlsFactory();
+        this.linkExtractor = config.getLinkExtractor();
+        this.pageCache = config.getPageCache();
+        this.metrics = config.getMetrics();
+        this.pageScorer = config.getPageScorer();
+        this.dnsCache = config.getDnsCache();
+        this.budget = config.getBudget();
+        this.nearDuplicateDistance = config.getNearDuplicateDistance();
+        this.urlFilter = config.getUrlFilter();
+    }
+
+    /**
+     * Connects to the coordinator and crawls until the coordinator reports the whole crawl is finished.
+     * Max search depth and partitioning are taken from the coordinator.
+     */
+    public void run(String coordinatorHost, int coordinatorPort) throws IOException {
+        try (Socket socket = new Socket(coordinatorHost, coordinatorPort)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String welcome = reader.readLine();
+            if (welcome == null || !ShardProtocol.WELCOME.equals(ShardProtocol.command(welcome))) {
+                throw new IOException("Unexpected greeting from the coordinator: " + welcome);
+            }
+            Shard shard = new Shard(
+                    Integer.parseInt(ShardProtocol.argument(welcome, 1)),
+                    new ShardPartitioner(Integer.parseInt(ShardProtocol.argument(welcome, 2)),
+                            ShardPartitioner.Partitioning.valueOf(ShardProtocol.argument(welcome, 4))),
+                    Integer.parseInt(ShardProtocol.argument(welcome, 3)),
+                    new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+            logger.info("Crawling shard " + shard.index + " of " + shard.partitioner.getShards());
+
+            WorkerThreads.platformFactory("worker-reader-").newThread(() -> readCoordinator(reader, shard)).start();
+            crawlShard(shard);
+            logger.info("Visited urls: " + shard.visitedUrls);
+            shard.budgetTracker.logSummary();
+        }
+    }
+
+    /**
+     * State of the shard shared by the workers.
+     */
+    private class Shard {
+        private final int index;
+        private final ShardPartitioner partitioner;
+        private final int maxSearchDepth;
+        private final VisitedUrls visitedUrls = visitedUrlsFactory.get();
+        private final BudgetTracker budgetTracker = new BudgetTracker(budget, metrics);// per worker, shards do not share their budgets
+        private final Frontier frontier = new Frontier(pageScorer, dnsCache, budgetTracker);
+        private final NearDuplicateIndex nearDuplicates = NearDuplicateIndex.forCrawl(nearDuplicateDistance);// pages of the shard only
+        private final FrontierFilter frontierFilter = new FrontierFilter(urlFilter, metrics);// links found by the shard only
+        private final BlockingQueue<CrawlTask> inbox = new LinkedBlockingQueue<>();// unbounded, the coordinator is never blocked
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final Writer writer;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Shard(int index, ShardPartitioner partitioner, int maxSearchDepth, Writer writer) {
+            this.index = index;
+            this.partitioner = partitioner;
+            this.maxSearchDepth = maxSearchDepth;
+            this.writer = writer;
+        }
+
+        void send(List<String> messages, List<SiteMapEntry> pageBlock) {
+            writeLock.lock();
+            try {
+                for (String message : messages) {
+                    writer.write(message + "\n");
+                }
+                if (pageBlock != null) {
+                    ShardProtocol.writeBlock(writer, pageBlock);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+            inbox.offer(STOP);
+        }
+    }
+
+    private void readCoordinator(BufferedReader reader, Shard shard) {
+        try {
+            String message;
+            while ((message = reader.readLine()) != null) {
+                if (ShardProtocol.LINK.equals(ShardProtocol.command(message))) {
+                    String url = ShardProtocol.unescape(ShardProtocol.argument(message, 2));
+                    shard.inbox.put(new CrawlTask(WebUrl.crawlable(url), Integer.parseInt(ShardProtocol.argument(message, 1))));
+                } else if (ShardProtocol.STOP.equals(message)) {
+                    shard.inbox.put(STOP);
+                    return;
+                }
+            }
+            shard.fail(new UncheckedIOException(new IOException("Coordinator disconnected before the crawl was finished.")));
+        } catch (IOException e) {
+            shard.fail(new UncheckedIOException(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes links routed by the coordinator until STOP, reporting IDLE whenever there is nothing left to crawl.
+     */
+    private void crawlShard(Shard shard) {
+        shard.frontier.open();
+        shard.frontier.onIdle(() -> shard.inbox.offer(IDLE_CHECK));
+        List<Thread> threads = startWorkers(shard);
+
+        long processedLinks = 0;
+        long reportedLinks = -1;
+        try {
+            shard.inbox.put(IDLE_CHECK);// nothing to do until the first link arrives
+            CrawlTask task;
+            while ((task = shard.inbox.take()) != STOP) {
+                if (task != IDLE_CHECK) {
+                    processedLinks++;
+                    if (shard.visitedUrls.add(task.getPage().getUrl())) {
+                        if (task.getDepth() == 0) {
+                            WebCrawler.addNormalizedAlias(shard.visitedUrls, task.getPage().getUrl());
+                        }
+                        shard.frontier.push(task);
+                    }
+                }
+                // only this thread pushes tasks from outside, so an idle frontier stays idle until the next link
+                if (shard.inbox.isEmpty() && shard.frontier.isIdle() && reportedLinks != processedLinks) {
+                    shard.send(Collections.singletonList(ShardProtocol.IDLE + " " + processedLinks), null);
+                    reportedLinks = processedLinks;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
+        } catch (RuntimeException e) {
+            shard.failure.compareAndSet(null, e);
+        } finally {
+            shard.frontier.close();
+            threads.forEach(Thread::interrupt);
+        }
+
+        Throwable shardFailure = shard.failure.get();
+        if (shardFailure instanceof RuntimeException) {
+            throw (RuntimeException) shardFailure;
+        } else if (shardFailure != null) {
+            throw (Error) shardFailure;
+        }
+    }
+
+    private List<Thread> startWorkers(Shard shard) {
+        ThreadFactory threadFactory = WorkerThreads.factory("shard-worker-");
+        List<Thread> threads = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            threads.add(threadFactory.newThread(() -> {
+                try {
+                    CrawlTask task;
+                    while ((task = shard.frontier.take()) != null) {
+                        try {
+                            crawlPage(task, shard);
+                        } finally {
+                            shard.frontier.complete(task);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException | Error e) {
+                    shard.fail(e);// e.g. coordinator can not be reached, no point to carry on
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        return threads;
+    }
+
+    private void crawlPage(CrawlTask task, Shard shard) {
+        String pageUrl = task.getPage().getUrl();
+        InMemoryEntries pageSiteMap = new InMemoryEntries();
+        List<String> remoteLinks = new ArrayList<>();
+
+        try {
+            logger.info("[" + task.getDepth() + "] " + pageUrl);
+            PageLinks pageLinks = WebCrawler.loadPageLinks(task, pageSiteMap, pageFetcher, hostScheduler, linkExtractor, pageCache, metrics,
+                    shard.budgetTracker, shard.nearDuplicates);
+            WebCrawler.addLinksToSiteMap(pageSiteMap, pageUrl, pageLinks);
+
+            int childDepth = task.getDepth() + 1;
+            if (childDepth <= shard.maxSearchDepth) {
+                for (WebUrl childPage : shard.frontierFilter.allowedPages(pageLinks.getCrawlableChildPages())) {
+                    if (!shard.visitedUrls.add(childPage.getUrl())) {
+                        shard.frontier.linked(childPage);
+                        continue;
+                    }
+                    if (shard.partitioner.shardOf(childPage.getUrl()) == shard.index) {
+                        shard.frontier.push(new CrawlTask(childPage, childDepth, pageUrl));
+                    } else {
+                        remoteLinks.add(ShardProtocol.link(childDepth, childPage.getUrl()));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
+            return;
+        } catch (Exception e) {
+            pageSiteMap.add(WebCrawler.failedPageEntry(task, e, metrics));
+        }
+
+        // sent before the task completes, so the coordinator always gets the links before this worker can report IDLE
+        shard.send(remoteLinks, pageSiteMap.getEntries());
+    }
+}
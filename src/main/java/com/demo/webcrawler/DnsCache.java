@@ -0,0 +1,235 @@
+package com.demo.webcrawler;
+
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Crawler level DNS cache in front of a HostResolver, used by PooledHttpPageFetcher for every connection it opens.
+ *
+ * - resolved hosts are kept for the positive TTL, hosts which did not resolve for the negative TTL,
+ *   so a dead host costs one lookup per negative TTL, not one per link to it,
+ * - concurrent lookups of the same host wait for a single resolution,
+ * - hosts of pages entering the frontier are resolved in the background (prefetch), so fetches find them ready.
+ * Lookups are counted (hits, misses, failures) and timed per host, see snapshot() and getHostLookupMillis().
+ */
+public class DnsCache implements HostResolver {
+    public static final long DEFAULT_TTL_SECONDS = 300;
+    public static final long DEFAULT_NEGATIVE_TTL_SECONDS = 60;
+    private static final int PREFETCH_THREADS = 4;
+    private static final int PREFETCH_QUEUE_CAPACITY = 1024;// beyond it the caller resolves the host itself
+
+    private final HostResolver resolver;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor prefetcher;
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder prefetches = new LongAdder();
+
+    public DnsCache() {
+        this(HostResolver.system(), DEFAULT_TTL_SECONDS, DEFAULT_NEGATIVE_TTL_SECONDS);
+    }
+
+    /**
+     * @param ttlSeconds how long resolved addresses are used
+     * @param negativeTtlSeconds how long a host which did not resolve is reported as unknown without asking again
+     */
+    public DnsCache(HostResolver resolver, long ttlSeconds, long negativeTtlSeconds) {
+        WebCrawler.assertNotNull(resolver, "Host resolver should not be null.");
+        if (ttlSeconds < 0 || negativeTtlSeconds < 0) throw new IllegalArgumentException("DNS TTLs should not be negative.");
+        this.resolver = resolver;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        this.prefetcher = new ThreadPoolExecutor(PREFETCH_THREADS, PREFETCH_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PREFETCH_QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "dns-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.prefetcher.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public List<InetAddress> resolve(String host) throws UnknownHostException {
+        Entry entry = entries.get(host);
+        if (entry != null && !entry.isExpired(System.nanoTime())) {
+            hits.increment();
+            return entry.await(host);// resolution of another thread may still be in progress
+        }
+        Entry newEntry = claim(host, entry);
+        if (newEntry == null) {
+            hits.increment();
+            return entries.get(host).await(host);// another thread claimed it first
+        }
+        lookup(host, newEntry);
+        return newEntry.await(host);
+    }
+
+    /**
+     * Resolves the host of the url in the background, unless it is cached or being resolved.
+     * When too many hosts are waiting to be resolved, the calling thread resolves it.
+     */
+    public void prefetch(String url) {
+        String host = hostOf(url);
+        if (host == null) {
+            return;
+        }
+        Entry entry = entries.get(host);
+        if (entry != null && !entry.isExpired(System.nanoTime())) {
+            return;
+        }
+        Entry newEntry = claim(host, entry);
+        if (newEntry != null) {
+            prefetches.increment();
+            prefetcher.execute(() -> lookup(host, newEntry));
+        }
+    }
+
+    /**
+     * Installs a new entry for the host unless another thread replaced the expired one already.
+     *
+     * @return the new entry, null when another thread claimed the host
+     */
+    private Entry claim(String host, Entry expired) {
+        Entry newEntry = new Entry();
+        boolean claimed = expired == null
+                ? entries.putIfAbsent(host, newEntry) == null
+                : entries.replace(host, expired, newEntry);
+        return claimed ? newEntry : null;
+    }
+
+    private void lookup(String host, Entry entry) {
+        misses.increment();
+        long start = System.nanoTime();
+        try {
+            List<InetAddress> addresses = resolver.resolve(host);
+            entry.resolved(addresses, System.nanoTime() - start, ttlNanos);
+        } catch (UnknownHostException | RuntimeException e) {
+            failures.increment();
+            entry.failed(e, System.nanoTime() - start, negativeTtlNanos);
+        } finally {
+            lookupLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    static String hostOf(String url) {
+        try {
+            String host = new URL(url).getHost();
+            return host.isEmpty() ? null : host;
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    public LatencyHistogram getLookupLatency() {
+        return lookupLatency;
+    }
+
+    /**
+     * Lookups answered from the cache, including those waiting for a resolution in progress.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Lookups sent to the resolver, prefetches included.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Lookups which did not resolve.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Time taken by the last lookup of every host, -1 while it is in progress.
+     */
+    public Map<String, Double> getHostLookupMillis() {
+        Map<String, Double> hostLookups = new TreeMap<>();
+        entries.forEach((host, entry) -> hostLookups.put(host, entry.lookupNanos < 0 ? -1 : entry.lookupNanos / 1e6));
+        return hostLookups;
+    }
+
+    /**
+     * Counters and lookup latency under stable names, e.g. "dns.hits", "dns.lookup.p99Millis", like CrawlMetrics.snapshot.
+     */
+    public Map<String, Double> snapshot() {
+        Map<String, Double> snapshot = new TreeMap<>();
+        snapshot.put("dns.hosts", (double) entries.size());
+        snapshot.put("dns.hits", (double) getHits());
+        snapshot.put("dns.misses", (double) getMisses());
+        snapshot.put("dns.failures", (double) getFailures());
+        snapshot.put("dns.prefetches", (double) prefetches.sum());
+        snapshot.put("dns.lookup.meanMillis", lookupLatency.meanMillis());
+        snapshot.put("dns.lookup.p99Millis", lookupLatency.percentileMillis(99));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "DnsCache(hosts: " + entries.size() + ", hits: " + getHits() + ", misses: " + getMisses()
+                + ", failures: " + getFailures() + ", lookup: " + lookupLatency + ")";
+    }
+
+    /**
+     * Addresses of a host or the failure to resolve it, valid until expiry once resolved.
+     */
+    private static class Entry {
+        private final CompletableFuture<List<InetAddress>> resolution = new CompletableFuture<>();
+        private volatile long expiresAtNanos;
+        private volatile long lookupNanos = -1;
+
+        /**
+         * Never expired while resolving.
+         */
+        boolean isExpired(long nowNanos) {
+            return resolution.isDone() && nowNanos - expiresAtNanos >= 0;
+        }
+
+        void resolved(List<InetAddress> addresses, long lookupNanos, long ttlNanos) {
+            this.lookupNanos = lookupNanos;
+            this.expiresAtNanos = System.nanoTime() + ttlNanos;
+            resolution.complete(addresses);
+        }
+
+        void failed(Exception e, long lookupNanos, long negativeTtlNanos) {
+            this.lookupNanos = lookupNanos;
+            this.expiresAtNanos = System.nanoTime() + negativeTtlNanos;
+            resolution.completeExceptionally(e);
+        }
+
+        List<InetAddress> await(String host) throws UnknownHostException {
+            try {
+                return resolution.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnknownHostException(host + " - interrupted while resolving");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new UnknownHostException(e.getCause().getMessage());// a new one every time, callers may add suppressed exceptions
+            }
+        }
+    }
+}
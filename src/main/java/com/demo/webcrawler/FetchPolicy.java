@@ -0,0 +1,55 @@
+package com.demo.webcrawler;
+
+/**
+ * How much of a response the page fetchers download.
+ *
+ * - maxBodyBytes: bodies are streamed and cut at that size, links are extracted from the part read, 0 = no limit
+ * - headProbe: a HEAD request is sent first, so non-HTML urls are recorded without a body being sent at all
+ * Whatever the policy, non-HTML responses (by Content-Type, or by sniffing the first bytes when it is missing or generic)
+ * are not downloaded, the response is closed as soon as its headers are read.
+ * Files (robots.txt, sitemaps) are cut at their own max size instead of maxBodyBytes, see maxFileBytes.
+ */
+public class FetchPolicy {
+    static final long MAX_ROBOTS_TXT_BYTES = 500 * 1024;// RFC 9309, rules after it may be ignored
+    static final long MAX_SITEMAP_BYTES = 50 * 1024 * 1024;// sitemaps.org limit of a sitemap file
+
+    private final long maxBodyBytes;
+    private final boolean headProbe;
+
+    public FetchPolicy(long maxBodyBytes, boolean headProbe) {
+        if (maxBodyBytes < 0) throw new IllegalArgumentException("Max body size should not be negative.");
+        this.maxBodyBytes = maxBodyBytes;
+        this.headProbe = headProbe;
+    }
+
+    /**
+     * Whole bodies, no HEAD requests, the behaviour of the crawler before fetch policies were introduced.
+     */
+    public static FetchPolicy unlimited() {
+        return new FetchPolicy(0, false);
+    }
+
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public boolean isHeadProbe() {
+        return headProbe;
+    }
+
+    boolean isBodyLimited() {
+        return maxBodyBytes > 0;
+    }
+
+    /**
+     * Max size of a file loaded with PageFetcher.fetchFile, a sitemap is usually bigger than a page.
+     */
+    static long maxFileBytes(String fileUrl) {
+        return fileUrl.endsWith("/robots.txt") ? MAX_ROBOTS_TXT_BYTES : MAX_SITEMAP_BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return "FetchPolicy(maxBodyBytes=" + (isBodyLimited() ? maxBodyBytes : "unlimited") + ", headProbe=" + headProbe + ")";
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.webcrawler;
+
+/**
+ * Where the time of a single fetch went, as far as the page fetcher can tell.
+ * Time to first byte includes connecting, download time is the rest of the fetch (measured by the crawler).
+ */
+public class FetchTimings {
+    public static final long UNKNOWN = -1;
+    public static final FetchTimings NOT_MEASURED = new FetchTimings(UNKNOWN, UNKNOWN);
+
+    private final long connectNanos;
+    private final long firstByteNanos;
+    private final long fetchNanos;
+
+    /**
+     * @param connectNanos time spent opening connections (dns, tcp, tls), 0 when a pooled connection was reused
+     * @param firstByteNanos time from sending the request until response headers were received
+     */
+    public FetchTimings(long connectNanos, long firstByteNanos) {
+        this(connectNanos, firstByteNanos, UNKNOWN);
+    }
+
+    private FetchTimings(long connectNanos, long firstByteNanos, long fetchNanos) {
+        this.connectNanos = connectNanos;
+        this.firstByteNanos = firstByteNanos;
+        this.fetchNanos = fetchNanos;
+    }
+
+    /**
+     * Same timings with the whole fetch time, measured by the crawler.
+     */
+    public FetchTimings withFetchNanos(long fetchNanos) {
+        return new FetchTimings(connectNanos, firstByteNanos, fetchNanos);
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+}
@@ -0,0 +1,175 @@
+package com.demo.webcrawler;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Raw response of a successfully fetched page.
+ */
+public class FetchedPage {
+    public static final long UNKNOWN = -1;
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
+
+    private final String url;
+    private final String baseUrl;
+    private final int statusCode;
+    private final String contentType;
+    private final byte[] body;
+    private final String etag;
+    private final String lastModified;
+    private final FetchTimings timings;
+    private final boolean truncated;
+    private final long transferBytes;
+
+    public FetchedPage(String url, int statusCode, String contentType, byte[] body) {
+        this(url, statusCode, contentType, body, null, null);
+    }
+
+    /**
+     * @param etag value of the ETag header, null when the server did not send one
+     * @param lastModified value of the Last-Modified header, null when the server did not send one
+     */
+    public FetchedPage(String url, int statusCode, String contentType, byte[] body, String etag, String lastModified) {
+        this(url, url, statusCode, contentType, body, etag, lastModified, FetchTimings.NOT_MEASURED, false, UNKNOWN);
+    }
+
+    private FetchedPage(String url, String baseUrl, int statusCode, String contentType, byte[] body, String etag, String lastModified,
+                        FetchTimings timings, boolean truncated, long transferBytes) {
+        this.url = url;
+        this.baseUrl = baseUrl;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.timings = timings;
+        this.truncated = truncated;
+        this.transferBytes = transferBytes;
+    }
+
+    /**
+     * Same page with timings measured by the page fetcher.
+     */
+    public FetchedPage withTimings(FetchTimings timings) {
+        return new FetchedPage(url, baseUrl, statusCode, contentType, body, etag, lastModified, timings, truncated, transferBytes);
+    }
+
+    /**
+     * Same page marked as cut at the max body size of the FetchPolicy, the body is only the beginning of the page.
+     */
+    public FetchedPage truncated() {
+        return new FetchedPage(url, baseUrl, statusCode, contentType, body, etag, lastModified, timings, true, transferBytes);
+    }
+
+    /**
+     * Same page with the number of body bytes read from the network, before decoding (Content-Encoding).
+     */
+    public FetchedPage withTransferBytes(long transferBytes) {
+        return new FetchedPage(url, baseUrl, statusCode, contentType, body, etag, lastModified, timings, truncated, transferBytes);
+    }
+
+    /**
+     * Same page answered by the target of a redirect, e.g. /a redirected to /a/, links found on the page are resolved against it.
+     * A redirect to another origin is ignored, it does not take the crawl to another site.
+     */
+    public FetchedPage redirectedTo(String finalUrl) {
+        UrlResolver resolver = UrlResolver.of(url);
+        String normalizedUrl = UrlResolver.normalize(finalUrl);
+        if (resolver == null || normalizedUrl == null || !resolver.isSameOrigin(normalizedUrl)) {
+            return this;
+        }
+        return new FetchedPage(url, finalUrl, statusCode, contentType, body, etag, lastModified, timings, truncated, transferBytes);
+    }
+
+    /**
+     * Requested url.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Url of the final response after same origin redirects, links found on the page are resolved against it.
+     * Same as the requested url when there was no redirect.
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Value of the Content-Type header, null when the server did not send one.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * FetchTimings.NOT_MEASURED when the page fetcher does not measure them.
+     */
+    public FetchTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * True when the body was cut at the max body size, links past that point were not seen.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Body bytes as sent by the server, smaller than the body when it was compressed,
+     * UNKNOWN when the page fetcher does not count them.
+     */
+    public long getTransferBytes() {
+        return transferBytes;
+    }
+
+    /**
+     * True when the server answered a conditional request with 304, the body is then empty.
+     */
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    /**
+     * Charset from the Content-Type header, null when not specified (Jsoup then detects it from the page).
+     */
+    public String getCharset() {
+        if (contentType == null) {
+            return null;
+        }
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        return matcher.find() ? matcher.group(1).trim() : null;
+    }
+
+    public Document parse() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(body), getCharset(), baseUrl);
+    }
+
+    @Override
+    public String toString() {
+        return "FetchedPage(" + url + ", " + statusCode + ", " + contentType + ", " + body.length + (truncated ? " bytes, truncated)" : " bytes)");
+    }
+}
@@ -0,0 +1,47 @@
+package com.demo.webcrawler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered site-map file, entries are written as they are found so memory use does not grow with the size of the site.
+ */
+public class FileSiteMapSink extends WriterSiteMapSink {
+    private final FileChannel channel;
+
+    public FileSiteMapSink(Path outputFile) throws IOException {
+        this(FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    private FileSiteMapSink(FileChannel channel) {
+        super(new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8)));
+        this.channel = channel;
+    }
+
+    /**
+     * Continues writing an existing site-map file, anything after the given size (e.g. written after the last checkpoint) is dropped.
+     */
+    public static FileSiteMapSink append(Path outputFile, long size) throws IOException {
+        FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(size);
+        channel.position(channel.size());
+        return new FileSiteMapSink(channel);
+    }
+
+    /**
+     * Flushes buffered entries all the way to the disk.
+     *
+     * @return size of the site-map file in bytes
+     */
+    public long sync() throws IOException {
+        flush();
+        channel.force(false);
+        return channel.position();
+    }
+}
@@ -0,0 +1,152 @@
+package com.demo.webcrawler;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compact visited urls set for multi-million page crawls.
+ *
+ * Stores 64-bit url fingerprints (see UrlFingerprint) in an open-addressing table of primitive longs (linear probing),
+ * that is 8 bytes per slot, at most 16 bytes per url with the table kept at most half full.
+ * The table lives either on the heap or off-heap (direct buffer) so it does not add to GC work.
+ * Trade-off: two different urls with the same fingerprint are treated as the same page (extremely rare, see UrlFingerprint).
+ */
+public class FingerprintVisitedUrls implements VisitedUrls {
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 27;// 1GB, direct buffers are limited to 2GB, ~64 million urls
+    private static final double MAX_LOAD_FACTOR = 0.5;
+    private static final long EMPTY_SLOT = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean offHeap;
+    private LongBuffer table;
+    private int mask;
+    private long size;
+
+    public FingerprintVisitedUrls(int expectedUrls, boolean offHeap) {
+        if (expectedUrls < 0) throw new IllegalArgumentException("Expected number of urls should not be negative.");
+        this.offHeap = offHeap;
+        allocate(capacityFor(expectedUrls));
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = fingerprint(url);
+        lock.lock();
+        try {
+            int slot = findSlot(fingerprint);
+            if (table.get(slot) == fingerprint) {
+                return false;
+            }
+            if (size + 1 > table.capacity() * MAX_LOAD_FACTOR) {
+                grow();
+                slot = findSlot(fingerprint);
+            }
+            table.put(slot, fingerprint);
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = fingerprint(url);
+        lock.lock();
+        try {
+            return table.get(findSlot(fingerprint)) == fingerprint;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        lock.lock();
+        try {
+            return table.capacity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fraction of table slots in use, between 0 and MAX_LOAD_FACTOR.
+     */
+    public double occupancy() {
+        lock.lock();
+        try {
+            return (double) size / table.capacity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long memoryInBytes() {
+        return (long) capacity() * Long.BYTES;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FingerprintVisitedUrls(size=%d, capacity=%d, occupancy=%.2f, memory=%dKB, %s)",
+                size(), capacity(), occupancy(), memoryInBytes() / 1024, offHeap ? "off-heap" : "heap");
+    }
+
+    private static long fingerprint(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        return fingerprint == EMPTY_SLOT ? 1 : fingerprint;
+    }
+
+    /**
+     * Slot holding the fingerprint or the empty slot where it should be stored.
+     */
+    private int findSlot(long fingerprint) {
+        int slot = (int) fingerprint & mask;
+        while (true) {
+            long current = table.get(slot);
+            if (current == EMPTY_SLOT || current == fingerprint) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        if (table.capacity() >= MAX_CAPACITY) {
+            throw new IllegalStateException("Visited urls table is full, " + size + " urls.");
+        }
+        LongBuffer oldTable = table;
+        allocate(oldTable.capacity() * 2);
+        for (int i = 0; i < oldTable.capacity(); i++) {
+            long fingerprint = oldTable.get(i);
+            if (fingerprint != EMPTY_SLOT) {
+                table.put(findSlot(fingerprint), fingerprint);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = offHeap ? ByteBuffer.allocateDirect(capacity * Long.BYTES).asLongBuffer() : LongBuffer.allocate(capacity);
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedUrls) {
+        long capacity = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedUrls / MAX_LOAD_FACTOR));
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
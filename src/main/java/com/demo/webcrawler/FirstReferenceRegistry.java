@@ -0,0 +1,24 @@
+package com.demo.webcrawler;
+
+/**
+ * Writes every resource once, on the first page referencing it.
+ * Urls already written are kept in a VisitedUrls set, so with FingerprintVisitedUrls memory stays at a few bytes per unique resource.
+ * Resources written before a crawl was resumed from a checkpoint may be written again.
+ */
+public class FirstReferenceRegistry implements ResourceRegistry {
+    private final VisitedUrls writtenUrls;
+
+    public FirstReferenceRegistry(VisitedUrls writtenUrls) {
+        WebCrawler.assertNotNull(writtenUrls, "Written urls set should not be null.");
+        this.writtenUrls = writtenUrls;
+    }
+
+    @Override
+    public boolean register(SiteMapEntry entry) {
+        return writtenUrls.add(entry.getUrl());
+    }
+
+    public long size() {
+        return writtenUrls.size();
+    }
+}
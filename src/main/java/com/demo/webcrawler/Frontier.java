@@ -0,0 +1,301 @@
+package com.demo.webcrawler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared queue of pages still to be crawled.
+ *
+ * Keeps track of tasks that were taken but not yet completed, so workers know the crawl is over only
+ * when the queue is empty AND nobody is still processing a page that could add more work.
+ * Uses a ReentrantLock rather than synchronized/wait so blocked virtual threads do not pin their carrier.
+ * An open frontier (distributed crawl) keeps workers waiting even when there is nothing to do, as more pages
+ * may still come from other shards, until it is closed.
+ *
+ * Tasks are handed out breadth first, lowest depth first, then highest PageScorer score, then in discovery order.
+ * A task is not handed out while a task of a lower depth is still in progress, as that task may still find
+ * a shorter path to it, so every page is claimed at its shortest-path depth.
+ * Workers wait a little at the end of every level, which is the price of depth limits applied correctly.
+ *
+ * With a BudgetTracker every task asks for budget when it is taken, once the budget runs out queued and newly pushed
+ * tasks are dropped (counted as skipped) and workers finish as soon as the tasks in progress complete.
+ *
+ * Workers of a batch crawl serve many frontiers, they poll them instead of blocking on one (see SiteScheduler).
+ */
+class Frontier {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PageScorer pageScorer;// null when pages of the same depth are taken in discovery order
+    private final DnsCache dnsCache;// null when hosts are not prefetched
+    private final BudgetTracker budget;// null when the crawl is not limited
+    private final NavigableSet<QueuedTask> queue = new TreeSet<>();
+    private final Map<String, QueuedTask> queuedPages = new HashMap<>();// only with a scorer, to count links to queued pages
+    private final NavigableMap<Integer, Integer> inProgressByDepth = new TreeMap<>();
+    private long discoveryOrder;
+    private int pendingTasks;// queued + in progress
+    private boolean open;
+    private Runnable idleListener = () -> { };
+    private Runnable changeListener = () -> { };
+
+    Frontier() {
+        this(null);
+    }
+
+    /**
+     * @param pageScorer orders tasks of the same depth, may be null
+     */
+    Frontier(PageScorer pageScorer) {
+        this(pageScorer, null);
+    }
+
+    /**
+     * @param dnsCache resolves hosts of pushed pages in the background, may be null
+     */
+    Frontier(PageScorer pageScorer, DnsCache dnsCache) {
+        this(pageScorer, dnsCache, null);
+    }
+
+    /**
+     * @param budget decides whether taken tasks are crawled, may be null
+     */
+    Frontier(PageScorer pageScorer, DnsCache dnsCache, BudgetTracker budget) {
+        this.pageScorer = pageScorer;
+        this.dnsCache = dnsCache;
+        this.budget = budget;
+    }
+
+    /**
+     * Workers keep waiting for tasks until close() is called.
+     */
+    void open() {
+        lock.lock();
+        try {
+            open = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            open = false;
+            changed.signalAll();
+            changeListener.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called whenever the last pending task completes, must not block.
+     */
+    void onIdle(Runnable idleListener) {
+        this.idleListener = idleListener;
+    }
+
+    /**
+     * Called whenever a task may have become available or the crawl may have finished, under the lock of the frontier,
+     * must not block nor call the frontier.
+     */
+    void onChange(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * True when nothing is queued and nothing is in progress.
+     */
+    boolean isIdle() {
+        lock.lock();
+        try {
+            return pendingTasks == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void push(CrawlTask task) {
+        if (budget != null && budget.isExhausted()) {
+            budget.skip(task);
+            return;
+        }
+        if (dnsCache != null) {
+            dnsCache.prefetch(task.getPage().getUrl());// outside the lock, it may resolve the host when prefetching is behind
+        }
+        lock.lock();
+        try {
+            QueuedTask queuedTask = new QueuedTask(task, discoveryOrder++);
+            if (pageScorer != null) {
+                queuedTask.score = pageScorer.score(task.getPage(), queuedTask.inLinks);
+                queuedPages.put(task.getPage().getUrl(), queuedTask);
+            }
+            queue.add(queuedTask);
+            pendingTasks++;
+            changed.signal();
+            changeListener.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Another link to an already claimed page was found, with a scorer it may move the page forward
+     * while it is still waiting.
+     */
+    void linked(WebUrl page) {
+        if (pageScorer == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            QueuedTask queuedTask = queuedPages.get(page.getUrl());
+            if (queuedTask != null) {
+                queue.remove(queuedTask);// re-inserted, the score is part of the ordering
+                queuedTask.inLinks++;
+                queuedTask.score = pageScorer.score(queuedTask.task.getPage(), queuedTask.inLinks);
+                queue.add(queuedTask);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until there is a task to process, returns null once the crawl is finished.
+     */
+    CrawlTask take() throws InterruptedException {
+        lock.lock();
+        try {
+            CrawlTask task;
+            while ((task = poll()) == null) {
+                if (pendingTasks == 0 && !open) {
+                    return null;
+                }
+                changed.await();
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Task which can be started right now, null when there is none, without waiting (see isFinished).
+     */
+    CrawlTask poll() {
+        lock.lock();
+        try {
+            while (true) {
+                if (budget != null && budget.isExhausted()) {
+                    dropQueued();
+                }
+                if (queue.isEmpty() || !canStart(queue.first().task.getDepth())) {
+                    return null;
+                }
+                CrawlTask task = queue.pollFirst().task;
+                queuedPages.remove(task.getPage().getUrl());
+                if (budget == null || budget.admit(task)) {
+                    inProgressByDepth.merge(task.getDepth(), 1, Integer::sum);
+                    return task;
+                }
+                taskDropped();// over the budget, e.g. its host had enough pages
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * True once the crawl is over, nothing pending and the frontier is not open.
+     */
+    boolean isFinished() {
+        lock.lock();
+        try {
+            return pendingTasks == 0 && !open;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dropQueued() {
+        QueuedTask queuedTask;
+        while ((queuedTask = queue.pollFirst()) != null) {
+            queuedPages.remove(queuedTask.task.getPage().getUrl());
+            budget.skip(queuedTask.task);
+            taskDropped();
+        }
+    }
+
+    private void taskDropped() {
+        pendingTasks--;
+        if (pendingTasks == 0) {
+            changed.signalAll();
+            idleListener.run();
+            changeListener.run();
+        }
+    }
+
+    private boolean canStart(int depth) {
+        return inProgressByDepth.isEmpty() || inProgressByDepth.firstKey() >= depth;
+    }
+
+    void complete(CrawlTask task) {
+        lock.lock();
+        try {
+            if (inProgressByDepth.merge(task.getDepth(), -1, Integer::sum) == 0) {
+                inProgressByDepth.remove(task.getDepth());
+                changed.signalAll();// level finished, deeper tasks can be taken
+                changeListener.run();
+            }
+            pendingTasks--;
+            if (pendingTasks == 0) {
+                changed.signalAll();// wake up idle workers so they can exit
+                idleListener.run();
+                changeListener.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Task with its place in the queue, score and link count change only while it is out of the queue.
+     */
+    private static class QueuedTask implements Comparable<QueuedTask> {
+        private final CrawlTask task;
+        private final long discoveryOrder;
+        private int inLinks = 1;// the link the page was found by
+        private double score;
+
+        QueuedTask(CrawlTask task, long discoveryOrder) {
+            this.task = task;
+            this.discoveryOrder = discoveryOrder;
+        }
+
+        @Override
+        public int compareTo(QueuedTask other) {
+            if (task.getDepth() != other.task.getDepth()) {
+                return Integer.compare(task.getDepth(), other.task.getDepth());
+            }
+            if (score != other.score) {
+                return Double.compare(other.score, score);// higher score first
+            }
+            return Long.compare(discoveryOrder, other.discoveryOrder);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * UrlFilter applied to the links of a single crawl, shared by all its workers.
+ *
+ * Links are checked before they are marked as visited and queued, so a link filtered out is never fetched.
+ * Values of query parameters are counted per path (as url fingerprints, at most maxParameterValues per parameter),
+ * the first maxParameterValues values are crawled, links with any other value are filtered out.
+ * Links filtered out are counted in CrawlMetrics by reason, a link found on many pages is counted every time.
+ */
+class FrontierFilter {
+    static final String EXCLUDED = "excluded";
+    static final String NOT_INCLUDED = "not included";
+    static final String PATH_DEPTH = "path depth";
+    static final String REPEATED_SEGMENTS = "repeated segments";
+    static final String PARAMETER_VALUES = "parameter values";
+
+    private final Logger logger = LoggerFactory.getLogger(FrontierFilter.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final UrlFilter urlFilter;
+    private final CrawlMetrics metrics;
+    private final Map<String, Set<Long>> parameterValues = new HashMap<>();// "url without query?parameter" -> value fingerprints
+
+    FrontierFilter(UrlFilter urlFilter, CrawlMetrics metrics) {
+        this.urlFilter = urlFilter;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Pages worth crawling, in the same order.
+     */
+    List<WebUrl> allowedPages(List<WebUrl> pages) {
+        if (urlFilter.isAcceptAll()) {
+            return pages;
+        }
+        return pages.stream()
+                .filter(page -> isAllowed(page.getUrl()))
+                .collect(Collectors.toList());
+    }
+
+    boolean isAllowed(String url) {
+        String reason = rejectReason(url);
+        if (reason == null) {
+            return true;
+        }
+        logger.debug(url + " - filtered out, " + reason);
+        metrics.filtered(reason);
+        return false;
+    }
+
+    /**
+     * @return null when the url should be crawled
+     */
+    private String rejectReason(String url) {
+        if (!urlFilter.isIncluded(url)) {
+            return NOT_INCLUDED;
+        }
+        if (urlFilter.isExcluded(url)) {
+            return EXCLUDED;
+        }
+
+        int pathStart = pathStart(url);
+        int queryStart = url.indexOf('?', pathStart);
+        List<String> segments = segments(url, pathStart, queryStart < 0 ? url.length() : queryStart);
+        if (urlFilter.getMaxPathDepth() > 0 && segments.size() > urlFilter.getMaxPathDepth()) {
+            return PATH_DEPTH;
+        }
+        if (urlFilter.getMaxSegmentRepeats() > 0 && maxSegmentRepeats(segments) > urlFilter.getMaxSegmentRepeats()) {
+            return REPEATED_SEGMENTS;
+        }
+        if (urlFilter.getMaxParameterValues() > 0 && queryStart >= 0 && !countParameterValues(url, queryStart)) {
+            return PARAMETER_VALUES;
+        }
+        return null;
+    }
+
+    private static int pathStart(String url) {
+        int schemeEnd = url.indexOf("://");
+        int pathStart = url.indexOf('/', schemeEnd < 0 ? 0 : schemeEnd + 3);
+        return pathStart < 0 ? url.length() : pathStart;
+    }
+
+    private static List<String> segments(String url, int pathStart, int pathEnd) {
+        List<String> segments = new ArrayList<>();
+        int segmentStart = pathStart + 1;
+        while (segmentStart < pathEnd) {
+            int segmentEnd = url.indexOf('/', segmentStart);
+            if (segmentEnd < 0 || segmentEnd > pathEnd) {
+                segmentEnd = pathEnd;
+            }
+            if (segmentEnd > segmentStart) {
+                segments.add(url.substring(segmentStart, segmentEnd));
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        return segments;
+    }
+
+    /**
+     * Paths are short, comparing every pair is cheaper than counting in a map.
+     */
+    private static int maxSegmentRepeats(List<String> segments) {
+        int maxRepeats = segments.isEmpty() ? 0 : 1;
+        for (int i = 0; i < segments.size(); i++) {
+            int repeats = 1;
+            for (int j = i + 1; j < segments.size(); j++) {
+                if (segments.get(i).equals(segments.get(j))) {
+                    repeats++;
+                }
+            }
+            maxRepeats = Math.max(maxRepeats, repeats);
+        }
+        return maxRepeats;
+    }
+
+    /**
+     * Adds the values of the query parameters of the url, unless one of them would go over the limit.
+     *
+     * @return false when a parameter has too many different values on this path already
+     */
+    private boolean countParameterValues(String url, int queryStart) {
+        String pathKey = url.substring(0, queryStart + 1);
+        List<String> keys = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        for (String parameter : url.substring(queryStart + 1).split("&")) {
+            int valueStart = parameter.indexOf('=');
+            keys.add(pathKey + (valueStart < 0 ? parameter : parameter.substring(0, valueStart)));
+            values.add(UrlFingerprint.of(valueStart < 0 ? "" : parameter.substring(valueStart + 1)));
+        }
+
+        lock.lock();
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                Set<Long> seenValues = parameterValues.get(keys.get(i));
+                if (seenValues != null && seenValues.size() >= urlFilter.getMaxParameterValues() && !seenValues.contains(values.get(i))) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                parameterValues.computeIfAbsent(keys.get(i), key -> new HashSet<>()).add(values.get(i));
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.demo.webcrawler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every url as a String, exact but costs ~100+ bytes of heap per url. Fine for small and medium sites.
+ */
+public class HashSetVisitedUrls implements VisitedUrls {
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(String url) {
+        return urls.add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return urls.contains(url);
+    }
+
+    @Override
+    public long size() {
+        return urls.size();
+    }
+
+    @Override
+    public String toString() {
+        return "HashSetVisitedUrls(size=" + size() + ")";
+    }
+}
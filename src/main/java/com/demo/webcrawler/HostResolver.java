@@ -0,0 +1,27 @@
+package com.demo.webcrawler;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves host names to addresses, so the crawler does not depend on the JVM resolver (e.g. a stand-in for offline tests).
+ * Implementations have to be thread safe.
+ */
+@FunctionalInterface
+public interface HostResolver {
+
+    /**
+     * @return addresses of the host, never empty
+     * @throws UnknownHostException when the host does not resolve
+     */
+    List<InetAddress> resolve(String host) throws UnknownHostException;
+
+    /**
+     * The JVM resolver (InetAddress.getAllByName), with whatever caching the JVM does.
+     */
+    static HostResolver system() {
+        return host -> Arrays.asList(InetAddress.getAllByName(host));
+    }
+}
@@ -0,0 +1,236 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Enforces PolitenessPolicy for every host separately.
+ *
+ * Every host has its own token bucket and in-flight request counter. The refill rate adapts (AIMD):
+ * - 429/503 answers halve the rate and pause the host (exponential backoff),
+ * - responses much slower than the fastest seen so far reduce the rate a little,
+ * - every other response brings the rate back up towards the configured maximum.
+ * Locks, not synchronized blocks, so waiting virtual threads do not pin their carrier threads.
+ */
+class HostScheduler {
+    private static final double MIN_RATE_FRACTION = 0.1;// never slow down below 10% of the configured rate
+    private static final double RATE_RECOVERY_FRACTION = 0.1;
+    private static final double SLOW_DOWN_FACTOR = 0.8;
+    private static final double SLOW_RESPONSE_RATIO = 2.0;// response counts as slow when 2x slower than the baseline
+    private static final long SLOW_RESPONSE_MIN_DIFFERENCE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);// ignoring network jitter
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    private final Logger logger = LoggerFactory.getLogger(HostScheduler.class);
+    private final PolitenessPolicy policy;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    HostScheduler(PolitenessPolicy policy) {
+        WebCrawler.assertNotNull(policy, "Politeness policy should not be null.");
+        this.policy = policy;
+    }
+
+    /**
+     * Blocks until the host of the given url can receive another request.
+     * Returned permit has to be released once the response is received (or request failed).
+     */
+    Permit acquire(String url) throws InterruptedException {
+        HostState host = hosts.computeIfAbsent(hostOf(url), name -> new HostState(name, policy));
+        host.acquire();
+        return new Permit(host);
+    }
+
+    /**
+     * Limits the host of the given url to one request at a time, at most one every delay (robots.txt Crawl-delay),
+     * unless the policy is already stricter. Should be called before the crawl starts.
+     */
+    void setCrawlDelay(String url, double delaySeconds) {
+        if (delaySeconds <= 0) {
+            return;
+        }
+        double requestsPerSecond = policy.isRateLimited() ? Math.min(policy.getRequestsPerSecond(), 1 / delaySeconds) : 1 / delaySeconds;
+        PolitenessPolicy hostPolicy = new PolitenessPolicy(requestsPerSecond, 1, 1,
+                policy.getInitialBackoffMillis(), policy.getMaxBackoffMillis());
+        String name = hostOf(url);
+        // in place, permits of requests in flight (e.g. another site of a batch on the same host) release into the same state
+        hosts.computeIfAbsent(name, hostName -> new HostState(hostName, policy)).setPolicy(hostPolicy);
+        logger.info(name + " - crawl delay " + delaySeconds + "s, " + hostPolicy);
+    }
+
+    /**
+     * Current (adapted) rate for the host, in requests per second.
+     */
+    double currentRate(String url) {
+        HostState host = hosts.get(hostOf(url));
+        return host == null ? policy.getRequestsPerSecond() : host.currentRate();
+    }
+
+    /**
+     * Throttling key of the url, host and port with the default port of the scheme filled in,
+     * so http://some.domain/ and HTTP://Some.Domain:80/ share the same token bucket.
+     */
+    static String hostOf(String url) {
+        try {
+            URL parsedUrl = new URL(url);
+            int port = parsedUrl.getPort() < 0 ? parsedUrl.getDefaultPort() : parsedUrl.getPort();
+            return parsedUrl.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+        } catch (MalformedURLException e) {
+            return url;// will fail on fetch anyway
+        }
+    }
+
+    class Permit {
+        private final HostState host;
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        private Permit(HostState host) {
+            this.host = host;
+        }
+
+        /**
+         * @param statusCode HTTP status code of the response, or -1 when no response was received
+         */
+        void release(int statusCode) {
+            if (released) {
+                return;
+            }
+            released = true;
+            host.release(statusCode, System.nanoTime() - startNanos);
+        }
+    }
+
+    private class HostState {
+        private final String name;
+        private PolitenessPolicy policy;// the scheduler's one, unless the host asked for a crawl delay
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private double rate;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+        private int inFlight;
+        private long backoffMillis;
+        private long backoffUntilNanos;
+        private double latencyNanos = -1;// moving average
+        private double baselineLatencyNanos = Double.MAX_VALUE;
+
+        HostState(String name, PolitenessPolicy policy) {
+            this.name = name;
+            this.policy = policy;
+            this.rate = policy.getRequestsPerSecond();
+            this.tokens = policy.getBurst();
+        }
+
+        void acquire() throws InterruptedException {
+            lock.lock();
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+
+                    if (policy.getMaxConcurrentRequests() > 0 && inFlight >= policy.getMaxConcurrentRequests()) {
+                        changed.await();// woken up by release
+                        continue;
+                    }
+
+                    long waitNanos = Math.max(backoffUntilNanos - now, 0);
+                    if (policy.isRateLimited() && tokens < 1) {
+                        waitNanos = Math.max(waitNanos, (long) ((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1)));
+                    }
+
+                    if (waitNanos <= 0) {
+                        tokens = policy.isRateLimited() ? tokens - 1 : tokens;
+                        inFlight++;
+                        return;
+                    }
+                    changed.awaitNanos(waitNanos);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(int statusCode, long elapsedNanos) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (statusCode == 429 || statusCode == 503) {
+                    backOff();
+                } else {
+                    backoffMillis = 0;
+                    adaptToLatency(elapsedNanos);
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void setPolicy(PolitenessPolicy policy) {
+            lock.lock();
+            try {
+                refill(System.nanoTime());
+                this.policy = policy;
+                rate = policy.getRequestsPerSecond();
+                tokens = Math.min(tokens, policy.getBurst());
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        double currentRate() {
+            lock.lock();
+            try {
+                return rate;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void refill(long now) {
+            if (policy.isRateLimited()) {
+                tokens = Math.min(policy.getBurst(), tokens + (now - lastRefillNanos) * rate / TimeUnit.SECONDS.toNanos(1));
+            }
+            lastRefillNanos = now;
+        }
+
+        private void backOff() {
+            if (policy.getInitialBackoffMillis() > 0) {
+                backoffMillis = backoffMillis == 0 ? policy.getInitialBackoffMillis() : Math.min(backoffMillis * 2, policy.getMaxBackoffMillis());
+                backoffUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+                logger.warn(name + " - asked to slow down, backing off for " + backoffMillis + "ms");
+            }
+            if (policy.isRateLimited()) {
+                rate = Math.max(rate / 2, minRate());
+            }
+        }
+
+        private void adaptToLatency(long elapsedNanos) {
+            latencyNanos = latencyNanos < 0 ? elapsedNanos : LATENCY_SMOOTHING * elapsedNanos + (1 - LATENCY_SMOOTHING) * latencyNanos;
+            baselineLatencyNanos = Math.min(baselineLatencyNanos, latencyNanos);
+
+            if (!policy.isRateLimited()) {
+                return;
+            }
+            if (latencyNanos > SLOW_RESPONSE_RATIO * baselineLatencyNanos
+                    && latencyNanos - baselineLatencyNanos > SLOW_RESPONSE_MIN_DIFFERENCE_NANOS) {
+                rate = Math.max(rate * SLOW_DOWN_FACTOR, minRate());
+            } else {
+                rate = Math.min(rate + policy.getRequestsPerSecond() * RATE_RECOVERY_FRACTION, policy.getRequestsPerSecond());
+            }
+        }
+
+        private double minRate() {
+            return policy.getRequestsPerSecond() * MIN_RATE_FRACTION;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.demo.webcrawler;
+
+import org.jsoup.HttpStatusException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Responses recorded by HttpArchiveWriter, memory mapped and indexed by the requested url.
+ *
+ * The file is scanned once when opened, the index keeps only the position of the last record of every url,
+ * records (and bodies) are decoded from the mapped file when they are replayed. Thread safe once opened.
+ */
+public class HttpArchive implements Closeable {
+    private static final int REGION_SHIFT = 30;// files are mapped in 1GB regions
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final long size;
+    private final Map<String, Long> pages = new HashMap<>();// requested url -> position of the record tag
+    private final Map<String, Long> files = new HashMap<>();
+
+    private HttpArchive(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.regions = new MappedByteBuffer[(int) ((size + REGION_MASK) >>> REGION_SHIFT)];
+        for (int i = 0; i < regions.length; i++) {
+            long start = (long) i << REGION_SHIFT;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_MASK + 1, size - start));
+        }
+    }
+
+    public static HttpArchive open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            HttpArchive archive = new HttpArchive(channel);
+            archive.checkHeader();
+            archive.buildIndex();
+            return archive;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Recorded outcome of a fetch, null when the url was not recorded.
+     *
+     * @param file true for PageFetcher.fetchFile
+     */
+    Recorded get(String requestedUrl, boolean file) {
+        Long position = (file ? files : pages).get(requestedUrl);
+        return position != null ? new Recorded(position) : null;
+    }
+
+    /**
+     * Number of urls recorded (pages and files).
+     */
+    public int size() {
+        return pages.size() + files.size();
+    }
+
+    private void buildIndex() throws IOException {
+        Reader reader = new Reader(HttpArchiveWriter.MAGIC.length + 1);
+        while (reader.position < size) {
+            long recordStart = reader.position;
+            try {
+                int tag = reader.readByte();
+                boolean file = reader.readByte() != 0;
+                String requestedUrl = reader.readString();
+                reader.readVarLong();// fetch micros
+                skipRecord(tag, reader);
+                (file ? files : pages).put(requestedUrl, recordStart);
+            } catch (EOFException e) {
+                break;// last record was not written completely
+            }
+        }
+    }
+
+    private static void skipRecord(int tag, Reader reader) throws IOException {
+        switch (tag) {
+            case HttpArchiveWriter.RESPONSE:
+                int flags = reader.readByte();
+                reader.readString();
+                if ((flags & HttpArchiveWriter.REDIRECTED) != 0) {
+                    reader.readString();
+                }
+                reader.readVarLong();
+                reader.readString();
+                reader.readString();
+                reader.readString();
+                reader.readVarLong();
+                reader.skip(reader.readVarLong());
+                break;
+            case HttpArchiveWriter.HTTP_ERROR:
+                reader.readVarLong();
+                break;
+            case HttpArchiveWriter.NON_HTML:
+                reader.readString();
+                reader.readVarLong();
+                break;
+            case HttpArchiveWriter.FAILURE:
+                reader.readString();
+                reader.readString();
+                break;
+            case HttpArchiveWriter.RUNTIME_FAILURE:
+                reader.readString();
+                reader.readString();
+                reader.readString();
+                reader.readString();
+                break;
+            default:
+                throw new IOException("Corrupted http archive, unknown record " + tag + " at " + (reader.position - 1));
+        }
+    }
+
+    private void checkHeader() throws IOException {
+        Reader reader = new Reader(0);
+        byte[] magic = new byte[HttpArchiveWriter.MAGIC.length];
+        try {
+            for (int i = 0; i < magic.length; i++) {
+                magic[i] = (byte) reader.readByte();
+            }
+            if (!Arrays.equals(magic, HttpArchiveWriter.MAGIC)) {
+                throw new IOException("Not an http archive file.");
+            }
+            int version = reader.readByte();
+            if (version != HttpArchiveWriter.VERSION) {
+                throw new IOException("Unsupported http archive version: " + version);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Not an http archive file.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();// mapped regions are released by the garbage collector
+    }
+
+    /**
+     * Single record, decoded from the mapped file when replayed.
+     */
+    class Recorded {
+        private final long position;
+
+        private Recorded(long position) {
+            this.position = position;
+        }
+
+        long getFetchNanos() throws IOException {
+            Reader reader = new Reader(position + 2);
+            reader.readString();
+            return reader.readVarLong() * 1000;
+        }
+
+        /**
+         * The recorded page, or the recorded failure thrown again the way the fetcher threw it.
+         */
+        FetchedPage replay() throws IOException {
+            Reader reader = new Reader(position);
+            int tag = reader.readByte();
+            reader.readByte();
+            String requestedUrl = reader.readString();
+            reader.readVarLong();
+            switch (tag) {
+                case HttpArchiveWriter.RESPONSE:
+                    int flags = reader.readByte();
+                    String url = reader.readString();
+                    String baseUrl = (flags & HttpArchiveWriter.REDIRECTED) != 0 ? reader.readString() : url;
+                    int statusCode = (int) reader.readVarLong();
+                    String contentType = reader.readString();
+                    String etag = reader.readString();
+                    String lastModified = reader.readString();
+                    long transferBytes = reader.readVarLong() - 1;
+                    byte[] body = reader.readBytes((int) reader.readVarLong());
+                    FetchedPage fetchedPage = new FetchedPage(url, statusCode, contentType, body, etag, lastModified)
+                            .withTransferBytes(transferBytes)
+                            .redirectedTo(baseUrl);
+                    return (flags & HttpArchiveWriter.TRUNCATED) != 0 ? fetchedPage.truncated() : fetchedPage;
+                case HttpArchiveWriter.HTTP_ERROR:
+                    throw new HttpStatusException("HTTP error fetching URL", (int) reader.readVarLong(), requestedUrl);
+                case HttpArchiveWriter.NON_HTML:
+                    String mimeType = reader.readString();
+                    throw new NonHtmlContentException(mimeType, requestedUrl, reader.readVarLong() - 1);
+                case HttpArchiveWriter.RUNTIME_FAILURE:
+                    throw runtimeFailure(reader.readString(), reader.readString(), reader.readString(), reader.readString());
+                default:
+                    throw failure(reader.readString(), reader.readString());
+            }
+        }
+    }
+
+    /**
+     * Failure of the recorded class when it is an IOException with a message constructor (UnknownHostException,
+     * SocketTimeoutException...), so the site-map describes it the same way.
+     */
+    private static IOException failure(String className, String message) {
+        IOException failure = newException(className, message, IOException.class);
+        return failure != null ? failure : new IOException(className + ": " + message);
+    }
+
+    /**
+     * Runtime failure of the recorded class with its cause, e.g. an invalid url is described as such again.
+     */
+    private static RuntimeException runtimeFailure(String className, String message, String causeClassName, String causeMessage) {
+        RuntimeException failure = newException(className, message, RuntimeException.class);
+        if (failure == null) {
+            failure = new RuntimeException(className + ": " + message);
+        }
+        if (causeClassName != null) {
+            Exception cause = newException(causeClassName, causeMessage, Exception.class);
+            failure.initCause(cause != null ? cause : new Exception(causeClassName + ": " + causeMessage));
+        }
+        return failure;
+    }
+
+    /**
+     * The class named by the archive is only initialized once it is known to be of the given type.
+     *
+     * @return null when the class is not available here, is not of the given type or has no message constructor
+     */
+    private static <T extends Exception> T newException(String className, String message, Class<T> type) {
+        try {
+            Class<?> exceptionClass = Class.forName(className, false, HttpArchive.class.getClassLoader());
+            if (type.isAssignableFrom(exceptionClass)) {
+                Constructor<?> constructor = exceptionClass.getConstructor(String.class);
+                return type.cast(constructor.newInstance(message));
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not available here
+        }
+        return null;
+    }
+
+    /**
+     * Position in the mapped file, records may span regions. Every read has its own reader, the regions are only read.
+     */
+    private class Reader {
+        private long position;
+
+        Reader(long position) {
+            this.position = position;
+        }
+
+        int readByte() throws EOFException {
+            if (position >= size) {
+                throw new EOFException();
+            }
+            int value = regions[(int) (position >>> REGION_SHIFT)].get((int) (position & REGION_MASK)) & 0xFF;
+            position++;
+            return value;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupted http archive, malformed number at " + position);
+        }
+
+        String readString() throws IOException {
+            long length = readVarLong();
+            return length == 0 ? null : new String(readBytes((int) length - 1), StandardCharsets.UTF_8);
+        }
+
+        void skip(long length) throws EOFException {
+            if (position + length > size) {
+                throw new EOFException();
+            }
+            position += length;
+        }
+
+        byte[] readBytes(int length) throws EOFException {
+            if (position + length > size) {
+                throw new EOFException();
+            }
+            byte[] bytes = new byte[length];
+            MappedByteBuffer region = regions[(int) (position >>> REGION_SHIFT)];
+            int offset = (int) (position & REGION_MASK);
+            if (offset + length <= region.limit()) {
+                ByteBuffer view = region.duplicate();
+                view.position(offset);
+                view.get(bytes);
+                position += length;
+            } else {
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = (byte) readByte();// bytes crossing two regions
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.demo.webcrawler;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only archive of HTTP responses recorded by RecordingPageFetcher, served again by ReplayPageFetcher (see HttpArchive).
+ *
+ * Layout: "WCHA" magic and a version byte, then records, each starting with a tag byte, the kind of the fetch (0 = page,
+ * 1 = file, see PageFetcher.fetchFile), the requested url and the time the fetch took (micros), followed by:
+ * - 0x01 response: flags (1 = truncated, 2 = redirected), url of the page, the url it was redirected to when redirected,
+ *   status code, content type, ETag, Last-Modified, transfer bytes + 1,
+ *   then the varint length and the bytes of the (decoded) body,
+ * - 0x02 HTTP error: status code,
+ * - 0x03 non-HTML content: content type, content length + 1,
+ * - 0x04 failure: exception class name and message (unknown host, timeout...),
+ * - 0x05 runtime failure: exception class name and message, class name and message of its cause (null when none),
+ *   e.g. an IllegalArgumentException caused by a MalformedURLException for an invalid url.
+ * Strings are a varint length + 1 (0 = null) and UTF-8 bytes, numbers are unsigned LEB128 varints like in BinarySiteMapSink.
+ * A url recorded again is appended again, the last record wins. A cut last record is ignored when reading.
+ */
+public class HttpArchiveWriter implements Closeable {
+    static final byte[] MAGIC = {'W', 'C', 'H', 'A'};
+    static final int VERSION = 1;
+    static final int RESPONSE = 0x01;
+    static final int HTTP_ERROR = 0x02;
+    static final int NON_HTML = 0x03;
+    static final int FAILURE = 0x04;
+    static final int RUNTIME_FAILURE = 0x05;
+    static final int TRUNCATED = 0x01;
+    static final int REDIRECTED = 0x02;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final OutputStream output;
+    private long records;
+
+    public HttpArchiveWriter(Path archiveFile) throws IOException {
+        this(Files.newOutputStream(archiveFile));
+    }
+
+    public HttpArchiveWriter(OutputStream output) throws IOException {
+        WebCrawler.assertNotNull(output, "Output stream should not be null.");
+        this.output = new BufferedOutputStream(output, BUFFER_SIZE);
+        this.output.write(MAGIC);
+        this.output.write(VERSION);
+    }
+
+    /**
+     * @param file true when the response was loaded with PageFetcher.fetchFile
+     * @param fetchNanos time the fetch took
+     */
+    void response(String requestedUrl, boolean file, long fetchNanos, FetchedPage fetchedPage) throws IOException {
+        lock.lock();
+        try {
+            startRecord(RESPONSE, requestedUrl, file, fetchNanos);
+            boolean redirected = !fetchedPage.getBaseUrl().equals(fetchedPage.getUrl());
+            output.write((fetchedPage.isTruncated() ? TRUNCATED : 0) | (redirected ? REDIRECTED : 0));
+            writeString(fetchedPage.getUrl());
+            if (redirected) {
+                writeString(fetchedPage.getBaseUrl());
+            }
+            writeVarLong(fetchedPage.getStatusCode());
+            writeString(fetchedPage.getContentType());
+            writeString(fetchedPage.getEtag());
+            writeString(fetchedPage.getLastModified());
+            writeVarLong(fetchedPage.getTransferBytes() + 1);
+            writeVarLong(fetchedPage.getBody().length);
+            output.write(fetchedPage.getBody());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void httpError(String requestedUrl, boolean file, long fetchNanos, int statusCode) throws IOException {
+        lock.lock();
+        try {
+            startRecord(HTTP_ERROR, requestedUrl, file, fetchNanos);
+            writeVarLong(statusCode);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param contentLength -1 when not known
+     */
+    void nonHtml(String requestedUrl, boolean file, long fetchNanos, String contentType, long contentLength) throws IOException {
+        lock.lock();
+        try {
+            startRecord(NON_HTML, requestedUrl, file, fetchNanos);
+            writeString(contentType);
+            writeVarLong(contentLength + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void failure(String requestedUrl, boolean file, long fetchNanos, IOException e) throws IOException {
+        lock.lock();
+        try {
+            startRecord(FAILURE, requestedUrl, file, fetchNanos);
+            writeString(e.getClass().getName());
+            writeString(e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void runtimeFailure(String requestedUrl, boolean file, long fetchNanos, RuntimeException e) throws IOException {
+        lock.lock();
+        try {
+            startRecord(RUNTIME_FAILURE, requestedUrl, file, fetchNanos);
+            writeString(e.getClass().getName());
+            writeString(e.getMessage());
+            writeString(e.getCause() != null ? e.getCause().getClass().getName() : null);
+            writeString(e.getCause() != null ? e.getCause().getMessage() : null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of responses recorded so far.
+     */
+    public long getRecords() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes buffered records to the file, so an HttpArchive opened now sees every response recorded so far.
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            output.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            output.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void startRecord(int tag, String requestedUrl, boolean file, long fetchNanos) throws IOException {
+        output.write(tag);
+        output.write(file ? 1 : 0);
+        writeString(requestedUrl);
+        writeVarLong(fetchNanos / 1000);
+        records++;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1);
+        output.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+}
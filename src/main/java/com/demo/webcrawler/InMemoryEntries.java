@@ -0,0 +1,24 @@
+package com.demo.webcrawler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers entries of a single page, so the page block can be written in one go by the frontier based engines.
+ */
+class InMemoryEntries implements SiteMapSink {
+    private final List<SiteMapEntry> entries = new ArrayList<>();
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        entries.add(entry);
+    }
+
+    List<SiteMapEntry> getEntries() {
+        return entries;
+    }
+
+    @Override
+    public void close() {
+    }
+}
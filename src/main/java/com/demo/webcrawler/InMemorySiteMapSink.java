@@ -0,0 +1,25 @@
+package com.demo.webcrawler;
+
+/**
+ * Collects the site-map in memory, useful for tests and small sites.
+ */
+public class InMemorySiteMapSink implements SiteMapSink {
+    private final StringBuilder siteMapBuffer = new StringBuilder();
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        siteMapBuffer.append(entry.toLine()).append(WebCrawler.NEW_LINE);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Site-map in the text format, one url per line.
+     */
+    @Override
+    public String toString() {
+        return siteMapBuffer.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes site-map entries as JSON Lines (https://jsonlines.org), one object per entry with all of its known fields, e.g.
+ * {"type":"page","url":"http://some.domain/about","parent":"http://some.domain/","depth":1,"status":200,"fetchMillis":35}
+ * Unknown fields are left out.
+ */
+public class JsonLinesSiteMapSink implements SiteMapSink {
+    private final Writer writer;
+
+    public JsonLinesSiteMapSink(Writer writer) {
+        WebCrawler.assertNotNull(writer, "Writer should not be null.");
+        this.writer = writer;
+    }
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"type\":\"").append(entry.getType().name().toLowerCase(Locale.ROOT)).append('"');
+        appendString(line, "url", entry.getUrl());
+        appendString(line, "parent", entry.getParentUrl());
+        appendNumber(line, "depth", entry.getDepth());
+        appendNumber(line, "status", entry.getStatusCode());
+        appendNumber(line, "fetchMillis", entry.getFetchMillis());
+        appendString(line, "message", entry.getMessage());
+        appendString(line, "contentType", entry.getContentType());
+        appendNumber(line, "size", entry.getSize());
+        if (entry.getReferences() > 0) {
+            appendNumber(line, "references", entry.getReferences());
+        }
+        line.append('}').append(WebCrawler.NEW_LINE);
+        try {
+            writer.write(line.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static void appendNumber(StringBuilder line, String name, long value) {
+        if (value != SiteMapEntry.UNKNOWN) {
+            line.append(",\"").append(name).append("\":").append(value);
+        }
+    }
+
+    private static void appendString(StringBuilder line, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else if (c == '\r') {
+                line.append("\\r");
+            } else if (c == '\t') {
+                line.append("\\t");
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+}
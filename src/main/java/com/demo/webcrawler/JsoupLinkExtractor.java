@@ -0,0 +1,15 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+
+/**
+ * Parses the page into a Jsoup Document and selects the links with CSS selectors.
+ * Handles any html the way browsers do, at the cost of building the whole page model in memory.
+ */
+public class JsoupLinkExtractor implements LinkExtractor {
+
+    @Override
+    public PageLinks extract(FetchedPage fetchedPage) throws IOException {
+        return PageLinks.extract(fetchedPage.getBaseUrl(), fetchedPage.parse());
+    }
+}
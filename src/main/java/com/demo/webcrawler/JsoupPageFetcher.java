@@ -0,0 +1,71 @@
+package com.demo.webcrawler;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+
+/**
+ * Fetches pages with Jsoup's own HTTP client (HttpURLConnection), single timeout for connect and read.
+ * This is how the crawler used to load pages, kept for comparison with PooledHttpPageFetcher.
+ * Only the max body size of the FetchPolicy is applied, Jsoup 1.8 can neither send HEAD requests nor sniff content types.
+ */
+public class JsoupPageFetcher implements PageFetcher {
+    private final int pageTimeoutInMillis;
+    private final FetchPolicy fetchPolicy;
+
+    public JsoupPageFetcher(int pageTimeoutInMillis) {
+        this(pageTimeoutInMillis, FetchPolicy.unlimited());
+    }
+
+    public JsoupPageFetcher(int pageTimeoutInMillis, FetchPolicy fetchPolicy) {
+        WebCrawler.assertNotNull(fetchPolicy, "Fetch policy should not be null.");
+        this.pageTimeoutInMillis = pageTimeoutInMillis;
+        this.fetchPolicy = fetchPolicy;
+    }
+
+    @Override
+    public FetchedPage fetch(String pageUrl) throws IOException {
+        return fetch(pageUrl, null, null);
+    }
+
+    @Override
+    public FetchedPage fetchFile(String fileUrl) throws IOException {
+        Connection.Response response = Jsoup.connect(fileUrl)
+                .timeout(pageTimeoutInMillis)
+                .userAgent(WebCrawler.USER_AGENT)
+                .ignoreContentType(true)
+                .maxBodySize((int) FetchPolicy.maxFileBytes(fileUrl))
+                .execute();
+        return new FetchedPage(fileUrl, response.statusCode(), response.contentType(), response.bodyAsBytes());
+    }
+
+    @Override
+    public FetchedPage fetch(String pageUrl, String etag, String lastModified) throws IOException {
+        Connection connection = Jsoup.connect(pageUrl)
+                .timeout(pageTimeoutInMillis)
+                .userAgent(WebCrawler.USER_AGENT);
+        if (etag != null) {
+            connection.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            connection.header("If-Modified-Since", lastModified);
+        }
+        int maxBodyBytes = (int) Math.min(fetchPolicy.getMaxBodyBytes(), Integer.MAX_VALUE);
+        if (fetchPolicy.isBodyLimited()) {
+            connection.maxBodySize(maxBodyBytes);// Jsoup's own 1MB limit applies otherwise
+        }
+
+        Connection.Response response = connection.execute();
+        if (response.statusCode() == 304) {
+            return new FetchedPage(pageUrl, 304, response.contentType(), new byte[0],
+                    response.hasHeader("ETag") ? response.header("ETag") : etag,
+                    response.hasHeader("Last-Modified") ? response.header("Last-Modified") : lastModified);
+        }
+        byte[] body = response.bodyAsBytes();
+        FetchedPage fetchedPage = new FetchedPage(pageUrl, response.statusCode(), response.contentType(), body,
+                response.header("ETag"), response.header("Last-Modified")).redirectedTo(response.url().toExternalForm());
+        // Jsoup does not tell whether it stopped reading, a body of exactly the max size is taken as cut
+        return fetchPolicy.isBodyLimited() && body.length >= maxBodyBytes ? fetchedPage.truncated() : fetchedPage;
+    }
+}
@@ -0,0 +1,13 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+
+/**
+ * Finds links (child pages, css, js, images) in a fetched page, selectable per crawl with CrawlerConfig.withLinkExtractor.
+ * Implementations have to be thread safe.
+ */
+public interface LinkExtractor {
+
+    PageLinks extract(FetchedPage fetchedPage) throws IOException;
+
+}
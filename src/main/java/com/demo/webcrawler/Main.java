@@ -1,45 +1,749 @@
 package com.demo.webcrawler;
 
+import javax.management.JMException;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Created by andrzej on 2016-08-18.
  */
 public class Main {
+    private static final String OPTION_PREFIX = "--";
+    // options passed on to the worker processes of a distributed crawl started with --spawn-workers
+    private static final List<String> WORKER_OPTIONS = Arrays.asList("workers", "rate-per-host", "burst", "max-per-host",
+            "fetcher", "connect-timeout", "read-timeout", "max-page-size", "head-probe", "extractor", "visited", "expected-urls", "bloom-filter",
+            "priority", "url-weights", "dns-cache", "dns-ttl", "dns-negative-ttl",
+            "max-pages", "max-bytes", "max-time", "max-pages-per-host", "near-duplicates", "near-duplicate-distance",
+            "include", "exclude", "trap-detection", "max-path-depth", "max-segment-repeats", "max-parameter-values");
+
     public static void main(String args[]) throws IOException {
-        if (args.length == 0 || args.length > 3) {
+        List<String> arguments = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        parseArguments(args, arguments, options);
+
+        if (options.containsKey("worker")) {
+            runWorker(options.get("worker"), createCrawlerConfig(options));
+            return;
+        }
+        if (options.containsKey("convert")) {
+            convert(Paths.get(options.get("convert")), options.getOrDefault("format", "text"), arguments);
+            return;
+        }
+
+        String seedsFile = options.get("seeds");
+        boolean combined = Boolean.parseBoolean(options.getOrDefault("combined", "false"));
+        if (seedsFile != null && arguments.size() > 2) {
+            System.out.println("Usage: java -jar crawler.jar --seeds=<seedFile> <maxSearchDepth, default=1> <outputDir, default=siteMaps>");
+            return;
+        }
+        if ((arguments.size() == 0 && seedsFile == null) || arguments.size() > 3) {
             System.out.println("Usage: java -jar crawler.jar <baseUrl> <maxSearchDepth, default=1> <outputFile, default=siteMap.txt>");
             return;
         }
 
-        String baseUrl = args[0];
+        // a batch crawl takes its base urls from the seed file
+        Map<String, Double> seeds = seedsFile != null ? readSeeds(Paths.get(seedsFile)) : null;
+        int firstSetting = seeds != null ? 0 : 1;
+        String baseUrl = seeds != null ? null : arguments.get(0);
         int pageTimeoutInMillis = 1000;
 
         int maxSearchDepth = 1;
-        if (args.length > 1) {
-            maxSearchDepth = Integer.parseInt(args[1]);
+        if (arguments.size() > firstSetting) {
+            maxSearchDepth = Integer.parseInt(arguments.get(firstSetting));
         }
 
-        Path outputFilePath = Paths.get("siteMap.txt");
-        if (args.length > 2) {
-            outputFilePath = Paths.get(args[2]);
+        Path outputFilePath = Paths.get(seeds != null && !combined ? "siteMaps" : "siteMap.txt");
+        if (arguments.size() > firstSetting + 1) {
+            outputFilePath = Paths.get(arguments.get(firstSetting + 1));
+        }
+
+        String engine = options.getOrDefault("engine", "serial");
+        int workers = Integer.parseInt(options.getOrDefault("workers", String.valueOf(CrawlerConfig.DEFAULT_WORKERS)));
+        int parsers = Integer.parseInt(options.getOrDefault("parsers", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int queueCapacity = Integer.parseInt(options.getOrDefault("queue-capacity", String.valueOf(CrawlerConfig.DEFAULT_QUEUE_CAPACITY)));
+        PolitenessPolicy politenessPolicy = createPolitenessPolicy(options);
+        CrawlBudget budget = createBudget(options);
+        int connectTimeoutInMillis = Integer.parseInt(options.getOrDefault("connect-timeout", String.valueOf(pageTimeoutInMillis)));
+        int readTimeoutInMillis = Integer.parseInt(options.getOrDefault("read-timeout", String.valueOf(pageTimeoutInMillis)));
+        String fetcher = options.getOrDefault("fetcher", "pooled");
+        FetchPolicy fetchPolicy = createFetchPolicy(options);
+        String extractor = options.getOrDefault("extractor", "jsoup");
+        String visited = options.getOrDefault("visited", "strings");
+        int expectedUrls = Integer.parseInt(options.getOrDefault("expected-urls", "100000"));
+        boolean bloomFilter = Boolean.parseBoolean(options.getOrDefault("bloom-filter", "false"));
+        String checkpointDir = options.get("checkpoint-dir");
+        boolean resume = Boolean.parseBoolean(options.getOrDefault("resume", "false"));
+        long checkpointIntervalMillis = Long.parseLong(options.getOrDefault("checkpoint-interval", String.valueOf(CrawlCheckpoint.DEFAULT_INTERVAL_MILLIS)));
+        String pageCacheFile = options.get("page-cache");
+        String resources = options.getOrDefault("resources", "all");
+        boolean metricsEnabled = Boolean.parseBoolean(options.getOrDefault("metrics", "false"));
+        long metricsIntervalMillis = Long.parseLong(options.getOrDefault("metrics-interval", "5000"));
+        String metricsFile = options.get("metrics-file");
+        String format = options.getOrDefault("format", "text");
+        int shards = Integer.parseInt(options.getOrDefault("shards", "2"));
+        int port = Integer.parseInt(options.getOrDefault("port", "0"));
+        String partition = options.getOrDefault("partition", "host");
+        boolean spawnWorkers = Boolean.parseBoolean(options.getOrDefault("spawn-workers", "false"));
+        String order = options.getOrDefault("order", "depth-first");
+        String priority = options.getOrDefault("priority", "none");
+        String urlWeightsFile = options.get("url-weights");
+        boolean robots = Boolean.parseBoolean(options.getOrDefault("robots", "false"));
+        boolean sitemaps = Boolean.parseBoolean(options.getOrDefault("sitemaps", "false"));
+        int maxSitemapPages = Integer.parseInt(options.getOrDefault("max-sitemap-pages", String.valueOf(CrawlBootstrap.DEFAULT_MAX_SITEMAP_PAGES)));
+        String recordFile = options.get("record");
+        String replayFile = options.get("replay");
+        String replayLatency = options.getOrDefault("replay-latency", "0");
+        if ((recordFile != null || replayFile != null) && "distributed".equals(engine)) {
+            System.out.println("Recording and replaying are not supported by the distributed engine");
+            return;
+        }
+        if (seeds != null && !"concurrent".equals(engine)) {
+            System.out.println("Batch crawls are supported by the concurrent engine only, add --engine=concurrent");
+            return;
+        }
+        if (seeds != null && checkpointDir != null) {
+            System.out.println("Checkpoints are not supported by batch crawls");
+            return;
+        }
+        if ((robots || sitemaps) && "distributed".equals(engine)) {
+            System.out.println("robots.txt and sitemaps are not supported by the distributed engine");
+            return;
+        }
+        if (checkpointDir != null && !"concurrent".equals(engine)) {
+            System.out.println("Checkpoints are supported by the concurrent engine only, add --engine=concurrent");
+            return;
+        }
+        if (checkpointDir != null && !"text".equals(format)) {
+            System.out.println("Checkpoints are supported with the text format only, convert the site-map afterwards");
+            return;
+        }
+        if (checkpointDir != null && !"all".equals(resources)) {
+            System.out.println("Checkpoints are supported with --resources=all only, resources written so far are not checkpointed");
+            return;
         }
 
         System.out.println("Configuration");
-        System.out.println(" baseUrl: " + baseUrl);
+        SiteFairness siteFairness = seeds != null ? createSiteFairness(options, seeds) : SiteFairness.equalShares();
+        if (seeds != null) {
+            System.out.println(" seeds: " + seeds.size() + " sites from " + Paths.get(seedsFile).toAbsolutePath());
+            System.out.println(" fairness: " + siteFairness);
+        } else {
+            System.out.println(" baseUrl: " + baseUrl);
+        }
         System.out.println(" maxSearchDepth: " + maxSearchDepth);
-        System.out.println(" outputFile: " + outputFilePath.toAbsolutePath());
+        System.out.println((seeds != null && !combined ? " outputDir: " : " outputFile: ") + outputFilePath.toAbsolutePath() + " (" + format + ")");
+        System.out.println(" engine: " + engine + ("concurrent".equals(engine) ? " (workers: " + workers + ")" : "")
+                + ("pipeline".equals(engine) ? " (fetchers: " + workers + ", parsers: " + parsers + ", queue capacity: " + queueCapacity + ")" : "")
+                + ("distributed".equals(engine) ? " (shards: " + shards + " partitioned by " + partition + (spawnWorkers ? ", local worker processes" : "") + ")" : ""));
+        System.out.println(" order: " + ("serial".equals(engine) ? order : "breadth-first")
+                + ", priority: " + priority + (urlWeightsFile != null ? " + url weights from " + Paths.get(urlWeightsFile).toAbsolutePath() : ""));
+        System.out.println(" robots.txt: " + (robots ? "obeyed" : "ignored") + ", sitemaps: " + (sitemaps ? "up to " + maxSitemapPages + " pages" : "not read"));
+        System.out.println(" politeness: " + politenessPolicy);
+        if (budget.isLimited()) {
+            System.out.println(" budget: " + budget + ("distributed".equals(engine) ? " (per worker)" : ""));
+        }
+        System.out.println(" fetcher: " + fetcher + " (connect timeout: " + connectTimeoutInMillis + "ms, read timeout: " + readTimeoutInMillis + "ms)");
+        System.out.println(" fetch policy: " + fetchPolicy);
+        if (recordFile != null) {
+            System.out.println(" record: responses saved to " + Paths.get(recordFile).toAbsolutePath());
+        }
+        if (replayFile != null) {
+            System.out.println(" replay: responses served from " + Paths.get(replayFile).toAbsolutePath() + " instead of the network, latency "
+                    + ("recorded".equals(replayLatency) ? "as recorded" : replayLatency + "ms"));
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("dns-cache", "false"))) {
+            System.out.println(" dns cache: ttl " + options.getOrDefault("dns-ttl", String.valueOf(DnsCache.DEFAULT_TTL_SECONDS)) + "s, negative ttl "
+                    + options.getOrDefault("dns-negative-ttl", String.valueOf(DnsCache.DEFAULT_NEGATIVE_TTL_SECONDS)) + "s"
+                    + ("pooled".equals(fetcher) ? "" : " (hosts are prefetched only, the " + fetcher + " fetcher resolves them on its own)"));
+        }
+        System.out.println(" link extractor: " + extractor);
+        UrlFilter urlFilter = createUrlFilter(options);
+        if (!urlFilter.isAcceptAll()) {
+            System.out.println(" url filter: " + urlFilter + ("distributed".equals(engine) ? " (per worker)" : ""));
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("near-duplicates", "false"))) {
+            System.out.println(" near-duplicates: links not followed within " + nearDuplicateDistance(options) + " bits of SimHash"
+                    + ("distributed".equals(engine) ? " (per worker)" : ""));
+        }
+        System.out.println(" resources: " + resources);
+        System.out.println(" visited urls: " + visited + (bloomFilter ? " + bloom filter" : "") + " (expected urls: " + expectedUrls + ")");
+        if (checkpointDir != null) {
+            System.out.println(" checkpoint: " + Paths.get(checkpointDir).toAbsolutePath() + (resume ? " (resuming)" : "") + " every " + checkpointIntervalMillis + "ms");
+        }
+        if (pageCacheFile != null) {
+            System.out.println(" page cache: " + Paths.get(pageCacheFile).toAbsolutePath());
+        }
+        if (metricsEnabled) {
+            System.out.println(" metrics: every " + metricsIntervalMillis + "ms, JMX " + CrawlMetrics.OBJECT_NAME);
+        }
         System.out.println("================================");
 
-        Crawler crawler = new WebCrawler(pageTimeoutInMillis, maxSearchDepth);
-        String siteMap = crawler.createSiteMap(baseUrl);
-        Files.write(outputFilePath, siteMap.getBytes());
+        CrawlerConfig config = createCrawlerConfig(options)
+                .withMaxSearchDepth(maxSearchDepth)
+                .withParsers(parsers)
+                .withQueueCapacity(queueCapacity)
+                .withRobotsTxt(robots)
+                .withSitemaps(sitemaps ? maxSitemapPages : 0)
+                .withSiteFairness(siteFairness)
+                .withResourceRegistry(createResourceRegistryFactory(resources, createVisitedUrlsFactory(visited, expectedUrls, false)));
+        HttpArchive replayArchive = null;
+        if (replayFile != null) {
+            replayArchive = HttpArchive.open(Paths.get(replayFile));
+            config.withPageFetcher(new ReplayPageFetcher(replayArchive,
+                    "recorded".equals(replayLatency) ? ReplayPageFetcher.RECORDED_LATENCY : Long.parseLong(replayLatency)));
+        }
+        HttpArchiveWriter recordArchive = null;
+        if (recordFile != null) {
+            recordArchive = new HttpArchiveWriter(Paths.get(recordFile));
+            config.withPageFetcher(new RecordingPageFetcher(config.getPageFetcher(), recordArchive));
+        }
+        PageCache pageCache = null;
+        if (pageCacheFile != null) {
+            pageCache = Files.exists(Paths.get(pageCacheFile)) ? PageCache.load(Paths.get(pageCacheFile)) : new PageCache();
+            config.withPageCache(pageCache);
+        }
+        Crawler crawler;
+        List<Process> workerProcesses = new ArrayList<>();
+        if ("distributed".equals(engine)) {
+            DistributedCrawlCoordinator coordinator = new DistributedCrawlCoordinator(config, new ServerSocket(port),
+                    new ShardPartitioner(shards, ShardPartitioner.Partitioning.valueOf(partition.toUpperCase())));
+            if (spawnWorkers) {
+                workerProcesses = spawnWorkers(shards, coordinator.getPort(), options);
+            } else {
+                System.out.println("Waiting for " + shards + " workers, start each with: java -jar crawler.jar --worker="
+                        + InetAddress.getLocalHost().getHostName() + ":" + coordinator.getPort());
+            }
+            crawler = coordinator;
+        } else {
+            crawler = createCrawler(engine, config);
+        }
+        ScheduledExecutorService progressReporter = metricsEnabled ? startProgressReport(config.getMetrics(), metricsIntervalMillis) : null;
+        try {
+            if (seeds != null) {
+                crawlSeeds((ConcurrentWebCrawler) crawler, seeds.keySet(), format, outputFilePath, combined);
+            } else if (checkpointDir != null) {
+                try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(Paths.get(checkpointDir), resume, checkpointIntervalMillis)) {
+                    ((ConcurrentWebCrawler) crawler).createSiteMap(baseUrl, outputFilePath, checkpoint);
+                }
+            } else {
+                try (SiteMapSink siteMapSink = createSiteMapSink(format, outputFilePath)) {
+                    crawler.createSiteMap(baseUrl, siteMapSink);
+                }
+            }
+        } finally {
+            if (progressReporter != null) {
+                progressReporter.shutdownNow();
+            }
+            awaitWorkers(workerProcesses);
+            if (recordArchive != null) {
+                recordArchive.close();
+            }
+            if (replayArchive != null) {
+                replayArchive.close();
+            }
+        }
+
+        if (pageCache != null) {
+            pageCache.save(Paths.get(pageCacheFile));
+        }
 
         System.out.println("================================");
-        System.out.println("SiteMap saved to: " + outputFilePath.toAbsolutePath());
+        if (seeds != null && !combined) {
+            System.out.println("SiteMaps of " + seeds.size() + " sites saved to: " + outputFilePath.toAbsolutePath());
+        } else {
+            System.out.println("SiteMap saved to: " + outputFilePath.toAbsolutePath());
+        }
+        if (config.getMetrics().getSkippedPages() > 0) {
+            System.out.println("Crawl budget exhausted, the site-map is partial: " + config.getMetrics().getSkippedPages() + " pages skipped "
+                    + config.getMetrics().getSkippedPagesByLimit());
+        }
+        if (config.getMetrics().getFilteredLinks() > 0) {
+            System.out.println("Links filtered out: " + config.getMetrics().getFilteredLinks() + " " + config.getMetrics().getFilteredLinksByReason());
+        }
+        if (config.getMetrics().getNearDuplicatePages() > 0) {
+            System.out.println("Near-duplicate pages: " + config.getMetrics().getNearDuplicatePages() + ", their links were not followed");
+        }
+        if (recordArchive != null) {
+            System.out.println("Responses recorded to: " + Paths.get(recordFile).toAbsolutePath() + ", " + recordArchive.getRecords() + " responses");
+        }
+        if (pageCache != null) {
+            System.out.println("Page cache saved to: " + Paths.get(pageCacheFile).toAbsolutePath() + ", "
+                    + pageCache.notModifiedPages() + " pages not modified, " + pageCache.modifiedPages() + " downloaded");
+        }
+        if (metricsEnabled) {
+            System.out.print("Metrics: " + config.getMetrics().report());
+            if (config.getDnsCache() != null) {
+                System.out.println(config.getDnsCache());
+            }
+        }
+        if (metricsFile != null) {
+            saveMetrics(config.getMetrics(), config.getDnsCache(), Paths.get(metricsFile));
+            System.out.println("Metrics saved to: " + Paths.get(metricsFile).toAbsolutePath());
+        }
+    }
+
+    /**
+     * Converts a binary site-map, --convert=file --format=text|jsonl|sitemap-xml [outputFile, default=siteMap.txt]
+     */
+    private static void convert(Path binaryFile, String format, List<String> arguments) throws IOException {
+        Path outputFilePath = Paths.get(arguments.isEmpty() ? "siteMap.txt" : arguments.get(0));
+        long entries;
+        try (SiteMapSink siteMapSink = createSiteMapSink(format, outputFilePath)) {
+            entries = BinarySiteMapFile.convert(binaryFile, siteMapSink);
+        }
+        System.out.println(entries + " entries of " + binaryFile.toAbsolutePath() + " saved to: " + outputFilePath.toAbsolutePath() + " (" + format + ")");
+    }
+
+    /**
+     * Crawls the sites of a batch, writing a site-map per site to the output directory or all of them to a combined site-map.
+     */
+    private static void crawlSeeds(ConcurrentWebCrawler crawler, Set<String> baseUrls, String format, Path output, boolean combined) throws IOException {
+        Map<String, SiteMapSink> siteMapSinks = new LinkedHashMap<>();
+        try {
+            if (combined) {
+                SiteMapSink siteMapSink = createSiteMapSink(format, output);
+                baseUrls.forEach(baseUrl -> siteMapSinks.put(baseUrl, siteMapSink));
+            } else {
+                Files.createDirectories(output);
+                Set<String> fileNames = new HashSet<>();
+                for (String baseUrl : baseUrls) {
+                    siteMapSinks.put(baseUrl, createSiteMapSink(format, output.resolve(siteMapFileName(baseUrl, format, fileNames))));
+                }
+            }
+            crawler.createSiteMaps(siteMapSinks);
+        } finally {
+            Set<SiteMapSink> openSinks = Collections.newSetFromMap(new IdentityHashMap<>());
+            openSinks.addAll(siteMapSinks.values());
+            for (SiteMapSink siteMapSink : openSinks) {
+                siteMapSink.close();
+            }
+        }
+    }
+
+    /**
+     * Site-map file of a batch site, named after its host (and port), e.g. www.bbc.co.uk.txt, unique among the file names given.
+     */
+    static String siteMapFileName(String baseUrl, String format, Set<String> fileNames) {
+        String name;
+        try {
+            URL url = new URL(WebCrawler.addProtocolToUrl(baseUrl));
+            name = url.getHost() + (url.getPort() != -1 ? "_" + url.getPort() : "");
+        } catch (MalformedURLException e) {
+            name = baseUrl;// fails when crawled, the site-map holds the error
+        }
+        name = name.replaceAll("[^A-Za-z0-9.-]", "_");
+        String extension;
+        switch (format) {
+            case "binary":
+                extension = ".bin";
+                break;
+            case "jsonl":
+                extension = ".jsonl";
+                break;
+            case "sitemap-xml":
+                extension = ".xml";
+                break;
+            default:
+                extension = ".txt";
+        }
+        String fileName = name + extension;
+        for (int i = 2; !fileNames.add(fileName); i++) {
+            fileName = name + "-" + i + extension;// another seed of the same host
+        }
+        return fileName;
+    }
+
+    /**
+     * Lines of "baseUrl [weight]", weights are used by --fairness=shares.
+     *
+     * @return weight of every base url, in seed order
+     */
+    private static Map<String, Double> readSeeds(Path seedsFile) throws IOException {
+        Map<String, Double> seeds = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(seedsFile)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] baseUrlAndWeight = line.split("\\s+");
+            if (baseUrlAndWeight.length > 2) {
+                throw new IllegalArgumentException("Seed should be given as \"baseUrl [weight]\", got: " + line);
+            }
+            seeds.put(baseUrlAndWeight[0], baseUrlAndWeight.length > 1 ? Double.parseDouble(baseUrlAndWeight[1]) : SiteFairness.DEFAULT_WEIGHT);
+        }
+        if (seeds.isEmpty()) {
+            throw new IllegalArgumentException("Seed file has no base urls: " + seedsFile);
+        }
+        return seeds;
+    }
+
+    /**
+     * --fairness=shares|seed-order and --max-workers-per-site=N (0 = no limit).
+     */
+    private static SiteFairness createSiteFairness(Map<String, String> options, Map<String, Double> seeds) {
+        String fairness = options.getOrDefault("fairness", "shares");
+        SiteFairness.Mode mode;
+        switch (fairness) {
+            case "shares":
+                mode = SiteFairness.Mode.SHARES;
+                break;
+            case "seed-order":
+                mode = SiteFairness.Mode.SEED_ORDER;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown fairness: " + fairness + ", expected shares or seed-order.");
+        }
+        return new SiteFairness(mode, seeds, Integer.parseInt(options.getOrDefault("max-workers-per-site", "0")));
+    }
+
+    private static SiteMapSink createSiteMapSink(String format, Path outputFile) throws IOException {
+        switch (format) {
+            case "text":
+                return new FileSiteMapSink(outputFile);
+            case "binary":
+                return new BinarySiteMapSink(outputFile);
+            case "jsonl":
+                return new JsonLinesSiteMapSink(Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8));
+            case "sitemap-xml":
+                return new SitemapXmlSiteMapSink(Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8));
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format + ", expected text, binary, jsonl or sitemap-xml.");
+        }
+    }
+
+    /**
+     * Prints a progress line every interval and makes the metrics available over JMX.
+     */
+    private static ScheduledExecutorService startProgressReport(CrawlMetrics metrics, long intervalMillis) {
+        try {
+            metrics.registerMBean();
+        } catch (JMException e) {
+            System.out.println("Metrics are not available over JMX: " + e.getMessage());
+        }
+        ScheduledExecutorService progressReporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progressReporter.scheduleAtFixedRate(() -> System.out.println("Progress - " + metrics.progressLine()),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return progressReporter;
+    }
+
+    /**
+     * Snapshot of the metrics as name=value lines, e.g. fetch.p99Millis=120.5
+     *
+     * @param dnsCache its counters are added as dns.* lines, may be null
+     */
+    private static void saveMetrics(CrawlMetrics metrics, DnsCache dnsCache, Path metricsFile) throws IOException {
+        Map<String, Double> snapshot = new TreeMap<>(metrics.snapshot());
+        if (dnsCache != null) {
+            snapshot.putAll(dnsCache.snapshot());
+        }
+        List<String> lines = snapshot.entrySet().stream()
+                .map(metric -> metric.getKey() + "=" + metric.getValue())
+                .collect(Collectors.toList());
+        Files.write(metricsFile, lines);
+    }
+
+    /**
+     * Settings shared by the crawl and the worker processes of a distributed crawl.
+     */
+    private static CrawlerConfig createCrawlerConfig(Map<String, String> options) throws IOException {
+        int pageTimeoutInMillis = CrawlerConfig.DEFAULT_PAGE_TIMEOUT_IN_MILLIS;
+        int connectTimeoutInMillis = Integer.parseInt(options.getOrDefault("connect-timeout", String.valueOf(pageTimeoutInMillis)));
+        int readTimeoutInMillis = Integer.parseInt(options.getOrDefault("read-timeout", String.valueOf(pageTimeoutInMillis)));
+        String visited = options.getOrDefault("visited", "strings");
+        int expectedUrls = Integer.parseInt(options.getOrDefault("expected-urls", "100000"));
+        boolean bloomFilter = Boolean.parseBoolean(options.getOrDefault("bloom-filter", "false"));
+        DnsCache dnsCache = createDnsCache(options);
+        CrawlerConfig config = new CrawlerConfig()
+                .withCrawlOrder(createCrawlOrder(options.getOrDefault("order", "depth-first")))
+                .withWorkers(Integer.parseInt(options.getOrDefault("workers", String.valueOf(CrawlerConfig.DEFAULT_WORKERS))))
+                .withPageFetcher(createPageFetcher(options.getOrDefault("fetcher", "pooled"), connectTimeoutInMillis, readTimeoutInMillis,
+                        createFetchPolicy(options), dnsCache))
+                .withPolitenessPolicy(createPolitenessPolicy(options))
+                .withLinkExtractor(createLinkExtractor(options.getOrDefault("extractor", "jsoup")))
+                .withVisitedUrls(createVisitedUrlsFactory(visited, expectedUrls, bloomFilter));
+        PageScorer pageScorer = createPageScorer(options.getOrDefault("priority", "none"), options.get("url-weights"));
+        if (pageScorer != null) {
+            config.withPageScorer(pageScorer);
+        }
+        if (dnsCache != null) {
+            config.withDnsCache(dnsCache);
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("near-duplicates", "false"))) {
+            config.withNearDuplicateDetection(nearDuplicateDistance(options));
+        }
+        return config.withBudget(createBudget(options))
+                .withUrlFilter(createUrlFilter(options));
+    }
+
+    /**
+     * Worker process of a distributed crawl, --worker=host:port of the coordinator.
+     */
+    private static void runWorker(String coordinator, CrawlerConfig config) throws IOException {
+        int separator = coordinator.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Coordinator should be given as host:port, got: " + coordinator);
+        }
+        new DistributedCrawlWorker(config).run(coordinator.substring(0, separator), Integer.parseInt(coordinator.substring(separator + 1)));
+    }
+
+    /**
+     * Starts worker processes on this machine, running the same classpath and crawl options as this one.
+     */
+    private static List<Process> spawnWorkers(int shards, int port, Map<String, String> options) throws IOException {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), Main.class.getName(),
+                OPTION_PREFIX + "worker=localhost:" + port));
+        WORKER_OPTIONS.stream()
+                .filter(options::containsKey)
+                .forEach(option -> command.add(OPTION_PREFIX + option + "=" + options.get(option)));
+
+        List<Process> processes = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            processes.add(new ProcessBuilder(command).inheritIO().start());
+        }
+        return processes;
+    }
+
+    private static void awaitWorkers(List<Process> workerProcesses) {
+        for (Process process : workerProcesses) {
+            try {
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Crawler createCrawler(String engine, CrawlerConfig config) {
+        switch (engine) {
+            case "serial":
+                return new WebCrawler(config);
+            case "concurrent":
+                return new ConcurrentWebCrawler(config);
+            case "pipeline":
+                return new PipelinedWebCrawler(config);
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine + ", expected serial, concurrent or pipeline.");
+        }
+    }
+
+    /**
+     * @param dnsCache used by the pooled fetcher, may be null, Jsoup resolves hosts through HttpURLConnection
+     */
+    private static PageFetcher createPageFetcher(String fetcher, int connectTimeoutInMillis, int readTimeoutInMillis, FetchPolicy fetchPolicy,
+                                                 DnsCache dnsCache) {
+        switch (fetcher) {
+            case "pooled":
+                return new PooledHttpPageFetcher(connectTimeoutInMillis, readTimeoutInMillis, fetchPolicy,
+                        dnsCache != null ? dnsCache : HostResolver.system());
+            case "jsoup":
+                return new JsoupPageFetcher(Math.max(connectTimeoutInMillis, readTimeoutInMillis), fetchPolicy);
+            default:
+                throw new IllegalArgumentException("Unknown fetcher: " + fetcher + ", expected pooled or jsoup.");
+        }
+    }
+
+    /**
+     * --max-page-size=bytes (0 = no limit) and --head-probe.
+     */
+    private static FetchPolicy createFetchPolicy(Map<String, String> options) {
+        return new FetchPolicy(Long.parseLong(options.getOrDefault("max-page-size", "0")),
+                Boolean.parseBoolean(options.getOrDefault("head-probe", "false")));
+    }
+
+    /**
+     * --dns-cache with --dns-ttl=seconds and --dns-negative-ttl=seconds, null when hosts are not cached by the crawler.
+     */
+    private static DnsCache createDnsCache(Map<String, String> options) {
+        if (!Boolean.parseBoolean(options.getOrDefault("dns-cache", "false"))) {
+            return null;
+        }
+        return new DnsCache(HostResolver.system(),
+                Long.parseLong(options.getOrDefault("dns-ttl", String.valueOf(DnsCache.DEFAULT_TTL_SECONDS))),
+                Long.parseLong(options.getOrDefault("dns-negative-ttl", String.valueOf(DnsCache.DEFAULT_NEGATIVE_TTL_SECONDS))));
+    }
+
+    private static LinkExtractor createLinkExtractor(String extractor) {
+        switch (extractor) {
+            case "jsoup":
+                return new JsoupLinkExtractor();
+            case "streaming":
+                return new StreamingLinkExtractor();
+            default:
+                throw new IllegalArgumentException("Unknown link extractor: " + extractor + ", expected jsoup or streaming.");
+        }
+    }
+
+    private static Supplier<VisitedUrls> createVisitedUrlsFactory(String visited, int expectedUrls, boolean bloomFilter) {
+        Supplier<VisitedUrls> visitedUrlsFactory;
+        switch (visited) {
+            case "strings":
+                visitedUrlsFactory = HashSetVisitedUrls::new;
+                break;
+            case "fingerprints":
+                visitedUrlsFactory = () -> new FingerprintVisitedUrls(expectedUrls, false);
+                break;
+            case "off-heap":
+                visitedUrlsFactory = () -> new FingerprintVisitedUrls(expectedUrls, true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown visited urls set: " + visited + ", expected strings, fingerprints or off-heap.");
+        }
+        if (bloomFilter) {
+            Supplier<VisitedUrls> filteredFactory = visitedUrlsFactory;
+            return () -> new BloomFilteredVisitedUrls(filteredFactory.get(), expectedUrls);
+        }
+        return visitedUrlsFactory;
+    }
+
+    private static Supplier<ResourceRegistry> createResourceRegistryFactory(String resources, Supplier<VisitedUrls> visitedUrlsFactory) {
+        switch (resources) {
+            case "all":
+                return ResourceRegistry::allReferences;
+            case "once":
+                return () -> new FirstReferenceRegistry(visitedUrlsFactory.get());
+            case "counted":
+                return ReferenceCountingRegistry::new;
+            default:
+                throw new IllegalArgumentException("Unknown resources mode: " + resources + ", expected all, once or counted.");
+        }
+    }
+
+    private static CrawlerConfig.CrawlOrder createCrawlOrder(String order) {
+        switch (order) {
+            case "depth-first":
+                return CrawlerConfig.CrawlOrder.DEPTH_FIRST;
+            case "breadth-first":
+                return CrawlerConfig.CrawlOrder.BREADTH_FIRST;
+            default:
+                throw new IllegalArgumentException("Unknown crawl order: " + order + ", expected depth-first or breadth-first.");
+        }
+    }
+
+    /**
+     * @param urlWeightsFile lines of "weight regex", may be null
+     * @return null when pages of the same depth should be crawled in discovery order
+     */
+    private static PageScorer createPageScorer(String priority, String urlWeightsFile) throws IOException {
+        PageScorer pageScorer;
+        switch (priority) {
+            case "none":
+                pageScorer = null;
+                break;
+            case "links":
+                pageScorer = PageScorer.linkCount();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown priority: " + priority + ", expected none or links.");
+        }
+        if (urlWeightsFile == null) {
+            return pageScorer;
+        }
+
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(Paths.get(urlWeightsFile))) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] weightAndPattern = line.split("\\s+", 2);
+            if (weightAndPattern.length < 2) {
+                throw new IllegalArgumentException("Url weight should be given as \"weight regex\", got: " + line);
+            }
+            weights.put(weightAndPattern[1], Double.parseDouble(weightAndPattern[0]));
+        }
+        PageScorer urlPatterns = PageScorer.urlPatterns(weights);
+        return pageScorer != null ? pageScorer.plus(urlPatterns) : urlPatterns;
+    }
+
+    /**
+     * --max-pages=N, --max-bytes=bytes, --max-time=seconds and --max-pages-per-host=N, 0 = no limit.
+     */
+    private static CrawlBudget createBudget(Map<String, String> options) {
+        return new CrawlBudget(Long.parseLong(options.getOrDefault("max-pages", "0")),
+                Long.parseLong(options.getOrDefault("max-bytes", "0")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("max-time", "0"))),
+                Long.parseLong(options.getOrDefault("max-pages-per-host", "0")));
+    }
+
+    /**
+     * --include=regex and --exclude=regex, --trap-detection with the default limits of --max-path-depth=N,
+     * --max-segment-repeats=N and --max-parameter-values=N, limits given on their own apply without --trap-detection.
+     */
+    private static UrlFilter createUrlFilter(Map<String, String> options) {
+        boolean trapDetection = Boolean.parseBoolean(options.getOrDefault("trap-detection", "false"));
+        return new UrlFilter(
+                options.containsKey("include") ? Collections.singletonList(options.get("include")) : Collections.emptyList(),
+                options.containsKey("exclude") ? Collections.singletonList(options.get("exclude")) : Collections.emptyList(),
+                Integer.parseInt(options.getOrDefault("max-path-depth", trapDetection ? String.valueOf(UrlFilter.DEFAULT_MAX_PATH_DEPTH) : "0")),
+                Integer.parseInt(options.getOrDefault("max-segment-repeats", trapDetection ? String.valueOf(UrlFilter.DEFAULT_MAX_SEGMENT_REPEATS) : "0")),
+                Integer.parseInt(options.getOrDefault("max-parameter-values", trapDetection ? String.valueOf(UrlFilter.DEFAULT_MAX_PARAMETER_VALUES) : "0")));
+    }
+
+    /**
+     * --near-duplicate-distance=bits, how many bits SimHash fingerprints of near-duplicate pages may differ in.
+     */
+    private static int nearDuplicateDistance(Map<String, String> options) {
+        return Integer.parseInt(options.getOrDefault("near-duplicate-distance", String.valueOf(NearDuplicateIndex.DEFAULT_MAX_DISTANCE)));
+    }
+
+    private static PolitenessPolicy createPolitenessPolicy(Map<String, String> options) {
+        if (!options.containsKey("rate-per-host") && !options.containsKey("max-per-host")) {
+            return PolitenessPolicy.unlimited();
+        }
+        double requestsPerSecond = Double.parseDouble(options.getOrDefault("rate-per-host", "0"));
+        int burst = Integer.parseInt(options.getOrDefault("burst", "1"));
+        int maxConcurrentRequests = Integer.parseInt(options.getOrDefault("max-per-host", "0"));
+        return new PolitenessPolicy(requestsPerSecond, burst, maxConcurrentRequests);
+    }
+
+    /**
+     * Splits command line into positional arguments and --name=value options.
+     */
+    static void parseArguments(String[] args, List<String> arguments, Map<String, String> options) {
+        for (String arg : args) {
+            if (arg.startsWith(OPTION_PREFIX)) {
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    options.put(arg.substring(OPTION_PREFIX.length()), "true");
+                } else {
+                    options.put(arg.substring(OPTION_PREFIX.length(), separator), arg.substring(separator + 1));
+                }
+            } else {
+                arguments.add(arg);
+            }
+        }
     }
 
 }
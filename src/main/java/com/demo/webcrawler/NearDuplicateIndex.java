@@ -0,0 +1,135 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SimHash fingerprints of the pages of a single crawl, shared by all its workers, finds pages with (nearly) the same text.
+ *
+ * Fingerprints within maxDistance bits of each other agree on at least one of maxDistance + 1 blocks of bits,
+ * so every block has a hash table (chains of fingerprint indexes in primitive int arrays) and only the fingerprints
+ * sharing a block with the page are compared. That is 8 bytes per page plus 4 bytes per block.
+ * Pages with less than MIN_SHINGLES shingles of text (e.g. pages of links only) are never near-duplicates.
+ */
+class NearDuplicateIndex {
+    static final int DEFAULT_MAX_DISTANCE = 3;
+    static final int MAX_DISTANCE = 7;
+    static final int MIN_SHINGLES = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_TABLE_BITS = 16;
+    private static final int NO_ENTRY = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(NearDuplicateIndex.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int maxDistance;
+    private final int[] blockShifts;
+    private final long[] blockMasks;
+    private final int[][] heads;// per block, first fingerprint of every bucket
+    private int[][] next;// per block, next fingerprint in the bucket
+    private long[] fingerprints = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param maxDistance max number of bits the fingerprints of near-duplicate pages differ in, 0 = only the same text
+     */
+    NearDuplicateIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) throw new IllegalArgumentException("Near-duplicate distance should be between 0 and " + MAX_DISTANCE + ".");
+        this.maxDistance = maxDistance;
+        int blocks = maxDistance + 1;
+        blockShifts = new int[blocks];
+        blockMasks = new long[blocks];
+        heads = new int[blocks][];
+        next = new int[blocks][];
+        for (int block = 0; block < blocks; block++) {
+            blockShifts[block] = 64 * block / blocks;
+            int bits = 64 * (block + 1) / blocks - blockShifts[block];
+            blockMasks[block] = bits == 64 ? -1L : (1L << bits) - 1;
+            heads[block] = new int[1 << Math.min(bits, MAX_TABLE_BITS)];
+            Arrays.fill(heads[block], NO_ENTRY);
+            next[block] = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Index of the crawl, null when near-duplicates are not looked for.
+     *
+     * @param maxDistance negative when near-duplicates are not looked for
+     */
+    static NearDuplicateIndex forCrawl(int maxDistance) {
+        return maxDistance >= 0 ? new NearDuplicateIndex(maxDistance) : null;
+    }
+
+    /**
+     * Checks the page against the pages seen so far, a page which is not a near-duplicate is added.
+     */
+    boolean isNearDuplicate(FetchedPage fetchedPage) {
+        SimHash simHash = SimHash.of(fetchedPage);
+        if (simHash.getShingles() < MIN_SHINGLES) {
+            return false;// too little text to tell
+        }
+        if (addIfUnique(simHash.getFingerprint())) {
+            return false;
+        }
+        logger.debug(fetchedPage.getUrl() + " - near-duplicate, links not followed");
+        return true;
+    }
+
+    /**
+     * @return false when a fingerprint within max distance is already there
+     */
+    boolean addIfUnique(long fingerprint) {
+        lock.lock();
+        try {
+            for (int block = 0; block < heads.length; block++) {
+                for (int entry = heads[block][bucket(block, fingerprint)]; entry != NO_ENTRY; entry = next[block][entry]) {
+                    if (SimHash.distance(fingerprint, fingerprints[entry]) <= maxDistance) {
+                        return false;
+                    }
+                }
+            }
+            if (size == fingerprints.length) {
+                grow();
+            }
+            fingerprints[size] = fingerprint;
+            for (int block = 0; block < heads.length; block++) {
+                int bucket = bucket(block, fingerprint);
+                next[block][size] = heads[block][bucket];
+                heads[block][bucket] = size;
+            }
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int bucket(int block, long fingerprint) {
+        long blockValue = fingerprint >>> blockShifts[block] & blockMasks[block];
+        return (int) (UrlFingerprint.mix(blockValue) & (heads[block].length - 1));
+    }
+
+    private void grow() {
+        int capacity = fingerprints.length * 2;
+        fingerprints = Arrays.copyOf(fingerprints, capacity);
+        for (int block = 0; block < next.length; block++) {
+            next[block] = Arrays.copyOf(next[block], capacity);
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NearDuplicateIndex(pages=" + size() + ", maxDistance=" + maxDistance + ")";
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.webcrawler;
+
+import org.jsoup.UnsupportedMimeTypeException;
+
+/**
+ * Crawlable url answered with content that is not a page (e.g. pdf, image, archive), thrown before the body is downloaded.
+ * Crawlers record such urls in the site-map with their content type and size instead of an error.
+ */
+public class NonHtmlContentException extends UnsupportedMimeTypeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long contentLength;
+
+    /**
+     * @param contentLength value of the Content-Length header, -1 when not known
+     */
+    public NonHtmlContentException(String mimeType, String url, long contentLength) {
+        super("Unhandled content type. Must be text/*, application/xml, or application/xhtml+xml", mimeType, url);
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Size of the content in bytes, -1 when the server did not tell.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+}
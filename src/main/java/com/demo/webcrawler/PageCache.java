@@ -0,0 +1,193 @@
+package com.demo.webcrawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Page metadata kept between crawls of the same site, so re-crawls only download and parse pages that changed.
+ *
+ * For every page the server sent a validator for (ETag or Last-Modified) the cache stores the validators
+ * and the links extracted from the page. The next crawl sends them back with the request (If-None-Match / If-Modified-Since)
+ * and when the server answers 304 the cached links are used instead of the page body.
+ * Thread safe, shared by the workers of ConcurrentWebCrawler.
+ */
+public class PageCache {
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, Entry> pages = new ConcurrentHashMap<>();
+    private final AtomicLong notModifiedPages = new AtomicLong();
+    private final AtomicLong modifiedPages = new AtomicLong();
+
+    /**
+     * Validators and links of a page as of the last time it was downloaded.
+     */
+    static class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final PageLinks pageLinks;
+
+        Entry(String etag, String lastModified, PageLinks pageLinks) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.pageLinks = pageLinks;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        PageLinks getPageLinks() {
+            return pageLinks;
+        }
+    }
+
+    Entry get(String pageUrl) {
+        return pages.get(pageUrl);
+    }
+
+    /**
+     * Remembers the downloaded page, pages without validators can not be re-validated so they are not cached.
+     */
+    void update(FetchedPage fetchedPage, PageLinks pageLinks) {
+        modifiedPages.incrementAndGet();
+        if (fetchedPage.getEtag() == null && fetchedPage.getLastModified() == null) {
+            pages.remove(fetchedPage.getUrl());
+            return;
+        }
+        pages.put(fetchedPage.getUrl(), new Entry(fetchedPage.getEtag(), fetchedPage.getLastModified(), pageLinks));
+    }
+
+    void notModified() {
+        notModifiedPages.incrementAndGet();
+    }
+
+    public int size() {
+        return pages.size();
+    }
+
+    /**
+     * Number of pages the server answered with 304 during this run.
+     */
+    public long notModifiedPages() {
+        return notModifiedPages.get();
+    }
+
+    /**
+     * Number of pages downloaded and parsed during this run.
+     */
+    public long modifiedPages() {
+        return modifiedPages.get();
+    }
+
+    @Override
+    public String toString() {
+        return "PageCache(size=" + size() + ", notModified=" + notModifiedPages() + ", modified=" + modifiedPages() + ")";
+    }
+
+    public static PageCache load(Path file) throws IOException {
+        WebCrawler.assertNotNull(file, "Page cache file should not be null.");
+        PageCache pageCache = new PageCache();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported page cache " + file + " version " + version);
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String pageUrl = readString(in);
+                String etag = readNullableString(in);
+                String lastModified = readNullableString(in);
+                PageLinks pageLinks = new PageLinks(readUrls(in), readUrls(in), readUrls(in), readUrls(in));
+                pageCache.pages.put(pageUrl, new Entry(etag, lastModified, pageLinks));
+            }
+        }
+        return pageCache;
+    }
+
+    /**
+     * Writes the cache to a temporary file first and moves it over the old one, so a crash never leaves a half written cache.
+     */
+    public void save(Path file) throws IOException {
+        WebCrawler.assertNotNull(file, "Page cache file should not be null.");
+        Path absoluteFile = file.toAbsolutePath();
+        Path tempFile = Files.createTempFile(absoluteFile.getParent(), absoluteFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                List<Map.Entry<String, Entry>> entries = new ArrayList<>(pages.entrySet());
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> page : entries) {
+                    Entry entry = page.getValue();
+                    writeString(out, page.getKey());
+                    writeNullableString(out, entry.etag);
+                    writeNullableString(out, entry.lastModified);
+                    writeUrls(out, entry.pageLinks.getChildPages());
+                    writeUrls(out, entry.pageLinks.getCssFiles());
+                    writeUrls(out, entry.pageLinks.getJsFiles());
+                    writeUrls(out, entry.pageLinks.getImageUrls());
+                }
+            }
+            Files.move(tempFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void writeUrls(DataOutputStream out, List<WebUrl> urls) throws IOException {
+        out.writeInt(urls.size());
+        for (WebUrl url : urls) {
+            out.writeBoolean(url.isCrawlable());
+            writeString(out, url.getUrl());
+        }
+    }
+
+    private static List<WebUrl> readUrls(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<WebUrl> urls = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            boolean crawlable = in.readBoolean();
+            String url = readString(in);
+            urls.add(crawlable ? WebUrl.crawlable(url) : WebUrl.notCrawlable(url));
+        }
+        return urls;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,39 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+
+/**
+ * Loads page content over HTTP, so crawlers do not depend on a particular HTTP client.
+ *
+ * Implementations should report failures the same way Jsoup does, since those end up in the site-map:
+ * - org.jsoup.HttpStatusException for non 2xx responses (except 304 answering a conditional request),
+ * - org.jsoup.UnsupportedMimeTypeException for content that is not html/xml/text,
+ * - java.net.UnknownHostException, java.net.SocketTimeoutException for network problems,
+ * - IllegalArgumentException caused by java.net.MalformedURLException for invalid urls.
+ * Implementations have to be thread safe.
+ */
+public interface PageFetcher {
+
+    FetchedPage fetch(String pageUrl) throws IOException;
+
+    /**
+     * Conditional request (If-None-Match / If-Modified-Since), the server answers 304 (see FetchedPage.isNotModified)
+     * when the page did not change since it was fetched with the given validators.
+     * Fetchers that do not support conditional requests simply load the page.
+     *
+     * @param etag ETag of the previous response, may be null
+     * @param lastModified Last-Modified of the previous response, may be null
+     */
+    default FetchedPage fetch(String pageUrl, String etag, String lastModified) throws IOException {
+        return fetch(pageUrl);
+    }
+
+    /**
+     * Loads a file of any content type, e.g. robots.txt or a gzipped sitemap served as application/x-gzip.
+     * Fetchers that always check the content type should override it.
+     */
+    default FetchedPage fetchFile(String fileUrl) throws IOException {
+        return fetch(fileUrl);
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.demo.webcrawler;
+
+import org.jsoup.nodes.Document;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Links found on a single page, grouped by the kind of resource they point to.
+ * Shared by all the crawler engines so they produce identical site-map entries.
+ */
+public class PageLinks {
+    private final List<WebUrl> childPages;
+    private final List<WebUrl> cssFiles;
+    private final List<WebUrl> jsFiles;
+    private final List<WebUrl> imageUrls;
+
+    PageLinks(List<WebUrl> childPages, List<WebUrl> cssFiles, List<WebUrl> jsFiles, List<WebUrl> imageUrls) {
+        this.childPages = childPages;
+        this.cssFiles = cssFiles;
+        this.jsFiles = jsFiles;
+        this.imageUrls = imageUrls;
+    }
+
+    static PageLinks extract(String pageUrl, Document pageContent) {
+        UrlResolver resolver = UrlResolver.of(pageUrl);
+        return new PageLinks(
+                extractLinks(pageUrl, resolver, pageContent, "a", "href"),
+                extractLinks(pageUrl, resolver, pageContent, "link[rel=\"stylesheet\"]", "href"),
+                extractLinks(pageUrl, resolver, pageContent, "script[type=\"text/javascript\"]", "src"),
+                extractLinks(pageUrl, resolver, pageContent, "img", "src"));
+    }
+
+    /**
+     * Links from raw attribute values found on the page (missing attributes as empty strings), for extractors not using Jsoup.
+     *
+     * @param anchorHrefs href of every a element
+     * @param stylesheetHrefs href of every link rel="stylesheet" element
+     * @param scriptSrcs src of every script type="text/javascript" element
+     * @param imageSrcs src of every img element
+     */
+    public static PageLinks of(String pageUrl, List<String> anchorHrefs, List<String> stylesheetHrefs, List<String> scriptSrcs, List<String> imageSrcs) {
+        UrlResolver resolver = UrlResolver.of(pageUrl);
+        return new PageLinks(
+                toWebUrls(pageUrl, resolver, anchorHrefs.stream()),
+                toWebUrls(pageUrl, resolver, stylesheetHrefs.stream()),
+                toWebUrls(pageUrl, resolver, scriptSrcs.stream()),
+                toWebUrls(pageUrl, resolver, imageSrcs.stream()));
+    }
+
+    public List<WebUrl> getChildPages() {
+        return childPages;
+    }
+
+    public List<WebUrl> getCssFiles() {
+        return cssFiles;
+    }
+
+    public List<WebUrl> getJsFiles() {
+        return jsFiles;
+    }
+
+    public List<WebUrl> getImageUrls() {
+        return imageUrls;
+    }
+
+    public List<WebUrl> getCrawlableChildPages() {
+        return childPages.stream()
+                .filter(child -> child.isCrawlable())
+                .collect(Collectors.toList());
+    }
+
+    public List<WebUrl> getExternalUrls() {
+        return childPages.stream()
+                .filter(child -> !child.isCrawlable())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Same links without the pages to crawl, external links and resources are kept.
+     */
+    PageLinks withoutCrawlableChildPages() {
+        return new PageLinks(getExternalUrls(), cssFiles, jsFiles, imageUrls);
+    }
+
+    private static List<WebUrl> extractLinks(String pageUrl, UrlResolver resolver, Document pageContent, String elementSelector, String attributeSelector) {
+        return toWebUrls(pageUrl, resolver, pageContent.select(elementSelector).stream()
+            .map(linkElement -> linkElement.attr(attributeSelector)));
+    }
+
+    private static List<WebUrl> toWebUrls(String pageUrl, UrlResolver resolver, Stream<String> attributeValues) {
+        return attributeValues
+            .filter(childUrl -> childUrl != null && !childUrl.isEmpty())// not null or empty
+            .filter(childUrl -> !childUrl.startsWith("#") && !childUrl.startsWith("/#"))// starts with #
+            .map(childUrl -> createChildPageUrl(pageUrl, resolver, childUrl))
+            .sorted((url1, url2) -> url1.getUrl().compareTo(url2.getUrl()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Child pages are resolved against the page url and normalized (see UrlResolver),
+     * so e.g. /child1, ./child1 and HTTP://Some.Domain:80/child1#top on http://some.domain/ are all http://some.domain/child1.
+     *
+     * @param resolver resolver of the page url, null when the page url is not valid
+     */
+    private static WebUrl createChildPageUrl(String pageUrl, UrlResolver resolver, String childUrl) {
+        if (resolver == null) {
+            return WebUrl.notCrawlable(pageUrl + " - malformed url");
+        }
+
+        if (childUrl.startsWith("www.")) {
+            // external link without protocol, e.g. www.twitter.com
+            return WebUrl.notCrawlable(childUrl);
+        }
+
+        String resolvedUrl = resolver.resolve(childUrl);
+        if (resolvedUrl == null) {
+            // not a web page, e.g. mailto: or javascript:
+            return WebUrl.notCrawlable(childUrl);
+        }
+
+        if (resolver.isSameOrigin(resolvedUrl)) {
+            return WebUrl.crawlable(resolvedUrl);
+        }
+
+        // external link like google/facebook, kept the way it was written unless the protocol is missing (//page.com/some/url)
+        return WebUrl.notCrawlable(UrlResolver.hasScheme(childUrl) ? childUrl : resolvedUrl);
+    }
+}
@@ -0,0 +1,55 @@
+package com.demo.webcrawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Ranks pages waiting in the frontier, of the pages at the same depth the ones with higher scores are crawled first.
+ * Depth always comes first, so depth limits are applied against the shortest path to a page.
+ *
+ * e.g. PageScorer.linkCount().plus(PageScorer.urlPatterns(weights))
+ */
+@FunctionalInterface
+public interface PageScorer {
+
+    /**
+     * @param inLinks number of links to the page found so far, grows while the page waits in the frontier
+     */
+    double score(WebUrl page, int inLinks);
+
+    default PageScorer plus(PageScorer other) {
+        WebCrawler.assertNotNull(other, "Page scorer should not be null.");
+        return (page, inLinks) -> score(page, inLinks) + other.score(page, inLinks);
+    }
+
+    /**
+     * Pages linked from many other pages first, e.g. section pages before articles.
+     */
+    static PageScorer linkCount() {
+        return (page, inLinks) -> inLinks;
+    }
+
+    /**
+     * Sum of weights of the regular expressions found in the url, e.g. "/products/" -> 2, "[?&]sort=" -> -1.
+     */
+    static PageScorer urlPatterns(Map<String, Double> weights) {
+        WebCrawler.assertNotNull(weights, "Url pattern weights should not be null.");
+        List<Pattern> patterns = new ArrayList<>();
+        List<Double> patternWeights = new ArrayList<>();
+        weights.forEach((pattern, weight) -> {
+            patterns.add(Pattern.compile(pattern));
+            patternWeights.add(weight);
+        });
+        return (page, inLinks) -> {
+            double score = 0;
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).matcher(page.getUrl()).find()) {
+                    score += patternWeights.get(i);
+                }
+            }
+            return score;
+        };
+    }
+}
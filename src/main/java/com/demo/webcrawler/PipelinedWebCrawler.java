@@ -0,0 +1,295 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static com.demo.webcrawler.WebCrawler.assertNotNull;
+
+/**
+ * Crawler running every page through a pipeline of stages, each with its own threads:
+ *
+ * frontier -> fetchers (I/O, many) -> [fetched pages] -> parsers (CPU, one per core) -> [page blocks] -> writer (single)
+ *
+ * Fetchers only wait on the network, parsers only extract links (and push new pages to the frontier), a single writer
+ * writes whole page blocks, so network waits and parsing overlap fully and sinks do not have to be thread safe.
+ * Queues between the stages are bounded: when parsing can not keep up fetchers block (no more pages are downloaded),
+ * when the output is slow parsers block, so memory stays bounded whichever stage is the bottleneck.
+ * Produces the same site-map entries as ConcurrentWebCrawler, page blocks in the order pages finish parsing.
+ */
+public class PipelinedWebCrawler implements Crawler {
+    private static final Fetched END_OF_PAGES = new Fetched(null, null, null, null);
+    private static final List<SiteMapEntry> END_OF_OUTPUT = Collections.emptyList();
+
+    private final Logger logger = LoggerFactory.getLogger(PipelinedWebCrawler.class);
+    private final int maxSearchDepth;
+    private final int fetchers;
+    private final int parsers;
+    private final int queueCapacity;
+    private final PageFetcher pageFetcher;
+    private final HostScheduler hostScheduler;
+    private final Supplier<VisitedUrls> visitedUrlsFactory;
+    private final LinkExtractor linkExtractor;
+    private final PageCache pageCache;
+    private final Supplier<ResourceRegistry> resourceRegistryFactory;
+    private final CrawlMetrics metrics;
+    private final PageScorer pageScorer;
+    private final DnsCache dnsCache;
+    private final CrawlBudget budget;
+    private final int nearDuplicateDistance;
+    private final UrlFilter urlFilter;
+    private final boolean obeyRobotsTxt;
+    private final int maxSitemapPages;
+
+    public PipelinedWebCrawler(CrawlerConfig config) {
+        assertNotNull(config, "Crawler config should not be null.");
+        this.maxSearchDepth = config.getMaxSearchDepth();
+        this.fetchers = config.getWorkers();
+        this.parsers = config.getParsers();
+        this.queueCapacity = config.getQueueCapacity();
+        this.pageFetcher = config.getPageFetcher();
+        this.hostScheduler = new HostScheduler(config.getPolitenessPolicy());
+        this.visitedUrlsFactory = config.getVisitedUrlsFactory();
+        this.linkExtractor = config.getLinkExtractor();
+        this.pageCache = config.getPageCache();
+        this.resourceRegistryFactory = config.getResourceRegistryFactory();
+        this.metrics = config.getMetrics();
+        this.pageScorer = config.getPageScorer();
+        this.dnsCache = config.getDnsCache();
+        this.budget = config.getBudget();
+        this.nearDuplicateDistance = config.getNearDuplicateDistance();
+        this.urlFilter = config.getUrlFilter();
+        this.obeyRobotsTxt = config.isObeyRobotsTxt();
+        this.maxSitemapPages = config.getMaxSitemapPages();
+    }
+
+    /**
+     * Result of the fetch stage, either a page or the reason it could not be loaded.
+     */
+    private static class Fetched {
+        private final CrawlTask task;
+        private final PageCache.Entry cached;// null when the request was not conditional
+        private final FetchedPage fetchedPage;
+        private final Exception error;
+
+        Fetched(CrawlTask task, PageCache.Entry cached, FetchedPage fetchedPage, Exception error) {
+            this.task = task;
+            this.cached = cached;
+            this.fetchedPage = fetchedPage;
+            this.error = error;
+        }
+    }
+
+    /**
+     * State of a single crawl shared by the stages.
+     */
+    private static class Crawl {
+        private final Frontier frontier;
+        private final CrawlBootstrap bootstrap;
+        private final BudgetTracker budgetTracker;
+        private final NearDuplicateIndex nearDuplicates;
+        private final FrontierFilter frontierFilter;
+        private final VisitedUrls visitedUrls;
+        private final BlockingQueue<Fetched> fetchedPages;
+        private final BlockingQueue<List<SiteMapEntry>> pageBlocks;
+        private final DeduplicatingSiteMapSink output;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        Crawl(Frontier frontier, CrawlBootstrap bootstrap, BudgetTracker budgetTracker, NearDuplicateIndex nearDuplicates,
+              FrontierFilter frontierFilter, VisitedUrls visitedUrls, int queueCapacity, DeduplicatingSiteMapSink output) {
+            this.frontier = frontier;
+            this.bootstrap = bootstrap;
+            this.budgetTracker = budgetTracker;
+            this.nearDuplicates = nearDuplicates;
+            this.frontierFilter = frontierFilter;
+            this.visitedUrls = visitedUrls;
+            this.fetchedPages = new ArrayBlockingQueue<>(queueCapacity);
+            this.pageBlocks = new ArrayBlockingQueue<>(queueCapacity);
+            this.output = output;
+        }
+
+        /**
+         * Stops every stage, e.g. the site-map can not be written so there is no point to carry on.
+         */
+        void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+            threads.forEach(Thread::interrupt);
+        }
+    }
+
+    @Override
+    public void createSiteMap(String baseUrl, SiteMapSink siteMapSink) {
+        assertNotNull(baseUrl, "Base URL should not be null.");
+        assertNotNull(siteMapSink, "Site-map sink should not be null.");
+
+        WebUrl webUrl = WebUrl.crawlable(WebCrawler.addProtocolToUrl(baseUrl));
+        CrawlBootstrap bootstrap = WebCrawler.loadBootstrap(webUrl.getUrl(), siteMapSink, pageFetcher, hostScheduler, obeyRobotsTxt, maxSitemapPages);
+        if (bootstrap == null) {
+            return;
+        }
+        BudgetTracker budgetTracker = new BudgetTracker(budget, metrics);
+        Crawl crawl = new Crawl(new Frontier(pageScorer, dnsCache, budgetTracker), bootstrap, budgetTracker,
+                NearDuplicateIndex.forCrawl(nearDuplicateDistance), new FrontierFilter(urlFilter, metrics), visitedUrlsFactory.get(), queueCapacity,
+                new DeduplicatingSiteMapSink(siteMapSink, resourceRegistryFactory.get()));
+        crawl.visitedUrls.add(webUrl.getUrl());
+        WebCrawler.addNormalizedAlias(crawl.visitedUrls, webUrl.getUrl());
+        crawl.frontier.push(new CrawlTask(webUrl, 0));
+        WebCrawler.claimSeeds(bootstrap, crawl.frontierFilter, crawl.visitedUrls, maxSearchDepth).forEach(crawl.frontier::push);
+        metrics.crawlStarted(crawl.frontier::size, crawl.visitedUrls);
+
+        runStages(crawl);
+        crawl.output.flush();
+        logger.info("Visited urls: " + crawl.visitedUrls);
+        budgetTracker.logSummary();
+    }
+
+    private void runStages(Crawl crawl) {
+        crawl.threads.add(Thread.currentThread());// stages failing wake up the coordinator too
+        List<Thread> fetcherThreads = startStage(crawl, WorkerThreads.factory("crawler-fetcher-"), fetchers, () -> fetch(crawl));
+        List<Thread> parserThreads = startStage(crawl, WorkerThreads.platformFactory("crawler-parser-"), parsers, () -> parse(crawl));
+        List<Thread> writerThreads = startStage(crawl, WorkerThreads.platformFactory("crawler-writer-"), 1, () -> write(crawl));
+
+        // every stage is told to finish once the stage before it is done
+        try {
+            join(fetcherThreads);
+            for (int i = 0; i < parserThreads.size(); i++) {
+                crawl.fetchedPages.put(END_OF_PAGES);
+            }
+            join(parserThreads);
+            crawl.pageBlocks.put(END_OF_OUTPUT);
+            join(writerThreads);
+        } catch (InterruptedException e) {
+            crawl.threads.stream().filter(thread -> thread != Thread.currentThread()).forEach(Thread::interrupt);
+            if (crawl.failure.get() == null) {
+                Thread.currentThread().interrupt();// crawl cancelled
+            }
+        }
+
+        Throwable stageFailure = crawl.failure.get();
+        if (stageFailure != null) {
+            Thread.interrupted();// interrupted by the failing stage
+            if (stageFailure instanceof RuntimeException) {
+                throw (RuntimeException) stageFailure;
+            }
+            throw (Error) stageFailure;
+        }
+    }
+
+    private static List<Thread> startStage(Crawl crawl, ThreadFactory threadFactory, int threadCount, Runnable stage) {
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(threadFactory.newThread(() -> {
+                try {
+                    stage.run();
+                } catch (RuntimeException | Error e) {
+                    crawl.fail(e);
+                }
+            }));
+        }
+        crawl.threads.addAll(threads);
+        threads.forEach(Thread::start);
+        return threads;
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Fetch stage, blocks when the parsers are behind.
+     */
+    private void fetch(Crawl crawl) {
+        try {
+            CrawlTask task;
+            while ((task = crawl.frontier.take()) != null) {
+                String pageUrl = task.getPage().getUrl();
+                logger.info("[" + task.getDepth() + "] " + pageUrl);
+                PageCache.Entry cached = pageCache != null ? pageCache.get(pageUrl) : null;
+                Fetched fetched;
+                try {
+                    fetched = new Fetched(task, cached, WebCrawler.fetchPage(pageUrl, pageFetcher, hostScheduler, cached, metrics, crawl.budgetTracker), null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();// crawl failed or cancelled, the parsers may be gone already
+                    return;
+                } catch (Exception e) {
+                    fetched = new Fetched(task, cached, null, e);
+                }
+                crawl.fetchedPages.put(fetched);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Parse stage, pushes new pages to the frontier and completes the task, blocks when the writer is behind.
+     */
+    private void parse(Crawl crawl) {
+        try {
+            Fetched fetched;
+            while ((fetched = crawl.fetchedPages.take()) != END_OF_PAGES) {
+                try {
+                    crawl.pageBlocks.put(parsePage(fetched, crawl));
+                } finally {
+                    crawl.frontier.complete(fetched.task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<SiteMapEntry> parsePage(Fetched fetched, Crawl crawl) {
+        String pageUrl = fetched.task.getPage().getUrl();
+        InMemoryEntries pageSiteMap = new InMemoryEntries();
+        try {
+            if (fetched.error != null) {
+                throw fetched.error;
+            }
+            PageLinks pageLinks = WebCrawler.extractPageLinks(fetched.fetchedPage, fetched.cached, linkExtractor, pageCache, metrics,
+                    crawl.nearDuplicates);
+            pageSiteMap.add(WebCrawler.pageEntry(fetched.task, fetched.fetchedPage));
+            WebCrawler.addLinksToSiteMap(pageSiteMap, pageUrl, pageLinks);
+
+            int childDepth = fetched.task.getDepth() + 1;
+            if (childDepth <= maxSearchDepth) {
+                for (WebUrl childPage : crawl.frontierFilter.allowedPages(crawl.bootstrap.allowedPages(pageLinks.getCrawlableChildPages()))) {
+                    if (crawl.visitedUrls.add(childPage.getUrl())) {
+                        crawl.frontier.push(new CrawlTask(childPage, childDepth, pageUrl));
+                    } else {
+                        crawl.frontier.linked(childPage);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            pageSiteMap.add(WebCrawler.failedPageEntry(fetched.task, e, metrics));
+        }
+        return pageSiteMap.getEntries();
+    }
+
+    /**
+     * Writer stage, the only thread touching the sink.
+     */
+    private void write(Crawl crawl) {
+        try {
+            List<SiteMapEntry> pageBlock;
+            while ((pageBlock = crawl.pageBlocks.take()) != END_OF_OUTPUT) {
+                pageBlock.forEach(crawl.output::add);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.demo.webcrawler;
+
+/**
+ * Per-host crawling limits, keeps the crawler from being treated as a DoS attack and black-listed.
+ *
+ * - requestsPerSecond: token bucket refill rate for every host, 0 = no rate limit
+ * - burst: number of requests a host can receive back to back before the rate limit kicks in
+ * - maxConcurrentRequests: max number of in-flight requests to a single host, 0 = no limit
+ * - initialBackoffMillis/maxBackoffMillis: pause after a host answers 429/503, doubled on every subsequent 429/503, 0 = no backoff
+ */
+public class PolitenessPolicy {
+    private static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = 60000;
+
+    private final double requestsPerSecond;
+    private final int burst;
+    private final int maxConcurrentRequests;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public PolitenessPolicy(double requestsPerSecond, int burst, int maxConcurrentRequests) {
+        this(requestsPerSecond, burst, maxConcurrentRequests, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    public PolitenessPolicy(double requestsPerSecond, int burst, int maxConcurrentRequests, long initialBackoffMillis, long maxBackoffMillis) {
+        if (requestsPerSecond < 0) throw new IllegalArgumentException("Requests per second should not be negative.");
+        if (burst < 1) throw new IllegalArgumentException("Burst should be at least 1.");
+        if (maxConcurrentRequests < 0) throw new IllegalArgumentException("Max concurrent requests should not be negative.");
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) throw new IllegalArgumentException("Invalid backoff range.");
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * No limits at all, the behaviour of the crawler before politeness was introduced.
+     */
+    public static PolitenessPolicy unlimited() {
+        return new PolitenessPolicy(0, 1, 0, 0, 0);
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    boolean isRateLimited() {
+        return requestsPerSecond > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PolitenessPolicy(requestsPerSecond=" + (isRateLimited() ? requestsPerSecond : "unlimited")
+                + ", burst=" + burst
+                + ", maxConcurrentRequests=" + (maxConcurrentRequests > 0 ? maxConcurrentRequests : "unlimited")
+                + ", backoff=" + initialBackoffMillis + ".." + maxBackoffMillis + "ms)";
+    }
+}
@@ -0,0 +1,280 @@
+package com.demo.webcrawler;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.Okio;
+import org.jsoup.HttpStatusException;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Fetches pages with a single shared OkHttp client:
+ * - connections are pooled and kept alive, so TCP/TLS handshake is paid once per host, not once per page,
+ * - HTTP/2 is negotiated (ALPN) with servers supporting it, requests to the same host are then multiplexed over one connection,
+ * - connect and read timeouts are separate.
+ * Bodies are read as the FetchPolicy says: non-HTML responses are abandoned once their headers (or first bytes, when the
+ * content type is missing) are read, pages are cut at the max body size, an optional HEAD request comes first.
+ * Connect time and time to first byte of every fetch are measured with an OkHttp EventListener (see FetchedPage.getTimings).
+ * Compressed bodies (gzip, deflate, brotli when available) are asked for and decoded by ContentDecoder while they are read,
+ * bytes sent by the server are counted before decoding (see FetchedPage.getTransferBytes).
+ */
+public class PooledHttpPageFetcher implements PageFetcher {
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 32;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // same content types Jsoup accepts
+    private static final Pattern SUPPORTED_CONTENT_TYPES = Pattern.compile("(?i)(application|text)/\\w*\\+?xml.*|(?i)text/.*");
+
+    private final OkHttpClient httpClient;
+    private final FetchPolicy fetchPolicy;
+
+    public PooledHttpPageFetcher(int connectTimeoutInMillis, int readTimeoutInMillis) {
+        this(connectTimeoutInMillis, readTimeoutInMillis, DEFAULT_MAX_IDLE_CONNECTIONS);
+    }
+
+    public PooledHttpPageFetcher(int connectTimeoutInMillis, int readTimeoutInMillis, int maxIdleConnections) {
+        this(connectTimeoutInMillis, readTimeoutInMillis, maxIdleConnections, FetchPolicy.unlimited());
+    }
+
+    public PooledHttpPageFetcher(int connectTimeoutInMillis, int readTimeoutInMillis, FetchPolicy fetchPolicy) {
+        this(connectTimeoutInMillis, readTimeoutInMillis, DEFAULT_MAX_IDLE_CONNECTIONS, fetchPolicy);
+    }
+
+    public PooledHttpPageFetcher(int connectTimeoutInMillis, int readTimeoutInMillis, int maxIdleConnections, FetchPolicy fetchPolicy) {
+        this(connectTimeoutInMillis, readTimeoutInMillis, maxIdleConnections, fetchPolicy, HostResolver.system());
+    }
+
+    /**
+     * @param hostResolver resolves hosts of new connections, e.g. a DnsCache
+     */
+    public PooledHttpPageFetcher(int connectTimeoutInMillis, int readTimeoutInMillis, FetchPolicy fetchPolicy, HostResolver hostResolver) {
+        this(connectTimeoutInMillis, readTimeoutInMillis, DEFAULT_MAX_IDLE_CONNECTIONS, fetchPolicy, hostResolver);
+    }
+
+    public PooledHttpPageFetcher(int connectTimeoutInMillis, int readTimeoutInMillis, int maxIdleConnections, FetchPolicy fetchPolicy,
+                                 HostResolver hostResolver) {
+        WebCrawler.assertNotNull(fetchPolicy, "Fetch policy should not be null.");
+        WebCrawler.assertNotNull(hostResolver, "Host resolver should not be null.");
+        this.fetchPolicy = fetchPolicy;
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(connectTimeoutInMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutInMillis, TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(maxIdleConnections, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dns(hostResolver::resolve)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .followRedirects(true)
+                .followSslRedirects(true)
+                .eventListenerFactory(PooledHttpPageFetcher::timerOf)
+                .build();
+    }
+
+    @Override
+    public FetchedPage fetch(String pageUrl) throws IOException {
+        return fetch(pageUrl, null, null);
+    }
+
+    @Override
+    public FetchedPage fetch(String pageUrl, String etag, String lastModified) throws IOException {
+        return fetch(pageUrl, etag, lastModified, true);
+    }
+
+    /**
+     * Files are loaded whatever their content type, up to FetchPolicy.maxFileBytes rather than the max page size.
+     */
+    @Override
+    public FetchedPage fetchFile(String fileUrl) throws IOException {
+        return fetch(fileUrl, null, null, false);
+    }
+
+    /**
+     * @param isPage false for files, which are loaded whatever their content type
+     */
+    private FetchedPage fetch(String pageUrl, String etag, String lastModified, boolean isPage) throws IOException {
+        HttpUrl httpUrl = HttpUrl.parse(pageUrl);
+        if (httpUrl == null) {
+            throw new IllegalArgumentException("Malformed URL: " + pageUrl, new MalformedURLException(pageUrl));
+        }
+        if (isPage && fetchPolicy.isHeadProbe() && etag == null && lastModified == null) {
+            probe(httpUrl, pageUrl);// conditional requests are for pages which were html last time
+        }
+
+        FetchTimer timer = new FetchTimer();
+        Request.Builder request = new Request.Builder()
+                .url(httpUrl)
+                .header("User-Agent", WebCrawler.USER_AGENT)
+                .header("Accept-Encoding", ContentDecoder.ACCEPT_ENCODING)// turns OkHttp's transparent gzip off, body is decoded here
+                .tag(FetchTimer.class, timer);
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            if (response.code() == 304) {
+                // validators may be omitted in 304, the ones sent are still valid then
+                return new FetchedPage(pageUrl, 304, response.header("Content-Type"), new byte[0],
+                        response.header("ETag", etag), response.header("Last-Modified", lastModified)).withTimings(timer.timings());
+            }
+            if (!response.isSuccessful()) {
+                throw new HttpStatusException("HTTP error fetching URL", response.code(), pageUrl);
+            }
+
+            String contentType = response.header("Content-Type");
+            ResponseBody body = response.body();
+            if (body == null) {
+                return new FetchedPage(pageUrl, response.code(), contentType, new byte[0],
+                        response.header("ETag"), response.header("Last-Modified")).withTimings(timer.timings());
+            }
+            ContentDecoder.CountingSource transferred = new ContentDecoder.CountingSource(body.source());
+            BufferedSource source = ContentDecoder.decode(response.header("Content-Encoding"), Okio.buffer(transferred));
+            if (isPage) {
+                // closing the response without reading the body aborts the download
+                checkPageContent(pageUrl, contentType, body.contentLength(), source);
+            }
+
+            // the limit applies to the decoded body, segments are moved between okio buffers, copied once into the body
+            long maxBodyBytes = isPage ? fetchPolicy.getMaxBodyBytes() : FetchPolicy.maxFileBytes(pageUrl);
+            boolean truncated = maxBodyBytes > 0 && source.request(maxBodyBytes + 1);
+            byte[] bytes = truncated ? source.readByteArray(maxBodyBytes) : source.readByteArray();
+            FetchedPage fetchedPage = new FetchedPage(pageUrl, response.code(), contentType, bytes,
+                    response.header("ETag"), response.header("Last-Modified"))
+                    .withTimings(timer.timings())
+                    .withTransferBytes(transferred.getBytesRead());
+            if (response.priorResponse() != null) {
+                fetchedPage = fetchedPage.redirectedTo(response.request().url().toString());// OkHttp follows redirects
+            }
+            return truncated ? fetchedPage.truncated() : fetchedPage;
+        }
+    }
+
+    /**
+     * HEAD request, so a non-HTML url is known without the server starting to send it.
+     * Anything but a 2xx answer with a content type (e.g. 405 Method Not Allowed) leaves the decision to the GET request.
+     */
+    private void probe(HttpUrl httpUrl, String pageUrl) throws IOException {
+        Request request = new Request.Builder()
+                .url(httpUrl)
+                .head()
+                .header("User-Agent", WebCrawler.USER_AGENT)
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            String contentType = response.header("Content-Type");
+            if (response.isSuccessful() && !ContentSniffer.isUnspecified(contentType) && !isSupported(contentType)) {
+                throw new NonHtmlContentException(contentType, pageUrl, contentLengthOf(response));
+            }
+        }
+    }
+
+    /**
+     * Throws NonHtmlContentException when the response is not a page, by its content type,
+     * or by its first bytes when the content type tells nothing.
+     */
+    private static void checkPageContent(String pageUrl, String contentType, long contentLength, BufferedSource source) throws IOException {
+        if (!ContentSniffer.isUnspecified(contentType)) {
+            if (!isSupported(contentType)) {
+                throw new NonHtmlContentException(contentType, pageUrl, contentLength);
+            }
+            return;
+        }
+
+        // peeking leaves the bytes in the buffer for the page
+        source.request(ContentSniffer.SNIFF_BYTES);
+        BufferedSource peek = source.peek();
+        byte[] prefix = peek.readByteArray(Math.min(ContentSniffer.SNIFF_BYTES, source.getBuffer().size()));
+        String sniffedType = ContentSniffer.sniff(prefix);
+        if (!isSupported(sniffedType)) {
+            throw new NonHtmlContentException(contentType == null ? sniffedType : contentType, pageUrl, contentLength);
+        }
+    }
+
+    private static boolean isSupported(String contentType) {
+        return SUPPORTED_CONTENT_TYPES.matcher(contentType).matches();
+    }
+
+    private static long contentLengthOf(Response response) {
+        try {
+            return Long.parseLong(response.header("Content-Length", "-1"));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static EventListener timerOf(Call call) {
+        FetchTimer timer = call.request().tag(FetchTimer.class);
+        return timer != null ? timer : EventListener.NONE;
+    }
+
+    /**
+     * Listens to the events of a single call, redirects included.
+     */
+    private static class FetchTimer extends EventListener {
+        private long callStartNanos;
+        private long dnsStartNanos;
+        private long connectStartNanos;
+        private long connectNanos;// dns lookups and connecting
+        private long responseHeadersNanos;
+
+        @Override
+        public void callStart(Call call) {
+            callStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            connectNanos += System.nanoTime() - dnsStartNanos;
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectNanos += System.nanoTime() - connectStartNanos;
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+            connectNanos += System.nanoTime() - connectStartNanos;// next route is tried
+        }
+
+        @Override
+        public void responseHeadersEnd(Call call, Response response) {
+            responseHeadersNanos = System.nanoTime();// last one wins when redirected
+        }
+
+        FetchTimings timings() {
+            return new FetchTimings(connectNanos, responseHeadersNanos - callStartNanos);
+        }
+    }
+
+    /**
+     * Number of connections currently held in the pool.
+     */
+    int pooledConnections() {
+        return httpClient.connectionPool().connectionCount();
+    }
+}
@@ -0,0 +1,60 @@
+package com.demo.webcrawler;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
+
+import java.io.IOException;
+
+/**
+ * Fetches pages with another fetcher and records every outcome (page, HTTP error, non-HTML content, network failure, invalid url)
+ * to an HttpArchiveWriter, so the crawl can be repeated offline with ReplayPageFetcher.
+ *
+ * Conditional requests are recorded as plain requests, a 304 would leave nothing to replay.
+ */
+public class RecordingPageFetcher implements PageFetcher {
+    private final PageFetcher pageFetcher;
+    private final HttpArchiveWriter archive;
+
+    public RecordingPageFetcher(PageFetcher pageFetcher, HttpArchiveWriter archive) {
+        WebCrawler.assertNotNull(pageFetcher, "Page fetcher should not be null.");
+        WebCrawler.assertNotNull(archive, "Http archive should not be null.");
+        this.pageFetcher = pageFetcher;
+        this.archive = archive;
+    }
+
+    @Override
+    public FetchedPage fetch(String pageUrl) throws IOException {
+        return record(pageUrl, false);
+    }
+
+    @Override
+    public FetchedPage fetchFile(String fileUrl) throws IOException {
+        return record(fileUrl, true);
+    }
+
+    /**
+     * Failures of the archive itself (e.g. disk full) are thrown as they are, they are not taken for failed fetches.
+     */
+    private FetchedPage record(String url, boolean file) throws IOException {
+        long fetchStart = System.nanoTime();
+        FetchedPage fetchedPage;
+        try {
+            fetchedPage = file ? pageFetcher.fetchFile(url) : pageFetcher.fetch(url);
+        } catch (HttpStatusException e) {
+            archive.httpError(url, file, System.nanoTime() - fetchStart, e.getStatusCode());
+            throw e;
+        } catch (UnsupportedMimeTypeException e) {
+            long contentLength = e instanceof NonHtmlContentException ? ((NonHtmlContentException) e).getContentLength() : -1;
+            archive.nonHtml(url, file, System.nanoTime() - fetchStart, e.getMimeType(), contentLength);
+            throw e;
+        } catch (IOException e) {
+            archive.failure(url, file, System.nanoTime() - fetchStart, e);
+            throw e;
+        } catch (RuntimeException e) {
+            archive.runtimeFailure(url, file, System.nanoTime() - fetchStart, e);// e.g. not a valid url
+            throw e;
+        }
+        archive.response(url, file, System.nanoTime() - fetchStart, fetchedPage);
+        return fetchedPage;
+    }
+}
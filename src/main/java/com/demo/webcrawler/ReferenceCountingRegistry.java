@@ -0,0 +1,55 @@
+package com.demo.webcrawler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts references to every resource and writes each one once, with its reference count, when the crawl is finished
+ * (grouped by type, then sorted by url), e.g. "http://some.domain/main.css (120 references)".
+ * Keeps the url of every unique resource in memory until the end of the crawl.
+ * Counts cover the current run only, references made before a crawl was resumed from a checkpoint are not included.
+ */
+public class ReferenceCountingRegistry implements ResourceRegistry {
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+
+    private static class Resource {
+        private final SiteMapEntry.Type type;
+        private final LongAdder references = new LongAdder();
+
+        Resource(SiteMapEntry.Type type) {
+            this.type = type;
+        }
+    }
+
+    @Override
+    public boolean register(SiteMapEntry entry) {
+        resources.computeIfAbsent(entry.getUrl(), url -> new Resource(entry.getType())).references.increment();
+        return false;
+    }
+
+    @Override
+    public void flush(SiteMapSink siteMapSink) {
+        List<Map.Entry<String, Resource>> sortedResources = new ArrayList<>(resources.entrySet());
+        sortedResources.sort(Comparator.<Map.Entry<String, Resource>, SiteMapEntry.Type>comparing(resource -> resource.getValue().type)
+                .thenComparing(Map.Entry::getKey));
+        for (Map.Entry<String, Resource> resource : sortedResources) {
+            siteMapSink.add(SiteMapEntry.referenced(resource.getValue().type, resource.getKey(), resource.getValue().references.sum()));
+        }
+    }
+
+    public int size() {
+        return resources.size();
+    }
+
+    /**
+     * Number of references to the url, 0 when it was never referenced.
+     */
+    public long references(String url) {
+        Resource resource = resources.get(url);
+        return resource != null ? resource.references.sum() : 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves pages from an HttpArchive instead of the network, so crawls are repeatable and need no network,
+ * e.g. to compare engines and settings or to work on link extraction with the same pages.
+ *
+ * Every fetch waits for the injected latency before it is answered: a fixed number of milliseconds,
+ * or RECORDED_LATENCY for the time the fetch took when it was recorded.
+ * Urls not in the archive fail with an IOException (they are written to the site-map as errors).
+ * Conditional requests with the recorded ETag or Last-Modified are answered with 304.
+ */
+public class ReplayPageFetcher implements PageFetcher {
+    public static final long RECORDED_LATENCY = -1;
+
+    private final HttpArchive archive;
+    private final long latencyMillis;
+
+    public ReplayPageFetcher(HttpArchive archive) {
+        this(archive, 0);
+    }
+
+    /**
+     * @param latencyMillis waited before every answer, RECORDED_LATENCY = the time the fetch took when it was recorded
+     */
+    public ReplayPageFetcher(HttpArchive archive, long latencyMillis) {
+        WebCrawler.assertNotNull(archive, "Http archive should not be null.");
+        if (latencyMillis < 0 && latencyMillis != RECORDED_LATENCY) throw new IllegalArgumentException("Latency should not be negative.");
+        this.archive = archive;
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public FetchedPage fetch(String pageUrl) throws IOException {
+        return replay(pageUrl, false);
+    }
+
+    @Override
+    public FetchedPage fetch(String pageUrl, String etag, String lastModified) throws IOException {
+        FetchedPage fetchedPage = replay(pageUrl, false);
+        if ((etag != null && etag.equals(fetchedPage.getEtag())) || (lastModified != null && lastModified.equals(fetchedPage.getLastModified()))) {
+            return new FetchedPage(fetchedPage.getUrl(), 304, fetchedPage.getContentType(), new byte[0], fetchedPage.getEtag(), fetchedPage.getLastModified());
+        }
+        return fetchedPage;
+    }
+
+    @Override
+    public FetchedPage fetchFile(String fileUrl) throws IOException {
+        return replay(fileUrl, true);
+    }
+
+    private FetchedPage replay(String url, boolean file) throws IOException {
+        HttpArchive.Recorded recorded = archive.get(url, file);
+        if (recorded == null) {
+            throw new IOException(url + " - not recorded in the http archive");
+        }
+        waitFor(latencyMillis == RECORDED_LATENCY ? recorded.getFetchNanos() : TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        return recorded.replay();
+    }
+
+    private static void waitFor(long nanos) throws InterruptedIOException {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Replay interrupted");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayPageFetcher(urls=" + archive.size() + ", latency=" + (latencyMillis == RECORDED_LATENCY ? "recorded" : latencyMillis + "ms") + ")";
+    }
+}
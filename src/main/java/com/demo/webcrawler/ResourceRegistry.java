@@ -0,0 +1,52 @@
+package com.demo.webcrawler;
+
+/**
+ * Decides which static resources (css, js, images) and external links go to the site-map.
+ * Most pages of a site reference the same header assets, with a registry each one can be written once for the whole site
+ * instead of once per page. Created once per crawl (see CrawlerConfig.withResourceRegistry), has to be thread safe.
+ */
+public interface ResourceRegistry {
+
+    /**
+     * Called for every css, js, image and external link entry found on a page.
+     *
+     * @return true when the entry should be written to the site-map now
+     */
+    boolean register(SiteMapEntry entry);
+
+    /**
+     * Writes the entries held back by the registry, called once when the crawl is finished.
+     */
+    default void flush(SiteMapSink siteMapSink) {
+    }
+
+    /**
+     * True when what is written depends on the entries registered before. Such state is not saved by CrawlCheckpoint,
+     * so these registries cannot be used by crawls which may be resumed.
+     */
+    default boolean isStateful() {
+        return true;
+    }
+
+    /**
+     * Every reference is written, the way the crawler always worked.
+     */
+    static ResourceRegistry allReferences() {
+        return new ResourceRegistry() {
+            @Override
+            public boolean register(SiteMapEntry entry) {
+                return true;
+            }
+
+            @Override
+            public boolean isStateful() {
+                return false;
+            }
+        };
+    }
+
+    static boolean isResource(SiteMapEntry.Type type) {
+        return type == SiteMapEntry.Type.CSS || type == SiteMapEntry.Type.JS
+                || type == SiteMapEntry.Type.IMAGE || type == SiteMapEntry.Type.EXTERNAL_LINK;
+    }
+}
@@ -0,0 +1,245 @@
+package com.demo.webcrawler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Rules of robots.txt (RFC 9309) applying to this crawler.
+ *
+ * - the groups of the crawler's product token (whole token, case-insensitive) are used, the * group otherwise,
+ * - the longest matching Allow/Disallow pattern wins, Allow wins a tie, * and $ are supported in patterns,
+ * - Crawl-delay of the group and Sitemap lines (which do not belong to any group) are kept as well.
+ */
+public class RobotsTxt {
+    private static final RobotsTxt ALLOW_ALL = new RobotsTxt(Collections.emptyList(), 0, Collections.emptyList());
+    private static final RobotsTxt DISALLOW_ALL = new RobotsTxt(
+            Collections.singletonList(new Rule("/", false)), 0, Collections.emptyList());
+
+    private final List<Rule> rules;
+    private final double crawlDelaySeconds;
+    private final List<String> sitemaps;
+
+    private RobotsTxt(List<Rule> rules, double crawlDelaySeconds, List<String> sitemaps) {
+        this.rules = rules;
+        this.crawlDelaySeconds = crawlDelaySeconds;
+        this.sitemaps = sitemaps;
+    }
+
+    /**
+     * No robots.txt, or it could not be found (4xx).
+     */
+    public static RobotsTxt allowAll() {
+        return ALLOW_ALL;
+    }
+
+    /**
+     * robots.txt could not be read (5xx, network errors), RFC 9309 says the whole site should be treated as disallowed.
+     */
+    public static RobotsTxt disallowAll() {
+        return DISALLOW_ALL;
+    }
+
+    /**
+     * @param userAgent e.g. web-crawler_1.0, groups are matched against its product token (web-crawler)
+     */
+    public static RobotsTxt parse(String content, String userAgent) {
+        WebCrawler.assertNotNull(content, "Robots.txt content should not be null.");
+        WebCrawler.assertNotNull(userAgent, "User agent should not be null.");
+        String productToken = productToken(userAgent);
+
+        List<Rule> wildcardRules = new ArrayList<>();
+        List<Rule> agentRules = new ArrayList<>();
+        double wildcardDelay = 0;
+        double agentDelay = 0;
+        List<String> sitemaps = new ArrayList<>();
+
+        // state of the group being read
+        boolean readingAgents = false;
+        boolean forWildcard = false;
+        boolean forAgent = false;
+        boolean agentFound = false;
+
+        for (String line : content.split("\r\n|\r|\n")) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            int separator = line.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            String key = line.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(separator + 1).trim();
+
+            switch (key) {
+                case "user-agent":
+                    if (!readingAgents) {
+                        readingAgents = true;// first user-agent line of a new group
+                        forWildcard = false;
+                        forAgent = false;
+                    }
+                    String agent = value.toLowerCase(Locale.ROOT);
+                    if ("*".equals(agent)) {
+                        forWildcard = true;
+                    } else if (agent.equals(productToken)) {
+                        forAgent = true;// groups of the same agent are merged
+                        agentFound = true;
+                    }
+                    break;
+                case "allow":
+                case "disallow":
+                    readingAgents = false;
+                    if (value.isEmpty()) {
+                        break;// empty Disallow allows everything, it is the default anyway
+                    }
+                    Rule rule = new Rule(value, "allow".equals(key));
+                    if (forAgent) {
+                        agentRules.add(rule);
+                    }
+                    if (forWildcard) {
+                        wildcardRules.add(rule);
+                    }
+                    break;
+                case "crawl-delay":
+                    readingAgents = false;
+                    double delay = parseDelay(value);
+                    if (forAgent) {
+                        agentDelay = delay;
+                    }
+                    if (forWildcard) {
+                        wildcardDelay = delay;
+                    }
+                    break;
+                case "sitemap":
+                    if (!value.isEmpty()) {
+                        sitemaps.add(value);
+                    }
+                    break;
+                default:
+                    readingAgents = false;// unknown lines end the list of agents too
+            }
+        }
+
+        return agentFound
+                ? new RobotsTxt(agentRules, agentDelay, sitemaps)
+                : new RobotsTxt(wildcardRules, wildcardDelay, sitemaps);
+    }
+
+    /**
+     * @param url absolute url, only its path and query are matched
+     */
+    public boolean isAllowed(String url) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        String path = pathOf(url);
+        if ("/robots.txt".equals(path)) {
+            return true;
+        }
+
+        Rule bestMatch = null;
+        for (Rule rule : rules) {
+            if (rule.matches(path) && (bestMatch == null
+                    || rule.length > bestMatch.length
+                    || rule.length == bestMatch.length && rule.allow)) {
+                bestMatch = rule;
+            }
+        }
+        return bestMatch == null || bestMatch.allow;
+    }
+
+    /**
+     * Seconds to wait between requests, 0 when not given.
+     */
+    public double getCrawlDelaySeconds() {
+        return crawlDelaySeconds;
+    }
+
+    /**
+     * Urls of the Sitemap lines, as written.
+     */
+    public List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+    @Override
+    public String toString() {
+        return "RobotsTxt(rules=" + rules.size() + ", crawlDelay=" + crawlDelaySeconds + "s, sitemaps=" + sitemaps.size() + ")";
+    }
+
+    private static String productToken(String userAgent) {
+        String token = userAgent.toLowerCase(Locale.ROOT);
+        for (char end : new char[] {'/', '_', ' '}) {
+            int index = token.indexOf(end);
+            if (index > 0) {
+                token = token.substring(0, index);
+            }
+        }
+        return token;
+    }
+
+    private static double parseDelay(String value) {
+        try {
+            double delay = Double.parseDouble(value);
+            return delay > 0 && !Double.isInfinite(delay) ? delay : 0;
+        } catch (NumberFormatException e) {
+            return 0;// ignored, like any other invalid line
+        }
+    }
+
+    static String pathOf(String url) {
+        int schemeEnd = url.indexOf("://");
+        int pathStart = schemeEnd < 0 ? 0 : url.indexOf('/', schemeEnd + 3);
+        int queryStart = url.indexOf('?', schemeEnd < 0 ? 0 : schemeEnd + 3);
+        if (pathStart < 0 || queryStart >= 0 && queryStart < pathStart) {
+            // no path, e.g. http://some.domain or http://some.domain?query
+            return queryStart < 0 ? "/" : "/" + url.substring(queryStart, fragmentStart(url));
+        }
+        return url.substring(pathStart, fragmentStart(url));
+    }
+
+    private static int fragmentStart(String url) {
+        int fragment = url.indexOf('#');
+        return fragment < 0 ? url.length() : fragment;
+    }
+
+    /**
+     * Allow or Disallow line, matched as a prefix of the path.
+     */
+    private static class Rule {
+        private final boolean allow;
+        private final int length;
+        private final Pattern pattern;
+
+        Rule(String value, boolean allow) {
+            this.allow = allow;
+            this.length = value.length();
+            StringBuilder regex = new StringBuilder();
+            int end = value.endsWith("$") ? value.length() - 1 : value.length();
+            int literalStart = 0;
+            for (int i = 0; i < end; i++) {
+                if (value.charAt(i) == '*') {
+                    if (i > literalStart) {
+                        regex.append(Pattern.quote(value.substring(literalStart, i)));
+                    }
+                    regex.append(".*");
+                    literalStart = i + 1;
+                }
+            }
+            if (end > literalStart) {
+                regex.append(Pattern.quote(value.substring(literalStart, end)));
+            }
+            if (end < value.length()) {
+                regex.append('$');
+            }
+            this.pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+
+        boolean matches(String path) {
+            return pattern.matcher(path).lookingAt();
+        }
+    }
+}
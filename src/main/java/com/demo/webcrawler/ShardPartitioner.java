@@ -0,0 +1,73 @@
+package com.demo.webcrawler;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Assigns urls to shards of a distributed crawl with consistent hashing, so all the pages of a host are crawled
+ * (and throttled by PolitenessPolicy) by a single worker, and changing the number of shards moves ~1/N of the hosts only.
+ *
+ * A single huge host can be split by the first path segment instead (Partitioning.PATH), e.g. /news/.. and /sport/..
+ * may then go to different shards, at the cost of the per host limits applying per shard.
+ */
+public class ShardPartitioner {
+    private static final int VIRTUAL_NODES_PER_SHARD = 128;
+
+    public enum Partitioning {
+        HOST, PATH
+    }
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private final int shards;
+    private final Partitioning partitioning;
+
+    public ShardPartitioner(int shards, Partitioning partitioning) {
+        if (shards < 1) throw new IllegalArgumentException("Number of shards should be at least 1.");
+        WebCrawler.assertNotNull(partitioning, "Partitioning should not be null.");
+        this.shards = shards;
+        this.partitioning = partitioning;
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES_PER_SHARD; node++) {
+                ring.put(UrlFingerprint.of("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    public int shardOf(String url) {
+        if (shards == 1) {
+            return 0;
+        }
+        Map.Entry<Long, Integer> node = ring.ceilingEntry(UrlFingerprint.of(keyOf(url)));
+        return node != null ? node.getValue() : ring.firstEntry().getValue();
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    /**
+     * Lower case host (with port), followed by the first path segment when partitioning by path.
+     */
+    String keyOf(String url) {
+        int hostStart = url.indexOf("://");
+        hostStart = hostStart < 0 ? 0 : hostStart + 3;
+        int hostEnd = hostStart;
+        while (hostEnd < url.length() && "/?#".indexOf(url.charAt(hostEnd)) < 0) {
+            hostEnd++;
+        }
+        String host = url.substring(hostStart, hostEnd).toLowerCase();
+        if (partitioning == Partitioning.HOST || hostEnd == url.length() || url.charAt(hostEnd) != '/') {
+            return host;
+        }
+
+        int segmentEnd = hostEnd + 1;
+        while (segmentEnd < url.length() && "/?#".indexOf(url.charAt(segmentEnd)) < 0) {
+            segmentEnd++;
+        }
+        return segmentEnd == hostEnd + 1 ? host : host + url.substring(hostEnd, segmentEnd);// "/" is the same page as no path
+    }
+}
@@ -0,0 +1,131 @@
+package com.demo.webcrawler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line based text protocol between the coordinator and the workers of a distributed crawl, e.g.
+ *
+ * coordinator -> worker: WELCOME shard shards maxSearchDepth partitioning, LINK depth url, STOP
+ * worker -> coordinator: LINK depth url, BLOCK entries (followed by one line per site-map entry), IDLE processedLinks
+ *
+ * A worker reports IDLE when it has nothing left to crawl, with the number of links it has received so far.
+ * Messages of a connection arrive in order, so once every worker is idle and has processed every link routed to it,
+ * no link is in flight anywhere and the crawl is over.
+ */
+final class ShardProtocol {
+    static final String WELCOME = "WELCOME";
+    static final String LINK = "LINK";
+    static final String BLOCK = "BLOCK";
+    static final String IDLE = "IDLE";
+    static final String STOP = "STOP";
+    private static final char SEPARATOR = '\t';
+    private static final String NULL = "\\0";// never produced by escape, backslashes are always doubled
+
+    private ShardProtocol() {
+    }
+
+    static String link(int depth, String url) {
+        return LINK + " " + depth + " " + escape(url);
+    }
+
+    /**
+     * Writes the entries of a page as a single BLOCK message, one line per entry with all of its fields.
+     */
+    static void writeBlock(Writer writer, List<SiteMapEntry> entries) throws IOException {
+        writer.write(BLOCK + " " + entries.size() + "\n");
+        for (SiteMapEntry entry : entries) {
+            writer.write(entry.getType().name() + SEPARATOR + escape(entry.getUrl())
+                    + SEPARATOR + escapeNullable(entry.getMessage())
+                    + SEPARATOR + entry.getReferences()
+                    + SEPARATOR + escapeNullable(entry.getContentType())
+                    + SEPARATOR + entry.getSize()
+                    + SEPARATOR + entry.getDepth()
+                    + SEPARATOR + escapeNullable(entry.getParentUrl())
+                    + SEPARATOR + entry.getStatusCode()
+                    + SEPARATOR + entry.getFetchMillis() + "\n");
+        }
+    }
+
+    static List<SiteMapEntry> readBlock(String blockLine, BufferedReader reader) throws IOException {
+        int size = Integer.parseInt(argument(blockLine, 1));
+        List<SiteMapEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Connection closed in the middle of a site-map block.");
+            }
+            String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+            entries.add(SiteMapEntry.restore(SiteMapEntry.Type.valueOf(fields[0]), unescape(fields[1]),
+                    unescapeNullable(fields[2]), Long.parseLong(fields[3]), unescapeNullable(fields[4]), Long.parseLong(fields[5]),
+                    Integer.parseInt(fields[6]), unescapeNullable(fields[7]), Integer.parseInt(fields[8]), Long.parseLong(fields[9])));
+        }
+        return entries;
+    }
+
+    /**
+     * Space separated argument of a message, the last argument takes the rest of the line (urls are escaped).
+     */
+    static String argument(String message, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            start = message.indexOf(' ', start) + 1;
+            if (start == 0) {
+                throw new IllegalArgumentException("Malformed message: " + message);
+            }
+        }
+        int end = message.indexOf(' ', start);
+        return end < 0 ? message.substring(start) : message.substring(start, end);
+    }
+
+    static String command(String message) {
+        int end = message.indexOf(' ');
+        return end < 0 ? message : message.substring(0, end);
+    }
+
+    /**
+     * Urls are sent as written in pages, they may contain anything (spaces, tabs or even new lines).
+     */
+    private static String escapeNullable(String value) {
+        return value == null ? NULL : escape(value);
+    }
+
+    private static String unescapeNullable(String value) {
+        return NULL.equals(value) ? null : unescape(value);
+    }
+
+    static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = c == '\\' ? "\\\\" : c == '\t' ? "\\t" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : c == ' ' ? "\\s" : null;
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (escaped != null) {
+                escaped.append(replacement != null ? replacement : String.valueOf(c));
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char escaped = value.charAt(++i);
+                unescaped.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped == 's' ? ' ' : escaped);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
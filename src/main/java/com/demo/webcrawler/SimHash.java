@@ -0,0 +1,148 @@
+package com.demo.webcrawler;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 64-bit SimHash of the text of a page, pages with mostly the same text have fingerprints differing in a few bits.
+ *
+ * Features are shingles of SHINGLE_WORDS consecutive words, markup, scripts, styles and comments are skipped.
+ * Every bit of the fingerprint is the sign of the sum of that bit over the hashes of all the shingles (+1 when set, -1 otherwise),
+ * so changing a few words (a session id, a date, a counter) flips only a few bits.
+ */
+final class SimHash {
+    static final int SHINGLE_WORDS = 3;
+    private static final long SHINGLE_PRIME = 0x9e3779b97f4a7c15L;
+
+    private final int[] bitWeights = new int[64];
+    private final long[] lastWords = new long[SHINGLE_WORDS];
+    private int words;
+    private int shingles;
+
+    /**
+     * Fingerprint of the text of the page, see getShingles for how much text there was.
+     */
+    static SimHash of(FetchedPage fetchedPage) {
+        SimHash simHash = new SimHash();
+        simHash.addHtml(decode(fetchedPage));
+        return simHash;
+    }
+
+    private static CharBuffer decode(FetchedPage fetchedPage) {
+        Charset charset = StandardCharsets.UTF_8;
+        String charsetName = fetchedPage.getCharset();
+        if (charsetName != null) {
+            try {
+                charset = Charset.forName(charsetName);
+            } catch (IllegalArgumentException e) {
+                // unknown charset, words in ASCII are still found
+            }
+        }
+        return charset.decode(ByteBuffer.wrap(fetchedPage.getBody()));
+    }
+
+    /**
+     * Adds the words of the text content of the html.
+     */
+    void addHtml(CharSequence html) {
+        int length = html.length();
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                i = skipMarkup(html, i);
+            } else if (Character.isLetterOrDigit(c)) {
+                long wordHash = UrlFingerprint.FNV_OFFSET_BASIS;
+                while (i < length && Character.isLetterOrDigit(c = html.charAt(i))) {
+                    wordHash ^= Character.toLowerCase(c);
+                    wordHash *= UrlFingerprint.FNV_PRIME;
+                    i++;
+                }
+                addWord(wordHash);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * @return index right after the tag, comment, script or style element starting at start
+     */
+    private static int skipMarkup(CharSequence html, int start) {
+        if (regionMatches(html, start, "<!--")) {
+            return skipPast(html, "-->", start + 4);
+        }
+        int tagEnd = skipPast(html, ">", start + 1);
+        if (regionMatches(html, start, "<script")) {
+            return skipPast(html, "</script", tagEnd);// rest of the closing tag is skipped as markup
+        }
+        if (regionMatches(html, start, "<style")) {
+            return skipPast(html, "</style", tagEnd);
+        }
+        return tagEnd;
+    }
+
+    private static boolean regionMatches(CharSequence html, int start, String lowerCasePrefix) {
+        if (start + lowerCasePrefix.length() > html.length()) {
+            return false;
+        }
+        for (int i = 0; i < lowerCasePrefix.length(); i++) {
+            if (Character.toLowerCase(html.charAt(start + i)) != lowerCasePrefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return index right after the lower case text, end of the html when not found (unclosed markup)
+     */
+    private static int skipPast(CharSequence html, String lowerCaseText, int from) {
+        for (int i = from; i + lowerCaseText.length() <= html.length(); i++) {
+            if (regionMatches(html, i, lowerCaseText)) {
+                return i + lowerCaseText.length();
+            }
+        }
+        return html.length();
+    }
+
+    private void addWord(long wordHash) {
+        lastWords[words % SHINGLE_WORDS] = wordHash;
+        words++;
+        if (words < SHINGLE_WORDS) {
+            return;
+        }
+        long shingleHash = 0;
+        for (int i = words - SHINGLE_WORDS; i < words; i++) {
+            shingleHash = (shingleHash + lastWords[i % SHINGLE_WORDS]) * SHINGLE_PRIME;
+        }
+        shingleHash = UrlFingerprint.mix(shingleHash);
+        for (int bit = 0; bit < 64; bit++) {
+            bitWeights[bit] += (shingleHash >>> bit & 1) != 0 ? 1 : -1;
+        }
+        shingles++;
+    }
+
+    long getFingerprint() {
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (bitWeights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Number of shingles the fingerprint was computed from, fingerprints of very short texts are not meaningful.
+     */
+    int getShingles() {
+        return shingles;
+    }
+
+    static int distance(long fingerprint1, long fingerprint2) {
+        return Long.bitCount(fingerprint1 ^ fingerprint2);
+    }
+}
@@ -0,0 +1,66 @@
+package com.demo.webcrawler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How the workers of a batch crawl are shared between its sites, see ConcurrentWebCrawler.createSiteMaps.
+ *
+ * - mode: SHARES, a free worker takes a page of the site with the fewest pages in progress for its weight, sites with the same
+ *   share take turns; SEED_ORDER, a free worker takes a page of the first site (in seed order) which has one, later sites get
+ *   the workers the earlier ones leave idle (e.g. at the end of a level or held back by politeness)
+ * - weights: weight of a site by its base url, sites not listed have weight 1, used by SHARES only
+ * - maxWorkersPerSite: max pages of a single site in progress, 0 = no limit, keeps a large site from taking all the workers
+ *   at the price of idle workers when the other sites have nothing to do
+ */
+public class SiteFairness {
+    public static final double DEFAULT_WEIGHT = 1;
+
+    public enum Mode {
+        SHARES,
+        SEED_ORDER
+    }
+
+    private final Mode mode;
+    private final Map<String, Double> weights;
+    private final int maxWorkersPerSite;
+
+    public SiteFairness(Mode mode, Map<String, Double> weights, int maxWorkersPerSite) {
+        WebCrawler.assertNotNull(mode, "Fairness mode should not be null.");
+        WebCrawler.assertNotNull(weights, "Site weights should not be null.");
+        if (maxWorkersPerSite < 0) throw new IllegalArgumentException("Max workers per site should not be negative.");
+        for (Map.Entry<String, Double> weight : weights.entrySet()) {
+            if (!(weight.getValue() > 0)) throw new IllegalArgumentException("Weight of " + weight.getKey() + " should be positive, got: " + weight.getValue());
+        }
+        this.mode = mode;
+        this.weights = Collections.unmodifiableMap(new HashMap<>(weights));
+        this.maxWorkersPerSite = maxWorkersPerSite;
+    }
+
+    /**
+     * Every site gets the same share of the workers, with no limit when the other sites have nothing to do.
+     */
+    public static SiteFairness equalShares() {
+        return new SiteFairness(Mode.SHARES, Collections.emptyMap(), 0);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public double getWeight(String baseUrl) {
+        return weights.getOrDefault(baseUrl, DEFAULT_WEIGHT);
+    }
+
+    public int getMaxWorkersPerSite() {
+        return maxWorkersPerSite;
+    }
+
+    @Override
+    public String toString() {
+        return "SiteFairness(mode=" + mode
+                + ", weights=" + (weights.values().stream().allMatch(weight -> weight == DEFAULT_WEIGHT) ? "equal" : "per site")
+                + ", maxWorkersPerSite=" + CrawlBudget.limit(maxWorkersPerSite) + ")";
+    }
+}
@@ -0,0 +1,172 @@
+package com.demo.webcrawler;
+
+/**
+ * Single line of the site-map, pushed to a SiteMapSink as soon as the crawler finds it.
+ *
+ * Besides the url, entries carry what the crawler knew when it wrote them (depth, parent page, status code, fetch time),
+ * the text format shows none of it, BinarySiteMapSink and JsonLinesSiteMapSink keep it all.
+ */
+public class SiteMapEntry {
+    public static final int UNKNOWN = -1;
+
+    public enum Type {
+        PAGE, CSS, JS, IMAGE, EXTERNAL_LINK, FILE, ERROR
+    }
+
+    private final Type type;
+    private final String url;
+    private final String message;
+    private final long references;
+    private final String contentType;
+    private final long size;
+    private final int depth;
+    private final String parentUrl;
+    private final int statusCode;
+    private final long fetchMillis;
+
+    private SiteMapEntry(Type type, String url, String message, long references) {
+        this(type, url, message, references, null, UNKNOWN, UNKNOWN, null, UNKNOWN, UNKNOWN);
+    }
+
+    private SiteMapEntry(Type type, String url, String message, long references, String contentType, long size,
+                         int depth, String parentUrl, int statusCode, long fetchMillis) {
+        this.type = type;
+        this.url = url;
+        this.message = message;
+        this.references = references;
+        this.contentType = contentType;
+        this.size = size;
+        this.depth = depth;
+        this.parentUrl = parentUrl;
+        this.statusCode = statusCode;
+        this.fetchMillis = fetchMillis;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Error description, null for all the other entry types.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Number of references to a resource counted by ReferenceCountingRegistry, 0 when not counted.
+     */
+    public long getReferences() {
+        return references;
+    }
+
+    /**
+     * Content type of a FILE entry (non-HTML url found among the pages), null for all the other entry types.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Size in bytes of a FILE entry, -1 when not known.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Number of links between the base url and a crawled url (page, file or error), -1 when not known.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Page the url was found on, null for the base url, sitemap seeds and counted resources.
+     */
+    public String getParentUrl() {
+        return parentUrl;
+    }
+
+    /**
+     * HTTP status of a crawled url, -1 when there was no response (e.g. timeout) or the url was not fetched.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Time spent fetching a crawled url, not including waiting for the host scheduler, -1 when not measured.
+     */
+    public long getFetchMillis() {
+        return fetchMillis;
+    }
+
+    /**
+     * Same entry with the details of the crawl of its url.
+     */
+    public SiteMapEntry withCrawlInfo(int depth, String parentUrl, int statusCode, long fetchMillis) {
+        return new SiteMapEntry(type, url, message, references, contentType, size, depth, parentUrl, statusCode, fetchMillis);
+    }
+
+    /**
+     * Line in the site-map text format, e.g. "http://some.domain/page", "http://some.domain/page - read timeout.",
+     * "http://some.domain/main.css (12 references)" or "http://some.domain/report.pdf (application/pdf, 52311 bytes)"
+     */
+    public String toLine() {
+        if (message != null) {
+            return url + " - " + message;
+        } else if (type == Type.FILE) {
+            return url + " (" + contentType + (size >= 0 ? ", " + size + " bytes)" : ")");
+        } else if (references > 0) {
+            return url + " (" + references + (references == 1 ? " reference)" : " references)");
+        }
+        return url;
+    }
+
+    @Override
+    public String toString() {
+        return "SiteMapEntry(" + type + ", " + toLine() + ")";
+    }
+
+    // factory methods
+
+    public static SiteMapEntry of(Type type, String url) {
+        return new SiteMapEntry(type, url, null, 0);
+    }
+
+    /**
+     * Resource or external link found on a page.
+     */
+    public static SiteMapEntry linked(Type type, String url, String pageUrl) {
+        return new SiteMapEntry(type, url, null, 0, null, UNKNOWN, UNKNOWN, pageUrl, UNKNOWN, UNKNOWN);
+    }
+
+    public static SiteMapEntry error(String url, String message) {
+        return new SiteMapEntry(Type.ERROR, url, message, 0);
+    }
+
+    /**
+     * @param size -1 when not known
+     */
+    public static SiteMapEntry file(String url, String contentType, long size) {
+        return new SiteMapEntry(Type.FILE, url, null, 0, contentType, size, UNKNOWN, null, UNKNOWN, UNKNOWN);
+    }
+
+    public static SiteMapEntry referenced(Type type, String url, long references) {
+        return new SiteMapEntry(type, url, null, references);
+    }
+
+    /**
+     * Entry read back from a stored or transmitted form, with all of its fields.
+     */
+    static SiteMapEntry restore(Type type, String url, String message, long references, String contentType, long size,
+                                int depth, String parentUrl, int statusCode, long fetchMillis) {
+        return new SiteMapEntry(type, url, message, references, contentType, size, depth, parentUrl, statusCode, fetchMillis);
+    }
+
+}
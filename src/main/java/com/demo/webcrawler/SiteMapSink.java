@@ -0,0 +1,18 @@
+package com.demo.webcrawler;
+
+import java.io.Closeable;
+
+/**
+ * Receives site-map entries while the site is being crawled, so the whole site-map never has to be held in memory.
+ *
+ * Crawlers never call add concurrently (entries of a single page are always pushed together),
+ * so implementations do not have to be thread safe. Closing the sink is the responsibility of the caller.
+ */
+public interface SiteMapSink extends Closeable {
+
+    /**
+     * @throws java.io.UncheckedIOException when the entry could not be written
+     */
+    void add(SiteMapEntry entry);
+
+}
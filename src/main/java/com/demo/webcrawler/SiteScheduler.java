@@ -0,0 +1,174 @@
+package com.demo.webcrawler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares the workers of a batch crawl between the frontiers of its sites, as given by SiteFairness.
+ *
+ * A free worker polls the frontiers in fairness order and takes the first page which can be started, when no site has one
+ * it waits until any of the frontiers changes. Frontiers notify the scheduler under their own lock (Frontier.onChange),
+ * so the scheduler never calls a frontier while holding its lock. A slot of the site is reserved before its frontier
+ * is polled, so maxWorkersPerSite is never exceeded, even by workers polling the same site at once.
+ */
+class SiteScheduler {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<Frontier> frontiers;
+    private final double[] weights;
+    private final int maxWorkersPerSite;// 0 = no limit
+    private final boolean seedOrder;
+    private final int[] inProgress;
+    private final boolean[] finished;// finished frontiers are not polled any more
+    private long changes;
+    private int nextSite;// first site tried when shares are equal, so such sites take turns
+
+    /**
+     * @param weights weight of every site, in the order of the frontiers
+     */
+    SiteScheduler(List<Frontier> frontiers, double[] weights, SiteFairness fairness) {
+        if (frontiers.size() != weights.length) throw new IllegalArgumentException("Every site should have a weight.");
+        this.frontiers = frontiers;
+        this.weights = weights;
+        this.maxWorkersPerSite = fairness.getMaxWorkersPerSite();
+        this.seedOrder = fairness.getMode() == SiteFairness.Mode.SEED_ORDER;
+        this.inProgress = new int[frontiers.size()];
+        this.finished = new boolean[frontiers.size()];
+        frontiers.forEach(frontier -> frontier.onChange(this::changed));
+    }
+
+    /**
+     * Blocks until a page of any site can be started, returns null once every site is finished.
+     */
+    SiteTask take() throws InterruptedException {
+        while (true) {
+            long seenChanges;
+            List<Integer> sites;
+            lock.lock();
+            try {
+                seenChanges = changes;
+                sites = siteOrder();
+            } finally {
+                lock.unlock();
+            }
+            if (sites.isEmpty()) {
+                return null;
+            }
+
+            for (int site : sites) {
+                if (!reserve(site)) {
+                    continue;
+                }
+                CrawlTask task = frontiers.get(site).poll();
+                if (task != null) {
+                    return new SiteTask(site, task);
+                }
+                release(site, frontiers.get(site).isFinished());
+            }
+
+            lock.lock();
+            try {
+                while (changes == seenChanges && !allFinished()) {
+                    changed.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    void complete(SiteTask siteTask) {
+        frontiers.get(siteTask.site).complete(siteTask.task);
+        release(siteTask.site, false);
+        if (maxWorkersPerSite > 0) {
+            changed();// a slot of the site is free again
+        }
+    }
+
+    private boolean reserve(int site) {
+        lock.lock();
+        try {
+            if (finished[site] || (maxWorkersPerSite > 0 && inProgress[site] >= maxWorkersPerSite)) {
+                return false;
+            }
+            inProgress[site]++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(int site, boolean siteFinished) {
+        lock.lock();
+        try {
+            inProgress[site]--;
+            finished[site] |= siteFinished;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void changed() {
+        lock.lock();
+        try {
+            changes++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean allFinished() {
+        for (boolean siteFinished : finished) {
+            if (!siteFinished) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sites not finished yet, in the order they should be polled.
+     */
+    private List<Integer> siteOrder() {
+        List<Integer> sites = new ArrayList<>(frontiers.size());
+        for (int i = 0; i < frontiers.size(); i++) {
+            int site = seedOrder ? i : (nextSite + i) % frontiers.size();
+            if (!finished[site]) {
+                sites.add(site);
+            }
+        }
+        if (!seedOrder) {
+            // stable, sites with the same share stay in turn order
+            sites.sort(Comparator.comparingDouble(site -> inProgress[site] / weights[site]));
+            if (!sites.isEmpty()) {
+                nextSite = (sites.get(0) + 1) % frontiers.size();
+            }
+        }
+        return sites;
+    }
+
+    /**
+     * Page taken from the frontier of a site.
+     */
+    static class SiteTask {
+        private final int site;
+        private final CrawlTask task;
+
+        SiteTask(int site, CrawlTask task) {
+            this.site = site;
+            this.task = task;
+        }
+
+        int getSite() {
+            return site;
+        }
+
+        CrawlTask getTask() {
+            return task;
+        }
+    }
+}
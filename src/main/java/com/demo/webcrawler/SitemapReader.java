@@ -0,0 +1,111 @@
+package com.demo.webcrawler;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams sitemap.xml (urlset) and sitemap index (sitemapindex) files, gzipped or not (https://www.sitemaps.org/protocol.html).
+ *
+ * Entries are passed to the listener as they are read, no document model of a 50000 urls sitemap is built.
+ * The sitemap file itself is read from the stream given, CrawlBootstrap hands it the fetched body, which is held
+ * in memory whole (up to FetchPolicy.MAX_SITEMAP_BYTES, decompressed while parsing when gzipped).
+ * DTDs and external entities are not processed.
+ */
+public class SitemapReader {
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public interface Listener {
+        /**
+         * @param priority priority of the page, NaN when not given
+         */
+        void page(String url, double priority);
+
+        /**
+         * Sitemap listed in a sitemap index.
+         */
+        void sitemap(String url);
+    }
+
+    public SitemapReader() {
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    }
+
+    /**
+     * Reads the whole sitemap, gzip is detected from the content, not from the file name or content type.
+     */
+    public void read(InputStream input, Listener listener) throws IOException {
+        WebCrawler.assertNotNull(input, "Sitemap input should not be null.");
+        WebCrawler.assertNotNull(listener, "Sitemap listener should not be null.");
+
+        InputStream sitemap = new BufferedInputStream(input);
+        sitemap.mark(2);
+        int magic = sitemap.read() | sitemap.read() << 8;
+        sitemap.reset();
+        if (magic == GZIP_MAGIC) {
+            sitemap = new GZIPInputStream(sitemap);
+        }
+
+        try {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(sitemap);
+            try {
+                readEntries(reader, listener);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid sitemap: " + e.getMessage(), e);
+        }
+    }
+
+    private static void readEntries(XMLStreamReader reader, Listener listener) throws XMLStreamException {
+        // entry being read, <url> or <sitemap>
+        String entry = null;
+        String location = null;
+        double priority = Double.NaN;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("url".equals(element) || "sitemap".equals(element)) {
+                    entry = element;
+                    location = null;
+                    priority = Double.NaN;
+                } else if (entry != null && "loc".equals(element)) {
+                    location = reader.getElementText().trim();
+                } else if ("url".equals(entry) && "priority".equals(element)) {
+                    priority = parsePriority(reader.getElementText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(entry)) {
+                if (location != null && !location.isEmpty()) {
+                    if ("url".equals(entry)) {
+                        listener.page(location, priority);
+                    } else {
+                        listener.sitemap(location);
+                    }
+                }
+                entry = null;
+            }
+        }
+    }
+
+    private static double parsePriority(String value) {
+        try {
+            double priority = Double.parseDouble(value.trim());
+            return priority >= 0 && priority <= 1 ? priority : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
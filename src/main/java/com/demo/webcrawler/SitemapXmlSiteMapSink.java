@@ -0,0 +1,81 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes crawled pages as a standard sitemap.xml (https://www.sitemaps.org/protocol.html), the other entries are left out.
+ * The urlset is completed when the sink is closed. Search engines read at most 50000 urls per sitemap,
+ * bigger crawls should be split by the caller.
+ */
+public class SitemapXmlSiteMapSink implements SiteMapSink {
+    private final Writer writer;
+    private boolean started;
+
+    public SitemapXmlSiteMapSink(Writer writer) {
+        WebCrawler.assertNotNull(writer, "Writer should not be null.");
+        this.writer = writer;
+    }
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        if (entry.getType() != SiteMapEntry.Type.PAGE) {
+            return;
+        }
+        try {
+            start();
+            writer.write("  <url><loc>" + escapeXml(entry.getUrl()) + "</loc></url>" + WebCrawler.NEW_LINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Completes the urlset and closes the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            start();// empty crawl is still a valid sitemap
+            writer.write("</urlset>" + WebCrawler.NEW_LINE);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            started = true;
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + WebCrawler.NEW_LINE);
+            writer.write("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">" + WebCrawler.NEW_LINE);
+        }
+    }
+
+    static String escapeXml(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '"':
+                    escaped.append("&quot;");
+                    break;
+                case '\'':
+                    escaped.append("&apos;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.demo.webcrawler;
+
+import java.io.PrintStream;
+
+/**
+ * Prints site-map entries to the console. Closing the sink flushes, but does not close, System.out.
+ */
+public class StdoutSiteMapSink implements SiteMapSink {
+    private final PrintStream out;
+
+    public StdoutSiteMapSink() {
+        this.out = System.out;
+    }
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        out.print(entry.toLine() + WebCrawler.NEW_LINE);
+    }
+
+    @Override
+    public void close() {
+        out.flush();
+    }
+}
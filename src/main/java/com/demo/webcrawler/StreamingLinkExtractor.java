@@ -0,0 +1,401 @@
+package com.demo.webcrawler;
+
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds links in a single pass over the response body without building a page model.
+ *
+ * A small html tokenizer reads the page char by char and only looks at start tags of a, link, script and img elements,
+ * keeping their href/src (and rel/type) attributes. Comments, end tags and contents of script, style, textarea etc.
+ * are skipped the way an html parser does, so it selects the same elements as JsoupLinkExtractor on regular pages.
+ * Trade-off: malformed markup fixed by a full parser (e.g. mis-nested a elements) may give slightly different results.
+ * The body is decoded straight from the page's byte array into a small char window, the page never becomes a String.
+ */
+public class StreamingLinkExtractor implements LinkExtractor {
+    // elements whose content is text, not markup
+    private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList(
+            "script", "style", "textarea", "title", "xmp", "iframe", "noembed", "noframes"));
+    private static final Pattern META_CHARSET_PATTERN = Pattern.compile("(?i)<meta[^>]*charset\\s*=\\s*[\"']?([\\w.:-]+)");
+    private static final String[] LINK_ELEMENTS = {"a", "link", "script", "img", "image"};
+    private static final int CHARSET_SNIFF_BYTES = 4096;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_LOOKAHEAD = 16;
+
+    @Override
+    public PageLinks extract(FetchedPage fetchedPage) throws IOException {
+        Links links = new Links();
+        tokenize(new CharSource(fetchedPage.getBody(), charsetOf(fetchedPage)), links);
+        return PageLinks.of(fetchedPage.getBaseUrl(), links.anchorHrefs, links.stylesheetHrefs, links.scriptSrcs, links.imageSrcs);
+    }
+
+    /**
+     * Charset from the Content-Type header, then from a meta tag at the top of the page, same as Jsoup defaults to UTF-8.
+     */
+    static Charset charsetOf(FetchedPage fetchedPage) {
+        String charset = fetchedPage.getCharset();
+        if (charset == null) {
+            byte[] body = fetchedPage.getBody();
+            String head = new String(body, 0, Math.min(body.length, CHARSET_SNIFF_BYTES), StandardCharsets.ISO_8859_1);
+            Matcher matcher = META_CHARSET_PATTERN.matcher(head);
+            charset = matcher.find() ? matcher.group(1) : null;
+        }
+        try {
+            return charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;// unknown or illegal charset name
+        }
+    }
+
+    private static void tokenize(CharSource source, Links links) {
+        StringBuilder name = new StringBuilder();// reused for every tag and attribute name
+        int c;
+        while ((c = source.read()) != -1) {
+            if (c != '<') {
+                continue;// text
+            }
+
+            int next = source.read();
+            if (isLetter(next)) {
+                String rawTextElement = readStartTag(next, source, links, name);
+                if ("plaintext".equals(rawTextElement)) {
+                    return;// rest of the page is text
+                } else if (rawTextElement != null) {
+                    skipRawText(rawTextElement, source);
+                }
+            } else if (next == '/') {
+                skipTo('>', source);// end tag
+            } else if (next == '!') {
+                skipCommentOrDeclaration(source);
+            } else if (next == '?') {
+                skipTo('>', source);// processing instruction, treated as a comment
+            } else if (next != -1) {
+                source.unread(1);// '<' was just text
+            }
+        }
+    }
+
+    /**
+     * Reads tag name and attributes up to the closing '>', collects links of the interesting elements.
+     * Names are matched in place and only values of the interesting attributes become strings.
+     *
+     * @return name of the element when its content is raw text (or plaintext), null otherwise
+     */
+    private static String readStartTag(int firstChar, CharSource source, Links links, StringBuilder name) {
+        name.setLength(0);
+        name.append((char) firstChar);
+        int c;
+        while ((c = source.read()) != -1 && !isWhitespace(c) && c != '/' && c != '>') {
+            name.append((char) c);
+        }
+        String element = elementOf(name);
+        Tag tag = element != null && Arrays.asList(LINK_ELEMENTS).contains(element) ? new Tag() : null;
+
+        while (c != '>') {
+            if (c == -1) {
+                return null;// unfinished tag is dropped
+            }
+            if (isWhitespace(c) || c == '/') {
+                c = source.read();
+                continue;
+            }
+
+            // attribute name
+            name.setLength(0);
+            name.append((char) c);
+            while ((c = source.read()) != -1 && !isWhitespace(c) && c != '/' && c != '>' && c != '=') {
+                name.append((char) c);
+            }
+            int attribute = tag != null ? Tag.attributeOf(name) : Tag.OTHER;
+            while (isWhitespace(c)) {
+                c = source.read();
+            }
+
+            // attribute value
+            StringBuilder value = attribute != Tag.OTHER ? new StringBuilder() : null;
+            if (c == '=') {
+                c = source.read();
+                while (isWhitespace(c)) {
+                    c = source.read();
+                }
+                if (c == '"' || c == '\'') {
+                    int quote = c;
+                    while ((c = source.read()) != -1 && c != quote) {
+                        if (value != null) {
+                            value.append((char) c);
+                        }
+                    }
+                    if (c == -1) {
+                        return null;
+                    }
+                    c = source.read();
+                } else {
+                    while (c != -1 && !isWhitespace(c) && c != '>') {
+                        if (value != null) {
+                            value.append((char) c);
+                        }
+                        c = source.read();
+                    }
+                }
+            }
+            if (value != null) {
+                tag.attribute(attribute, value.toString());
+            }
+        }
+
+        if (tag != null) {
+            links.add(element, tag);
+        }
+        return element != null && (RAW_TEXT_ELEMENTS.contains(element) || "plaintext".equals(element)) ? element : null;
+    }
+
+    /**
+     * Lower case name of an element the extractor has to handle, null for any other element.
+     */
+    private static String elementOf(CharSequence tagName) {
+        for (String element : LINK_ELEMENTS) {
+            if (equalsIgnoreCase(tagName, element)) {
+                return element;
+            }
+        }
+        for (String element : RAW_TEXT_ELEMENTS) {
+            if (equalsIgnoreCase(tagName, element)) {
+                return element;
+            }
+        }
+        return equalsIgnoreCase(tagName, "plaintext") ? "plaintext" : null;
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence name, String lowerCaseName) {
+        if (name.length() != lowerCaseName.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (Character.toLowerCase(name.charAt(i)) != lowerCaseName.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skips element content up to its end tag, e.g. everything inside script is javascript even if it looks like markup.
+     */
+    private static void skipRawText(String tagName, CharSource source) {
+        int c;
+        while ((c = source.read()) != -1) {
+            if (c != '<') {
+                continue;
+            }
+            c = source.read();
+            if (c != '/') {
+                if (c != -1) {
+                    source.unread(1);
+                }
+                continue;
+            }
+
+            // </tagName followed by whitespace, '/' or '>'
+            int read = 0;
+            boolean matches = true;
+            while (matches && read < tagName.length() && (c = source.read()) != -1) {
+                read++;
+                matches = Character.toLowerCase(c) == tagName.charAt(read - 1);
+            }
+            if (matches && read == tagName.length() && (c = source.read()) != -1) {
+                read++;
+                if (isWhitespace(c) || c == '/' || c == '>') {
+                    if (c != '>') {
+                        skipTo('>', source);
+                    }
+                    return;
+                }
+            }
+            if (c == -1) {
+                return;
+            }
+            source.unread(read);
+        }
+    }
+
+    private static void skipCommentOrDeclaration(CharSource source) {
+        int first = source.read();
+        int second = first == '-' ? source.read() : -1;
+        if (first != '-' || second != '-') {
+            // doctype, cdata or bogus comment
+            if (first != -1 && first != '>') {
+                source.unread(second != -1 ? 2 : 1);
+                skipTo('>', source);
+            }
+            return;
+        }
+
+        // <!-- comment -->, also <!--> and <!--->
+        int dashes = 0;
+        int length = 0;
+        int c;
+        while ((c = source.read()) != -1) {
+            if (c == '>' && (dashes >= 2 || length == dashes)) {
+                return;
+            }
+            dashes = c == '-' ? dashes + 1 : 0;
+            length++;
+        }
+    }
+
+    private static void skipTo(char end, CharSource source) {
+        int c;
+        while ((c = source.read()) != -1 && c != end) {
+            // skipping
+        }
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Decodes the page in chunks straight from its bytes, no Reader and no intermediate byte buffer in between.
+     * Keeps the last MAX_LOOKAHEAD chars when refilling, so up to that many chars can be unread.
+     */
+    private static class CharSource {
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final CharBuffer window = CharBuffer.wrap(buffer);
+        private int position;
+        private int limit;
+        private boolean flushed;
+
+        CharSource(byte[] body, Charset charset) {
+            this.bytes = ByteBuffer.wrap(body);
+            // malformed input is replaced, the way InputStreamReader does it
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        int read() {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++];
+        }
+
+        void unread(int count) {
+            position -= count;
+        }
+
+        private boolean fill() {
+            int keep = Math.min(MAX_LOOKAHEAD, limit);
+            System.arraycopy(buffer, limit - keep, buffer, 0, keep);
+            position = keep;
+            limit = keep;
+            if (flushed) {
+                return false;
+            }
+            window.clear();
+            window.position(keep);
+            decoder.decode(bytes, window, true);
+            if (!bytes.hasRemaining()) {
+                flushed = decoder.flush(window).isUnderflow();// not flushed when the window is full, done on the next fill
+            }
+            limit = window.position();
+            return limit > keep;
+        }
+    }
+
+    /**
+     * Attributes of a start tag the extractor cares about.
+     */
+    private static class Tag {
+        static final int OTHER = -1;
+        private static final String[] ATTRIBUTES = {"href", "src", "rel", "type"};
+        private final String[] values = new String[ATTRIBUTES.length];
+
+        static int attributeOf(CharSequence name) {
+            for (int i = 0; i < ATTRIBUTES.length; i++) {
+                if (equalsIgnoreCase(name, ATTRIBUTES[i])) {
+                    return i;
+                }
+            }
+            return OTHER;
+        }
+
+        void attribute(int attribute, String value) {
+            values[attribute] = value.indexOf('&') < 0 ? value : Parser.unescapeEntities(value, true);
+        }
+
+        String href() {
+            return values[0];
+        }
+
+        String src() {
+            return values[1];
+        }
+
+        String rel() {
+            return values[2];
+        }
+
+        String type() {
+            return values[3];
+        }
+    }
+
+    /**
+     * Raw attribute values, in the same groups as PageLinks.
+     */
+    private static class Links {
+        private final List<String> anchorHrefs = new ArrayList<>();
+        private final List<String> stylesheetHrefs = new ArrayList<>();
+        private final List<String> scriptSrcs = new ArrayList<>();
+        private final List<String> imageSrcs = new ArrayList<>();
+
+        void add(String tagName, Tag tag) {
+            switch (tagName) {
+                case "a":
+                    anchorHrefs.add(valueOf(tag.href()));
+                    break;
+                case "link":
+                    if (tag.rel() != null && tag.rel().trim().equalsIgnoreCase("stylesheet")) {
+                        stylesheetHrefs.add(valueOf(tag.href()));
+                    }
+                    break;
+                case "script":
+                    if (tag.type() != null && tag.type().trim().equalsIgnoreCase("text/javascript")) {
+                        scriptSrcs.add(valueOf(tag.src()));
+                    }
+                    break;
+                case "img":
+                case "image":// parsers treat <image> as <img>
+                    imageSrcs.add(valueOf(tag.src()));
+                    break;
+                default:
+                    // not a link
+            }
+        }
+
+        private static String valueOf(String attribute) {
+            return attribute != null ? attribute : "";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.webcrawler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Which links are worth crawling, applied to every link before it is queued (see FrontierFilter).
+ *
+ * - includePatterns: regular expressions found in the url of pages to crawl, empty = all pages
+ * - excludePatterns: regular expressions found in the url of pages not to crawl, checked after includes
+ * - maxPathDepth: path segments of a url, 0 = no limit, e.g. /a/b/c/ has 3
+ * - maxSegmentRepeats: times the same path segment may appear in a url, 0 = no limit, e.g. /a/b/a/b/a/ has a three times
+ * - maxParameterValues: different values of a query parameter on the same path, 0 = no limit, e.g. calendar ?month= or pagination ?page=
+ * The last three are heuristics against url traps, endless url spaces made of links to ever deeper or ever "next" pages.
+ * Patterns of every kind are compiled once into a single alternation, urls are matched once per kind.
+ * The base url is always crawled.
+ */
+public class UrlFilter {
+    public static final int DEFAULT_MAX_PATH_DEPTH = 16;
+    public static final int DEFAULT_MAX_SEGMENT_REPEATS = 2;
+    public static final int DEFAULT_MAX_PARAMETER_VALUES = 100;
+
+    private final List<String> includePatterns;
+    private final List<String> excludePatterns;
+    private final Pattern include;// null = all pages
+    private final Pattern exclude;// null = no page
+    private final int maxPathDepth;
+    private final int maxSegmentRepeats;
+    private final int maxParameterValues;
+
+    public UrlFilter(List<String> includePatterns, List<String> excludePatterns, int maxPathDepth, int maxSegmentRepeats, int maxParameterValues) {
+        WebCrawler.assertNotNull(includePatterns, "Include patterns should not be null.");
+        WebCrawler.assertNotNull(excludePatterns, "Exclude patterns should not be null.");
+        if (maxPathDepth < 0 || maxSegmentRepeats < 0 || maxParameterValues < 0) throw new IllegalArgumentException("Url filter limits should not be negative.");
+        this.includePatterns = Collections.unmodifiableList(includePatterns);
+        this.excludePatterns = Collections.unmodifiableList(excludePatterns);
+        this.include = compile(includePatterns);
+        this.exclude = compile(excludePatterns);
+        this.maxPathDepth = maxPathDepth;
+        this.maxSegmentRepeats = maxSegmentRepeats;
+        this.maxParameterValues = maxParameterValues;
+    }
+
+    /**
+     * Every link is crawled, only the visited urls stop the crawl from fetching a page again.
+     */
+    public static UrlFilter acceptAll() {
+        return new UrlFilter(Collections.emptyList(), Collections.emptyList(), 0, 0, 0);
+    }
+
+    /**
+     * Url trap heuristics with the default limits, no patterns.
+     */
+    public static UrlFilter trapDetection() {
+        return new UrlFilter(Collections.emptyList(), Collections.emptyList(), DEFAULT_MAX_PATH_DEPTH, DEFAULT_MAX_SEGMENT_REPEATS,
+                DEFAULT_MAX_PARAMETER_VALUES);
+    }
+
+    /**
+     * @throws IllegalArgumentException when a pattern is not a valid regular expression
+     */
+    private static Pattern compile(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        return Pattern.compile(patterns.stream()
+                .map(pattern -> "(?:" + pattern + ")")
+                .collect(Collectors.joining("|")));
+    }
+
+    public List<String> getIncludePatterns() {
+        return includePatterns;
+    }
+
+    public List<String> getExcludePatterns() {
+        return excludePatterns;
+    }
+
+    public int getMaxPathDepth() {
+        return maxPathDepth;
+    }
+
+    public int getMaxSegmentRepeats() {
+        return maxSegmentRepeats;
+    }
+
+    public int getMaxParameterValues() {
+        return maxParameterValues;
+    }
+
+    boolean isIncluded(String url) {
+        return include == null || include.matcher(url).find();
+    }
+
+    boolean isExcluded(String url) {
+        return exclude != null && exclude.matcher(url).find();
+    }
+
+    boolean isAcceptAll() {
+        return include == null && exclude == null && maxPathDepth == 0 && maxSegmentRepeats == 0 && maxParameterValues == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "UrlFilter(include=" + includePatterns
+                + ", exclude=" + excludePatterns
+                + ", maxPathDepth=" + CrawlBudget.limit(maxPathDepth)
+                + ", maxSegmentRepeats=" + CrawlBudget.limit(maxSegmentRepeats)
+                + ", maxParameterValues=" + CrawlBudget.limit(maxParameterValues) + ")";
+    }
+}
@@ -0,0 +1,34 @@
+package com.demo.webcrawler;
+
+/**
+ * 64-bit url fingerprints (FNV-1a over the chars followed by murmur3 finalizer for better bit mixing).
+ * Probability of a collision is ~n^2/2^65, about 1 in 370 000 for 10 million urls.
+ */
+final class UrlFingerprint {
+    static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    static final long FNV_PRIME = 0x100000001b3L;
+
+    private UrlFingerprint() {
+    }
+
+    static long of(CharSequence url) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            hash ^= c & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
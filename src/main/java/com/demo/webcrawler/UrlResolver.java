@@ -0,0 +1,487 @@
+package com.demo.webcrawler;
+
+/**
+ * Resolves links found on a page against the page url (RFC 3986, section 5.2) and normalizes the result,
+ * so the same page spelled differently ends up as the same visited url:
+ * - scheme and host are lower cased, default ports (http 80, https 443) are removed, empty path becomes "/",
+ * - "." and ".." segments are removed,
+ * - percent-encoding is normalized (upper case hex digits, unreserved characters decoded, spaces and non-ascii characters encoded as UTF-8),
+ * - fragment is dropped, query is kept.
+ * Links are read the way browsers read them: a backslash counts as a slash (\\host is //host) and a link with
+ * the page scheme but no host (http:page) is relative to the page (RFC 3986, section 5.4.2).
+ * Only http and https urls are resolved, anything else (mailto:, javascript:, ...) is not a web page.
+ *
+ * Components of the page url are parsed once, links are resolved char by char into a reused buffer
+ * (no regular expressions or java.net.URL), so the only allocation per link is the resulting string.
+ * Not thread safe, create one per page.
+ */
+public class UrlResolver {
+    private static final String HEX_DIGITS = "0123456789ABCDEF";
+
+    private final String scheme;
+    private final String origin;// scheme://authority
+    private final String path;
+    private final String query;// null when the url has no query
+    private final StringBuilder buffer = new StringBuilder(128);
+    private final StringBuilder scratch = new StringBuilder(128);
+
+    private UrlResolver(String scheme, String origin, String path, String query) {
+        this.scheme = scheme;
+        this.origin = origin;
+        this.path = path;
+        this.query = query;
+    }
+
+    /**
+     * @return null when the base url is not a valid absolute http or https url
+     */
+    public static UrlResolver of(String baseUrl) {
+        if (baseUrl == null) {
+            return null;
+        }
+        int start = trimStart(baseUrl, 0, baseUrl.length());
+        int end = fragmentStart(baseUrl, start, trimEnd(baseUrl, start, baseUrl.length()));
+        int colon = schemeEnd(baseUrl, start, end);
+        String scheme = colon < 0 ? null : httpScheme(baseUrl, start, colon);
+        if (scheme == null || !isNetworkPath(baseUrl, colon + 1, end)) {
+            return null;
+        }
+
+        StringBuilder url = new StringBuilder(end - start + 8);
+        int authorityStart = colon + 3;
+        int authorityEnd = authorityEnd(baseUrl, authorityStart, end);
+        url.append(scheme).append("://");
+        if (!appendAuthority(baseUrl, authorityStart, authorityEnd, scheme, url)) {
+            return null;
+        }
+        String origin = url.toString();
+
+        int queryStart = indexOf(baseUrl, '?', authorityEnd, end);
+        int pathEnd = queryStart < 0 ? end : queryStart;
+        StringBuilder scratch = new StringBuilder();
+        appendPercentNormalized(baseUrl, authorityEnd, pathEnd, scratch, false);
+        url.setLength(0);
+        appendPathWithoutDotSegments(scratch, url);
+
+        String query = null;
+        if (queryStart >= 0) {
+            scratch.setLength(0);
+            appendPercentNormalized(baseUrl, queryStart + 1, end, scratch, true);
+            query = scratch.toString();
+        }
+        return new UrlResolver(scheme, origin, url.toString(), query);
+    }
+
+    /**
+     * Normal form of an absolute http or https url.
+     *
+     * @return null when the url is not a valid absolute http or https url
+     */
+    public static String normalize(String url) {
+        UrlResolver resolver = of(url);
+        return resolver != null ? resolver.toString() : null;
+    }
+
+    /**
+     * Resolves a link (absolute or relative) found on the page into a normalized absolute url.
+     *
+     * @return null when the link is not an http or https url or is not valid
+     */
+    public String resolve(CharSequence reference) {
+        CharSequence link = withoutTabsAndNewLines(reference);
+        int start = trimStart(link, 0, link.length());
+        int end = fragmentStart(link, start, trimEnd(link, start, link.length()));
+        buffer.setLength(0);
+        scratch.setLength(0);
+
+        int position = start;
+        String linkScheme = scheme;
+        int colon = schemeEnd(link, start, end);
+        if (colon >= 0) {
+            linkScheme = httpScheme(link, start, colon);
+            if (linkScheme == null) {
+                return null;// other scheme
+            }
+            position = colon + 1;
+            if (!isNetworkPath(link, position, end) && !linkScheme.equals(scheme)) {
+                return null;// url without host on another scheme, nothing to resolve it against
+            }
+        }
+
+        int queryStart;
+        if (isNetworkPath(link, position, end)) {
+            // network path, e.g. //host/path
+            int authorityEnd = authorityEnd(link, position + 2, end);
+            buffer.append(linkScheme).append("://");
+            if (!appendAuthority(link, position + 2, authorityEnd, linkScheme, buffer)) {
+                return null;
+            }
+            queryStart = indexOf(link, '?', authorityEnd, end);
+            appendPercentNormalized(link, authorityEnd, queryStart < 0 ? end : queryStart, scratch, false);
+            appendPathWithoutDotSegments(scratch, buffer);
+        } else {
+            buffer.append(origin);
+            queryStart = indexOf(link, '?', position, end);
+            int pathEnd = queryStart < 0 ? end : queryStart;
+            if (pathEnd == position) {
+                // only a query (or nothing), same page
+                buffer.append(path);
+                if (queryStart < 0) {
+                    if (query != null) {
+                        buffer.append('?').append(query);
+                    }
+                    return buffer.toString();
+                }
+            } else {
+                if (!isSlash(link.charAt(position))) {
+                    // relative to the directory of the page, e.g. child2 on /parent/child1 -> /parent/child2
+                    scratch.append(path, 0, path.lastIndexOf('/') + 1);
+                }
+                appendPercentNormalized(link, position, pathEnd, scratch, false);
+                appendPathWithoutDotSegments(scratch, buffer);
+            }
+        }
+
+        if (queryStart >= 0) {
+            buffer.append('?');
+            appendPercentNormalized(link, queryStart + 1, end, buffer, true);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * True when the normalized url is on the same scheme, host and port as the page.
+     */
+    public boolean isSameOrigin(String normalizedUrl) {
+        return normalizedUrl.startsWith(origin)
+                && (normalizedUrl.length() == origin.length() || normalizedUrl.charAt(origin.length()) == '/' || normalizedUrl.charAt(origin.length()) == '?');
+    }
+
+    /**
+     * True when the link starts with a scheme, e.g. http: or mailto:.
+     */
+    public static boolean hasScheme(CharSequence link) {
+        int start = trimStart(link, 0, link.length());
+        return schemeEnd(link, start, link.length()) >= 0;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public String toString() {
+        return query != null ? origin + path + "?" + query : origin + path;
+    }
+
+    // parsing
+
+    /**
+     * Index of ':' ending the scheme, -1 when the link has no scheme.
+     */
+    private static int schemeEnd(CharSequence s, int start, int end) {
+        if (start >= end || !isAlpha(s.charAt(start))) {
+            return -1;
+        }
+        for (int i = start + 1; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == ':') {
+                return i;
+            } else if (!isAlpha(c) && !isDigit(c) && c != '+' && c != '-' && c != '.') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lower case scheme when it is http or https, null otherwise.
+     */
+    private static String httpScheme(CharSequence s, int start, int colon) {
+        if (regionMatchesIgnoreCase(s, start, colon, "http")) {
+            return "http";
+        } else if (regionMatchesIgnoreCase(s, start, colon, "https")) {
+            return "https";
+        }
+        return null;
+    }
+
+    /**
+     * True when the link starts with "//" (network path), a backslash counts as a slash.
+     */
+    private static boolean isNetworkPath(CharSequence s, int start, int end) {
+        return end - start >= 2 && isSlash(s.charAt(start)) && isSlash(s.charAt(start + 1));
+    }
+
+    private static boolean isSlash(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    private static int authorityEnd(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '/' || c == '?' || c == '\\') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Appends [userinfo@]host[:port] with lower case host and without the default port.
+     *
+     * @return false when the authority is not valid
+     */
+    private static boolean appendAuthority(CharSequence s, int start, int end, String scheme, StringBuilder out) {
+        int hostStart = start;
+        for (int i = end - 1; i >= start; i--) {
+            if (s.charAt(i) == '@') {
+                out.append(s, start, i + 1);
+                hostStart = i + 1;
+                break;
+            }
+        }
+
+        int hostEnd = end;
+        int portStart = -1;
+        int bracket = hostStart < end && s.charAt(hostStart) == '[' ? indexOf(s, ']', hostStart, end) : -1;// ipv6 address
+        int searchFrom = bracket >= 0 ? bracket : hostStart;
+        int colon = indexOf(s, ':', searchFrom, end);
+        if (colon >= 0) {
+            hostEnd = colon;
+            portStart = colon + 1;
+        }
+        if (hostEnd == hostStart) {
+            return false;
+        }
+
+        for (int i = hostStart; i < hostEnd; i++) {
+            char c = s.charAt(i);
+            if (c <= ' ' || c == '<' || c == '>' || c == '"') {
+                return false;
+            }
+            out.append(Character.toLowerCase(c));
+        }
+
+        if (portStart >= 0 && portStart < end) {
+            int port = 0;
+            for (int i = portStart; i < end; i++) {
+                char c = s.charAt(i);
+                if (!isDigit(c) || port > 65535) {
+                    return false;
+                }
+                port = port * 10 + (c - '0');
+            }
+            if (port > 65535) {
+                return false;
+            }
+            if (port != defaultPort(scheme)) {
+                out.append(':').append(port);
+            }
+        }
+        return true;
+    }
+
+    private static int defaultPort(String scheme) {
+        return "https".equals(scheme) ? 443 : 80;
+    }
+
+    /**
+     * Appends the path or query, encoding characters not allowed in urls and decoding unnecessarily encoded ones.
+     */
+    private static void appendPercentNormalized(CharSequence s, int start, int end, StringBuilder out, boolean query) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '%') {
+                if (isPercentEncoded(s, i, end)) {
+                    int decoded = hexValue(s.charAt(i + 1)) * 16 + hexValue(s.charAt(i + 2));
+                    if (isUnreserved(decoded)) {
+                        out.append((char) decoded);
+                    } else {
+                        appendEncoded(decoded, out);
+                    }
+                    i += 2;
+                } else {
+                    out.append("%25");
+                }
+            } else if (c == '\\' && !query) {
+                out.append('/');// browsers treat backslash as slash in http urls
+            } else if (isUnreserved(c) || isSubDelimiter(c) || c == ':' || c == '@' || c == '/' || (query && c == '?')) {
+                out.append(c);
+            } else if (c < 0x80) {
+                appendEncoded(c, out);
+            } else {
+                int codePoint = Character.codePointAt(s, i);
+                if (Character.isSupplementaryCodePoint(codePoint)) {
+                    i++;
+                }
+                appendUtf8Encoded(codePoint, out);
+            }
+        }
+    }
+
+    /**
+     * Appends the path with "." and ".." segments removed (RFC 3986, section 5.2.4), empty path becomes "/".
+     */
+    private static void appendPathWithoutDotSegments(CharSequence in, StringBuilder out) {
+        int outStart = out.length();
+        int end = in.length();
+        int i = 0;
+        while (i < end) {
+            if (startsWith(in, i, end, "../")) {
+                i += 3;
+            } else if (startsWith(in, i, end, "./")) {
+                i += 2;
+            } else if (startsWith(in, i, end, "/./")) {
+                i += 2;
+            } else if (end - i == 2 && startsWith(in, i, end, "/.")) {
+                out.append('/');
+                i = end;
+            } else if (startsWith(in, i, end, "/../")) {
+                i += 3;
+                removeLastSegment(out, outStart);
+            } else if (end - i == 3 && startsWith(in, i, end, "/..")) {
+                removeLastSegment(out, outStart);
+                out.append('/');
+                i = end;
+            } else if ((end - i == 1 && in.charAt(i) == '.') || (end - i == 2 && startsWith(in, i, end, ".."))) {
+                i = end;
+            } else {
+                int segmentEnd = indexOf(in, '/', i + 1, end);
+                segmentEnd = segmentEnd < 0 ? end : segmentEnd;
+                out.append(in, i, segmentEnd);
+                i = segmentEnd;
+            }
+        }
+        if (out.length() == outStart || out.charAt(outStart) != '/') {
+            out.insert(outStart, '/');
+        }
+    }
+
+    private static void removeLastSegment(StringBuilder out, int outStart) {
+        int lastSlash = out.lastIndexOf("/");
+        out.setLength(Math.max(outStart, lastSlash));
+    }
+
+    private static CharSequence withoutTabsAndNewLines(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\t' || c == '\n' || c == '\r') {
+                StringBuilder cleaned = new StringBuilder(s.length());
+                for (int j = 0; j < s.length(); j++) {
+                    char d = s.charAt(j);
+                    if (d != '\t' && d != '\n' && d != '\r') {
+                        cleaned.append(d);
+                    }
+                }
+                return cleaned;
+            }
+        }
+        return s;
+    }
+
+    private static int trimStart(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence s, int start, int end) {
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int fragmentStart(CharSequence s, int start, int end) {
+        int hash = indexOf(s, '#', start, end);
+        return hash < 0 ? end : hash;
+    }
+
+    // characters
+
+    private static void appendEncoded(int b, StringBuilder out) {
+        out.append('%').append(HEX_DIGITS.charAt((b >> 4) & 0xF)).append(HEX_DIGITS.charAt(b & 0xF));
+    }
+
+    private static void appendUtf8Encoded(int codePoint, StringBuilder out) {
+        if (codePoint < 0x800) {
+            appendEncoded(0xC0 | (codePoint >> 6), out);
+            appendEncoded(0x80 | (codePoint & 0x3F), out);
+        } else if (codePoint < 0x10000) {
+            appendEncoded(0xE0 | (codePoint >> 12), out);
+            appendEncoded(0x80 | ((codePoint >> 6) & 0x3F), out);
+            appendEncoded(0x80 | (codePoint & 0x3F), out);
+        } else {
+            appendEncoded(0xF0 | (codePoint >> 18), out);
+            appendEncoded(0x80 | ((codePoint >> 12) & 0x3F), out);
+            appendEncoded(0x80 | ((codePoint >> 6) & 0x3F), out);
+            appendEncoded(0x80 | (codePoint & 0x3F), out);
+        }
+    }
+
+    private static boolean isPercentEncoded(CharSequence s, int i, int end) {
+        return i + 2 < end && hexValue(s.charAt(i + 1)) >= 0 && hexValue(s.charAt(i + 2)) >= 0;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean isUnreserved(int c) {
+        return isAlpha(c) || isDigit(c) || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static boolean isSubDelimiter(char c) {
+        return c == '!' || c == '$' || c == '&' || c == '\'' || c == '(' || c == ')' || c == '*' || c == '+' || c == ',' || c == ';' || c == '=';
+    }
+
+    private static boolean isAlpha(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean startsWith(CharSequence s, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (s.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int start, int end, String lowerCase) {
+        if (end - start != lowerCase.length()) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (Character.toLowerCase(s.charAt(start + i)) != lowerCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,17 @@
+package com.demo.webcrawler;
+
+/**
+ * Set of urls the crawler has already seen. Implementations have to be thread safe.
+ */
+public interface VisitedUrls {
+
+    /**
+     * @return true when the url was not visited before (and is now marked as visited)
+     */
+    boolean add(String url);
+
+    boolean contains(String url);
+
+    long size();
+
+}
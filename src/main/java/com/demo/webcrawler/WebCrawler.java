@@ -1,46 +1,89 @@
 package com.demo.webcrawler;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
-import java.net.URL;
 import java.net.UnknownHostException;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Created by andrzej on 2016-08-18.
  */
 public class WebCrawler implements Crawler {
-    private static final int DEFAULT_MAX_PAGE_TREE_DEPTH = 1;
-    private static final String USER_AGENT = "web-crawler_1.0";
-    private static final String NEW_LINE = "\n";
+    static final String USER_AGENT = "web-crawler_1.0";
+    static final String NEW_LINE = "\n";
 
     private final Logger logger = LoggerFactory.getLogger(WebCrawler.class);
-    private final int pageTimeoutInMillis;
     private final int maxSearchDepth;
+    private final PageFetcher pageFetcher;
+    private final HostScheduler hostScheduler;
+    private final Supplier<VisitedUrls> visitedUrlsFactory;
+    private final LinkExtractor linkExtractor;
+    private final PageCache pageCache;
+    private final Supplier<ResourceRegistry> resourceRegistryFactory;
+    private final CrawlMetrics metrics;
+    private final CrawlerConfig.CrawlOrder crawlOrder;
+    private final PageScorer pageScorer;
+    private final DnsCache dnsCache;
+    private final CrawlBudget budget;
+    private final int nearDuplicateDistance;
+    private final UrlFilter urlFilter;
+    private final boolean obeyRobotsTxt;
+    private final int maxSitemapPages;
 
     public WebCrawler(int pageTimeoutInMillis) {
-        this.pageTimeoutInMillis = pageTimeoutInMillis;
-        this.maxSearchDepth = DEFAULT_MAX_PAGE_TREE_DEPTH;
+        this(pageTimeoutInMillis, CrawlerConfig.DEFAULT_MAX_SEARCH_DEPTH);
     }
 
     public WebCrawler(int pageTimeoutInMillis, int maxSearchDepth) {
-        this.pageTimeoutInMillis = pageTimeoutInMillis;
-        this.maxSearchDepth = maxSearchDepth;
+        this(pageTimeoutInMillis, maxSearchDepth, PolitenessPolicy.unlimited());
+    }
+
+    public WebCrawler(int pageTimeoutInMillis, int maxSearchDepth, PolitenessPolicy politenessPolicy) {
+        this(maxSearchDepth, new PooledHttpPageFetcher(pageTimeoutInMillis, pageTimeoutInMillis), politenessPolicy);
+    }
+
+    public WebCrawler(int maxSearchDepth, PageFetcher pageFetcher, PolitenessPolicy politenessPolicy) {
+        this(new CrawlerConfig()
+                .withMaxSearchDepth(maxSearchDepth)
+                .withPageFetcher(pageFetcher)
+                .withPolitenessPolicy(politenessPolicy));
+    }
+
+    public WebCrawler(CrawlerConfig config) {
+        assertNotNull(config, "Crawler config should not be null.");
+        this.maxSearchDepth = config.getMaxSearchDepth();
+        this.pageFetcher = config.getPageFetcher();
+        this.hostScheduler = new HostScheduler(config.getPolitenessPolicy());
+        this.visitedUrlsFactory = config.getVisitedUrlsFactory();
+        this.linkExtractor = config.getLinkExtractor();
+        this.pageCache = config.getPageCache();
+        this.resourceRegistryFactory = config.getResourceRegistryFactory();
+        this.metrics = config.getMetrics();
+        this.crawlOrder = config.getCrawlOrder();
+        this.pageScorer = config.getPageScorer();
+        this.dnsCache = config.getDnsCache();
+        this.budget = config.getBudget();
+        this.nearDuplicateDistance = config.getNearDuplicateDistance();
+        this.urlFilter = config.getUrlFilter();
+        this.obeyRobotsTxt = config.isObeyRobotsTxt();
+        this.maxSitemapPages = config.getMaxSitemapPages();
     }
 
     public static void assertNotNull(Object o, String message) {
         if (o == null) throw new IllegalArgumentException(message);
     }
 
-    private static String addProtocolToUrl(String url) {
+    static String addProtocolToUrl(String url) {
         if (url.startsWith("http://") || url.startsWith("https://")) {
             return url;
         }
@@ -49,38 +92,60 @@ public class WebCrawler implements Crawler {
 
     /**
      * Tradeofs:
-     * 1. This program is single threaded so this limits the speed of crawling, particularly for slow websites.
+     * 1. This crawler is single threaded so this limits the speed of crawling, particularly for slow websites.
      *  - This is not necessary a bad thing as websites may treat crawling attempts as DoS attacks and block crawlers IP.
-     *  - Ideal solution (achieve best speed) would be to combine multithreaded version with configurable throttling to prevent black-listing.
+     *  - ConcurrentWebCrawler is the multithreaded version, both are throttled per host with PolitenessPolicy to prevent black-listing.
      *
-     * 2. API returns site-map String, for large websites this cause OOM errors.
-     * - Solution to this would be to pass in (as an argument) implementation of 'SiteMapOutputStream' that writes to output file or prints to console.
+     * 2. Entries are pushed to a SiteMapSink (file, console, memory) as soon as they are found, large sites are not held in memory.
      *
-     * 3. I could manually parse the page html but I chose to use https://jsoup.org/ library to help me with that (it add extra memory overhead for page model)
+     * 3. Pages are loaded with a PageFetcher and parsed with https://jsoup.org/ (extra memory overhead for the page model),
+     *    StreamingLinkExtractor finds the links in a single pass without it.
      *
-     * Possible improvements:
-     * - De-duplication of static resources (most of the pages re-use css, js, images) and external links
+     * 4. Everything else (robots.txt, sitemaps, budgets, filters, caches, metrics) is opt-in through CrawlerConfig.
      *
      * Notes:
      * - Web crawling is full of edge-cases. I think I implemented most of the major ones but to be absolutely sure this would have to be tested on more websites than I have done it.
      */
 
     @Override
-    public String createSiteMap(String baseUrl) {
+    public void createSiteMap(String baseUrl, SiteMapSink siteMapSink) {
         assertNotNull(baseUrl, "Base URL should not be null.");
+        assertNotNull(siteMapSink, "Site-map sink should not be null.");
 
         WebUrl webUrl = WebUrl.crawlable(addProtocolToUrl(baseUrl));
-        Set<String> visitedUrls = new HashSet<>();
-        StringBuilder siteMapBuffer = new StringBuilder();
+        CrawlBootstrap bootstrap = loadBootstrap(webUrl.getUrl(), siteMapSink, pageFetcher, hostScheduler, obeyRobotsTxt, maxSitemapPages);
+        if (bootstrap == null) {
+            return;
+        }
+        VisitedUrls visitedUrls = visitedUrlsFactory.get();
+        addNormalizedAlias(visitedUrls, webUrl.getUrl());
         int startingSearchDepth = 0;
 
-        createSiteMapRecursive(webUrl, siteMapBuffer, visitedUrls, startingSearchDepth);
-
-        return siteMapBuffer.toString();
+        DeduplicatingSiteMapSink outputSiteMap = new DeduplicatingSiteMapSink(siteMapSink, resourceRegistryFactory.get());
+        BudgetTracker budgetTracker = new BudgetTracker(budget, metrics);
+        NearDuplicateIndex nearDuplicates = NearDuplicateIndex.forCrawl(nearDuplicateDistance);
+        FrontierFilter frontierFilter = new FrontierFilter(urlFilter, metrics);
+        if (crawlOrder == CrawlerConfig.CrawlOrder.BREADTH_FIRST) {
+            createSiteMapBreadthFirst(webUrl, outputSiteMap, visitedUrls, bootstrap, budgetTracker, nearDuplicates, frontierFilter);
+        } else {
+            metrics.crawlStarted(() -> 0, visitedUrls);// children are crawled right away, nothing waits
+            createSiteMapRecursive(webUrl, null, outputSiteMap, visitedUrls, startingSearchDepth, bootstrap, budgetTracker, nearDuplicates,
+                    frontierFilter);
+            // pages of the sitemaps not reached by links
+            frontierFilter.allowedPages(bootstrap.getSeeds())
+                    .forEach(seed -> createSiteMapRecursive(seed, null, outputSiteMap, visitedUrls, startingSearchDepth + 1, bootstrap, budgetTracker,
+                            nearDuplicates, frontierFilter));
+        }
+        outputSiteMap.flush();
+        logger.info("Visited urls: " + visitedUrls);
+        budgetTracker.logSummary();
     }
 
-    private void createSiteMapRecursive(WebUrl parent, final StringBuilder outputSiteMap, Set<String> alreadyVisitedUrls, int currentSearchDepth) {
+    private void createSiteMapRecursive(WebUrl parent, String parentUrl, final SiteMapSink outputSiteMap, VisitedUrls alreadyVisitedUrls,
+                                        int currentSearchDepth, CrawlBootstrap bootstrap, BudgetTracker budgetTracker,
+                                        NearDuplicateIndex nearDuplicates, FrontierFilter frontierFilter) {
         String pageUrl = parent.getUrl();
+        CrawlTask task = new CrawlTask(parent, currentSearchDepth, parentUrl);
 
         try {
             if (alreadyVisitedUrls.contains(pageUrl)) {
@@ -95,106 +160,284 @@ public class WebCrawler implements Crawler {
 
             alreadyVisitedUrls.add(pageUrl);
 
-            // load the pageContent
-            Document pageContent = Jsoup.connect(pageUrl).timeout(pageTimeoutInMillis).userAgent(USER_AGENT).get();
+            if (!budgetTracker.admit(task)) {
+                return;// stopping, out of budget (the page is counted as skipped)
+            }
 
-            // extracting all the possible links page content
-            List<WebUrl> childPages = extractLinks(pageUrl, pageContent, "a", "href");
-            List<WebUrl> cssFiles = extractLinks(pageUrl, pageContent, "link[rel=\"stylesheet\"]", "href");
-            List<WebUrl> jsFiles = extractLinks(pageUrl, pageContent, "script[type=\"text/javascript\"]", "src");
-            List<WebUrl> imageUrls = extractLinks(pageUrl, pageContent, "img", "src");
+            // load the page and extract all the possible links (or take them from the cache when the page did not change)
+            PageLinks pageLinks = loadPageLinks(task, outputSiteMap, pageFetcher, hostScheduler, linkExtractor, pageCache, metrics, budgetTracker,
+                    nearDuplicates);
 
             // adding urls to outputSiteMap
-            outputSiteMap.append(pageUrl + NEW_LINE);
-            addToSiteMap(outputSiteMap, cssFiles);
-            addToSiteMap(outputSiteMap, jsFiles);
-            addToSiteMap(outputSiteMap, imageUrls);
+            addToSiteMap(outputSiteMap, SiteMapEntry.Type.CSS, pageUrl, pageLinks.getCssFiles());
+            addToSiteMap(outputSiteMap, SiteMapEntry.Type.JS, pageUrl, pageLinks.getJsFiles());
+            addToSiteMap(outputSiteMap, SiteMapEntry.Type.IMAGE, pageUrl, pageLinks.getImageUrls());
 
-            // crawling recursively children
-            childPages.stream() // potential place for parallelization (stream.parallel), but then the writes to outputSiteMap would have to be synchronized
-                    .filter(child -> child.isCrawlable())
-                    .forEach(childPage -> createSiteMapRecursive(childPage, outputSiteMap, alreadyVisitedUrls, currentSearchDepth + 1));
+            // crawling recursively children (ConcurrentWebCrawler crawls them in parallel)
+            frontierFilter.allowedPages(bootstrap.allowedPages(pageLinks.getCrawlableChildPages()))
+                    .forEach(childPage -> createSiteMapRecursive(childPage, pageUrl, outputSiteMap, alreadyVisitedUrls, currentSearchDepth + 1, bootstrap,
+                            budgetTracker, nearDuplicates, frontierFilter));
 
             // adding external links
-            List<WebUrl> externalUrls = childPages.stream()
-                    .filter(child -> !child.isCrawlable())
-                    .collect(Collectors.toList());
-            addToSiteMap(outputSiteMap, externalUrls);
-
-        } catch (UnknownHostException e) {
-            outputSiteMap.append(pageUrl + " - unknown host." + NEW_LINE);
-        } catch (SocketTimeoutException e) {
-            outputSiteMap.append(pageUrl + " - read timeout." + NEW_LINE);
+            addToSiteMap(outputSiteMap, SiteMapEntry.Type.EXTERNAL_LINK, pageUrl, pageLinks.getExternalUrls());
+
+        } catch (UncheckedIOException e) {
+            throw e;// failed writing to the sink, there is no point to carry on
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
         } catch (Exception e) {
-            logger.error(pageUrl + " - " +  e.getLocalizedMessage());
-            if (e.getCause() instanceof MalformedURLException) {
-                outputSiteMap.append(pageUrl + " - not a valid url." + NEW_LINE);
-            } else {
-                outputSiteMap.append(pageUrl + " - " + e.getMessage() + NEW_LINE);
-            }
+            outputSiteMap.add(failedPageEntry(task, e, metrics));
         }
     }
 
-    private void addToSiteMap(StringBuilder siteMap, List<WebUrl> urls) {
-        if (!urls.isEmpty()) {
-            String partialSiteMap = urls.stream()
-                    .filter(webUrl -> webUrl != null && webUrl.getUrl() != null)
-                    .map(webUrl -> webUrl.getUrl())
-                    .collect(Collectors.joining(NEW_LINE));
+    /**
+     * Crawls level by level, so every page is crawled at its shortest-path depth.
+     * Page blocks are written the way the frontier based engines write them (external links included).
+     */
+    private void createSiteMapBreadthFirst(WebUrl baseUrl, SiteMapSink outputSiteMap, VisitedUrls alreadyVisitedUrls, CrawlBootstrap bootstrap,
+                                           BudgetTracker budgetTracker, NearDuplicateIndex nearDuplicates, FrontierFilter frontierFilter) {
+        Frontier frontier = new Frontier(pageScorer, dnsCache, budgetTracker);
+        alreadyVisitedUrls.add(baseUrl.getUrl());
+        frontier.push(new CrawlTask(baseUrl, 0));
+        claimSeeds(bootstrap, frontierFilter, alreadyVisitedUrls, maxSearchDepth).forEach(frontier::push);
+        metrics.crawlStarted(frontier::size, alreadyVisitedUrls);
 
-            siteMap.append(partialSiteMap);
-            siteMap.append(NEW_LINE);
+        try {
+            CrawlTask task;
+            while (!Thread.currentThread().isInterrupted() && (task = frontier.take()) != null) {
+                try {
+                    crawlPage(task, outputSiteMap, alreadyVisitedUrls, frontier, bootstrap, budgetTracker, nearDuplicates, frontierFilter);
+                } finally {
+                    frontier.complete(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
         }
     }
 
-    private List<WebUrl> extractLinks(String pageUrl, Document pageContent, String elementSelector, String attributeSelector) {
-        return pageContent.select(elementSelector).stream()
-            .map(linkElement -> linkElement.attr(attributeSelector))
-            .filter(childUrl -> childUrl != null && !childUrl.isEmpty())// not null or empty
-            .filter(childUrl -> !childUrl.startsWith("#") && !childUrl.startsWith("/#"))// starts with #
-            .map(childUrl -> createChildPageUrl(pageUrl, childUrl))
-            .sorted((url1, url2) -> url1.getUrl().compareTo(url2.getUrl()))
-            .collect(Collectors.toList());
+    private void crawlPage(CrawlTask task, SiteMapSink outputSiteMap, VisitedUrls alreadyVisitedUrls, Frontier frontier,
+                           CrawlBootstrap bootstrap, BudgetTracker budgetTracker, NearDuplicateIndex nearDuplicates,
+                           FrontierFilter frontierFilter) {
+        String pageUrl = task.getPage().getUrl();
+
+        try {
+            logger.info("[" + task.getDepth() + "] " + pageUrl);
+
+            PageLinks pageLinks = loadPageLinks(task, outputSiteMap, pageFetcher, hostScheduler, linkExtractor, pageCache, metrics, budgetTracker,
+                    nearDuplicates);
+            addLinksToSiteMap(outputSiteMap, pageUrl, pageLinks);
+
+            int childDepth = task.getDepth() + 1;
+            if (childDepth <= maxSearchDepth) {
+                for (WebUrl childPage : frontierFilter.allowedPages(bootstrap.allowedPages(pageLinks.getCrawlableChildPages()))) {
+                    if (alreadyVisitedUrls.add(childPage.getUrl())) {
+                        frontier.push(new CrawlTask(childPage, childDepth, pageUrl));
+                    } else {
+                        frontier.linked(childPage);
+                    }
+                }
+            }
+
+        } catch (UncheckedIOException e) {
+            throw e;// failed writing to the sink, there is no point to carry on
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
+        } catch (Exception e) {
+            outputSiteMap.add(failedPageEntry(task, e, metrics));
+        }
     }
 
-    private WebUrl createChildPageUrl(String pageUrl, String childUrl) {
+    /**
+     * Reads robots.txt and sitemaps when asked to, the base page disallowed by robots.txt, or of a site which cannot be reached,
+     * is written as an error.
+     *
+     * @return null when the crawl should not start
+     */
+    static CrawlBootstrap loadBootstrap(String baseUrl, SiteMapSink siteMapSink, PageFetcher pageFetcher, HostScheduler hostScheduler,
+                                        boolean obeyRobotsTxt, int maxSitemapPages) {
         try {
-            String baseUrl = getBaseUrl(pageUrl);
+            CrawlBootstrap bootstrap = CrawlBootstrap.load(baseUrl, pageFetcher, hostScheduler, obeyRobotsTxt, maxSitemapPages);
+            if (bootstrap.getUnreachable() != null) {
+                siteMapSink.add(SiteMapEntry.error(baseUrl, describeError(baseUrl, bootstrap.getUnreachable())));
+                return null;
+            }
+            if (!bootstrap.isAllowed(baseUrl)) {
+                siteMapSink.add(SiteMapEntry.error(baseUrl, CrawlBootstrap.DISALLOWED));
+                return null;
+            }
+            return bootstrap;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();// crawl cancelled
+            return null;
+        }
+    }
 
-            if (childUrl.startsWith(baseUrl)) {
-                return WebUrl.crawlable(childUrl);
+    /**
+     * Claims pages of the sitemaps at depth 1, those already visited or filtered out are skipped.
+     *
+     * @return tasks to push to the frontier
+     */
+    static List<CrawlTask> claimSeeds(CrawlBootstrap bootstrap, FrontierFilter frontierFilter, VisitedUrls visitedUrls, int maxSearchDepth) {
+        List<CrawlTask> seeds = new ArrayList<>();
+        if (maxSearchDepth < 1) {
+            return seeds;
+        }
+        for (WebUrl seed : frontierFilter.allowedPages(bootstrap.getSeeds())) {
+            if (visitedUrls.add(seed.getUrl())) {
+                seeds.add(new CrawlTask(seed, 1));
+            }
+        }
+        return seeds;
+    }
 
-            } else if (childUrl.matches("http[s]?.*|www\\..*")) {
-                // external link like google/facebook
-                return WebUrl.notCrawlable(childUrl);
+    /**
+     * Loads the page, extracts its links and writes its PAGE entry, with a page cache the request is conditional
+     * and links of a page that did not change are taken from the cache.
+     *
+     * @param pageCache null when every page should be downloaded
+     * @param nearDuplicates null when near-duplicates are not looked for
+     */
+    static PageLinks loadPageLinks(CrawlTask task, SiteMapSink siteMap, PageFetcher pageFetcher, HostScheduler hostScheduler,
+                                   LinkExtractor linkExtractor, PageCache pageCache, CrawlMetrics metrics, BudgetTracker budgetTracker,
+                                   NearDuplicateIndex nearDuplicates)
+            throws IOException, InterruptedException {
+        String pageUrl = task.getPage().getUrl();
+        PageCache.Entry cached = pageCache != null ? pageCache.get(pageUrl) : null;
+        FetchedPage fetchedPage = fetchPage(pageUrl, pageFetcher, hostScheduler, cached, metrics, budgetTracker);
+        PageLinks pageLinks = extractPageLinks(fetchedPage, cached, linkExtractor, pageCache, metrics, nearDuplicates);
+        siteMap.add(pageEntry(task, fetchedPage));
+        return pageLinks;
+    }
 
-            } else if (childUrl.startsWith("//")) {
-                // link without protocol e.g. //page.com/some/url
-                return WebUrl.crawlable(getProtocol(pageUrl) + childUrl);
+    /**
+     * PAGE entry with the details of the crawl of the page.
+     */
+    static SiteMapEntry pageEntry(CrawlTask task, FetchedPage fetchedPage) {
+        long fetchNanos = fetchedPage.getTimings().getFetchNanos();
+        return SiteMapEntry.of(SiteMapEntry.Type.PAGE, task.getPage().getUrl()).withCrawlInfo(task.getDepth(), task.getParentUrl(),
+                fetchedPage.getStatusCode(), fetchNanos == FetchTimings.UNKNOWN ? SiteMapEntry.UNKNOWN : TimeUnit.NANOSECONDS.toMillis(fetchNanos));
+    }
 
-            } else if (childUrl.startsWith("/")) {
-                // child page relative to the root of the domain, e.g. /parent/child -> http://some.domain/parent/child
-                return WebUrl.crawlable(baseUrl + childUrl);
-            }
-        } catch (MalformedURLException e) {
-            return WebUrl.notCrawlable(pageUrl + " - malformed url");
+    /**
+     * Second half of loadPageLinks, runs on the parser threads of PipelinedWebCrawler.
+     * Child pages of a near-duplicate page are not returned, its text (and so its links) was seen on another page already.
+     *
+     * @param cached page cache entry the request was made with, null when the request was not conditional
+     * @param nearDuplicates fingerprints of the pages of the crawl, null when near-duplicates are not looked for
+     */
+    static PageLinks extractPageLinks(FetchedPage fetchedPage, PageCache.Entry cached, LinkExtractor linkExtractor,
+                                      PageCache pageCache, CrawlMetrics metrics, NearDuplicateIndex nearDuplicates) throws IOException {
+        if (cached != null && fetchedPage.isNotModified()) {
+            pageCache.notModified();
+            metrics.pageCompleted();
+            return cached.getPageLinks();
+        }
+
+        long extractStart = System.nanoTime();
+        PageLinks pageLinks = linkExtractor.extract(fetchedPage);
+        metrics.extracted(System.nanoTime() - extractStart);
+        if (pageCache != null) {
+            pageCache.update(fetchedPage, pageLinks);
+        }
+        metrics.pageCompleted();
+        if (nearDuplicates != null && nearDuplicates.isNearDuplicate(fetchedPage)) {
+            metrics.nearDuplicate();
+            return pageLinks.withoutCrawlableChildPages();
+        }
+        return pageLinks;
+    }
+
+    /**
+     * Loads the page once the host scheduler allows it, reporting the outcome back to the scheduler.
+     * Fetch time recorded in metrics does not include waiting for the scheduler.
+     *
+     * @param cached validators of the previous crawl for a conditional request, may be null
+     * @param budgetTracker downloaded bytes are spent from it
+     */
+    static FetchedPage fetchPage(String pageUrl, PageFetcher pageFetcher, HostScheduler hostScheduler, PageCache.Entry cached,
+                                 CrawlMetrics metrics, BudgetTracker budgetTracker) throws IOException, InterruptedException {
+        HostScheduler.Permit permit = hostScheduler.acquire(pageUrl);
+        int statusCode = -1;
+        try {
+            long fetchStart = System.nanoTime();
+            FetchedPage fetchedPage = cached != null
+                    ? pageFetcher.fetch(pageUrl, cached.getEtag(), cached.getLastModified())
+                    : pageFetcher.fetch(pageUrl);
+            long fetchNanos = System.nanoTime() - fetchStart;
+            metrics.fetched(fetchedPage, fetchNanos);
+            budgetTracker.fetched(fetchedPage.getBody().length);
+            statusCode = fetchedPage.getStatusCode();
+            return fetchedPage.withTimings(fetchedPage.getTimings().withFetchNanos(fetchNanos));
+        } catch (HttpStatusException e) {
+            statusCode = e.getStatusCode();
+            throw e;
+        } finally {
+            permit.release(statusCode);
         }
+    }
 
-        // child page relative to parent page, e.g. child2 -> http://some.domain/child1/child2
-        return WebUrl.crawlable(pageUrl + childUrl);
+    /**
+     * Base url is crawled as given, while links to it are normalized, e.g. http://Some.Domain -> http://some.domain/.
+     * The normal form is marked as visited too, so the base page is not fetched twice.
+     */
+    static void addNormalizedAlias(VisitedUrls visitedUrls, String baseUrl) {
+        String normalizedUrl = UrlResolver.normalize(baseUrl);
+        if (normalizedUrl != null && !normalizedUrl.equals(baseUrl)) {
+            visitedUrls.add(normalizedUrl);
+        }
     }
 
-    private String getProtocol(String parentUrl) throws MalformedURLException {
-        return new URL(parentUrl).getProtocol() + ":";
+    /**
+     * Site-map entry of a page which could not be crawled, non-HTML content is not an error but a file.
+     */
+    static SiteMapEntry failedPageEntry(CrawlTask task, Exception e, CrawlMetrics metrics) {
+        String pageUrl = task.getPage().getUrl();
+        SiteMapEntry entry;
+        int statusCode = SiteMapEntry.UNKNOWN;
+        if (e instanceof UnsupportedMimeTypeException) {
+            metrics.file();
+            String mimeType = ((UnsupportedMimeTypeException) e).getMimeType();
+            long size = e instanceof NonHtmlContentException ? ((NonHtmlContentException) e).getContentLength() : -1;
+            entry = SiteMapEntry.file(pageUrl, mimeType != null ? mimeType : "unknown", size);
+        } else {
+            metrics.error(e);
+            entry = SiteMapEntry.error(pageUrl, describeError(pageUrl, e));
+            if (e instanceof HttpStatusException) {
+                statusCode = ((HttpStatusException) e).getStatusCode();
+            }
+        }
+        return entry.withCrawlInfo(task.getDepth(), task.getParentUrl(), statusCode, SiteMapEntry.UNKNOWN);
     }
 
-    private String getBaseUrl(String parentUrl) throws MalformedURLException {
-        URL url = new URL(parentUrl);
-        String urlToReturn = url.getProtocol() + "://" + url.getHost();
-        if (url.getPort() != 80 && url.getPort()!= 443 && url.getPort() != -1) {
-            urlToReturn = urlToReturn + ":"+url.getPort();
+    static String describeError(String pageUrl, Exception e) {
+        if (e instanceof UnknownHostException) {
+            return "unknown host.";
+        } else if (e instanceof SocketTimeoutException) {
+            return "read timeout.";
+        }
+
+        LoggerFactory.getLogger(WebCrawler.class).error(pageUrl + " - " +  e.getLocalizedMessage());
+        if (e.getCause() instanceof MalformedURLException) {
+            return "not a valid url.";
         }
-        return urlToReturn;
+        return e.getMessage();
+    }
+
+    static void addToSiteMap(SiteMapSink siteMap, SiteMapEntry.Type type, String pageUrl, List<WebUrl> urls) {
+        urls.stream()
+                .filter(webUrl -> webUrl != null && webUrl.getUrl() != null)
+                .forEach(webUrl -> siteMap.add(SiteMapEntry.linked(type, webUrl.getUrl(), pageUrl)));
+    }
+
+    /**
+     * Rest of the block of a page after its PAGE entry, external links included, the way the frontier based engines write it.
+     */
+    static void addLinksToSiteMap(SiteMapSink siteMap, String pageUrl, PageLinks pageLinks) {
+        addToSiteMap(siteMap, SiteMapEntry.Type.CSS, pageUrl, pageLinks.getCssFiles());
+        addToSiteMap(siteMap, SiteMapEntry.Type.JS, pageUrl, pageLinks.getJsFiles());
+        addToSiteMap(siteMap, SiteMapEntry.Type.IMAGE, pageUrl, pageLinks.getImageUrls());
+        addToSiteMap(siteMap, SiteMapEntry.Type.EXTERNAL_LINK, pageUrl, pageLinks.getExternalUrls());
     }
 
 }
@@ -0,0 +1,59 @@
+package com.demo.webcrawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates crawler worker threads.
+ *
+ * Workers spend almost all of their time waiting on the network, so on a JDK with virtual threads (21+) they are virtual,
+ * otherwise plain daemon threads are used. The project is compiled for Java 8, hence reflection.
+ */
+final class WorkerThreads {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerThreads.class);
+
+    private WorkerThreads() {
+    }
+
+    static ThreadFactory factory(String namePrefix) {
+        ThreadFactory virtualThreadFactory = virtualThreadFactory(namePrefix);
+        if (virtualThreadFactory != null) {
+            return virtualThreadFactory;
+        }
+
+        return platformFactory(namePrefix);
+    }
+
+    /**
+     * Daemon platform threads, for CPU bound work (e.g. parsing) where virtual threads bring nothing.
+     */
+    static ThreadFactory platformFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    static boolean virtualThreadsAvailable() {
+        return virtualThreadFactory("probe-") != null;
+    }
+
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            Method factory = builderType.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Virtual threads not available, using platform threads.");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.demo.webcrawler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes site-map entries in the text format (one url per line) to a character stream.
+ */
+public class WriterSiteMapSink implements SiteMapSink {
+    private final Writer writer;
+
+    public WriterSiteMapSink(Writer writer) {
+        WebCrawler.assertNotNull(writer, "Writer should not be null.");
+        this.writer = writer;
+    }
+
+    @Override
+    public void add(SiteMapEntry entry) {
+        try {
+            writer.write(entry.toLine());
+            writer.write(WebCrawler.NEW_LINE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
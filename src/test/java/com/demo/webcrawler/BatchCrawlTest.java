@@ -0,0 +1,187 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.demo.webcrawler.SiteMapLines.lines;
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sites of a batch are told apart by host, the same mock server is crawled as localhost and as 127.0.0.1.
+ */
+public class BatchCrawlTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/page1\">Page1</a><a href=\"/page2\">Page2</a><a href=\"http://external.domain/\">External</a></html>");
+        onRequest().havingPathEqualTo("/page1").respond().withBody("<html><a href=\"/page1/child\">Child</a></html>");
+        onRequest().havingPathEqualTo("/page2").respond().withBody("");
+        onRequest().havingPathEqualTo("/page1/child").respond().withBody("");
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private static String siteUrl(String host, String path) {
+        return "http://" + host + ":" + port() + path;
+    }
+
+    private static Frontier frontier(String host, int pages) {
+        Frontier frontier = new Frontier();
+        for (int i = 0; i < pages; i++) {
+            frontier.push(new CrawlTask(WebUrl.crawlable("http://" + host + "/page" + i), 0));
+        }
+        return frontier;
+    }
+
+    private static List<Integer> takeSites(SiteScheduler siteScheduler, int pages) throws InterruptedException {
+        List<Integer> sites = new ArrayList<>();
+        for (int i = 0; i < pages; i++) {
+            sites.add(siteScheduler.take().getSite());
+        }
+        return sites;
+    }
+
+    @Test
+    public void testSitesCrawledAsIfAlone() {
+        // prepare
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(2).withWorkers(4);
+        InMemorySiteMapSink localhostSiteMap = new InMemorySiteMapSink();
+        InMemorySiteMapSink loopbackSiteMap = new InMemorySiteMapSink();
+        Map<String, SiteMapSink> siteMapSinks = new LinkedHashMap<>();
+        siteMapSinks.put(siteUrl("localhost", "/"), localhostSiteMap);
+        siteMapSinks.put(siteUrl("127.0.0.1", "/"), loopbackSiteMap);
+
+        // act
+        new ConcurrentWebCrawler(config).createSiteMaps(siteMapSinks);
+
+        // assert
+        assertEquals(lines(new WebCrawler(config).createSiteMap(siteUrl("localhost", "/"))), lines(localhostSiteMap.toString()));
+        assertEquals(lines(new WebCrawler(config).createSiteMap(siteUrl("127.0.0.1", "/"))), lines(loopbackSiteMap.toString()));
+        assertTrue(loopbackSiteMap.toString().contains(siteUrl("127.0.0.1", "/page1/child")));
+        verifyThatRequest().havingPathEqualTo("/page1/child").receivedTimes(4);
+    }
+
+    @Test
+    public void testCombinedSiteMap() {
+        // prepare
+        CrawlMetrics metrics = new CrawlMetrics();
+        InMemorySiteMapSink combinedSiteMap = new InMemorySiteMapSink();
+        Map<String, SiteMapSink> siteMapSinks = new LinkedHashMap<>();
+        siteMapSinks.put(siteUrl("localhost", "/"), combinedSiteMap);
+        siteMapSinks.put(siteUrl("127.0.0.1", "/"), combinedSiteMap);
+
+        // act
+        new ConcurrentWebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withWorkers(4).withMetrics(metrics)).createSiteMaps(siteMapSinks);
+
+        // assert
+        Set<String> expected = new HashSet<>();
+        for (String host : Arrays.asList("localhost", "127.0.0.1")) {
+            expected.addAll(Arrays.asList(siteUrl(host, "/"), siteUrl(host, "/page1"), siteUrl(host, "/page2"), siteUrl(host, "/page1/child")));
+        }
+        expected.add("http://external.domain/");
+        assertEquals(expected, lines(combinedSiteMap.toString()));
+        assertEquals(8, metrics.getPages());
+        assertEquals(8, metrics.getVisitedUrls());
+    }
+
+    @Test
+    public void testMaxWorkersPerSite() {
+        // prepare
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        PageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000);
+        PageFetcher countingFetcher = url -> {
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                return pageFetcher.fetch(url);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } finally {
+                inProgress.decrementAndGet();
+            }
+        };
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withWorkers(4).withPageFetcher(countingFetcher)
+                .withSiteFairness(new SiteFairness(SiteFairness.Mode.SHARES, Collections.emptyMap(), 1)));
+        InMemorySiteMapSink siteMap = new InMemorySiteMapSink();
+
+        // act
+        crawler.createSiteMaps(Collections.singletonMap(siteUrl("localhost", "/"), siteMap));
+
+        // assert
+        assertEquals(1, maxInProgress.get());
+        assertEquals(lines(new WebCrawler(new CrawlerConfig().withMaxSearchDepth(2)).createSiteMap(siteUrl("localhost", "/"))),
+                lines(siteMap.toString()));
+    }
+
+    @Test
+    public void testWeightedShares() throws InterruptedException {
+        // prepare
+        SiteScheduler siteScheduler = new SiteScheduler(Arrays.asList(frontier("heavy.domain", 10), frontier("light.domain", 10)),
+                new double[]{2, 1}, SiteFairness.equalShares());
+
+        // act
+        List<Integer> sites = takeSites(siteScheduler, 6);
+
+        // assert
+        assertEquals(Arrays.asList(0, 1, 0, 1, 0, 0), sites);// 4 pages of the heavy site in progress, 2 of the light one
+    }
+
+    @Test
+    public void testSeedOrderWithMaxWorkersPerSite() throws InterruptedException {
+        // prepare
+        SiteScheduler siteScheduler = new SiteScheduler(Arrays.asList(frontier("first.domain", 10), frontier("second.domain", 10)),
+                new double[]{1, 1}, new SiteFairness(SiteFairness.Mode.SEED_ORDER, Collections.emptyMap(), 3));
+
+        // act
+        List<Integer> sites = takeSites(siteScheduler, 5);
+
+        // assert
+        assertEquals(Arrays.asList(0, 0, 0, 1, 1), sites);
+    }
+
+    @Test
+    public void testTakeReturnsNullWhenAllSitesFinished() throws InterruptedException {
+        // prepare
+        SiteScheduler siteScheduler = new SiteScheduler(Arrays.asList(frontier("first.domain", 1), frontier("second.domain", 1)),
+                new double[]{1, 1}, SiteFairness.equalShares());
+        SiteScheduler.SiteTask first = siteScheduler.take();
+        SiteScheduler.SiteTask second = siteScheduler.take();
+
+        // act
+        siteScheduler.complete(first);
+        siteScheduler.complete(second);
+
+        // assert
+        assertNull(siteScheduler.take());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWeight() {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("http://some.domain/", 0.0);
+        new SiteFairness(SiteFairness.Mode.SHARES, weights, 0);
+    }
+}
@@ -0,0 +1,150 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinarySiteMapTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html>" +
+                    "<head><link rel=\"stylesheet\" type=\"text/css\" href=\"/static/main.css\"  /></head>" +
+                    "<a href=\"/child1\">Child 1</a>" +
+                    "<a href=\"/missing\">Missing</a>" +
+                    "<a href=\"http://google.com/?q=a&b\">Google</a>" +
+                "</html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody("<html><a href=\"/\">Home</a></html>");
+        onRequest().havingPathEqualTo("/missing").respond().withStatus(404);
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private Path crawlToBinary() throws IOException {
+        Path binaryFile = Files.createTempFile("siteMap", ".bin");
+        try (BinarySiteMapSink siteMapSink = new BinarySiteMapSink(binaryFile)) {
+            new WebCrawler(new CrawlerConfig().withMaxSearchDepth(1)).createSiteMap(mockUrl("/"), siteMapSink);
+        }
+        return binaryFile;
+    }
+
+    @Test
+    public void testBinaryConvertsToText() throws IOException {
+        // prepare
+        String textSiteMap = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(1)).createSiteMap(mockUrl("/"));
+        Path binaryFile = crawlToBinary();
+        InMemorySiteMapSink converted = new InMemorySiteMapSink();
+
+        // act
+        long entries = BinarySiteMapFile.convert(binaryFile, converted);
+
+        // assert
+        assertEquals(textSiteMap, converted.toString());
+        assertEquals(5, entries);
+        Files.delete(binaryFile);
+    }
+
+    @Test
+    public void testCrawlDetailsAreKept() throws IOException {
+        // prepare
+        Path binaryFile = crawlToBinary();
+        List<SiteMapEntry> entries = new ArrayList<>();
+
+        // act
+        try (BinarySiteMapFile siteMapFile = BinarySiteMapFile.open(binaryFile)) {
+            siteMapFile.forEach(entries::add);
+        }
+
+        // assert
+        SiteMapEntry root = entries.get(0);
+        assertEquals(SiteMapEntry.Type.PAGE, root.getType());
+        assertEquals(0, root.getDepth());
+        assertNull(root.getParentUrl());
+        assertEquals(200, root.getStatusCode());
+        assertTrue(root.getFetchMillis() >= 0);
+        SiteMapEntry css = entries.get(1);
+        assertEquals(SiteMapEntry.Type.CSS, css.getType());
+        assertEquals(mockUrl("/"), css.getParentUrl());
+        SiteMapEntry child = entries.get(2);
+        assertEquals(mockUrl("/child1"), child.getUrl());
+        assertEquals(1, child.getDepth());
+        assertEquals(mockUrl("/"), child.getParentUrl());
+        SiteMapEntry missing = entries.get(3);
+        assertEquals(SiteMapEntry.Type.ERROR, missing.getType());
+        assertEquals(404, missing.getStatusCode());
+        assertEquals("HTTP error fetching URL", missing.getMessage());
+        Files.delete(binaryFile);
+    }
+
+    @Test
+    public void testCutLastRecordIsIgnored() throws IOException {
+        // prepare
+        Path binaryFile = crawlToBinary();
+        try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        InMemorySiteMapSink converted = new InMemorySiteMapSink();
+
+        // act
+        long entries = BinarySiteMapFile.convert(binaryFile, converted);
+
+        // assert
+        assertEquals(4, entries);
+        assertEquals(mockUrl("/") + "\n", converted.toString().substring(0, mockUrl("/").length() + 1));
+        Files.delete(binaryFile);
+    }
+
+    @Test
+    public void testJsonLinesAndSitemapXml() throws IOException {
+        // prepare
+        Path binaryFile = crawlToBinary();
+        StringWriter jsonLines = new StringWriter();
+        StringWriter sitemapXml = new StringWriter();
+
+        // act
+        try (JsonLinesSiteMapSink jsonLinesSink = new JsonLinesSiteMapSink(jsonLines);
+             SitemapXmlSiteMapSink sitemapXmlSink = new SitemapXmlSiteMapSink(sitemapXml)) {
+            BinarySiteMapFile.convert(binaryFile, jsonLinesSink);
+            BinarySiteMapFile.convert(binaryFile, sitemapXmlSink);
+        }
+
+        // assert
+        String[] lines = jsonLines.toString().split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("{\"type\":\"page\",\"url\":\"" + mockUrl("/") + "\",\"depth\":0,\"status\":200,\"fetchMillis\":"));
+        assertEquals("{\"type\":\"css\",\"url\":\"" + mockUrl("/static/main.css") + "\",\"parent\":\"" + mockUrl("/") + "\"}", lines[1]);
+        assertEquals("{\"type\":\"error\",\"url\":\"" + mockUrl("/missing") + "\",\"parent\":\"" + mockUrl("/") + "\","
+                + "\"depth\":1,\"status\":404,\"message\":\"HTTP error fetching URL\"}", lines[3]);
+        assertEquals(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n" +
+                "  <url><loc>" + mockUrl("/") + "</loc></url>\n" +
+                "  <url><loc>" + mockUrl("/child1") + "</loc></url>\n" +
+                "</urlset>\n", sitemapXml.toString());
+        assertEquals("http://google.com/?q=a&amp;b", SitemapXmlSiteMapSink.escapeXml("http://google.com/?q=a&b"));
+        Files.delete(binaryFile);
+    }
+}
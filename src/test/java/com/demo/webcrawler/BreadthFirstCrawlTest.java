@@ -0,0 +1,201 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class BreadthFirstCrawlTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private static Crawler createCrawler(int maxSearchDepth, PageScorer pageScorer) {
+        CrawlerConfig config = new CrawlerConfig()
+                .withMaxSearchDepth(maxSearchDepth)
+                .withCrawlOrder(CrawlerConfig.CrawlOrder.BREADTH_FIRST);
+        if (pageScorer != null) {
+            config.withPageScorer(pageScorer);
+        }
+        return new WebCrawler(config);
+    }
+
+    private static CrawlTask task(String url, int depth) {
+        return new CrawlTask(WebUrl.crawlable(url), depth);
+    }
+
+    @Test
+    public void testPagesCrawledLevelByLevel() {
+        //prepare
+        onRequest().havingPathEqualTo("/").respond().withBody("<html><a href=\"/a\">A</a><a href=\"/b\">B</a></html>");
+        onRequest().havingPathEqualTo("/a").respond().withBody("<html><a href=\"/a/1\">A1</a></html>");
+        onRequest().havingPathEqualTo("/b").respond().withBody("<html><a href=\"/b/1\">B1</a></html>");
+        onRequest().havingPathEqualTo("/a/1").respond().withBody("");
+        onRequest().havingPathEqualTo("/b/1").respond().withBody("");
+
+        // act
+        String siteMap = createCrawler(5, null).createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/a") + "\n" +
+                mockUrl("/b") + "\n" +
+                mockUrl("/a/1") + "\n" +
+                mockUrl("/b/1") + "\n"
+                , siteMap);
+    }
+
+    @Test
+    public void testDepthLimitAppliedAgainstShortestPath() {
+        //prepare - /c is one link away from the base page, but depth first reaches it through /a first
+        onRequest().havingPathEqualTo("/").respond().withBody("<html><a href=\"/a\">A</a><a href=\"/c\">C</a></html>");
+        onRequest().havingPathEqualTo("/a").respond().withBody("<html><a href=\"/c\">C</a></html>");
+        onRequest().havingPathEqualTo("/c").respond().withBody("<html><a href=\"/d\">D</a></html>");
+        onRequest().havingPathEqualTo("/d").respond().withBody("");
+
+        // act
+        String depthFirstSiteMap = new WebCrawler(1000, 2).createSiteMap(mockUrl("/"));
+        String breadthFirstSiteMap = createCrawler(2, null).createSiteMap(mockUrl("/"));
+
+        // assert
+        assertFalse(depthFirstSiteMap.contains(mockUrl("/d")));
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/a") + "\n" +
+                mockUrl("/c") + "\n" +
+                mockUrl("/d") + "\n"
+                , breadthFirstSiteMap);
+    }
+
+    @Test
+    public void testHigherScoredPagesOfSameDepthCrawledFirst() {
+        //prepare
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/tag/1\">Tag</a><a href=\"/blog\">Blog</a><a href=\"/products/1\">Product</a></html>");
+        onRequest().havingPathEqualTo("/blog").respond().withBody("<html><a href=\"/products/2\">Product</a></html>");
+        onRequest().havingPathEqualTo("/tag/1").respond().withBody("");
+        onRequest().havingPathEqualTo("/products/1").respond().withBody("");
+        onRequest().havingPathEqualTo("/products/2").respond().withBody("");
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("/products/", 2.0);
+        weights.put("/tag/", -1.0);
+
+        // act
+        String siteMap = createCrawler(5, PageScorer.urlPatterns(weights)).createSiteMap(mockUrl("/"));
+
+        // assert - depth comes before the score
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/products/1") + "\n" +
+                mockUrl("/blog") + "\n" +
+                mockUrl("/tag/1") + "\n" +
+                mockUrl("/products/2") + "\n"
+                , siteMap);
+    }
+
+    @Test
+    public void testFrontierOrdersByDepthThenDiscovery() throws InterruptedException {
+        //prepare
+        Frontier frontier = new Frontier();
+        frontier.push(task("http://site/deep", 2));
+        frontier.push(task("http://site/first", 1));
+        frontier.push(task("http://site/second", 1));
+
+        // act & assert
+        CrawlTask first = frontier.take();
+        assertEquals("http://site/first", first.getPage().getUrl());
+        frontier.complete(first);
+        CrawlTask second = frontier.take();
+        assertEquals("http://site/second", second.getPage().getUrl());
+        frontier.complete(second);
+        CrawlTask deep = frontier.take();
+        assertEquals("http://site/deep", deep.getPage().getUrl());
+        frontier.complete(deep);
+        assertNull(frontier.take());
+    }
+
+    @Test
+    public void testLinksToQueuedPageMoveItForward() throws InterruptedException {
+        //prepare
+        Frontier frontier = new Frontier(PageScorer.linkCount());
+        frontier.push(task("http://site/once", 1));
+        frontier.push(task("http://site/twice", 1));
+
+        // act
+        frontier.linked(WebUrl.crawlable("http://site/twice"));
+
+        // assert
+        assertEquals("http://site/twice", frontier.take().getPage().getUrl());
+        assertEquals("http://site/once", frontier.take().getPage().getUrl());
+    }
+
+    @Test
+    public void testDeeperPageWaitsForShallowerPagesInProgress() throws Exception {
+        //prepare
+        Frontier frontier = new Frontier();
+        frontier.push(task("http://site/", 0));
+        CrawlTask root = frontier.take();
+        frontier.push(task("http://site/child", 1));// found by the root page, still in progress
+
+        // act
+        CompletableFuture<CrawlTask> child = CompletableFuture.supplyAsync(() -> {
+            try {
+                return frontier.take();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // assert
+        try {
+            child.get(200, TimeUnit.MILLISECONDS);
+            throw new AssertionError("Child page was handed out while its parent was in progress.");
+        } catch (TimeoutException e) {
+            // expected, root page is still in progress
+        }
+        frontier.complete(root);
+        assertEquals("http://site/child", child.get(5, TimeUnit.SECONDS).getPage().getUrl());
+    }
+
+    @Test
+    public void testUrlPatternWeightsAddUp() {
+        // prepare
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("/products/", 2.0);
+        weights.put("[?&]sort=", -1.0);
+        PageScorer pageScorer = PageScorer.urlPatterns(weights).plus(PageScorer.linkCount());
+
+        // act & assert
+        assertEquals(3.0, pageScorer.score(WebUrl.crawlable("http://site/products/1"), 1), 0);
+        assertEquals(2.0, pageScorer.score(WebUrl.crawlable("http://site/products/1?sort=price"), 1), 0);
+        assertEquals(3.0, pageScorer.score(WebUrl.crawlable("http://site/about"), 3), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullPageScorer() {
+        new CrawlerConfig().withPageScorer(null);
+    }
+}
@@ -0,0 +1,127 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+import static com.demo.webcrawler.SiteMapLines.lines;
+import static net.jadler.Jadler.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Concurrent crawler writes page blocks in completion order, so site-maps are compared as sets of lines
+ * against the output of the single threaded WebCrawler.
+ */
+public class ConcurrentWebCrawlerTest {
+    private Crawler crawler;
+
+    @Before
+    public void setUp() {
+        initJadler();
+        crawler = new ConcurrentWebCrawler(1000, 5, 4);
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullBaseUrl() {
+        crawler.createSiteMap(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoWorkers() {
+        new ConcurrentWebCrawler(1000, 1, 0);
+    }
+
+    @Test
+    public void testUnknownHost() {
+        // act
+        String siteMap = crawler.createSiteMap("http://xhhhghghghgh.com");
+
+        // assert
+        assertEquals("http://xhhhghghghgh.com - unknown host.\n", siteMap);
+    }
+
+    @Test
+    public void testSameEntriesAsSingleThreadedCrawler() {
+        //prepare
+        String baseUrl = mockUrl("/");
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html>" +
+                    "<head><link rel=\"stylesheet\" type=\"text/css\" href=\"/static/main.css\"  /></head>" +
+                    "<a href=\"/child1\">Child 1</a>" +
+                    "<a href=\"/child2\">Child 2</a>" +
+                    "<a href=\"/missing\">Missing</a>" +
+                    "<a href=\"http://google.com\">Google</a>" +
+                "</html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody(
+                "<html><a href=\"/child1/child3\">Child 3</a><a href=\"/\">Home</a></html>");
+        onRequest().havingPathEqualTo("/child2").respond().withBody(
+                "<html><script type=\"text/javascript\" src=\"/static/main.js\"></script><a href=\"/child1\">Child 1</a></html>");
+        onRequest().havingPathEqualTo("/child1/child3").respond().withBody("<html><img src=\"/static/logo.gif\" ></html>");
+        onRequest().havingPathEqualTo("/missing").respond().withStatus(404);
+
+        // act
+        String expected = new WebCrawler(1000, 5).createSiteMap(baseUrl);
+        String siteMap = crawler.createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(lines(expected), lines(siteMap));
+        assertEquals(expected.length(), siteMap.length());
+    }
+
+    @Test
+    public void testSiteMapWithMaxSearchDepth() {
+        //prepare
+        crawler = new ConcurrentWebCrawler(1000, 2, 4);
+        String baseUrl = mockUrl("/");
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/child1\">Child 1</a></html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody(
+                "<html><a href=\"/child1/child2\">Child 2 (2 levels deep)</a></html>");
+        onRequest().havingPathEqualTo("/child1/child2").respond().withBody(
+                "<html><a href=\"/child1/child2/child3\">Child 3 (3 levels deep)</a></html>");
+        onRequest().havingPathEqualTo("/child1/child2/child3").respond().withBody("");
+
+        // act
+        String siteMap = crawler.createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(
+                baseUrl + "\n" +
+                mockUrl("/child1") + "\n" +
+                mockUrl("/child1/child2") + "\n"
+                , siteMap);
+    }
+
+    @Test
+    public void testEachPageFetchedOnce() {
+        //prepare
+        String baseUrl = mockUrl("/");
+        StringBuilder links = new StringBuilder("<html>");
+        for (int i = 0; i < 20; i++) {
+            links.append("<a href=\"/page").append(i).append("\">Page</a>");
+        }
+        links.append("</html>");
+        onRequest().havingPathEqualTo("/").respond().withBody(links.toString());
+        onRequest().havingPath(startsWith("/page")).respond().withBody(links.toString());
+
+        // act
+        String siteMap = crawler.createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(21, lines(siteMap).size());
+        assertEquals(21, siteMap.split("\n").length);
+        verifyThatRequest().havingPathEqualTo("/page7").receivedOnce();
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ContentEncodingTest {
+    private static final String PAGE = pageWithLinks(200);
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private static String pageWithLinks(int links) {
+        StringBuilder page = new StringBuilder("<html><body>");
+        for (int i = 0; i < links; i++) {
+            page.append("<a href=\"/page").append(i).append("\">Page ").append(i).append("</a>\n");
+        }
+        return page.append("</body></html>").toString();
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(String content, boolean zlibWrapped) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(bytes, new Deflater(Deflater.DEFAULT_COMPRESSION, !zlibWrapped))) {
+            deflate.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testGzipNegotiatedAndDecoded() throws IOException {
+        // prepare
+        byte[] compressed = gzip(PAGE);
+        onRequest().havingPathEqualTo("/").respond()
+                .withHeader("Content-Type", "text/html; charset=UTF-8")
+                .withHeader("Content-Encoding", "gzip")
+                .withBody(compressed);
+
+        // act
+        FetchedPage fetchedPage = new PooledHttpPageFetcher(1000, 1000).fetch(mockUrl("/"));
+
+        // assert
+        assertArrayEquals(PAGE.getBytes(StandardCharsets.UTF_8), fetchedPage.getBody());
+        assertEquals(compressed.length, fetchedPage.getTransferBytes());
+        verifyThatRequest().havingHeaderEqualTo("Accept-Encoding", ContentDecoder.ACCEPT_ENCODING).receivedOnce();
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        for (boolean zlibWrapped : new boolean[]{true, false}) {
+            // prepare
+            resetJadler();
+            byte[] compressed = deflate(PAGE, zlibWrapped);
+            onRequest().havingPathEqualTo("/").respond()
+                    .withHeader("Content-Type", "text/html")
+                    .withHeader("Content-Encoding", "deflate")
+                    .withBody(compressed);
+
+            // act
+            FetchedPage fetchedPage = new PooledHttpPageFetcher(1000, 1000).fetch(mockUrl("/"));
+
+            // assert
+            assertArrayEquals(PAGE.getBytes(StandardCharsets.UTF_8), fetchedPage.getBody());
+            assertEquals(compressed.length, fetchedPage.getTransferBytes());
+        }
+    }
+
+    @Test
+    public void testUncompressedTransferBytes() throws IOException {
+        // prepare
+        onRequest().havingPathEqualTo("/").respond().withHeader("Content-Type", "text/html").withBody(PAGE);
+
+        // act
+        FetchedPage fetchedPage = new PooledHttpPageFetcher(1000, 1000).fetch(mockUrl("/"));
+
+        // assert
+        assertEquals(fetchedPage.getBody().length, fetchedPage.getTransferBytes());
+        assertEquals(FetchedPage.UNKNOWN, new JsoupPageFetcher(1000).fetch(mockUrl("/")).getTransferBytes());
+    }
+
+    @Test
+    public void testUnsupportedEncoding() {
+        // prepare
+        onRequest().havingPathEqualTo("/").respond()
+                .withHeader("Content-Type", "text/html")
+                .withHeader("Content-Encoding", "compress")
+                .withBody(PAGE);
+
+        // act & assert
+        try {
+            new PooledHttpPageFetcher(1000, 1000).fetch(mockUrl("/"));
+            fail("compress encoding was not asked for");
+        } catch (IOException e) {
+            assertEquals("Unsupported content encoding: compress", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMaxBodySizeAppliesToDecodedPage() throws IOException {
+        // prepare
+        onRequest().havingPathEqualTo("/").respond()
+                .withHeader("Content-Type", "text/html")
+                .withHeader("Content-Encoding", "gzip")
+                .withBody(gzip(PAGE));
+
+        // act
+        FetchedPage fetchedPage = new PooledHttpPageFetcher(1000, 1000, new FetchPolicy(1000, false)).fetch(mockUrl("/"));
+
+        // assert
+        assertTrue(fetchedPage.isTruncated());
+        assertEquals(1000, fetchedPage.getBody().length);
+    }
+
+    @Test
+    public void testCompressedCrawlMetrics() throws IOException {
+        // prepare
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            text.append("<p>Some well compressing paragraph of text.</p>");
+        }
+        onRequest().havingPathEqualTo("/").respond()
+                .withHeader("Content-Type", "text/html")
+                .withHeader("Content-Encoding", "gzip")
+                .withBody(gzip("<html><a href=\"/child\">Child</a>" + text + "</html>"));
+        onRequest().havingPathEqualTo("/child").respond().withBody("");
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(1).withMetrics(metrics)
+                .withLinkExtractor(new StreamingLinkExtractor()));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(mockUrl("/") + "\n" + mockUrl("/child") + "\n", siteMap);
+        assertTrue(metrics.getTransferBytes() < metrics.getBytes());
+        assertEquals((double) metrics.getTransferBytes(), metrics.snapshot().get("transferBytes"), 0);
+    }
+}
@@ -0,0 +1,238 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static com.demo.webcrawler.SiteMapLines.lines;
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CrawlBootstrapTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testRobotsTxtRules() {
+        // prepare
+        RobotsTxt robotsTxt = RobotsTxt.parse(
+                "User-agent: *\n" +
+                "Disallow: /\n" +
+                "\n" +
+                "User-agent: other-bot\n" +
+                "User-agent: web-crawler # this crawler\n" +
+                "Disallow: /private\n" +
+                "Allow: /private/public\n" +
+                "Disallow: /*.pdf$\n" +
+                "Disallow: /search?\n" +
+                "Crawl-delay: 2.5\n" +
+                "\n" +
+                "Sitemap: http://some.domain/sitemap_index.xml\n", WebCrawler.USER_AGENT);
+
+        // act & assert
+        assertTrue(robotsTxt.isAllowed("http://some.domain/"));
+        assertTrue(robotsTxt.isAllowed("http://some.domain/blog"));
+        assertFalse(robotsTxt.isAllowed("http://some.domain/private/page"));
+        assertTrue(robotsTxt.isAllowed("http://some.domain/private/public/page"));
+        assertFalse(robotsTxt.isAllowed("http://some.domain/files/report.pdf"));
+        assertTrue(robotsTxt.isAllowed("http://some.domain/files/report.pdf.html"));
+        assertFalse(robotsTxt.isAllowed("http://some.domain/search?q=crawler"));
+        assertTrue(robotsTxt.isAllowed("http://some.domain/search"));
+        assertEquals(2.5, robotsTxt.getCrawlDelaySeconds(), 0);
+        assertEquals(Arrays.asList("http://some.domain/sitemap_index.xml"), robotsTxt.getSitemaps());
+    }
+
+    @Test
+    public void testRobotsTxtWildcardGroup() {
+        // prepare
+        RobotsTxt robotsTxt = RobotsTxt.parse("User-agent: other-bot\nDisallow: /\n\nUser-agent: *\nDisallow: /tmp/\n", WebCrawler.USER_AGENT);
+
+        // act & assert
+        assertTrue(robotsTxt.isAllowed("http://some.domain/"));
+        assertFalse(robotsTxt.isAllowed("http://some.domain/tmp/file"));
+        assertEquals(0, robotsTxt.getCrawlDelaySeconds(), 0);
+    }
+
+    @Test
+    public void testGzippedSitemapIndex() throws IOException {
+        // prepare
+        String sitemapIndex =
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+                "<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">" +
+                    "<sitemap><loc>http://some.domain/sitemap1.xml.gz</loc></sitemap>" +
+                "</sitemapindex>";
+        String sitemap =
+                "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">" +
+                    "<url><loc> http://some.domain/page1 </loc><priority>0.8</priority></url>" +
+                    "<url><loc>http://some.domain/page2</loc></url>" +
+                "</urlset>";
+        List<String> entries = new ArrayList<>();
+        SitemapReader.Listener listener = new SitemapReader.Listener() {
+            @Override
+            public void page(String url, double priority) {
+                entries.add(url + " " + priority);
+            }
+
+            @Override
+            public void sitemap(String url) {
+                entries.add("sitemap " + url);
+            }
+        };
+
+        // act
+        new SitemapReader().read(new ByteArrayInputStream(gzip(sitemapIndex)), listener);
+        new SitemapReader().read(new ByteArrayInputStream(sitemap.getBytes(StandardCharsets.UTF_8)), listener);
+
+        // assert
+        assertEquals(Arrays.asList(
+                "sitemap http://some.domain/sitemap1.xml.gz",
+                "http://some.domain/page1 0.8",
+                "http://some.domain/page2 NaN"), entries);
+    }
+
+    @Test
+    public void testRobotsTxtMatchesWholeProductToken() {
+        // act
+        RobotsTxt robotsTxt = RobotsTxt.parse(
+                "User-agent: web\nDisallow: /web/\n\n" +
+                "User-agent: web-crawler-plus\nDisallow: /plus/\n\n" +
+                "User-agent: WEB-Crawler\nDisallow: /crawler/\n\n" +
+                "User-agent: *\nDisallow: /all/\n", WebCrawler.USER_AGENT);
+
+        // assert
+        assertTrue(robotsTxt.isAllowed("http://some.domain/web/page"));
+        assertTrue(robotsTxt.isAllowed("http://some.domain/plus/page"));
+        assertFalse(robotsTxt.isAllowed("http://some.domain/crawler/page"));
+        assertTrue(robotsTxt.isAllowed("http://some.domain/all/page"));
+    }
+
+    @Test
+    public void testDisallowedPagesNeverFetched() {
+        //prepare
+        onRequest().havingPathEqualTo("/robots.txt").respond().withBody("User-agent: *\nDisallow: /private\n");
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/public\">Public</a><a href=\"/private/page\">Private</a></html>");
+        onRequest().havingPathEqualTo("/public").respond().withBody("");
+        onRequest().havingPathEqualTo("/private/page").respond().withBody("");
+        Crawler crawler = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(3).withRobotsTxt(true));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/public") + "\n"
+                , siteMap);
+        verifyThatRequest().havingPathEqualTo("/private/page").receivedNever();
+    }
+
+    @Test
+    public void testDisallowedBaseUrl() {
+        //prepare
+        onRequest().havingPathEqualTo("/robots.txt").respond().withBody("User-agent: *\nDisallow: /\n");
+        Crawler crawler = new ConcurrentWebCrawler(new CrawlerConfig().withRobotsTxt(true));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(mockUrl("/") + " - disallowed by robots.txt.\n", siteMap);
+        verifyThatRequest().havingPathEqualTo("/").receivedNever();
+    }
+
+    @Test
+    public void testRobotsTxtFailures() {
+        //prepare
+        onRequest().havingPathEqualTo("/robots.txt").respond().withStatus(503);
+        CrawlerConfig config = new CrawlerConfig().withRobotsTxt(true);
+
+        // act
+        String serverErrorSiteMap = new WebCrawler(config).createSiteMap(mockUrl("/"));
+        String unknownHostSiteMap = new WebCrawler(config).createSiteMap("http://nowhere.invalid/");
+
+        // assert, a site which cannot be reached is reported the way the crawl reports it, not as disallowed
+        assertEquals(mockUrl("/") + " - disallowed by robots.txt.\n", serverErrorSiteMap);
+        assertEquals(new WebCrawler(new CrawlerConfig()).createSiteMap("http://nowhere.invalid/"), unknownHostSiteMap);
+        assertEquals("http://nowhere.invalid/ - unknown host.\n", unknownHostSiteMap);
+    }
+
+    @Test
+    public void testSitemapPagesSeedTheCrawl() throws IOException {
+        //prepare
+        onRequest().havingPathEqualTo("/robots.txt").respond().withBody(
+                "User-agent: *\nDisallow: /private\nSitemap: " + mockUrl("/sitemap_index.xml") + "\n");
+        onRequest().havingPathEqualTo("/sitemap_index.xml").respond().withBody(
+                "<sitemapindex><sitemap><loc>" + mockUrl("/sitemap.xml.gz") + "</loc></sitemap></sitemapindex>");
+        onRequest().havingPathEqualTo("/sitemap.xml.gz").respond()
+                .withHeader("Content-Type", "application/x-gzip")
+                .withBody(gzip("<urlset>" +
+                        "<url><loc>" + mockUrl("/orphan") + "</loc></url>" +
+                        "<url><loc>" + mockUrl("/private/orphan") + "</loc></url>" +
+                        "<url><loc>http://other.domain/page</loc></url>" +
+                        "</urlset>"));
+        onRequest().havingPathEqualTo("/").respond().withBody("<html><a href=\"/linked\">Linked</a></html>");
+        onRequest().havingPathEqualTo("/linked").respond().withBody("");
+        onRequest().havingPathEqualTo("/orphan").respond().withBody("<html><a href=\"/orphan/child\">Child</a></html>");
+        onRequest().havingPathEqualTo("/orphan/child").respond().withBody("");
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(2).withRobotsTxt(true).withSitemaps(100);
+
+        // act
+        String serialSiteMap = new WebCrawler(config).createSiteMap(mockUrl("/"));
+        String pipelineSiteMap = new PipelinedWebCrawler(config).createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/linked") + "\n" +
+                mockUrl("/orphan") + "\n" +
+                mockUrl("/orphan/child") + "\n"
+                , serialSiteMap);
+        assertEquals(lines(serialSiteMap), lines(pipelineSiteMap));
+        verifyThatRequest().havingPathEqualTo("/private/orphan").receivedNever();
+    }
+
+    @Test
+    public void testCrawlDelayLimitsHostRate() throws InterruptedException {
+        //prepare
+        onRequest().havingPathEqualTo("/robots.txt").respond().withBody("User-agent: *\nCrawl-delay: 0.5\n");
+        HostScheduler hostScheduler = new HostScheduler(PolitenessPolicy.unlimited());
+
+        // act
+        CrawlBootstrap.load(mockUrl("/"), new CrawlerConfig().getPageFetcher(), hostScheduler, true, 0);
+
+        // assert
+        assertEquals(2.0, hostScheduler.currentRate(mockUrl("/page")), 0);
+    }
+}
@@ -0,0 +1,145 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.demo.webcrawler.SiteMapLines.lines;
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CrawlBudgetTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/page1\">Page1</a><a href=\"/page2\">Page2</a><a href=\"/page3\">Page3</a></html>");
+        onRequest().havingPathEqualTo("/page1").respond().withBody("<html><a href=\"/page1/child\">Child</a></html>");
+        onRequest().havingPathEqualTo("/page2").respond().withBody("");
+        onRequest().havingPathEqualTo("/page3").respond().withBody("");
+        onRequest().havingPathEqualTo("/page1/child").respond().withBody("");
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test
+    public void testMaxPagesDepthFirst() {
+        // prepare
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withMetrics(metrics)
+                .withBudget(new CrawlBudget(3, 0, 0, 0)));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/page1") + "\n" +
+                mockUrl("/page1/child") + "\n"
+                , siteMap);
+        assertEquals(2, metrics.getSkippedPages());
+        assertEquals(Collections.singletonMap(BudgetTracker.MAX_PAGES, 2L), metrics.getSkippedPagesByLimit());
+        verifyThatRequest().havingPathEqualTo("/page2").receivedNever();
+    }
+
+    @Test
+    public void testMaxPagesConcurrent() {
+        // prepare
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new ConcurrentWebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withWorkers(4).withMetrics(metrics)
+                .withBudget(new CrawlBudget(2, 0, 0, 0)));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(new HashSet<>(Arrays.asList(mockUrl("/"), mockUrl("/page1"))), lines(siteMap));// discovery order
+        assertEquals(3, metrics.getSkippedPages());// page2, page3 and page1/child
+        verifyThatRequest().havingPathEqualTo("/page1/child").receivedNever();
+    }
+
+    @Test
+    public void testMaxPagesPerHost() {
+        // prepare
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new PipelinedWebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withMetrics(metrics)
+                .withBudget(new CrawlBudget(0, 0, 0, 3)));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(3, lines(siteMap).size());
+        assertEquals(Collections.singletonMap(BudgetTracker.MAX_PAGES_PER_HOST, 2L), metrics.getSkippedPagesByLimit());
+    }
+
+    @Test
+    public void testPageTurnedDownIsNotCountedByOtherLimits() {
+        // prepare
+        BudgetTracker budgetTracker = new BudgetTracker(new CrawlBudget(2, 0, 0, 1), new CrawlMetrics());
+        budgetTracker.admit(new CrawlTask(WebUrl.crawlable("http://host1.domain/"), 0));
+        budgetTracker.admit(new CrawlTask(WebUrl.crawlable("http://host1.domain/page"), 1));// over max pages per host
+        budgetTracker.admit(new CrawlTask(WebUrl.crawlable("http://host2.domain/"), 0));
+
+        // act
+        boolean admitted = budgetTracker.admit(new CrawlTask(WebUrl.crawlable("http://host3.domain/"), 0));
+
+        // assert
+        assertFalse(admitted);
+        assertEquals(BudgetTracker.MAX_PAGES, budgetTracker.getExhaustedBy());
+        assertEquals(1, budgetTracker.getHostPages("http://host1.domain/"));
+        assertEquals(0, budgetTracker.getHostPages("http://host3.domain/"));
+        assertEquals(2, budgetTracker.getSkippedPages());
+    }
+
+    @Test
+    public void testMaxBytes() {
+        // prepare
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withMetrics(metrics)
+                .withCrawlOrder(CrawlerConfig.CrawlOrder.BREADTH_FIRST)
+                .withBudget(new CrawlBudget(0, 10, 0, 0)));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(mockUrl("/") + "\n", siteMap);
+        assertEquals(Collections.singletonMap(BudgetTracker.MAX_BYTES, 3L), metrics.getSkippedPagesByLimit());
+    }
+
+    @Test
+    public void testMaxTimeFinishesPagesInProgress() {
+        // prepare
+        onRequest().havingPathEqualTo("/slow").respond().withDelay(500, TimeUnit.MILLISECONDS).withBody(
+                "<html><a href=\"/page2\">Page2</a><a href=\"/page3\">Page3</a></html>");
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new ConcurrentWebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withMetrics(metrics)
+                .withBudget(new CrawlBudget(0, 0, 300, 0)));
+
+        // act
+        long start = System.nanoTime();
+        String siteMap = crawler.createSiteMap(mockUrl("/slow"));
+
+        // assert
+        assertEquals(mockUrl("/slow") + "\n", siteMap);// fetch in progress is finished, its links are skipped
+        assertEquals(Collections.singletonMap(BudgetTracker.MAX_TIME, 2L), metrics.getSkippedPagesByLimit());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+}
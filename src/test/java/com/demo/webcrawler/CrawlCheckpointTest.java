@@ -0,0 +1,147 @@
+package com.demo.webcrawler;
+
+import org.jsoup.HttpStatusException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CrawlCheckpointTest {
+    private static final String BASE_URL = "http://some.domain/";
+
+    private final Map<String, String> pages = new HashMap<>();
+    private final Map<String, AtomicInteger> fetchCounts = new HashMap<>();
+    private Path workingDirectory;
+    private Path outputFile;
+
+    /**
+     * Stands for the JVM dying in the middle of the crawl.
+     */
+    private static class SimulatedCrash extends Error {
+        private static final long serialVersionUID = 1L;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        workingDirectory = Files.createTempDirectory("checkpoint");
+        outputFile = workingDirectory.resolve("siteMap.txt");
+        pages.put(BASE_URL, "<html><a href=\"/child1\">1</a><a href=\"/child2\">2</a><a href=\"/child3\">3</a></html>");
+        pages.put(BASE_URL + "child1", "<html><a href=\"/child1/child4\">4</a></html>");
+        pages.put(BASE_URL + "child2", "");
+        pages.put(BASE_URL + "child3", "");
+        pages.put(BASE_URL + "child1/child4", "");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(outputFile);
+        Files.deleteIfExists(workingDirectory.resolve(CrawlCheckpoint.JOURNAL_FILE));
+        Files.deleteIfExists(workingDirectory);
+    }
+
+    private ConcurrentWebCrawler crawler(String crashOnUrl) {
+        PageFetcher pageFetcher = pageUrl -> {
+            if (pageUrl.equals(crashOnUrl)) {
+                throw new SimulatedCrash();
+            }
+            fetchCounts.computeIfAbsent(pageUrl, url -> new AtomicInteger()).incrementAndGet();
+            if (!pages.containsKey(pageUrl)) {
+                throw new HttpStatusException("HTTP error fetching URL", 404, pageUrl);
+            }
+            return new FetchedPage(pageUrl, 200, "text/html", pages.get(pageUrl).getBytes());
+        };
+        return new ConcurrentWebCrawler(new CrawlerConfig().withMaxSearchDepth(5).withWorkers(1).withPageFetcher(pageFetcher));
+    }
+
+    private String readOutput() throws IOException {
+        return new String(Files.readAllBytes(outputFile), "utf-8");
+    }
+
+    @Test
+    public void testCrawlWithoutCrash() throws IOException {
+        // act
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, false, 0)) {
+            crawler(null).createSiteMap(BASE_URL, outputFile, checkpoint);
+        }
+
+        // assert
+        assertEquals(crawler(null).createSiteMap(BASE_URL), readOutput());
+    }
+
+    @Test
+    public void testResumeAfterCrash() throws IOException {
+        // prepare, crawl dies on child3 after root, child1 and child2 are written
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, false, 0)) {
+            crawler(BASE_URL + "child3").createSiteMap(BASE_URL, outputFile, checkpoint);
+            fail();
+        } catch (SimulatedCrash e) {
+            // expected
+        }
+
+        // act
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, true, 0)) {
+            crawler(null).createSiteMap(BASE_URL, outputFile, checkpoint);
+        }
+
+        // assert
+        assertEquals(
+                BASE_URL + "\n" +
+                BASE_URL + "child1\n" +
+                BASE_URL + "child2\n" +
+                BASE_URL + "child3\n" +
+                BASE_URL + "child1/child4\n"
+                , readOutput());
+        fetchCounts.values().forEach(count -> assertEquals(1, count.get()));
+        assertEquals(5, fetchCounts.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStatefulResourceRegistryRefused() throws IOException {
+        ConcurrentWebCrawler crawler = new ConcurrentWebCrawler(new CrawlerConfig()
+                .withResourceRegistry(() -> new FirstReferenceRegistry(new HashSetVisitedUrls())));
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, false, 0)) {
+            crawler.createSiteMap(BASE_URL, outputFile, checkpoint);
+        }
+    }
+
+    @Test
+    public void testResumeFinishedCrawl() throws IOException {
+        // prepare
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, false, 0)) {
+            crawler(null).createSiteMap(BASE_URL, outputFile, checkpoint);
+        }
+        String siteMap = readOutput();
+
+        // act
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, true, 0)) {
+            crawler(null).createSiteMap(BASE_URL, outputFile, checkpoint);
+        }
+
+        // assert, nothing fetched twice
+        assertEquals(siteMap, readOutput());
+        fetchCounts.values().forEach(count -> assertEquals(1, count.get()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testResumeDifferentSite() throws IOException {
+        // prepare
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, false, 0)) {
+            crawler(null).createSiteMap(BASE_URL, outputFile, checkpoint);
+        }
+
+        // act
+        try (CrawlCheckpoint checkpoint = CrawlCheckpoint.open(workingDirectory, true, 0)) {
+            crawler(null).createSiteMap("http://other.domain/", outputFile, checkpoint);
+        }
+    }
+
+}
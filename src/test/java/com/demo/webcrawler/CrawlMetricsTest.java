@@ -0,0 +1,168 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CrawlMetricsTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private void mockSite() {
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/child1\">Child 1</a><a href=\"/missing\">Missing</a><a href=\"http://xhhhghghghgh.com\">External</a></html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody("<html><a href=\"/\">Home</a></html>");
+        onRequest().havingPathEqualTo("/missing").respond().withStatus(404);
+    }
+
+    @Test
+    public void testHistogram() {
+        // prepare
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // act
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(millis * 1000000L);
+        }
+
+        // assert
+        assertEquals(100, histogram.count());
+        assertEquals(50.5, histogram.meanMillis(), 0.001);
+        assertEquals(100, histogram.maxMillis(), 0.001);
+        assertEquals(50, histogram.percentileMillis(50), 50 * 0.25);
+        assertEquals(99, histogram.percentileMillis(99), 99 * 0.25);
+        assertEquals(100, histogram.percentileMillis(100), 0.001);
+        assertEquals(0, new LatencyHistogram().percentileMillis(50), 0);
+    }
+
+    @Test
+    public void testBuckets() {
+        for (long micros = 0; micros < 100000; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(micros <= LatencyHistogram.upperBoundOf(bucket));
+            assertTrue(bucket == 0 || micros > LatencyHistogram.upperBoundOf(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testCrawlMetrics() {
+        testCrawlMetrics(false);
+        testCrawlMetrics(true);
+    }
+
+    private void testCrawlMetrics(boolean concurrent) {
+        // prepare
+        resetJadler();
+        mockSite();
+        CrawlMetrics metrics = new CrawlMetrics();
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(2).withMetrics(metrics);
+        Crawler crawler = concurrent ? new ConcurrentWebCrawler(config) : new WebCrawler(config);
+
+        // act
+        crawler.createSiteMap(mockUrl("/"));
+        Map<String, Double> snapshot = metrics.snapshot();
+
+        // assert
+        assertEquals(2, metrics.getPages());
+        assertEquals(1, metrics.getErrorCount());
+        assertEquals(Long.valueOf(1), metrics.getErrors().get("http 404"));
+        assertEquals(3, metrics.getVisitedUrls());
+        assertEquals(0, metrics.getFrontierSize());
+        assertTrue(metrics.getBytes() > 0);
+        assertEquals(2, metrics.getFetchLatency().count());
+        assertEquals(2, metrics.getFirstByteLatency().count());
+        assertEquals(2, metrics.getExtractLatency().count());
+        assertEquals(2.0, snapshot.get("pages"), 0);
+        assertEquals(1.0, snapshot.get("errors.http 404"), 0);
+        assertTrue(snapshot.get("pagesPerSecond") > 0);
+    }
+
+    @Test
+    public void testErrorTypes() {
+        // prepare
+        CrawlMetrics metrics = new CrawlMetrics();
+
+        // act
+        new WebCrawler(new CrawlerConfig().withMetrics(metrics)).createSiteMap("http://xhhhghghghgh.com");
+
+        // assert
+        assertEquals(0, metrics.getPages());
+        assertEquals(Long.valueOf(1), metrics.getErrors().get("unknown host"));
+    }
+
+    @Test
+    public void testFetchTimings() throws Exception {
+        // prepare
+        onRequest().havingPathEqualTo("/").respond().withBody("<html></html>");
+        PooledHttpPageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000);
+
+        // act
+        FetchTimings firstFetch = pageFetcher.fetch(mockUrl("/")).getTimings();
+        FetchTimings pooledFetch = pageFetcher.fetch(mockUrl("/")).getTimings();
+
+        // assert
+        assertTrue(firstFetch.getConnectNanos() > 0);
+        assertTrue(firstFetch.getFirstByteNanos() >= firstFetch.getConnectNanos());
+        assertEquals(0, pooledFetch.getConnectNanos());
+        assertTrue(pooledFetch.getFirstByteNanos() > 0);
+        assertEquals(FetchTimings.NOT_MEASURED, new JsoupPageFetcher(1000).fetch(mockUrl("/")).getTimings());
+    }
+
+    @Test
+    public void testConnectTimeIncludesDnsLookup() throws Exception {
+        // prepare
+        onRequest().havingPathEqualTo("/").respond().withBody("<html></html>");
+        HostResolver slowResolver = host -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return HostResolver.system().resolve(host);
+        };
+        PooledHttpPageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000, FetchPolicy.unlimited(), slowResolver);
+
+        // act
+        FetchTimings timings = pageFetcher.fetch(mockUrl("/")).getTimings();
+
+        // assert
+        assertTrue(timings.getConnectNanos() >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        // prepare
+        mockSite();
+        CrawlMetrics metrics = new CrawlMetrics();
+        metrics.registerMBean();
+        new WebCrawler(new CrawlerConfig().withMetrics(metrics)).createSiteMap(mockUrl("/"));
+
+        // act
+        Object pages = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(CrawlMetrics.OBJECT_NAME), "Pages");
+
+        // assert
+        assertEquals(2L, pages);
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.demo.webcrawler.SiteMapLines.lines;
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Workers run as threads of the test JVM, except for testWorkerProcesses which starts real worker processes.
+ */
+public class DistributedCrawlTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    /**
+     * Sections of the site link to each other, so with path partitioning links keep crossing shards.
+     * Crawled deep enough to reach every page whatever the crawl order.
+     */
+    private String mockSite() {
+        for (String section : Arrays.asList("news", "sport", "weather", "music")) {
+            onRequest().havingPathEqualTo("/" + section).respond().withBody("<html>" +
+                    "<link rel=\"stylesheet\" href=\"/static/main.css\"/>" +
+                    "<a href=\"/" + section + "/1\">1</a><a href=\"/" + section + "/2\">2</a>" +
+                    "<a href=\"/news\">News</a><a href=\"/sport\">Sport</a><a href=\"/\">Home</a></html>");
+            for (int page = 1; page <= 2; page++) {
+                onRequest().havingPathEqualTo("/" + section + "/" + page).respond().withBody("<html>" +
+                        "<img src=\"/static/" + section + ".png\"/><a href=\"/weather\">Weather</a><a href=\"/music/1\">Music</a>" +
+                        "<a href=\"/missing/" + section + "\">Missing</a><a href=\"http://google.com\">Google</a></html>");
+            }
+        }
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/news\">News</a><a href=\"/sport\">Sport</a><a href=\"/music\">Music</a></html>");
+        onRequest().havingPathEqualTo("/missing/news").respond().withStatus(404);
+        return mockUrl("/");
+    }
+
+    @Test
+    public void testPartitioner() {
+        // prepare
+        ShardPartitioner byHost = new ShardPartitioner(4, ShardPartitioner.Partitioning.HOST);
+        ShardPartitioner byPath = new ShardPartitioner(4, ShardPartitioner.Partitioning.PATH);
+        ShardPartitioner oneMoreShard = new ShardPartitioner(5, ShardPartitioner.Partitioning.HOST);
+        int[] hostsPerShard = new int[4];
+        int movedHosts = 0;
+
+        // act
+        for (int i = 0; i < 4000; i++) {
+            String url = "http://host" + i + ".com/page";
+            hostsPerShard[byHost.shardOf(url)]++;
+            if (byHost.shardOf(url) != oneMoreShard.shardOf(url)) {
+                movedHosts++;
+            }
+        }
+
+        // assert
+        assertEquals(byHost.shardOf("http://some.domain/a"), byHost.shardOf("http://SOME.domain/b?c"));
+        assertEquals("some.domain:8080", byHost.keyOf("http://Some.Domain:8080/news/1"));
+        assertEquals("some.domain:8080/news", byPath.keyOf("http://Some.Domain:8080/news/1"));
+        assertEquals("some.domain", byPath.keyOf("http://some.domain/"));
+        assertEquals("some.domain", byPath.keyOf("http://some.domain"));
+        assertEquals("some.domain/news", byPath.keyOf("http://some.domain/news?page=2"));
+        for (int hosts : hostsPerShard) {
+            assertTrue(Arrays.toString(hostsPerShard), hosts > 4000 / 4 / 2);
+        }
+        assertTrue("moved " + movedHosts, movedHosts < 4000 / 5 * 1.5);// ~1/5 of the hosts move to the new shard
+    }
+
+    @Test
+    public void testSameEntriesAsSingleThreadedCrawler() throws Exception {
+        // prepare
+        String baseUrl = mockSite();
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(10).withWorkers(2);
+        DistributedCrawlCoordinator coordinator = new DistributedCrawlCoordinator(config, new ServerSocket(0),
+                new ShardPartitioner(3, ShardPartitioner.Partitioning.PATH), 5000);
+        List<IOException> workerErrors = new CopyOnWriteArrayList<>();
+        List<Thread> workers = startWorkers(3, coordinator.getPort(), config, workerErrors);
+
+        // act
+        String expected = new WebCrawler(1000, 10).createSiteMap(baseUrl);
+        String siteMap = coordinator.createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(lines(expected), lines(siteMap));
+        assertEquals(expected.length(), siteMap.length());
+        verifyThatRequest().havingPathEqualTo("/music/1").receivedTimes(2);// once by each crawler
+        for (Thread worker : workers) {
+            worker.join(5000);
+            assertTrue(!worker.isAlive());
+        }
+        assertEquals(Collections.emptyList(), workerErrors);
+    }
+
+    @Test
+    public void testWorkerNeverConnects() throws Exception {
+        // prepare
+        DistributedCrawlCoordinator coordinator = new DistributedCrawlCoordinator(new CrawlerConfig(), new ServerSocket(0),
+                new ShardPartitioner(2, ShardPartitioner.Partitioning.HOST), 200);
+        List<IOException> workerErrors = new CopyOnWriteArrayList<>();
+        List<Thread> workers = startWorkers(1, coordinator.getPort(), new CrawlerConfig(), workerErrors);
+
+        // act
+        try {
+            coordinator.createSiteMap(mockSite());
+            fail("second worker never connected");
+        } catch (UncheckedIOException e) {
+            // expected
+            assertTrue(e.getCause() instanceof SocketTimeoutException);
+        }
+
+        // assert, the connected worker is dropped without a greeting
+        workers.get(0).join(5000);
+        assertFalse(workers.get(0).isAlive());
+        assertEquals(1, workerErrors.size());
+        assertEquals("Unexpected greeting from the coordinator: null", workerErrors.get(0).getMessage());
+    }
+
+    @Test
+    public void testWorkerProcesses() throws IOException {
+        // prepare
+        String baseUrl = mockSite();
+        Path outputFile = Files.createTempFile("siteMap", ".txt");
+
+        try {
+            // act
+            Main.main(new String[]{baseUrl, "10", outputFile.toString(),
+                    "--engine=distributed", "--shards=2", "--partition=path", "--spawn-workers", "--workers=2"});
+
+            // assert
+            String expected = new WebCrawler(1000, 10).createSiteMap(baseUrl);
+            String siteMap = new String(Files.readAllBytes(outputFile), "UTF-8");
+            assertEquals(lines(expected), lines(siteMap));
+            assertEquals(expected.length(), siteMap.length());
+        } finally {
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    /**
+     * Worker failures are collected into errors rather than left uncaught on the worker threads.
+     */
+    private static List<Thread> startWorkers(int workers, int port, CrawlerConfig config, List<IOException> errors) {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            DistributedCrawlWorker worker = new DistributedCrawlWorker(config);// created up front, so the thread only connects
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run("localhost", port);
+                } catch (IOException e) {
+                    errors.add(e);
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DnsCacheTest {
+    private final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+
+    // resolves some.host to the loopback address, any other host is unknown
+    private final HostResolver stubResolver = host -> {
+        lookups.computeIfAbsent(host, key -> new AtomicInteger()).incrementAndGet();
+        if (!"some.host".equals(host)) {
+            throw new UnknownHostException(host);
+        }
+        return Collections.singletonList(InetAddress.getByAddress(host, new byte[]{127, 0, 0, 1}));
+    };
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private int lookups(String host) {
+        AtomicInteger count = lookups.get(host);
+        return count == null ? 0 : count.get();
+    }
+
+    @Test
+    public void testResolvedHostCached() throws UnknownHostException {
+        // prepare
+        DnsCache dnsCache = new DnsCache(stubResolver, 60, 60);
+
+        // act
+        List<InetAddress> first = dnsCache.resolve("some.host");
+        List<InetAddress> second = dnsCache.resolve("some.host");
+
+        // assert
+        assertEquals(first, second);
+        assertEquals("127.0.0.1", first.get(0).getHostAddress());
+        assertEquals(1, lookups("some.host"));
+        assertEquals(1, dnsCache.getHits());
+        assertEquals(1, dnsCache.getMisses());
+    }
+
+    @Test
+    public void testUnknownHostCached() {
+        // prepare
+        DnsCache dnsCache = new DnsCache(stubResolver, 60, 60);
+
+        // act
+        for (int i = 0; i < 3; i++) {
+            try {
+                dnsCache.resolve("dead.host");
+                fail("dead.host should not resolve");
+            } catch (UnknownHostException e) {
+                // expected
+            }
+        }
+
+        // assert
+        assertEquals(1, lookups("dead.host"));
+        assertEquals(1, dnsCache.getFailures());
+        assertEquals(2, dnsCache.getHits());
+    }
+
+    @Test
+    public void testExpiredHostResolvedAgain() throws UnknownHostException {
+        // prepare
+        DnsCache dnsCache = new DnsCache(stubResolver, 0, 0);
+
+        // act
+        dnsCache.resolve("some.host");
+        dnsCache.resolve("some.host");
+
+        // assert
+        assertEquals(2, lookups("some.host"));
+    }
+
+    @Test
+    public void testPrefetch() throws UnknownHostException {
+        // prepare
+        DnsCache dnsCache = new DnsCache(stubResolver, 60, 60);
+
+        // act
+        dnsCache.prefetch("http://some.host/page");
+        dnsCache.prefetch("http://some.host/other-page");
+        dnsCache.resolve("some.host");
+
+        // assert
+        assertEquals(1, lookups("some.host"));
+        assertEquals(1, dnsCache.getMisses());
+        assertEquals(1.0, dnsCache.snapshot().get("dns.prefetches"), 0);
+        assertTrue(dnsCache.getHostLookupMillis().get("some.host") >= 0);
+    }
+
+    @Test
+    public void testCrawlResolvesHostsThroughCache() {
+        //prepare
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/page1\">Page1</a><a href=\"/page2\">Page2</a></html>");
+        onRequest().havingPathEqualTo("/page1").respond().withBody("");
+        onRequest().havingPathEqualTo("/page2").respond().withBody("");
+        DnsCache dnsCache = new DnsCache(stubResolver, 60, 60);
+        PageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000, FetchPolicy.unlimited(), dnsCache);
+        Crawler crawler = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withCrawlOrder(CrawlerConfig.CrawlOrder.BREADTH_FIRST)
+                .withDnsCache(dnsCache).withPageFetcher(pageFetcher));
+        String baseUrl = "http://some.host:" + port();
+
+        // act
+        String siteMap = crawler.createSiteMap(baseUrl + "/");
+
+        // assert
+        assertEquals(
+                baseUrl + "/\n" +
+                baseUrl + "/page1\n" +
+                baseUrl + "/page2\n"
+                , siteMap);
+        assertEquals(1, lookups("some.host"));
+    }
+}
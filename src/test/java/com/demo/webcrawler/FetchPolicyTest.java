@@ -0,0 +1,137 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.demo.webcrawler.SiteMapLines.lines;
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FetchPolicyTest {
+    private static final byte[] PDF = "%PDF-1.4\n%âã\n1 0 obj".getBytes(StandardCharsets.ISO_8859_1);
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test
+    public void testContentSniffing() {
+        // act & assert
+        assertEquals("application/pdf", ContentSniffer.sniff(PDF));
+        assertEquals("image/png", ContentSniffer.sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}));
+        assertEquals("application/gzip", ContentSniffer.sniff(new byte[]{0x1f, (byte) 0x8b, 8, 0}));
+        assertEquals("text/html", ContentSniffer.sniff("﻿ \n<!DOCTYPE html><html>".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("text/html", ContentSniffer.sniff("<HTML><a href=\"/\">".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("application/xml", ContentSniffer.sniff("<?xml version=\"1.0\"?><feed/>".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("text/plain", ContentSniffer.sniff("just text".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("text/plain", ContentSniffer.sniff(new byte[0]));
+        assertEquals(ContentSniffer.BINARY, ContentSniffer.sniff(new byte[]{0, 1, 2, 3}));
+    }
+
+    @Test
+    public void testNonHtmlUrlsRecordedAsFiles() {
+        //prepare
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/report.pdf\">Report</a><a href=\"/download\">Download</a><a href=\"/page\">Page</a></html>");
+        onRequest().havingPathEqualTo("/report.pdf").respond().withHeader("Content-Type", "application/pdf").withBody(PDF);
+        onRequest().havingPathEqualTo("/download").respond().withHeader("Content-Type", "application/octet-stream").withBody(PDF);
+        onRequest().havingPathEqualTo("/page").respond().withHeader("Content-Type", "application/octet-stream").withBody("<html></html>");
+        CrawlMetrics metrics = new CrawlMetrics();
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(1).withMetrics(metrics);
+
+        // act
+        String serialSiteMap = new WebCrawler(config).createSiteMap(mockUrl("/"));
+        String concurrentSiteMap = new ConcurrentWebCrawler(config).createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/download") + " (application/octet-stream, " + PDF.length + " bytes)\n" +
+                mockUrl("/page") + "\n" +
+                mockUrl("/report.pdf") + " (application/pdf, " + PDF.length + " bytes)\n"
+                , serialSiteMap);
+        assertEquals(lines(serialSiteMap), lines(concurrentSiteMap));
+        assertEquals(4, metrics.getFiles());
+        assertEquals(0, metrics.getErrorCount());
+    }
+
+    @Test
+    public void testPageCutAtMaxBodySize() throws IOException {
+        //prepare
+        String head = "<html><a href=\"/first\">First</a>";
+        onRequest().havingPathEqualTo("/").respond().withBody(head + "<!-- padding --><a href=\"/second\">Second</a></html>");
+        onRequest().havingPathEqualTo("/first").respond().withBody("");
+        onRequest().havingPathEqualTo("/second").respond().withBody("");
+        PageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000, new FetchPolicy(head.length(), false));
+        CrawlMetrics metrics = new CrawlMetrics();
+
+        // act
+        FetchedPage fetchedPage = pageFetcher.fetch(mockUrl("/"));
+        String siteMap = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(1).withPageFetcher(pageFetcher).withMetrics(metrics))
+                .createSiteMap(mockUrl("/"));
+
+        // assert
+        assertTrue(fetchedPage.isTruncated());
+        assertEquals(head, new String(fetchedPage.getBody(), StandardCharsets.UTF_8));
+        assertFalse(pageFetcher.fetch(mockUrl("/first")).isTruncated());
+        assertEquals(mockUrl("/") + "\n" + mockUrl("/first") + "\n", siteMap);
+        assertEquals(1, metrics.getTruncatedPages());
+    }
+
+    @Test
+    public void testHeadProbe() throws IOException {
+        //prepare
+        onRequest().havingMethodEqualTo("HEAD").havingPathEqualTo("/video").respond()
+                .withHeader("Content-Type", "video/mp4").withHeader("Content-Length", "1048576");
+        onRequest().havingMethodEqualTo("HEAD").havingPathEqualTo("/legacy").respond().withStatus(405);
+        onRequest().havingMethodEqualTo("GET").respond().withHeader("Content-Type", "text/html").withBody("<html></html>");
+        PageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000, new FetchPolicy(0, true));
+
+        // act & assert
+        try {
+            pageFetcher.fetch(mockUrl("/video"));
+            fail();
+        } catch (NonHtmlContentException e) {
+            assertEquals("video/mp4", e.getMimeType());
+            assertEquals(1048576, e.getContentLength());
+        }
+        assertEquals("<html></html>", new String(pageFetcher.fetch(mockUrl("/legacy")).getBody(), StandardCharsets.UTF_8));
+        verifyThatRequest().havingMethodEqualTo("GET").havingPathEqualTo("/video").receivedNever();
+        verifyThatRequest().havingMethodEqualTo("GET").havingPathEqualTo("/legacy").receivedOnce();
+    }
+
+    @Test
+    public void testFilesHaveTheirOwnLimit() throws IOException {
+        //prepare
+        onRequest().havingPathEqualTo("/sitemap.xml.gz").respond().withHeader("Content-Type", "application/x-gzip").withBody(PDF);
+        onRequest().havingPathEqualTo("/robots.txt").respond().withBody(new byte[(int) FetchPolicy.MAX_ROBOTS_TXT_BYTES + 1024]);
+        PageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000, new FetchPolicy(4, true));
+
+        // act
+        FetchedPage file = pageFetcher.fetchFile(mockUrl("/sitemap.xml.gz"));
+        FetchedPage robotsTxt = pageFetcher.fetchFile(mockUrl("/robots.txt"));
+
+        // assert
+        assertEquals(PDF.length, file.getBody().length);// not cut at the max page size
+        assertFalse(file.isTruncated());
+        assertEquals(FetchPolicy.MAX_ROBOTS_TXT_BYTES, robotsTxt.getBody().length);
+        assertTrue(robotsTxt.isTruncated());
+    }
+}
@@ -0,0 +1,156 @@
+package com.demo.webcrawler;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HostSchedulerTest {
+    private static final String PAGE_URL = "http://some.domain/page";
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @Test
+    public void testUnlimitedPolicyDoesNotWait() throws InterruptedException {
+        // prepare
+        HostScheduler hostScheduler = new HostScheduler(PolitenessPolicy.unlimited());
+        long start = System.nanoTime();
+
+        // act
+        for (int i = 0; i < 1000; i++) {
+            hostScheduler.acquire(PAGE_URL).release(503);
+        }
+
+        // assert
+        assertTrue(millisSince(start) < 500);
+    }
+
+    @Test
+    public void testRateLimit() throws InterruptedException {
+        // prepare
+        HostScheduler hostScheduler = new HostScheduler(new PolitenessPolicy(20, 1, 0));
+        long start = System.nanoTime();
+
+        // act
+        for (int i = 0; i < 5; i++) {
+            hostScheduler.acquire(PAGE_URL).release(200);
+        }
+
+        // assert, first request is free, every other one waits 50ms
+        assertTrue(millisSince(start) >= 190);
+    }
+
+    @Test
+    public void testRateLimitIsPerHost() throws InterruptedException {
+        // prepare
+        HostScheduler hostScheduler = new HostScheduler(new PolitenessPolicy(1, 1, 0));
+        long start = System.nanoTime();
+
+        // act
+        for (int i = 0; i < 5; i++) {
+            hostScheduler.acquire("http://host" + i + ".domain/page").release(200);
+        }
+
+        // assert
+        assertTrue(millisSince(start) < 500);
+    }
+
+    @Test
+    public void testDefaultPortIsTheSameHost() {
+        assertEquals(HostScheduler.hostOf("http://some.domain/page"), HostScheduler.hostOf("http://some.domain:80/other"));
+        assertEquals(HostScheduler.hostOf("https://some.domain/page"), HostScheduler.hostOf("https://Some.Domain:443/page"));
+        assertFalse(HostScheduler.hostOf("http://some.domain/page").equals(HostScheduler.hostOf("http://some.domain:8080/page")));
+        assertFalse(HostScheduler.hostOf("http://some.domain/page").equals(HostScheduler.hostOf("https://some.domain/page")));
+    }
+
+    @Test
+    public void testMaxConcurrentRequests() throws InterruptedException {
+        // prepare
+        HostScheduler hostScheduler = new HostScheduler(new PolitenessPolicy(0, 1, 1));
+        HostScheduler.Permit firstPermit = hostScheduler.acquire(PAGE_URL);
+        AtomicBoolean secondAcquired = new AtomicBoolean();
+        CountDownLatch secondDone = new CountDownLatch(1);
+
+        // act
+        Thread thread = new Thread(() -> {
+            try {
+                hostScheduler.acquire(PAGE_URL).release(200);
+                secondAcquired.set(true);
+                secondDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        // assert
+        assertFalse(secondDone.await(200, TimeUnit.MILLISECONDS));
+        firstPermit.release(200);
+        assertTrue(secondDone.await(1, TimeUnit.SECONDS));
+        assertTrue(secondAcquired.get());
+    }
+
+    @Test
+    public void testCrawlDelayAppliesToRequestsInFlight() throws InterruptedException {
+        // prepare
+        HostScheduler hostScheduler = new HostScheduler(PolitenessPolicy.unlimited());
+        HostScheduler.Permit firstPermit = hostScheduler.acquire(PAGE_URL);
+        CountDownLatch secondDone = new CountDownLatch(1);
+
+        // act
+        hostScheduler.setCrawlDelay(PAGE_URL, 0.01);
+        Thread thread = new Thread(() -> {
+            try {
+                hostScheduler.acquire(PAGE_URL).release(200);
+                secondDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        // assert, one request at a time counts the one started before the crawl delay was known
+        assertFalse(secondDone.await(200, TimeUnit.MILLISECONDS));
+        firstPermit.release(200);
+        assertTrue(secondDone.await(1, TimeUnit.SECONDS));
+        assertEquals(100, hostScheduler.currentRate(PAGE_URL), 0.001);
+    }
+
+    @Test
+    public void testBackoffOnTooManyRequests() throws InterruptedException {
+        // prepare
+        HostScheduler hostScheduler = new HostScheduler(new PolitenessPolicy(100, 10, 0, 200, 1000));
+
+        // act
+        hostScheduler.acquire(PAGE_URL).release(429);
+        long start = System.nanoTime();
+        hostScheduler.acquire(PAGE_URL).release(200);
+
+        // assert
+        assertTrue(millisSince(start) >= 190);
+        assertTrue(hostScheduler.currentRate(PAGE_URL) < 100);
+    }
+
+    @Test
+    public void testRateRecoversAfterBackoff() throws InterruptedException {
+        // prepare
+        HostScheduler hostScheduler = new HostScheduler(new PolitenessPolicy(1000, 1000, 0, 1, 1));
+        hostScheduler.acquire(PAGE_URL).release(503);
+
+        // act
+        for (int i = 0; i < 20; i++) {
+            hostScheduler.acquire(PAGE_URL).release(200);
+        }
+
+        // assert
+        assertEquals(1000, hostScheduler.currentRate(PAGE_URL), 0.001);
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.UnknownHostException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpArchiveTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+        onRequest().havingPathEqualTo("/").respond()
+                .withHeader("Content-Type", "text/html; charset=UTF-8")
+                .withHeader("ETag", "\"v1\"")
+                .withBody("<html>" +
+                        "<a href=\"/child1\">Child 1</a>" +
+                        "<a href=\"/missing\">Missing</a>" +
+                        "<a href=\"/logo.png\">Logo</a>" +
+                        "<img src=\"/logo.png\">" +
+                        "</html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody("<html><a href=\"/\">Home</a></html>");
+        onRequest().havingPathEqualTo("/missing").respond().withStatus(404);
+        onRequest().havingPathEqualTo("/logo.png").respond().withHeader("Content-Type", "image/png").withBody(new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private static String crawl(PageFetcher pageFetcher) {
+        return new WebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withPageFetcher(pageFetcher)).createSiteMap("http://localhost:" + port() + "/");
+    }
+
+    @Test
+    public void testReplayedCrawlMatchesRecordedCrawl() throws IOException {
+        // prepare
+        Path archiveFile = Files.createTempFile("crawl", ".wcha");
+        String recordedSiteMap;
+        try (HttpArchiveWriter writer = new HttpArchiveWriter(archiveFile)) {
+            recordedSiteMap = crawl(new RecordingPageFetcher(new PooledHttpPageFetcher(1000, 1000), writer));
+            assertEquals(4, writer.getRecords());
+        }
+
+        // act
+        String replayedSiteMap;
+        try (HttpArchive archive = HttpArchive.open(archiveFile)) {
+            replayedSiteMap = crawl(new ReplayPageFetcher(archive));
+        }
+
+        // assert
+        assertEquals(recordedSiteMap, replayedSiteMap);
+        assertTrue(replayedSiteMap.contains(mockUrl("/missing") + " - HTTP error fetching URL"));
+        verifyThatRequest().havingPathEqualTo("/").receivedOnce();
+        verifyThatRequest().havingPathEqualTo("/logo.png").receivedOnce();
+    }
+
+    @Test
+    public void testReplayedPage() throws IOException {
+        // prepare
+        Path archiveFile = Files.createTempFile("crawl", ".wcha");
+        FetchedPage recordedPage;
+        try (HttpArchiveWriter writer = new HttpArchiveWriter(archiveFile)) {
+            recordedPage = new RecordingPageFetcher(new PooledHttpPageFetcher(1000, 1000), writer).fetch(mockUrl("/"));
+        }
+
+        // act
+        try (HttpArchive archive = HttpArchive.open(archiveFile)) {
+            ReplayPageFetcher replayFetcher = new ReplayPageFetcher(archive);
+            FetchedPage replayedPage = replayFetcher.fetch(mockUrl("/"));
+            FetchedPage notModifiedPage = replayFetcher.fetch(mockUrl("/"), "\"v1\"", null);
+            FetchedPage modifiedPage = replayFetcher.fetch(mockUrl("/"), "\"v0\"", null);
+
+            // assert
+            assertEquals(recordedPage.getUrl(), replayedPage.getUrl());
+            assertEquals(200, replayedPage.getStatusCode());
+            assertEquals("text/html; charset=UTF-8", replayedPage.getContentType());
+            assertEquals("\"v1\"", replayedPage.getEtag());
+            assertEquals(recordedPage.getTransferBytes(), replayedPage.getTransferBytes());
+            assertArrayEquals(recordedPage.getBody(), replayedPage.getBody());
+            assertTrue(notModifiedPage.isNotModified());
+            assertEquals(200, modifiedPage.getStatusCode());
+        }
+    }
+
+    @Test
+    public void testReplayedRedirect() throws IOException {
+        // prepare
+        onRequest().havingPathEqualTo("/a").respond().withStatus(301).withHeader("Location", "/a/");
+        onRequest().havingPathEqualTo("/a/").respond().withBody("<html><a href=\"b\">B</a></html>");
+        Path archiveFile = Files.createTempFile("crawl", ".wcha");
+        try (HttpArchiveWriter writer = new HttpArchiveWriter(archiveFile)) {
+            RecordingPageFetcher recordingFetcher = new RecordingPageFetcher(new PooledHttpPageFetcher(1000, 1000), writer);
+            recordingFetcher.fetch(mockUrl("/a"));
+            recordingFetcher.fetch(mockUrl("/child1"));
+        }
+
+        // act
+        try (HttpArchive archive = HttpArchive.open(archiveFile)) {
+            ReplayPageFetcher replayFetcher = new ReplayPageFetcher(archive);
+            FetchedPage redirectedPage = replayFetcher.fetch(mockUrl("/a"));
+            FetchedPage nextPage = replayFetcher.fetch(mockUrl("/child1"));
+
+            // assert
+            assertEquals(mockUrl("/a"), redirectedPage.getUrl());
+            assertEquals(mockUrl("/a/"), redirectedPage.getBaseUrl());
+            assertEquals(mockUrl("/child1"), nextPage.getBaseUrl());
+        }
+    }
+
+    @Test
+    public void testNetworkFailuresAndMissingUrls() throws IOException {
+        // prepare
+        Path archiveFile = Files.createTempFile("crawl", ".wcha");
+        try (HttpArchiveWriter writer = new HttpArchiveWriter(archiveFile)) {
+            PageFetcher unknownHost = url -> {
+                throw new UnknownHostException("nowhere.invalid");
+            };
+            try {
+                new RecordingPageFetcher(unknownHost, writer).fetch("http://nowhere.invalid/");
+                fail("host is unknown");
+            } catch (UnknownHostException e) {
+                // recorded
+            }
+        }
+
+        // act & assert
+        try (HttpArchive archive = HttpArchive.open(archiveFile)) {
+            ReplayPageFetcher replayFetcher = new ReplayPageFetcher(archive);
+            try {
+                replayFetcher.fetch("http://nowhere.invalid/");
+                fail("host was unknown when recorded");
+            } catch (UnknownHostException e) {
+                assertEquals("nowhere.invalid", e.getMessage());
+            }
+            try {
+                replayFetcher.fetchFile("http://nowhere.invalid/");
+                fail("only fetched as a page");
+            } catch (IOException e) {
+                assertEquals("http://nowhere.invalid/ - not recorded in the http archive", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidUrlReplayed() throws IOException {
+        // prepare
+        Path archiveFile = Files.createTempFile("crawl", ".wcha");
+        String recordedError = null;
+        try (HttpArchiveWriter writer = new HttpArchiveWriter(archiveFile)) {
+            try {
+                new RecordingPageFetcher(new PooledHttpPageFetcher(1000, 1000), writer).fetch("http://[invalid/");
+                fail("url is not valid");
+            } catch (IllegalArgumentException e) {
+                recordedError = WebCrawler.describeError("http://[invalid/", e);
+            }
+        }
+
+        // act & assert
+        try (HttpArchive archive = HttpArchive.open(archiveFile)) {
+            try {
+                new ReplayPageFetcher(archive).fetch("http://[invalid/");
+                fail("url was not valid when recorded");
+            } catch (IllegalArgumentException e) {
+                assertEquals("not a valid url.", recordedError);
+                assertEquals(recordedError, WebCrawler.describeError("http://[invalid/", e));
+            }
+        }
+    }
+
+    @Test
+    public void testArchiveFailureIsNotRecordedAsFetchFailure() throws IOException {
+        // prepare
+        OutputStream fullDisk = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("No space left on device");
+            }
+        };
+        byte[] body = new byte[128 * 1024];// more than the writer buffers
+        PageFetcher pageFetcher = url -> new FetchedPage(url, 200, "text/html", body);
+        HttpArchiveWriter writer = new HttpArchiveWriter(fullDisk);// header is buffered until the first full buffer
+
+        // act
+        try {
+            new RecordingPageFetcher(pageFetcher, writer).fetch("http://some.domain/");
+            fail("archive cannot be written");
+        } catch (IOException e) {
+            // assert
+            assertEquals("No space left on device", e.getMessage());
+            assertEquals(1, writer.getRecords());// no failure record for the page
+        }
+    }
+
+    @Test
+    public void testInjectedLatency() throws IOException {
+        // prepare
+        Path archiveFile = Files.createTempFile("crawl", ".wcha");
+        try (HttpArchiveWriter writer = new HttpArchiveWriter(archiveFile)) {
+            writer.response("http://some.domain/", false, TimeUnit.MILLISECONDS.toNanos(150),
+                    new FetchedPage("http://some.domain/", 200, "text/html", "<html></html>".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        try (HttpArchive archive = HttpArchive.open(archiveFile)) {
+            for (long latencyMillis : new long[]{100, ReplayPageFetcher.RECORDED_LATENCY}) {
+                // act
+                long start = System.nanoTime();
+                new ReplayPageFetcher(archive, latencyMillis).fetch("http://some.domain/");
+
+                // assert
+                long expectedMillis = latencyMillis == ReplayPageFetcher.RECORDED_LATENCY ? 150 : latencyMillis;
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(expectedMillis));
+            }
+        }
+    }
+
+    @Test
+    public void testLastRecordWinsAndCutRecordIgnored() throws IOException {
+        // prepare
+        Path archiveFile = Files.createTempFile("crawl", ".wcha");
+        try (HttpArchiveWriter writer = new HttpArchiveWriter(archiveFile)) {
+            writer.response("http://some.domain/", false, 0, new FetchedPage("http://some.domain/", 200, "text/html", "v1".getBytes(StandardCharsets.UTF_8)));
+            writer.response("http://some.domain/", false, 0, new FetchedPage("http://some.domain/", 200, "text/html", "v2".getBytes(StandardCharsets.UTF_8)));
+            writer.response("http://some.domain/other", false, 0, new FetchedPage("http://some.domain/other", 200, "text/html", new byte[100]));
+        }
+        try (FileChannel channel = FileChannel.open(archiveFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);// crawl died writing the last record
+        }
+
+        // act
+        try (HttpArchive archive = HttpArchive.open(archiveFile)) {
+
+            // assert
+            assertEquals(1, archive.size());
+            assertEquals("v2", new String(new ReplayPageFetcher(archive).fetch("http://some.domain/").getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnArchive() throws IOException {
+        Path file = Files.createTempFile("crawl", ".txt");
+        Files.write(file, "http://some.domain/\n".getBytes(StandardCharsets.UTF_8));
+        HttpArchive.open(file);
+    }
+}
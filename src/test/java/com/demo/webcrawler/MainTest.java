@@ -8,7 +8,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
 
 import static net.jadler.Jadler.*;
 import static org.junit.Assert.assertEquals;
@@ -62,4 +65,42 @@ public class MainTest {
         assertEquals(baseUrl + "\n", outputSiteMap);
     }
 
+    @Test
+    public void testMainWithSeedFile() throws IOException {
+        // prepare
+        onRequest().havingPathEqualTo("/page1").respond().withBody("");
+        String localhostUrl = mockUrl("/page1");
+        String loopbackUrl = "http://127.0.0.1:" + port() + "/page1";
+        Path seedsFile = Files.createTempFile("seeds", ".txt");
+        Files.write(seedsFile, Arrays.asList("# nightly crawl", localhostUrl + " 2", "", loopbackUrl));
+        Path outputDir = Files.createTempDirectory("siteMaps");
+        Path localhostSiteMap = outputDir.resolve("localhost_" + port() + ".txt");
+        Path loopbackSiteMap = outputDir.resolve("127.0.0.1_" + port() + ".txt");
+
+        try {
+            // act
+            Main.main(new String[] {"--seeds=" + seedsFile, "1", outputDir.toString(), "--engine=concurrent"});
+
+            // assert
+            assertEquals(localhostUrl + "\n", new String(Files.readAllBytes(localhostSiteMap), "utf-8"));
+            assertEquals(loopbackUrl + "\n", new String(Files.readAllBytes(loopbackSiteMap), "utf-8"));
+        } finally {
+            Files.deleteIfExists(localhostSiteMap);
+            Files.deleteIfExists(loopbackSiteMap);
+            Files.deleteIfExists(outputDir);
+            Files.deleteIfExists(seedsFile);
+        }
+    }
+
+    @Test
+    public void testSiteMapFileNames() {
+        // prepare
+        HashSet<String> fileNames = new HashSet<>();
+
+        // act & assert
+        assertEquals("www.bbc.co.uk.txt", Main.siteMapFileName("www.bbc.co.uk", "text", fileNames));
+        assertEquals("www.bbc.co.uk-2.txt", Main.siteMapFileName("http://www.bbc.co.uk/news", "text", fileNames));
+        assertEquals("localhost_8080.jsonl", Main.siteMapFileName("http://localhost:8080/", "jsonl", fileNames));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NearDuplicateTest {
+    private static final String ARTICLE = article(5);
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private static String article(int chapters) {
+        StringBuilder article = new StringBuilder();
+        for (int i = 1; i <= chapters; i++) {
+            article.append("<h2>Chapter ").append(i).append("</h2><p>The quick brown fox jumps over the lazy dog while the crawler keeps reading ")
+                    .append("pages of the same site, one after another, following every link it finds on the way. Pages served under many urls, ")
+                    .append("with session ids, sort orders or print views, look the same to a reader but every one of them is a new page ")
+                    .append("to a crawler which only knows their urls.</p>");
+        }
+        return article.toString();
+    }
+
+    private static long fingerprint(String html) {
+        SimHash simHash = new SimHash();
+        simHash.addHtml(html);
+        return simHash.getFingerprint();
+    }
+
+    @Test
+    public void testSimHashOfNearDuplicateText() {
+        // act
+        long article = fingerprint("<html><body>" + ARTICLE + "<p>Session 1234</p></body></html>");
+        long sameArticle = fingerprint("<html><head><script>var session = 'abc';</script><style>p {}</style></head><body><!-- print view -->"
+                + ARTICLE + "<p>Session 5678</p></body></html>");
+        long otherArticle = fingerprint("<html><body><p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor "
+                + "incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation ullamco laboris "
+                + "nisi ut aliquip ex ea commodo consequat.</p></body></html>");
+
+        // assert
+        assertTrue(SimHash.distance(article, sameArticle) <= NearDuplicateIndex.DEFAULT_MAX_DISTANCE);
+        assertTrue(SimHash.distance(article, otherArticle) > NearDuplicateIndex.DEFAULT_MAX_DISTANCE);
+    }
+
+    @Test
+    public void testIndexFindsFingerprintsWithinMaxDistance() {
+        // prepare
+        NearDuplicateIndex index = new NearDuplicateIndex(3);
+        long fingerprint = 0x0123456789abcdefL;
+
+        // act & assert
+        assertTrue(index.addIfUnique(fingerprint));
+        assertFalse(index.addIfUnique(fingerprint));
+        assertFalse(index.addIfUnique(fingerprint ^ 1L ^ 1L << 20 ^ 1L << 63));// 3 bits in different blocks
+        assertFalse(index.addIfUnique(fingerprint ^ 0b111L));// 3 bits in the same block
+        assertTrue(index.addIfUnique(fingerprint ^ 0b1111L));// 4 bits
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testIndexGrows() {
+        // prepare
+        NearDuplicateIndex index = new NearDuplicateIndex(0);
+
+        // act
+        for (long i = 0; i < 5000; i++) {
+            assertTrue(index.addIfUnique(UrlFingerprint.mix(i + 1)));
+        }
+
+        // assert
+        assertEquals(5000, index.size());
+        assertFalse(index.addIfUnique(UrlFingerprint.mix(1234)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxDistanceOutOfRange() {
+        new CrawlerConfig().withNearDuplicateDetection(NearDuplicateIndex.MAX_DISTANCE + 1);
+    }
+
+    @Test
+    public void testLinksOfNearDuplicatesNotFollowed() {
+        // prepare
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/article?session=1\">Article</a><a href=\"/article?session=2\">Article</a></html>");
+        onRequest().havingPathEqualTo("/article").havingQueryStringEqualTo("session=1").respond().withBody(
+                "<html>" + ARTICLE + "<a href=\"/article/print?session=1\">Print</a><img src=\"/fox.png\"></html>");
+        onRequest().havingPathEqualTo("/article").havingQueryStringEqualTo("session=2").respond().withBody(
+                "<html>" + ARTICLE + "<a href=\"/article/print?session=2\">Print</a><img src=\"/fox.png\"></html>");
+        onRequest().havingPathEqualTo("/article/print").respond().withBody("");
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withMetrics(metrics)
+                .withCrawlOrder(CrawlerConfig.CrawlOrder.BREADTH_FIRST)
+                .withNearDuplicateDetection(NearDuplicateIndex.DEFAULT_MAX_DISTANCE));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(
+                mockUrl("/") + "\n" +
+                mockUrl("/article?session=1") + "\n" +
+                mockUrl("/fox.png") + "\n" +
+                mockUrl("/article?session=2") + "\n" +
+                mockUrl("/fox.png") + "\n" +
+                mockUrl("/article/print?session=1") + "\n"
+                , siteMap);
+        assertEquals(1, metrics.getNearDuplicatePages());
+        verifyThatRequest().havingPathEqualTo("/article/print").receivedOnce();
+    }
+
+    @Test
+    public void testPagesWithLittleTextNeverDuplicates() {
+        // prepare
+        onRequest().havingPathEqualTo("/").respond().withBody("<html><a href=\"/page1\">Page</a><a href=\"/page2\">Page</a></html>");
+        onRequest().havingPathEqualTo("/page1").respond().withBody("<html><a href=\"/page1/child\">Child</a></html>");
+        onRequest().havingPathEqualTo("/page2").respond().withBody("<html><a href=\"/page2/child\">Child</a></html>");
+        onRequest().havingPathEqualTo("/page1/child").respond().withBody("");
+        onRequest().havingPathEqualTo("/page2/child").respond().withBody("");
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new ConcurrentWebCrawler(new CrawlerConfig().withMaxSearchDepth(2).withMetrics(metrics)
+                .withNearDuplicateDetection(NearDuplicateIndex.MAX_DISTANCE));
+
+        // act
+        crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(0, metrics.getNearDuplicatePages());
+        verifyThatRequest().havingPathEqualTo("/page1/child").receivedOnce();
+        verifyThatRequest().havingPathEqualTo("/page2/child").receivedOnce();
+    }
+}
@@ -0,0 +1,121 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static net.jadler.Jadler.*;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PageCacheTest {
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private void mockSite() {
+        // home page is validated with ETag, child with Last-Modified
+        onRequest().havingPathEqualTo("/").havingHeaderEqualTo("If-None-Match", ETAG).respond().withStatus(304);
+        onRequest().havingPathEqualTo("/").havingHeader("If-None-Match", not(hasItem(ETAG))).respond()
+                .withHeader("ETag", ETAG)
+                .withBody("<html><a href=\"/child1\">Child 1</a><a href=\"http://www.google.com\">Google</a></html>");
+        onRequest().havingPathEqualTo("/child1").havingHeaderEqualTo("If-Modified-Since", LAST_MODIFIED).respond().withStatus(304);
+        onRequest().havingPathEqualTo("/child1").havingHeader("If-Modified-Since", not(hasItem(LAST_MODIFIED))).respond()
+                .withHeader("Last-Modified", LAST_MODIFIED)
+                .withBody("<html><img src=\"/logo.png\"/></html>");
+    }
+
+    @Test
+    public void testConditionalRequest() throws IOException {
+        testConditionalRequest(new PooledHttpPageFetcher(1000, 1000));
+        testConditionalRequest(new JsoupPageFetcher(1000));
+    }
+
+    private void testConditionalRequest(PageFetcher pageFetcher) throws IOException {
+        // prepare
+        resetJadler();
+        mockSite();
+
+        // act
+        FetchedPage fetchedPage = pageFetcher.fetch(mockUrl("/"));
+        FetchedPage notModifiedPage = pageFetcher.fetch(mockUrl("/"), fetchedPage.getEtag(), fetchedPage.getLastModified());
+
+        // assert
+        assertEquals(200, fetchedPage.getStatusCode());
+        assertEquals(ETAG, fetchedPage.getEtag());
+        assertTrue(notModifiedPage.isNotModified());
+        assertEquals(ETAG, notModifiedPage.getEtag());
+        assertEquals(0, notModifiedPage.getBody().length);
+    }
+
+    @Test
+    public void testRecrawlUsesCachedLinks() {
+        testRecrawlUsesCachedLinks(false);
+        testRecrawlUsesCachedLinks(true);
+    }
+
+    private void testRecrawlUsesCachedLinks(boolean concurrent) {
+        // prepare
+        resetJadler();
+        mockSite();
+        PageCache pageCache = new PageCache();
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(1).withPageCache(pageCache);
+        Crawler crawler = concurrent ? new ConcurrentWebCrawler(config) : new WebCrawler(config);
+        String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // act
+        String cachedSiteMap = crawler.createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(siteMap, cachedSiteMap);
+        assertEquals(2, pageCache.size());
+        assertEquals(2, pageCache.modifiedPages());
+        assertEquals(2, pageCache.notModifiedPages());
+        verifyThatRequest().havingPathEqualTo("/").havingHeaderEqualTo("If-None-Match", ETAG).receivedOnce();
+        verifyThatRequest().havingPathEqualTo("/child1").havingHeaderEqualTo("If-Modified-Since", LAST_MODIFIED).receivedOnce();
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        // prepare
+        mockSite();
+        Path cacheFile = Files.createTempFile("pageCache", ".bin");
+        PageCache pageCache = new PageCache();
+        String siteMap = new WebCrawler(new CrawlerConfig().withPageCache(pageCache)).createSiteMap(mockUrl("/"));
+
+        try {
+            // act
+            pageCache.save(cacheFile);
+            PageCache loadedPageCache = PageCache.load(cacheFile);
+            String cachedSiteMap = new WebCrawler(new CrawlerConfig().withPageCache(loadedPageCache)).createSiteMap(mockUrl("/"));
+
+            // assert
+            assertEquals(siteMap, cachedSiteMap);
+            assertEquals(2, loadedPageCache.size());
+            assertEquals(2, loadedPageCache.notModifiedPages());
+            assertEquals(0, loadedPageCache.modifiedPages());
+        } finally {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+}
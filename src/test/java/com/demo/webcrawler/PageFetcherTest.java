@@ -0,0 +1,158 @@
+package com.demo.webcrawler;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PageFetcherTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test
+    public void testCrawlerWithStubFetcher() {
+        // prepare
+        Map<String, String> pages = new HashMap<>();
+        pages.put("http://some.domain/", "<html><a href=\"/child1\">Child 1</a></html>");
+        pages.put("http://some.domain/child1", "");
+        PageFetcher stubFetcher = pageUrl -> {
+            if (!pages.containsKey(pageUrl)) {
+                throw new HttpStatusException("HTTP error fetching URL", 404, pageUrl);
+            }
+            return new FetchedPage(pageUrl, 200, "text/html", pages.get(pageUrl).getBytes());
+        };
+
+        // act
+        String siteMap = new WebCrawler(1, stubFetcher, PolitenessPolicy.unlimited()).createSiteMap("http://some.domain/");
+
+        // assert
+        assertEquals("http://some.domain/\nhttp://some.domain/child1\n", siteMap);
+    }
+
+    @Test
+    public void testFetchedPage() throws IOException {
+        testFetchedPage(new PooledHttpPageFetcher(1000, 1000));
+        testFetchedPage(new JsoupPageFetcher(1000));
+    }
+
+    private void testFetchedPage(PageFetcher pageFetcher) throws IOException {
+        // prepare
+        resetJadler();
+        onRequest().havingPathEqualTo("/").respond()
+                .withHeader("Content-Type", "text/html; charset=ISO-8859-2")
+                .withBody("<html></html>");
+
+        // act
+        FetchedPage fetchedPage = pageFetcher.fetch(mockUrl("/"));
+
+        // assert
+        assertEquals(mockUrl("/"), fetchedPage.getUrl());
+        assertEquals(200, fetchedPage.getStatusCode());
+        assertEquals("ISO-8859-2", fetchedPage.getCharset());
+        assertEquals("<html></html>", new String(fetchedPage.getBody(), "ISO-8859-2"));
+        verifyThatRequest().havingHeaderEqualTo("User-Agent", WebCrawler.USER_AGENT).receivedOnce();
+    }
+
+    @Test
+    public void testLinksResolvedAgainstRedirectTarget() throws IOException {
+        testLinksResolvedAgainstRedirectTarget(new PooledHttpPageFetcher(1000, 1000));
+        testLinksResolvedAgainstRedirectTarget(new JsoupPageFetcher(1000));
+    }
+
+    private void testLinksResolvedAgainstRedirectTarget(PageFetcher pageFetcher) throws IOException {
+        // prepare
+        resetJadler();
+        onRequest().havingPathEqualTo("/a").respond().withStatus(301).withHeader("Location", "/a/");
+        onRequest().havingPathEqualTo("/a/").respond().withHeader("Content-Type", "text/html").withBody("<html><a href=\"b\">B</a></html>");
+        onRequest().havingPathEqualTo("/a/b").respond().withHeader("Content-Type", "text/html").withBody("");
+
+        // act
+        FetchedPage fetchedPage = pageFetcher.fetch(mockUrl("/a"));
+        String siteMap = new WebCrawler(1, pageFetcher, PolitenessPolicy.unlimited()).createSiteMap(mockUrl("/a"));
+
+        // assert
+        assertEquals(mockUrl("/a"), fetchedPage.getUrl());
+        assertEquals(mockUrl("/a/"), fetchedPage.getBaseUrl());
+        assertEquals(mockUrl("/a/b"), new JsoupLinkExtractor().extract(fetchedPage).getChildPages().get(0).getUrl());
+        assertEquals(mockUrl("/a/b"), new StreamingLinkExtractor().extract(fetchedPage).getChildPages().get(0).getUrl());
+        assertEquals(mockUrl("/a") + "\n" + mockUrl("/a/b") + "\n", siteMap);
+    }
+
+    @Test
+    public void testRedirectToAnotherSiteIsNotFollowedByLinks() {
+        // prepare
+        FetchedPage fetchedPage = new FetchedPage("http://some.domain/a", 200, "text/html", "<html><a href=\"b\">B</a></html>".getBytes());
+
+        // act
+        FetchedPage redirected = fetchedPage.redirectedTo("http://other.domain/a/");
+
+        // assert
+        assertEquals("http://some.domain/a", redirected.getBaseUrl());
+    }
+
+    @Test
+    public void testSameErrorsAsJsoup() throws IOException {
+        testSameErrorsAsJsoup(new PooledHttpPageFetcher(1000, 1000));
+        testSameErrorsAsJsoup(new JsoupPageFetcher(1000));
+    }
+
+    private void testSameErrorsAsJsoup(PageFetcher pageFetcher) throws IOException {
+        // prepare
+        resetJadler();
+        onRequest().havingPathEqualTo("/missing").respond().withStatus(404);
+        onRequest().havingPathEqualTo("/image.png").respond().withHeader("Content-Type", "image/png").withBody("png");
+
+        // act & assert
+        try {
+            pageFetcher.fetch(mockUrl("/missing"));
+            fail();
+        } catch (HttpStatusException e) {
+            assertEquals(404, e.getStatusCode());
+            assertEquals("HTTP error fetching URL", e.getMessage());
+        }
+
+        try {
+            pageFetcher.fetch(mockUrl("/image.png"));
+            fail();
+        } catch (UnsupportedMimeTypeException e) {
+            assertEquals("image/png", e.getMimeType());
+        }
+    }
+
+    @Test
+    public void testConnectionIsReused() throws IOException {
+        // prepare
+        PooledHttpPageFetcher pageFetcher = new PooledHttpPageFetcher(1000, 1000);
+        onRequest().respond().withBody("<html></html>");
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            pageFetcher.fetch(mockUrl("/page" + i));
+        }
+
+        // assert
+        assertEquals(1, pageFetcher.pooledConnections());
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static com.demo.webcrawler.SiteMapLines.lines;
+import static net.jadler.Jadler.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pipeline writes page blocks in parsing order, so site-maps are compared as sets of lines
+ * against the output of the single threaded WebCrawler.
+ */
+public class PipelinedWebCrawlerTest {
+    private Crawler crawler;
+
+    @Before
+    public void setUp() {
+        initJadler();
+        crawler = createCrawler(5, 2, 4);
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private static Crawler createCrawler(int maxSearchDepth, int parsers, int queueCapacity) {
+        return new PipelinedWebCrawler(new CrawlerConfig()
+                .withMaxSearchDepth(maxSearchDepth)
+                .withWorkers(4)
+                .withParsers(parsers)
+                .withQueueCapacity(queueCapacity));
+    }
+
+    private String mockManyPages(int pages) {
+        StringBuilder links = new StringBuilder("<html>");
+        for (int i = 0; i < pages; i++) {
+            links.append("<a href=\"/page").append(i).append("\">Page</a>");
+        }
+        links.append("</html>");
+        onRequest().havingPathEqualTo("/").respond().withBody(links.toString());
+        onRequest().havingPath(startsWith("/page")).respond().withBody(links.toString());
+        return mockUrl("/");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoParsers() {
+        new CrawlerConfig().withParsers(0);
+    }
+
+    @Test
+    public void testUnknownHost() {
+        // act
+        String siteMap = crawler.createSiteMap("http://xhhhghghghgh.com");
+
+        // assert
+        assertEquals("http://xhhhghghghgh.com - unknown host.\n", siteMap);
+    }
+
+    @Test
+    public void testSameEntriesAsSingleThreadedCrawler() {
+        //prepare
+        String baseUrl = mockUrl("/");
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html>" +
+                    "<head><link rel=\"stylesheet\" type=\"text/css\" href=\"/static/main.css\"  /></head>" +
+                    "<a href=\"/child1\">Child 1</a>" +
+                    "<a href=\"/child2\">Child 2</a>" +
+                    "<a href=\"/missing\">Missing</a>" +
+                    "<a href=\"http://google.com\">Google</a>" +
+                "</html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody(
+                "<html><a href=\"/child1/child3\">Child 3</a><a href=\"/\">Home</a></html>");
+        onRequest().havingPathEqualTo("/child2").respond().withBody(
+                "<html><script type=\"text/javascript\" src=\"/static/main.js\"></script><a href=\"/child1\">Child 1</a></html>");
+        onRequest().havingPathEqualTo("/child1/child3").respond().withBody("<html><img src=\"/static/logo.gif\" ></html>");
+        onRequest().havingPathEqualTo("/missing").respond().withStatus(404);
+
+        // act
+        String expected = new WebCrawler(1000, 5).createSiteMap(baseUrl);
+        String siteMap = crawler.createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(lines(expected), lines(siteMap));
+        assertEquals(expected.length(), siteMap.length());
+    }
+
+    @Test
+    public void testSiteMapWithMaxSearchDepth() {
+        //prepare
+        crawler = createCrawler(2, 2, 4);
+        String baseUrl = mockUrl("/");
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/child1\">Child 1</a></html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody(
+                "<html><a href=\"/child1/child2\">Child 2 (2 levels deep)</a></html>");
+        onRequest().havingPathEqualTo("/child1/child2").respond().withBody(
+                "<html><a href=\"/child1/child2/child3\">Child 3 (3 levels deep)</a></html>");
+        onRequest().havingPathEqualTo("/child1/child2/child3").respond().withBody("");
+
+        // act
+        String siteMap = crawler.createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(
+                baseUrl + "\n" +
+                mockUrl("/child1") + "\n" +
+                mockUrl("/child1/child2") + "\n"
+                , siteMap);
+    }
+
+    @Test
+    public void testBackpressure() {
+        //prepare
+        crawler = createCrawler(1, 1, 1);
+        String baseUrl = mockManyPages(50);
+        InMemorySiteMapSink slowSink = new InMemorySiteMapSink() {
+            @Override
+            public void add(SiteMapEntry entry) {
+                try {
+                    Thread.sleep(1);// stages before the writer fill their queues and block
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.add(entry);
+            }
+        };
+
+        // act
+        crawler.createSiteMap(baseUrl, slowSink);
+
+        // assert
+        assertEquals(51, lines(slowSink.toString()).size());
+        verifyThatRequest().havingPathEqualTo("/page7").receivedOnce();
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testFailingSinkStopsTheCrawl() {
+        //prepare
+        String baseUrl = mockManyPages(50);
+        SiteMapSink failingSink = new SiteMapSink() {
+            @Override
+            public void add(SiteMapEntry entry) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // act
+        crawler.createSiteMap(baseUrl, failingSink);
+    }
+
+}
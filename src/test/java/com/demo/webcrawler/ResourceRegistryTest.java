@@ -0,0 +1,141 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ResourceRegistryTest {
+    private static final String SHARED_HEAD = "<head>" +
+            "<link rel=\"stylesheet\" href=\"/static/main.css\"/>" +
+            "<script type=\"text/javascript\" src=\"/static/main.js\"></script>" +
+            "</head>";
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    private void mockSite() {
+        // every page has the same css, js, logo and external link
+        onRequest().havingPathEqualTo("/").respond().withBody("<html>" + SHARED_HEAD +
+                "<a href=\"/child1\">Child 1</a><a href=\"/child2\">Child 2</a>" +
+                "<img src=\"/static/logo.gif\"/><a href=\"http://google.com\">Google</a></html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody("<html>" + SHARED_HEAD +
+                "<img src=\"/static/logo.gif\"/><a href=\"http://google.com\">Google</a></html>");
+        onRequest().havingPathEqualTo("/child2").respond().withBody("<html>" + SHARED_HEAD +
+                "<img src=\"/static/logo.gif\"/><img src=\"/static/child2.gif\"/></html>");
+    }
+
+    private Crawler createCrawler(boolean concurrent, Supplier<ResourceRegistry> resourceRegistryFactory) {
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(1).withResourceRegistry(resourceRegistryFactory);
+        return concurrent ? new ConcurrentWebCrawler(config) : new WebCrawler(config);
+    }
+
+    private static List<String> lines(String siteMap) {
+        return Arrays.asList(siteMap.split("\n"));
+    }
+
+    @Test
+    public void testAllReferencesByDefault() {
+        // prepare
+        mockSite();
+
+        // act
+        String siteMap = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(1)).createSiteMap(mockUrl("/"));
+
+        // assert
+        assertEquals(3, Collections.frequency(lines(siteMap), mockUrl("/static/main.css")));
+        assertEquals(3, Collections.frequency(lines(siteMap), mockUrl("/static/logo.gif")));
+        assertEquals(2, Collections.frequency(lines(siteMap), "http://google.com"));
+    }
+
+    @Test
+    public void testFirstReference() {
+        testFirstReference(false);
+        testFirstReference(true);
+    }
+
+    private void testFirstReference(boolean concurrent) {
+        // prepare
+        resetJadler();
+        mockSite();
+        Crawler crawler = createCrawler(concurrent, () -> new FirstReferenceRegistry(new HashSetVisitedUrls()));
+
+        // act
+        List<String> lines = lines(crawler.createSiteMap(mockUrl("/")));
+
+        // assert
+        Set<String> expected = new HashSet<>(Arrays.asList(mockUrl("/"), mockUrl("/child1"), mockUrl("/child2"),
+                mockUrl("/static/main.css"), mockUrl("/static/main.js"), mockUrl("/static/logo.gif"),
+                mockUrl("/static/child2.gif"), "http://google.com"));
+        assertEquals(expected.size(), lines.size());
+        assertEquals(expected, new HashSet<>(lines));
+    }
+
+    @Test
+    public void testReferenceCounts() {
+        testReferenceCounts(false);
+        testReferenceCounts(true);
+    }
+
+    private void testReferenceCounts(boolean concurrent) {
+        // prepare
+        resetJadler();
+        mockSite();
+        Crawler crawler = createCrawler(concurrent, ReferenceCountingRegistry::new);
+
+        // act
+        List<String> lines = lines(crawler.createSiteMap(mockUrl("/")));
+
+        // assert
+        assertEquals(new HashSet<>(Arrays.asList(mockUrl("/"), mockUrl("/child1"), mockUrl("/child2"))),
+                new HashSet<>(lines.subList(0, 3)));
+        assertEquals(Arrays.asList(
+                mockUrl("/static/main.css") + " (3 references)",
+                mockUrl("/static/main.js") + " (3 references)",
+                mockUrl("/static/child2.gif") + " (1 reference)",
+                mockUrl("/static/logo.gif") + " (3 references)",
+                "http://google.com (2 references)"), lines.subList(3, lines.size()));
+    }
+
+    @Test
+    public void testReferenceCountingRegistry() {
+        // prepare
+        ReferenceCountingRegistry registry = new ReferenceCountingRegistry();
+        InMemorySiteMapSink siteMapSink = new InMemorySiteMapSink();
+
+        // act
+        boolean written = registry.register(SiteMapEntry.of(SiteMapEntry.Type.CSS, "http://some.domain/main.css"));
+        registry.register(SiteMapEntry.of(SiteMapEntry.Type.CSS, "http://some.domain/main.css"));
+        registry.register(SiteMapEntry.of(SiteMapEntry.Type.EXTERNAL_LINK, "http://google.com"));
+        registry.flush(siteMapSink);
+
+        // assert
+        assertFalse(written);
+        assertEquals(2, registry.size());
+        assertEquals(2, registry.references("http://some.domain/main.css"));
+        assertEquals(0, registry.references("http://some.domain/other.css"));
+        assertEquals("http://some.domain/main.css (2 references)\nhttp://google.com (1 reference)\n", siteMapSink.toString());
+    }
+
+}
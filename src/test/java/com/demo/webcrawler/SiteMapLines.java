@@ -0,0 +1,18 @@
+package com.demo.webcrawler;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Site-map entries as a set, for comparing site maps of crawlers that write pages in a different order.
+ */
+final class SiteMapLines {
+
+    private SiteMapLines() {
+    }
+
+    static Set<String> lines(String siteMap) {
+        return new HashSet<>(Arrays.asList(siteMap.split("\n")));
+    }
+}
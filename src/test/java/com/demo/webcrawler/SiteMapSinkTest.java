@@ -0,0 +1,90 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+
+public class SiteMapSinkTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html>" +
+                    "<head>" +
+                        "<link rel=\"stylesheet\" type=\"text/css\" href=\"/static/main.css\"  />" +
+                        "<script type=\"text/javascript\" src=\"/static/main.js\"></script>" +
+                    "</head>" +
+                    "<a href=\"/child1\"><img src=\"/static/logo.gif\" ></a>" +
+                    "<a href=\"http://google.com\">Google</a>" +
+                "</html>");
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test
+    public void testEntryTypes() {
+        // prepare
+        List<SiteMapEntry> entries = new ArrayList<>();
+        SiteMapSink siteMapSink = new SiteMapSink() {
+            @Override
+            public void add(SiteMapEntry entry) {
+                entries.add(entry);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // act
+        new WebCrawler(1000, 1).createSiteMap(mockUrl("/"), siteMapSink);
+
+        // assert
+        assertEquals(Arrays.asList(
+                SiteMapEntry.Type.PAGE,
+                SiteMapEntry.Type.CSS,
+                SiteMapEntry.Type.JS,
+                SiteMapEntry.Type.IMAGE,
+                SiteMapEntry.Type.ERROR,
+                SiteMapEntry.Type.EXTERNAL_LINK),
+                entries.stream().map(SiteMapEntry::getType).collect(Collectors.toList()));
+        assertEquals(mockUrl("/child1"), entries.get(4).getUrl());
+        assertEquals("HTTP error fetching URL", entries.get(4).getMessage());
+    }
+
+    @Test
+    public void testFileSinkMatchesInMemorySiteMap() throws IOException {
+        // prepare
+        Crawler crawler = new WebCrawler(1000, 1);
+        Path outputFile = Files.createTempFile("siteMap", ".txt");
+
+        // act
+        try (SiteMapSink siteMapSink = new FileSiteMapSink(outputFile)) {
+            crawler.createSiteMap(mockUrl("/"), siteMapSink);
+        }
+
+        // assert
+        assertEquals(crawler.createSiteMap(mockUrl("/")), new String(Files.readAllBytes(outputFile), "utf-8"));
+        Files.delete(outputFile);
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.demo.webcrawler;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs all the WebCrawlerTest cases with StreamingLinkExtractor and compares both extractors on trickier pages.
+ */
+public class StreamingLinkExtractorTest extends WebCrawlerTest {
+
+    @Override
+    protected Crawler createCrawler(int pageTimeoutInMillis, int maxSearchDepth) {
+        return new WebCrawler(new CrawlerConfig()
+                .withMaxSearchDepth(maxSearchDepth)
+                .withPageFetcher(new PooledHttpPageFetcher(pageTimeoutInMillis, pageTimeoutInMillis))
+                .withLinkExtractor(new StreamingLinkExtractor()));
+    }
+
+    @Test
+    public void testSameLinksAsJsoup() throws IOException {
+        assertSameLinksAsJsoup("");
+        assertSameLinksAsJsoup("<html><body>no links</body></html>");
+        assertSameLinksAsJsoup("<A HREF='/child1'>upper case</A><a href=/child2 class=x>unquoted</a><a\nhref\n=\n\"/child3\">new lines</a>");
+        assertSameLinksAsJsoup("<a href=\"/search?q=1&amp;page=2\">entities</a><a href=\"/caf&eacute;\">named</a><a href=\"&#47;child4\">numeric</a>");
+        assertSameLinksAsJsoup("<!-- <a href=\"/commented\">x</a> --><a href=\"/child1\">1</a><!--> <a href=\"/child2\">2</a>");
+        assertSameLinksAsJsoup("<!DOCTYPE html><?xml version=\"1.0\"?><a href=\"/child1\">1</a>");
+        assertSameLinksAsJsoup("<script type=\"text/javascript\" src=\"/main.js\">document.write('<a href=\"/scripted\">x</a>')</script><a href=\"/child1\">1</a>");
+        assertSameLinksAsJsoup("<style>a > b { } <img src=\"/styled.png\"></style><textarea><a href=\"/text\"></textarea><title><img src=\"/title.png\"></title>");
+        assertSameLinksAsJsoup("<script>if (a < b && c </scripts) {}</SCRIPT ><img src=\"/after-script.png\">");
+        assertSameLinksAsJsoup("<link rel=\"STYLESHEET\" href=\"/a.css\"><link rel=\" stylesheet \" href=\"/b.css\"><link rel=\"icon\" href=\"/favicon.ico\">");
+        assertSameLinksAsJsoup("<script src=\"/untyped.js\"></script><script type=\"TEXT/JAVASCRIPT\" src=\"/typed.js\"></script><script type=\"module\" src=\"/module.js\"></script>");
+        assertSameLinksAsJsoup("<img src=\"/a.png\"/><img alt=\"no src\"><image src=\"/b.png\"><a href=\"\">empty</a><a href=\"#top\">hash</a>");
+        assertSameLinksAsJsoup("<a href=\"http://www.google.com\">external</a><a href=\"www.twitter.com\">external</a><a href=\"//other.domain/page\">protocol relative</a>");
+        assertSameLinksAsJsoup("text with < and <3 and a<b <a href=\"/child1\">1</a> <a href=\"/unfinished\"");
+    }
+
+    @Test
+    public void testCharset() throws IOException {
+        // prepare
+        byte[] body = "<meta charset=\"ISO-8859-2\"><a href=\"/zażółć\">polish</a>".getBytes("ISO-8859-2");
+
+        // act & assert
+        assertSameLinksAsJsoup(new FetchedPage("http://some.domain/", 200, "text/html", body));
+        assertSameLinksAsJsoup(new FetchedPage("http://some.domain/", 200, "text/html; charset=ISO-8859-2", body));
+    }
+
+    @Test
+    public void testMultiByteCharsAcrossDecodeWindows() throws IOException {
+        // prepare
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 3000; i++) {
+            html.append("ż€ <a href=\"/strona-").append(i).append("-żółć\">").append(i).append("</a>\n");
+        }
+        html.append("<a href=\"/koniec\">end</a><img src=\"/obraz-€.png\"></body></html>");
+
+        // act & assert
+        assertSameLinksAsJsoup(html.toString());
+        assertSameLinksAsJsoup(new FetchedPage("http://some.domain/", 200, "text/html; charset=UTF-8",
+                new byte[]{'<', 'a', ' ', 'h', 'r', 'e', 'f', '=', '"', '/', (byte) 0xc5, '"', '>', '<', '/', 'a', '>', (byte) 0xe2, (byte) 0x82}));
+    }
+
+    @Test
+    public void testNamesMatchedInPlace() throws IOException {
+        assertSameLinksAsJsoup("<a hreflang=\"en\" href=\"/child1\">1</a><a data-href=\"/data\" HrEf=\"/child2\">2</a><abbr href=\"/abbr\">x</abbr>");
+        assertSameLinksAsJsoup("<img srcset=\"/set.png 2x\" src=\"/a.png\"><imgs src=\"/b.png\"><IMG SRC=\"/c.png\"><linker rel=stylesheet href=\"/d.css\">");
+        assertSameLinksAsJsoup("<scripts><a href=\"/after-scripts\">x</a></scripts><script>\"</scriptx>\" <a href=\"/in-script\"></script><a href=\"/child3\">3</a>");
+    }
+
+    @Test
+    public void testMarkupAcrossDecodeWindows() throws IOException {
+        String markup = "<!-- <a href=\"/commented\"> --><script>x = '</scrip' + '<a href=\"/scripted\">'</SCRIPT>"
+                + "<LINK REL=\"stylesheet\" HREF=\"/style.css\"><a hreflang=\"en\" href=\"/child1\">1</a><img src=\"/image.png\">";
+        for (int padding = 8192 - markup.length(); padding <= 8192 + 16; padding++) {
+            // act & assert, every part of the markup is cut by the end of the first window once
+            assertSameLinksAsJsoup(String.join("", Collections.nCopies(padding, " ")) + markup);
+        }
+    }
+
+    private void assertSameLinksAsJsoup(String html) throws IOException {
+        assertSameLinksAsJsoup(new FetchedPage("http://some.domain/parent/", 200, "text/html; charset=UTF-8", html.getBytes("UTF-8")));
+    }
+
+    private void assertSameLinksAsJsoup(FetchedPage fetchedPage) throws IOException {
+        PageLinks expected = new JsoupLinkExtractor().extract(fetchedPage);
+        PageLinks actual = new StreamingLinkExtractor().extract(fetchedPage);
+
+        String page = new String(fetchedPage.getBody(), "ISO-8859-1");
+        assertEquals(page, urls(expected.getChildPages()), urls(actual.getChildPages()));
+        assertEquals(page, urls(expected.getCssFiles()), urls(actual.getCssFiles()));
+        assertEquals(page, urls(expected.getJsFiles()), urls(actual.getJsFiles()));
+        assertEquals(page, urls(expected.getImageUrls()), urls(actual.getImageUrls()));
+    }
+
+    private static List<String> urls(List<WebUrl> webUrls) {
+        return webUrls.stream().map(WebUrl::toString).collect(Collectors.toList());
+    }
+
+}
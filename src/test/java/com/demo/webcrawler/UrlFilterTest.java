@@ -0,0 +1,153 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static net.jadler.Jadler.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UrlFilterTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test
+    public void testIncludeAndExcludePatterns() {
+        // prepare
+        CrawlMetrics metrics = new CrawlMetrics();
+        FrontierFilter filter = new FrontierFilter(new UrlFilter(Arrays.asList("/blog/", "/news/"), Collections.singletonList("\\?print=|/tag/"), 0, 0, 0),
+                metrics);
+
+        // act & assert
+        assertTrue(filter.isAllowed("http://some.domain/blog/post1"));
+        assertTrue(filter.isAllowed("http://some.domain/news/today"));
+        assertFalse(filter.isAllowed("http://some.domain/shop/item1"));
+        assertFalse(filter.isAllowed("http://some.domain/blog/post1?print=1"));
+        assertFalse(filter.isAllowed("http://some.domain/blog/tag/java"));
+        Map<String, Long> expected = new HashMap<>();
+        expected.put(FrontierFilter.NOT_INCLUDED, 1L);
+        expected.put(FrontierFilter.EXCLUDED, 2L);
+        assertEquals(expected, metrics.getFilteredLinksByReason());
+    }
+
+    @Test
+    public void testPathDepthAndRepeatedSegments() {
+        // prepare
+        FrontierFilter filter = new FrontierFilter(new UrlFilter(Collections.emptyList(), Collections.emptyList(), 4, 2, 0), new CrawlMetrics());
+
+        // act & assert
+        assertTrue(filter.isAllowed("http://some.domain"));
+        assertTrue(filter.isAllowed("http://some.domain/a/b/c/d?x=/e/f/g"));
+        assertFalse(filter.isAllowed("http://some.domain/a/b/c/d/e"));
+        assertTrue(filter.isAllowed("http://some.domain/a/b/a/"));
+        assertFalse(filter.isAllowed("http://some.domain/a/a/a/"));
+    }
+
+    @Test
+    public void testParameterValuesPerPath() {
+        // prepare
+        FrontierFilter filter = new FrontierFilter(new UrlFilter(Collections.emptyList(), Collections.emptyList(), 0, 0, 2), new CrawlMetrics());
+
+        // act & assert
+        assertTrue(filter.isAllowed("http://some.domain/calendar?month=1&year=2016"));
+        assertTrue(filter.isAllowed("http://some.domain/calendar?month=2&year=2016"));
+        assertFalse(filter.isAllowed("http://some.domain/calendar?month=3&year=2016"));
+        assertTrue(filter.isAllowed("http://some.domain/calendar?month=1&year=2016"));// seen before
+        assertTrue(filter.isAllowed("http://some.domain/calendar?month=2&year=2017"));
+        assertFalse(filter.isAllowed("http://some.domain/calendar?month=2&year=2018"));
+        assertTrue(filter.isAllowed("http://some.domain/events?month=3"));// other path
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPattern() {
+        new UrlFilter(Collections.singletonList("(unclosed"), Collections.emptyList(), 0, 0, 0);
+    }
+
+    @Test
+    public void testRelativeLinkTrap() {
+        // prepare
+        onRequest().havingPath(startsWith("/a/")).respond().withBody("<html><a href=\"a/\">Deeper</a></html>");
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new WebCrawler(new CrawlerConfig().withMaxSearchDepth(10).withMetrics(metrics)
+                .withUrlFilter(UrlFilter.trapDetection()));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/a/"));
+
+        // assert
+        assertEquals(
+                mockUrl("/a/") + "\n" +
+                mockUrl("/a/a/") + "\n"
+                , siteMap);
+        assertEquals(Collections.singletonMap(FrontierFilter.REPEATED_SEGMENTS, 1L), metrics.getFilteredLinksByReason());
+    }
+
+    @Test
+    public void testExcludedSitemapPages() {
+        // prepare
+        onRequest().havingPathEqualTo("/sitemap.xml").respond().withBody("<urlset>" +
+                "<url><loc>" + mockUrl("/orphan") + "</loc></url>" +
+                "<url><loc>" + mockUrl("/print/orphan") + "</loc></url>" +
+                "</urlset>");
+        onRequest().havingPathEqualTo("/").respond().withBody("");
+        onRequest().havingPathEqualTo("/orphan").respond().withBody("");
+        CrawlerConfig config = new CrawlerConfig().withMaxSearchDepth(1).withSitemaps(100)
+                .withUrlFilter(new UrlFilter(Collections.emptyList(), Collections.singletonList("/print/"), 0, 0, 0));
+
+        for (Crawler crawler : Arrays.asList(new WebCrawler(config), new WebCrawler(new CrawlerConfig().withMaxSearchDepth(1).withSitemaps(100)
+                .withCrawlOrder(CrawlerConfig.CrawlOrder.BREADTH_FIRST).withUrlFilter(config.getUrlFilter())),
+                new ConcurrentWebCrawler(config), new PipelinedWebCrawler(config))) {
+            // act
+            String siteMap = crawler.createSiteMap(mockUrl("/"));
+
+            // assert
+            assertEquals(new HashSet<>(Arrays.asList(mockUrl("/"), mockUrl("/orphan"))), new HashSet<>(Arrays.asList(siteMap.split("\n"))));
+        }
+        verifyThatRequest().havingPathEqualTo("/print/orphan").receivedNever();
+    }
+
+    @Test
+    public void testCalendarTrap() {
+        // prepare
+        for (int month = 1; month <= 10; month++) {
+            onRequest().havingPathEqualTo("/calendar").havingQueryStringEqualTo("month=" + month).respond()
+                    .withBody("<html><a href=\"/calendar?month=" + (month + 1) + "\">Next</a></html>");
+        }
+        CrawlMetrics metrics = new CrawlMetrics();
+        Crawler crawler = new ConcurrentWebCrawler(new CrawlerConfig().withMaxSearchDepth(10).withMetrics(metrics)
+                .withUrlFilter(new UrlFilter(Collections.emptyList(), Collections.emptyList(), 0, 0, 3)));
+
+        // act
+        String siteMap = crawler.createSiteMap(mockUrl("/calendar?month=1"));
+
+        // assert
+        assertEquals(
+                mockUrl("/calendar?month=1") + "\n" +
+                mockUrl("/calendar?month=2") + "\n" +
+                mockUrl("/calendar?month=3") + "\n" +
+                mockUrl("/calendar?month=4") + "\n"
+                , siteMap);// the base url is not counted
+        verifyThatRequest().havingQueryStringEqualTo("month=5").receivedNever();
+    }
+}
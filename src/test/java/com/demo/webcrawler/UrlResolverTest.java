@@ -0,0 +1,161 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UrlResolverTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test
+    public void testRfc3986Examples() {
+        // RFC 3986, section 5.4
+        UrlResolver resolver = UrlResolver.of("http://a/b/c/d;p?q");
+
+        // normal examples
+        assertEquals("http://g/", resolver.resolve("//g"));
+        assertEquals("http://a/b/c/g", resolver.resolve("g"));
+        assertEquals("http://a/b/c/g", resolver.resolve("./g"));
+        assertEquals("http://a/b/c/g/", resolver.resolve("g/"));
+        assertEquals("http://a/g", resolver.resolve("/g"));
+        assertEquals("http://a/b/c/d;p?y", resolver.resolve("?y"));
+        assertEquals("http://a/b/c/g?y", resolver.resolve("g?y"));
+        assertEquals("http://a/b/c/d;p?q", resolver.resolve("#s"));
+        assertEquals("http://a/b/c/g", resolver.resolve("g#s"));
+        assertEquals("http://a/b/c/g?y", resolver.resolve("g?y#s"));
+        assertEquals("http://a/b/c/;x", resolver.resolve(";x"));
+        assertEquals("http://a/b/c/g;x", resolver.resolve("g;x"));
+        assertEquals("http://a/b/c/", resolver.resolve("."));
+        assertEquals("http://a/b/c/", resolver.resolve("./"));
+        assertEquals("http://a/b/", resolver.resolve(".."));
+        assertEquals("http://a/b/", resolver.resolve("../"));
+        assertEquals("http://a/b/g", resolver.resolve("../g"));
+        assertEquals("http://a/", resolver.resolve("../.."));
+        assertEquals("http://a/", resolver.resolve("../../"));
+        assertEquals("http://a/g", resolver.resolve("../../g"));
+
+        // backward compatible reading of a link with the page scheme (section 5.4.2)
+        assertEquals("http://a/b/c/g", resolver.resolve("http:g"));
+
+        // abnormal examples
+        assertEquals("http://a/g", resolver.resolve("../../../g"));
+        assertEquals("http://a/g", resolver.resolve("../../../../g"));
+        assertEquals("http://a/g", resolver.resolve("/./g"));
+        assertEquals("http://a/g", resolver.resolve("/../g"));
+        assertEquals("http://a/b/c/g.", resolver.resolve("g."));
+        assertEquals("http://a/b/c/.g", resolver.resolve(".g"));
+        assertEquals("http://a/b/c/g..", resolver.resolve("g.."));
+        assertEquals("http://a/b/c/..g", resolver.resolve("..g"));
+        assertEquals("http://a/b/g", resolver.resolve("./../g"));
+        assertEquals("http://a/b/c/g/", resolver.resolve("./g/."));
+        assertEquals("http://a/b/c/g/h", resolver.resolve("g/./h"));
+        assertEquals("http://a/b/c/h", resolver.resolve("g/../h"));
+        assertEquals("http://a/b/c/g;x=1/y", resolver.resolve("g;x=1/./y"));
+        assertEquals("http://a/b/c/y", resolver.resolve("g;x=1/../y"));
+        assertEquals("http://a/b/c/g?y/./x", resolver.resolve("g?y/./x"));
+        assertEquals("http://a/b/c/g?y/../x", resolver.resolve("g?y/../x"));
+    }
+
+    @Test
+    public void testNormalization() {
+        assertEquals("http://some.domain/", UrlResolver.normalize("HTTP://Some.Domain"));
+        assertEquals("http://some.domain/a", UrlResolver.normalize("http://some.domain:80/a"));
+        assertEquals("https://some.domain/a", UrlResolver.normalize("https://some.domain:443/a"));
+        assertEquals("http://some.domain:8080/a", UrlResolver.normalize("http://some.domain:8080/a"));
+        assertEquals("https://some.domain:80/a", UrlResolver.normalize("https://some.domain:80/a"));
+        assertEquals("http://some.domain/~user/a%2Fb?q=%3D", UrlResolver.normalize("http://some.domain/%7euser/a%2fb?q=%3d#top"));
+        assertEquals("http://some.domain/a%20b/za%C5%BC%C3%B3%C5%82%C4%87?q=a%20b", UrlResolver.normalize("http://some.domain/a b/zażółć?q=a b"));
+        assertEquals("http://some.domain/100%25", UrlResolver.normalize("http://some.domain/100%"));
+        assertEquals("http://user@some.domain/", UrlResolver.normalize("http://user@Some.Domain/"));
+        assertEquals("http://[::1]:8080/", UrlResolver.normalize("http://[::1]:8080"));
+
+        assertNull(UrlResolver.normalize("http://google:com"));
+        assertNull(UrlResolver.normalize("http://some.domain:99999/"));
+        assertNull(UrlResolver.normalize("ftp://some.domain/"));
+        assertNull(UrlResolver.normalize("some.domain/page"));
+        assertNull(UrlResolver.normalize("http:///page"));
+    }
+
+    @Test
+    public void testResolveLinks() {
+        UrlResolver resolver = UrlResolver.of("http://some.domain/parent/page?x=1");
+
+        assertEquals("http://some.domain/parent/child", resolver.resolve("child"));
+        assertEquals("http://some.domain/parent/child", resolver.resolve("  child\n"));
+        assertEquals("http://some.domain/child", resolver.resolve("HTTP://SOME.DOMAIN:80/parent/../child#section"));
+        assertEquals("http://some.domain/parent/page?y=2", resolver.resolve("?y=2"));
+        assertEquals("https://some.domain/secure", resolver.resolve("https://some.domain/secure"));
+        assertEquals("http://cdn.domain/file.js", resolver.resolve("//cdn.domain/file.js"));
+        assertEquals("http://some.domain/a/b", resolver.resolve("\\a\\b"));
+        assertEquals("http://some.domain/parent/relative", resolver.resolve("http:relative"));
+        assertEquals("http://some.domain/relative", resolver.resolve("http:/relative"));
+        assertEquals("http://some.domain/parent/page?x=1", resolver.resolve("http:"));
+        assertEquals("http://other.domain/path", resolver.resolve("\\\\other.domain\\path"));
+        assertEquals("http://other.domain/path", resolver.resolve("/\\other.domain/path"));
+        assertEquals("https://other.domain/", resolver.resolve("https:\\\\other.domain"));
+
+        assertNull(resolver.resolve("mailto:someone@some.domain"));
+        assertNull(resolver.resolve("javascript:void(0)"));
+        assertNull(resolver.resolve("http://bad host/"));
+        assertNull(resolver.resolve("https:/relative"));
+        assertNull(resolver.resolve("\\\\"));
+
+        assertTrue(resolver.isSameOrigin("http://some.domain/other"));
+        assertTrue(resolver.isSameOrigin("http://some.domain?x"));
+        assertFalse(resolver.isSameOrigin("https://some.domain/other"));
+        assertFalse(resolver.isSameOrigin("http://some.domain.evil/other"));
+        assertFalse(resolver.isSameOrigin("http://some.domain:8080/other"));
+    }
+
+    @Test
+    public void testSamePageSpelledDifferentlyIsFetchedOnce() {
+        //prepare
+        String baseUrl = mockUrl("/parent/");
+        onRequest().havingPathEqualTo("/parent/").respond().withBody(
+                "<html>" +
+                    "<a href=\"child1\">relative</a>" +
+                    "<a href=\"./child1#top\">dot segment and fragment</a>" +
+                    "<a href=\"../parent/child1\">parent segment</a>" +
+                    "<a href=\"HTTP://LOCALHOST:" + port() + "/parent/child1\">upper case</a>" +
+                    "<a href=\"/parent/%63hild1\">percent encoded</a>" +
+                    "<a href=\"/parent\">parent without slash</a>" +
+                    "<a href=\"./\">parent itself</a>" +
+                "</html>");
+        onRequest().havingPathEqualTo("/parent/child1").respond().withBody("");
+        onRequest().havingPathEqualTo("/parent").respond().withBody("");
+
+        // act
+        String siteMap = new WebCrawler(1000, 2).createSiteMap(baseUrl);
+        String concurrentSiteMap = new ConcurrentWebCrawler(1000, 2, 4).createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(
+                baseUrl + "\n" +
+                mockUrl("/parent") + "\n" +
+                mockUrl("/parent/child1") + "\n"
+                , siteMap);
+        assertEquals(siteMap.length(), concurrentSiteMap.length());
+        verifyThatRequest().havingPathEqualTo("/parent/child1").receivedTimes(2);// once per crawler
+        verifyThatRequest().havingPathEqualTo("/parent/").receivedTimes(2);
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.demo.webcrawler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static net.jadler.Jadler.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VisitedUrlsTest {
+
+    @Before
+    public void setUp() {
+        initJadler();
+    }
+
+    @After
+    public void tearDown() {
+        closeJadler();
+    }
+
+    private String mockUrl(String path) {
+        return "http://localhost:" + port() + path;
+    }
+
+    @Test
+    public void testVisitedUrls() {
+        testVisitedUrls(new HashSetVisitedUrls());
+        testVisitedUrls(new FingerprintVisitedUrls(10, false));
+        testVisitedUrls(new FingerprintVisitedUrls(10, true));
+        testVisitedUrls(new BloomFilteredVisitedUrls(new FingerprintVisitedUrls(10, false), 10));
+    }
+
+    private void testVisitedUrls(VisitedUrls visitedUrls) {
+        // act
+        for (int i = 0; i < 50000; i++) {
+            assertTrue(visitedUrls.add("http://some.domain/page" + i));
+        }
+
+        // assert
+        assertEquals(50000, visitedUrls.size());
+        for (int i = 0; i < 50000; i++) {
+            assertFalse(visitedUrls.add("http://some.domain/page" + i));
+            assertTrue(visitedUrls.contains("http://some.domain/page" + i));
+            assertFalse(visitedUrls.contains("http://some.domain/other" + i));
+        }
+        assertEquals(50000, visitedUrls.size());
+    }
+
+    @Test
+    public void testFingerprintTableOccupancy() {
+        // prepare
+        FingerprintVisitedUrls visitedUrls = new FingerprintVisitedUrls(1000, true);
+
+        // act
+        for (int i = 0; i < 10000; i++) {
+            visitedUrls.add("http://some.domain/page" + i);
+        }
+
+        // assert
+        assertTrue(visitedUrls.occupancy() <= 0.5);
+        assertEquals(32768, visitedUrls.capacity());
+        assertEquals(32768 * 8, visitedUrls.memoryInBytes());
+    }
+
+    @Test
+    public void testBloomFilterFalsePositiveRate() {
+        // prepare
+        BloomFilteredVisitedUrls visitedUrls = new BloomFilteredVisitedUrls(new HashSetVisitedUrls(), 10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            visitedUrls.add("http://some.domain/page" + i);
+        }
+
+        // act
+        for (int i = 0; i < 10000; i++) {
+            visitedUrls.contains("http://some.domain/other" + i);
+        }
+
+        // assert
+        assertEquals(20000, visitedUrls.lookups());
+        assertTrue(visitedUrls.falsePositiveRate() < 0.03);
+        assertEquals(0.01, visitedUrls.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBloomFilterTooLarge() {
+        new BloomFilteredVisitedUrls(new HashSetVisitedUrls(), Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    public void testCrawlerWithFingerprintVisitedUrls() {
+        //prepare
+        String baseUrl = mockUrl("/");
+        onRequest().havingPathEqualTo("/").respond().withBody(
+                "<html><a href=\"/child1\">Child 1</a></html>");
+        onRequest().havingPathEqualTo("/child1").respond().withBody(
+                "<html><a href=\"/\">Home</a><a href=\"/child1\">Self</a></html>");
+        CrawlerConfig config = new CrawlerConfig()
+                .withMaxSearchDepth(5)
+                .withVisitedUrls(() -> new BloomFilteredVisitedUrls(new FingerprintVisitedUrls(10, true), 10));
+
+        // act
+        String siteMap = new WebCrawler(config).createSiteMap(baseUrl);
+        String concurrentSiteMap = new ConcurrentWebCrawler(config).createSiteMap(baseUrl);
+
+        // assert
+        assertEquals(baseUrl + "\n" + mockUrl("/child1") + "\n", siteMap);
+        assertEquals(siteMap, concurrentSiteMap);
+    }
+
+}
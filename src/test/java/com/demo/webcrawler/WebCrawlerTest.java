@@ -24,7 +24,7 @@ public class WebCrawlerTest {
     @Before
     public void setUp() {
         initJadler();
-        crawler = new WebCrawler(1000, 5);
+        crawler = createCrawler(1000, 5);
     }
 
     @After
@@ -32,6 +32,13 @@ public class WebCrawlerTest {
         closeJadler();
     }
 
+    /**
+     * Overridden to run the same tests against other crawler set-ups.
+     */
+    protected Crawler createCrawler(int pageTimeoutInMillis, int maxSearchDepth) {
+        return new WebCrawler(pageTimeoutInMillis, maxSearchDepth);
+    }
+
     private String mockUrl(String path) {
         return "http://localhost:" + port() + path;
     }
@@ -178,7 +185,7 @@ public class WebCrawlerTest {
     @Test
     public void testChildNotDirectlyUnderParentUrl() {
         //prepare
-        crawler = new WebCrawler(1000, 3);
+        crawler = createCrawler(1000, 3);
         String baseUrl = mockUrl("/blog");
         onRequest().havingPathEqualTo("/blog").respond().withBody(
                 "<html><a href=\"" + mockUrl("/2016/01") + "\">2016/01</a></html>");
@@ -212,7 +219,7 @@ public class WebCrawlerTest {
     @Test
     public void testPageReadTimeout() {
         //prepare
-        crawler = new WebCrawler(100);// TIMEOUT=100ms
+        crawler = createCrawler(100, CrawlerConfig.DEFAULT_MAX_SEARCH_DEPTH);// TIMEOUT=100ms
         String baseUrl = mockUrl("/parent/");
         onRequest().havingPathEqualTo("/parent/").respond().withBody(
                 "<html><a href=\"/child1\">Child 1</a></html>");
@@ -348,7 +355,7 @@ public class WebCrawlerTest {
         //prepare
         int maxSearchDepth = 2;
         int pageTimeoutInMillis = 2000;
-        crawler = new WebCrawler(pageTimeoutInMillis, maxSearchDepth);
+        crawler = createCrawler(pageTimeoutInMillis, maxSearchDepth);
         String baseUrl = mockUrl("/");
         onRequest().havingPathEqualTo("/").respond().withBody(
                 "<html><a href=\"/child1\">Child 1</a></html>");